@@ -15,6 +15,7 @@
  */
 package org.thingsboard.server.actors;
 
+import com.datastax.oss.driver.api.core.uuid.Uuids;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -39,6 +40,7 @@ import org.thingsboard.rule.engine.api.notification.SlackService;
 import org.thingsboard.rule.engine.api.sms.SmsSenderFactory;
 import org.thingsboard.script.api.js.JsInvokeService;
 import org.thingsboard.script.api.tbel.TbelInvokeService;
+import org.thingsboard.server.actors.ruleChain.RuleNodeDebugEventBuffer;
 import org.thingsboard.server.actors.service.ActorService;
 import org.thingsboard.server.actors.tenant.DebugTbRateLimits;
 import org.thingsboard.server.cluster.TbClusterService;
@@ -123,6 +125,8 @@ import org.thingsboard.server.service.transport.TbCoreToTransportService;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
@@ -494,6 +498,25 @@ public class ActorSystemContext {
     @Getter
     private long ruleChainErrorPersistFrequency;
 
+    @Value("${actors.rule.chain.inline_nodes:false}")
+    @Getter
+    private boolean ruleChainInlineNodesEnabled;
+
+    @Value("${actors.rule.node.debug_capture.mode:persist}")
+    private String debugCaptureMode;
+
+    @Value("${actors.rule.node.debug_capture.buffer_size:100}")
+    private int debugCaptureBufferSize;
+
+    @Value("${actors.rule.node.debug_capture.sampling_rate:1}")
+    private int debugCaptureSamplingRate;
+
+    @Value("${actors.rule.node.debug_capture.max_event_size:4096}")
+    private int debugCaptureMaxEventSize;
+
+    @Getter
+    private RuleNodeDebugEventBuffer debugEventBuffer;
+
     @Value("${actors.rule.node.error_persist_frequency:3000}")
     @Getter
     private long ruleNodeErrorPersistFrequency;
@@ -520,6 +543,13 @@ public class ActorSystemContext {
     @PostConstruct
     public void init() {
         this.localCacheType = "caffeine".equals(cacheType);
+        if ("buffer".equalsIgnoreCase(debugCaptureMode)) {
+            if (discoveryService.isMonolith()) {
+                this.debugEventBuffer = new RuleNodeDebugEventBuffer(debugCaptureBufferSize, debugCaptureSamplingRate, debugCaptureMaxEventSize);
+            } else {
+                log.warn("Rule node debug capture mode 'buffer' is supported only in monolith mode. Debug events will be persisted.");
+            }
+        }
     }
 
     @Scheduled(fixedDelayString = "${actors.statistics.js_print_interval_ms}")
@@ -577,6 +607,18 @@ public class ActorSystemContext {
     @Getter
     private boolean externalNodeForceAck;
 
+    @Value("${actors.rule.pending_msgs.memory_budget:16777216}")
+    @Getter
+    private long pendingMsgsMemoryBudget;
+
+    @Value("${actors.rule.pending_msgs.spill_dir:}")
+    @Getter
+    private String pendingMsgsSpillDir;
+
+    @Value("${actors.rule.pending_msgs.tick_interval:1000}")
+    @Getter
+    private long pendingMsgsTickInterval;
+
     @Value("${state.rule.node.deviceState.rateLimit:1:1,30:60,60:3600}")
     @Getter
     private String deviceStateNodeRateLimitConfig;
@@ -680,35 +722,69 @@ public class ActorSystemContext {
     }
 
     private void persistDebugAsync(TenantId tenantId, EntityId entityId, String type, TbMsg tbMsg, String relationType, Throwable error, String failureMessage) {
+        if (debugEventBuffer != null && error == null && failureMessage == null) {
+            try {
+                debugEventBuffer.add(entityId.getId(), () -> {
+                    UUID eventId = Uuids.timeBased();
+                    return toDebugEvent(tenantId, entityId, type, tbMsg, relationType, null, null)
+                            .id(eventId).ts(Uuids.unixTimestamp(eventId)).build();
+                });
+            } catch (IllegalArgumentException ex) {
+                log.warn("Failed to capture rule node debug message", ex);
+            }
+            return;
+        }
         if (checkLimits(tenantId, tbMsg, error)) {
             try {
-                RuleNodeDebugEvent.RuleNodeDebugEventBuilder event = RuleNodeDebugEvent.builder()
-                        .tenantId(tenantId)
-                        .entityId(entityId.getId())
-                        .serviceId(getServiceId())
-                        .eventType(type)
-                        .eventEntity(tbMsg.getOriginator())
-                        .msgId(tbMsg.getId())
-                        .msgType(tbMsg.getType())
-                        .dataType(tbMsg.getDataType().name())
-                        .relationType(relationType)
-                        .data(tbMsg.getData())
-                        .metadata(JacksonUtil.toString(tbMsg.getMetaData().getData()));
-
-                if (error != null) {
-                    event.error(toString(error));
-                } else if (failureMessage != null) {
-                    event.error(failureMessage);
-                }
-
-                ListenableFuture<Void> future = eventService.saveAsync(event.build());
-                Futures.addCallback(future, RULE_NODE_DEBUG_EVENT_ERROR_CALLBACK, MoreExecutors.directExecutor());
+                saveDebugEvent(toDebugEvent(tenantId, entityId, type, tbMsg, relationType, error, failureMessage).build());
             } catch (IllegalArgumentException ex) {
                 log.warn("Failed to persist rule node debug message", ex);
             }
         }
     }
 
+    private RuleNodeDebugEvent.RuleNodeDebugEventBuilder toDebugEvent(TenantId tenantId, EntityId entityId, String type, TbMsg tbMsg,
+                                                                      String relationType, Throwable error, String failureMessage) {
+        RuleNodeDebugEvent.RuleNodeDebugEventBuilder event = RuleNodeDebugEvent.builder()
+                .tenantId(tenantId)
+                .entityId(entityId.getId())
+                .serviceId(getServiceId())
+                .eventType(type)
+                .eventEntity(tbMsg.getOriginator())
+                .msgId(tbMsg.getId())
+                .msgType(tbMsg.getType())
+                .dataType(tbMsg.getDataType().name())
+                .relationType(relationType)
+                .data(tbMsg.getData())
+                .metadata(JacksonUtil.toString(tbMsg.getMetaData().getData()));
+
+        if (error != null) {
+            event.error(toString(error));
+        } else if (failureMessage != null) {
+            event.error(failureMessage);
+        }
+        return event;
+    }
+
+    private void saveDebugEvent(RuleNodeDebugEvent event) {
+        ListenableFuture<Void> future = eventService.saveAsync(event);
+        Futures.addCallback(future, RULE_NODE_DEBUG_EVENT_ERROR_CALLBACK, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Persists the debug events captured in memory for the rule node and clears its buffer.
+     *
+     * @return the number of persisted events
+     */
+    public int persistBufferedDebugEvents(UUID ruleNodeId) {
+        if (debugEventBuffer == null) {
+            return 0;
+        }
+        List<RuleNodeDebugEvent> events = debugEventBuffer.drain(ruleNodeId);
+        events.forEach(this::saveDebugEvent);
+        return events.size();
+    }
+
     private boolean checkLimits(TenantId tenantId, TbMsg tbMsg, Throwable error) {
         if (debugPerTenantEnabled) {
             DebugTbRateLimits debugTbRateLimits = debugPerTenantLimits.computeIfAbsent(tenantId, id ->
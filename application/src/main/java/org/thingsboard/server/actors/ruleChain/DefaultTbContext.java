@@ -161,7 +161,11 @@ class DefaultTbContext implements TbContext {
             relationTypes.forEach(relationType -> mainCtx.persistDebugOutput(nodeCtx.getTenantId(), nodeCtx.getSelf().getId(), msg, relationType, th));
         }
         msg.getCallback().onProcessingEnd(nodeCtx.getSelf().getId());
-        nodeCtx.getChainActor().tell(new RuleNodeToRuleChainTellNextMsg(nodeCtx.getSelf().getRuleChainId(), nodeCtx.getSelf().getId(), relationTypes, msg, th != null ? th.getMessage() : null));
+        tellRuleChain(new RuleNodeToRuleChainTellNextMsg(nodeCtx.getSelf().getRuleChainId(), nodeCtx.getSelf().getId(), relationTypes, msg, th != null ? th.getMessage() : null));
+    }
+
+    void tellRuleChain(RuleNodeToRuleChainTellNextMsg msg) {
+        nodeCtx.getChainActor().tell(msg);
     }
 
     @Override
@@ -353,7 +357,7 @@ class DefaultTbContext implements TbContext {
             mainCtx.persistDebugOutput(nodeCtx.getTenantId(), nodeCtx.getSelf().getId(), msg, TbNodeConnectionType.FAILURE, th);
         }
         String failureMessage = getFailureMessage(th);
-        nodeCtx.getChainActor().tell(new RuleNodeToRuleChainTellNextMsg(nodeCtx.getSelf().getRuleChainId(),
+        tellRuleChain(new RuleNodeToRuleChainTellNextMsg(nodeCtx.getSelf().getRuleChainId(),
                 nodeCtx.getSelf().getId(), Collections.singleton(TbNodeConnectionType.FAILURE),
                 msg, failureMessage));
     }
@@ -690,6 +694,21 @@ class DefaultTbContext implements TbContext {
         return mainCtx.getDeviceStateNodeRateLimitConfig();
     }
 
+    @Override
+    public long getPendingMsgsMemoryBudget() {
+        return mainCtx.getPendingMsgsMemoryBudget();
+    }
+
+    @Override
+    public String getPendingMsgsSpillDir() {
+        return mainCtx.getPendingMsgsSpillDir();
+    }
+
+    @Override
+    public long getPendingMsgsTickInterval() {
+        return mainCtx.getPendingMsgsTickInterval();
+    }
+
     @Override
     public TbClusterService getClusterService() {
         return mainCtx.getClusterService();
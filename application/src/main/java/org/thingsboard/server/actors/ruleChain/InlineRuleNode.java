@@ -0,0 +1,82 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors.ruleChain;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.thingsboard.rule.engine.api.TbNode;
+import org.thingsboard.server.common.data.plugin.ComponentLifecycleState;
+import org.thingsboard.server.common.data.rule.RuleNode;
+import org.thingsboard.server.common.msg.queue.RuleNodeInfo;
+
+/**
+ * Instance of the inlineable rule node owned by the rule chain actor.
+ */
+@Getter
+final class InlineRuleNode {
+
+    private final RuleNode ruleNode;
+    private final TbNode tbNode;
+    @Setter
+    private RuleNodeInfo info;
+    @Setter
+    private ComponentLifecycleState state = ComponentLifecycleState.SUSPENDED;
+    private long messagesProcessed;
+    private long errorsOccurred;
+    private long lastPersistedErrorTs;
+
+    InlineRuleNode(RuleNode ruleNode, TbNode tbNode, RuleNodeInfo info) {
+        this.ruleNode = ruleNode;
+        this.tbNode = tbNode;
+        this.info = info;
+    }
+
+    boolean isActive() {
+        return state == ComponentLifecycleState.ACTIVE;
+    }
+
+    void increaseMessagesProcessedCount() {
+        messagesProcessed++;
+    }
+
+    long resetMessagesProcessedCount() {
+        long result = messagesProcessed;
+        messagesProcessed = 0;
+        return result;
+    }
+
+    void increaseErrorsOccurredCount() {
+        errorsOccurred++;
+    }
+
+    long resetErrorsOccurredCount() {
+        long result = errorsOccurred;
+        errorsOccurred = 0;
+        return result;
+    }
+
+    /**
+     * Whether the error that occurred at the given time should be persisted, with the same throttling as the rule node actor uses.
+     */
+    boolean isErrorPersistRequired(long ts, long errorPersistFrequency) {
+        if (ts - lastPersistedErrorTs > errorPersistFrequency) {
+            lastPersistedErrorTs = ts;
+            return true;
+        }
+        return false;
+    }
+
+}
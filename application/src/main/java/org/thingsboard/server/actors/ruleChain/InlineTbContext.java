@@ -0,0 +1,52 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors.ruleChain;
+
+import org.thingsboard.server.actors.ActorSystemContext;
+
+import java.util.Queue;
+
+/**
+ * Context of the rule node executed inline by the rule chain actor.
+ * Outgoing messages produced while the node processes the message are put to the outbox
+ * of the rule chain instead of the actor mailbox. Anything produced later goes to the mailbox as usual.
+ */
+class InlineTbContext extends DefaultTbContext {
+
+    private final Thread thread;
+    private final Queue<RuleNodeToRuleChainTellNextMsg> outbox;
+    private volatile boolean inline = true;
+
+    InlineTbContext(ActorSystemContext mainCtx, String ruleChainName, RuleNodeCtx nodeCtx, Queue<RuleNodeToRuleChainTellNextMsg> outbox) {
+        super(mainCtx, ruleChainName, nodeCtx);
+        this.thread = Thread.currentThread();
+        this.outbox = outbox;
+    }
+
+    @Override
+    void tellRuleChain(RuleNodeToRuleChainTellNextMsg msg) {
+        if (inline && Thread.currentThread() == thread) {
+            outbox.add(msg);
+        } else {
+            super.tellRuleChain(msg);
+        }
+    }
+
+    void complete() {
+        inline = false;
+    }
+
+}
@@ -16,13 +16,17 @@
 package org.thingsboard.server.actors.ruleChain;
 
 import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.rule.engine.api.TbNode;
+import org.thingsboard.rule.engine.api.TbNodeConfiguration;
 import org.thingsboard.server.actors.ActorSystemContext;
 import org.thingsboard.server.actors.TbActorCtx;
 import org.thingsboard.server.actors.TbActorRef;
 import org.thingsboard.server.actors.TbEntityActorId;
 import org.thingsboard.server.actors.service.DefaultActorService;
 import org.thingsboard.server.actors.shared.ComponentMsgProcessor;
+import org.thingsboard.server.actors.stats.StatsPersistMsg;
 import org.thingsboard.server.cluster.TbClusterService;
+import org.thingsboard.server.common.data.ApiUsageRecordKey;
 import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.RuleChainId;
@@ -42,6 +46,7 @@ import org.thingsboard.server.common.msg.queue.PartitionChangeMsg;
 import org.thingsboard.server.common.msg.queue.QueueToRuleEngineMsg;
 import org.thingsboard.server.common.msg.queue.RuleEngineException;
 import org.thingsboard.server.common.msg.queue.RuleNodeException;
+import org.thingsboard.server.common.msg.queue.RuleNodeInfo;
 import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
 import org.thingsboard.server.common.stats.TbApiUsageReportClient;
 import org.thingsboard.server.dao.rule.RuleChainService;
@@ -50,11 +55,13 @@ import org.thingsboard.server.queue.TbQueueCallback;
 import org.thingsboard.server.queue.common.MultipleTbQueueTbMsgCallbackWrapper;
 import org.thingsboard.server.queue.common.TbQueueTbMsgCallbackWrapper;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -73,6 +80,10 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
     private final RuleChainService service;
     private final TbClusterService clusterService;
     private final TbApiUsageReportClient apiUsageClient;
+    private final boolean inlineNodesEnabled;
+    private final Map<RuleNodeId, InlineRuleNode> inlineNodes;
+    private final Queue<RuleNodeToRuleChainTellNextMsg> inlineOutbox;
+    private boolean inlineProcessing;
     private String ruleChainName;
 
     private RuleNodeId firstId;
@@ -89,6 +100,9 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
         this.nodeRoutes = new HashMap<>();
         this.service = systemContext.getRuleChainService();
         this.clusterService = systemContext.getClusterService();
+        this.inlineNodesEnabled = systemContext.isRuleChainInlineNodesEnabled();
+        this.inlineNodes = new HashMap<>();
+        this.inlineOutbox = new ArrayDeque<>();
     }
 
     @Override
@@ -107,7 +121,9 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
                 for (RuleNode ruleNode : ruleNodeList) {
                     log.trace("[{}][{}] Creating rule node [{}]: {}", entityId, ruleNode.getId(), ruleNode.getName(), ruleNode);
                     TbActorRef ruleNodeActor = createRuleNodeActor(context, ruleNode);
-                    nodeActors.put(ruleNode.getId(), new RuleNodeCtx(tenantId, self, ruleNodeActor, ruleNode));
+                    RuleNodeCtx ruleNodeCtx = new RuleNodeCtx(tenantId, self, ruleNodeActor, ruleNode);
+                    nodeActors.put(ruleNode.getId(), ruleNodeCtx);
+                    initInlineNode(ruleNodeCtx);
                 }
                 initRoutes(ruleChain, ruleNodeList);
                 started = true;
@@ -129,11 +145,14 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
                 if (existing == null) {
                     log.trace("[{}][{}] Creating rule node [{}]: {}", entityId, ruleNode.getId(), ruleNode.getName(), ruleNode);
                     TbActorRef ruleNodeActor = createRuleNodeActor(context, ruleNode);
-                    nodeActors.put(ruleNode.getId(), new RuleNodeCtx(tenantId, self, ruleNodeActor, ruleNode));
+                    RuleNodeCtx ruleNodeCtx = new RuleNodeCtx(tenantId, self, ruleNodeActor, ruleNode);
+                    nodeActors.put(ruleNode.getId(), ruleNodeCtx);
+                    initInlineNode(ruleNodeCtx);
                 } else {
                     log.trace("[{}][{}] Updating rule node [{}]: {}", entityId, ruleNode.getId(), ruleNode.getName(), ruleNode);
                     existing.setSelf(ruleNode);
                     existing.getSelfActor().tellWithHighPriority(new RuleNodeUpdatedMsg(tenantId, existing.getSelf().getId()));
+                    updateInlineNode(existing);
                 }
             }
 
@@ -143,6 +162,7 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
                 log.trace("[{}][{}] Removing rule node [{}]", tenantId, entityId, ruleNodeId);
                 RuleNodeCtx removed = nodeActors.remove(ruleNodeId);
                 removed.getSelfActor().tellWithHighPriority(new ComponentLifecycleMsg(tenantId, removed.getSelf().getId(), ComponentLifecycleEvent.DELETED));
+                destroyInlineNode(ruleNodeId);
             });
 
             initRoutes(ruleChain, ruleNodeList);
@@ -153,6 +173,7 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
     public void stop(TbActorCtx ctx) {
         log.trace("[{}][{}] Stopping rule chain with {} nodes", tenantId, entityId, nodeActors.size());
         nodeActors.values().stream().map(RuleNodeCtx::getSelfActor).map(TbActorRef::getActorId).forEach(ctx::stop);
+        new ArrayList<>(inlineNodes.keySet()).forEach(this::destroyInlineNode);
         nodeActors.clear();
         nodeRoutes.clear();
         started = false;
@@ -171,6 +192,85 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
                 () -> true);
     }
 
+    /**
+     * Creates and initializes the instance of the inlineable node owned by the rule chain actor.
+     * The rule node actor still initializes its own instance, used for the self messages and as the fallback,
+     * so the node is initialized twice: that is why only the nodes without external side effects in init are inlineable.
+     */
+    private void initInlineNode(RuleNodeCtx nodeCtx) {
+        RuleNode ruleNode = nodeCtx.getSelf();
+        if (!inlineNodesEnabled || ruleNode.isSingletonMode()) {
+            return;
+        }
+        try {
+            Class<?> componentClazz = Class.forName(ruleNode.getType());
+            var annotation = componentClazz.getAnnotation(org.thingsboard.rule.engine.api.RuleNode.class);
+            if (annotation == null || !annotation.inlineable()) {
+                return;
+            }
+            TbNode tbNode = (TbNode) componentClazz.getDeclaredConstructor().newInstance();
+            InlineRuleNode inlineNode = new InlineRuleNode(ruleNode, tbNode, new RuleNodeInfo(ruleNode.getId(), ruleChainName, ruleNode.getName()));
+            inlineNodes.put(ruleNode.getId(), inlineNode);
+            try {
+                tbNode.init(new DefaultTbContext(systemContext, ruleChainName, nodeCtx), new TbNodeConfiguration(ruleNode.getConfiguration()));
+                inlineNode.setState(ComponentLifecycleState.ACTIVE);
+                log.trace("[{}][{}] Rule node [{}] will be executed inline", tenantId, entityId, ruleNode.getId());
+            } catch (Exception e) {
+                log.debug("[{}][{}] Failed to init rule node [{}] for inline execution. Using the rule node actor", tenantId, entityId, ruleNode.getId(), e);
+            }
+        } catch (Exception e) {
+            log.debug("[{}][{}] Failed to create rule node [{}] for inline execution. Using the rule node actor", tenantId, entityId, ruleNode.getId(), e);
+        }
+    }
+
+    private void updateInlineNode(RuleNodeCtx nodeCtx) {
+        RuleNode ruleNode = nodeCtx.getSelf();
+        InlineRuleNode existing = inlineNodes.get(ruleNode.getId());
+        if (existing != null && existing.isActive() && existing.getRuleNode().getType().equals(ruleNode.getType())
+                && existing.getRuleNode().getConfiguration().equals(ruleNode.getConfiguration())
+                && existing.getRuleNode().isSingletonMode() == ruleNode.isSingletonMode()) {
+            existing.setInfo(new RuleNodeInfo(ruleNode.getId(), ruleChainName, ruleNode.getName()));
+        } else {
+            destroyInlineNode(ruleNode.getId());
+            initInlineNode(nodeCtx);
+        }
+    }
+
+    private void destroyInlineNode(RuleNodeId ruleNodeId) {
+        InlineRuleNode removed = inlineNodes.remove(ruleNodeId);
+        if (removed != null && removed.isActive()) {
+            removed.setState(ComponentLifecycleState.SUSPENDED);
+            persistInlineNodeStats(removed);
+            try {
+                removed.getTbNode().destroy();
+            } catch (Exception e) {
+                log.debug("[{}][{}] Failed to destroy inline rule node [{}]", tenantId, entityId, ruleNodeId, e);
+            }
+        }
+    }
+
+    void onStatsPersistTick() {
+        inlineNodes.values().forEach(this::persistInlineNodeStats);
+    }
+
+    private void persistInlineNodeStats(InlineRuleNode inlineNode) {
+        long messagesProcessed = inlineNode.resetMessagesProcessedCount();
+        long errorsOccurred = inlineNode.resetErrorsOccurredCount();
+        if (messagesProcessed > 0 || errorsOccurred > 0) {
+            systemContext.getStatsActor().tell(new StatsPersistMsg(messagesProcessed, errorsOccurred, tenantId, inlineNode.getRuleNode().getId()));
+        }
+    }
+
+    private void logAndPersistInlineNodeError(InlineRuleNode inlineNode, Exception e) {
+        inlineNode.increaseErrorsOccurredCount();
+        RuleNodeId ruleNodeId = inlineNode.getRuleNode().getId();
+        log.trace("[{}][{}][{}] Failed to process method: onRuleMsg", ruleNodeId, tenantId, inlineNode.getRuleNode().getName());
+        log.trace("Debug Error: ", e);
+        if (inlineNode.isErrorPersistRequired(System.currentTimeMillis(), systemContext.getRuleNodeErrorPersistFrequency())) {
+            systemContext.persistError(tenantId, ruleNodeId, "onRuleMsg", e);
+        }
+    }
+
     private void initRoutes(RuleChain ruleChain, List<RuleNode> ruleNodeList) {
         nodeRoutes.clear();
         // Populating the routes map;
@@ -389,13 +489,62 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
 
     private void pushMsgToNode(RuleNodeCtx nodeCtx, TbMsg msg, String fromRelationType) {
         if (nodeCtx != null) {
-            nodeCtx.getSelfActor().tell(new RuleChainToRuleNodeMsg(new DefaultTbContext(systemContext, ruleChainName, nodeCtx), msg, fromRelationType));
+            InlineRuleNode inlineNode = inlineNodes.get(nodeCtx.getSelf().getId());
+            if (inlineNode != null && inlineNode.isActive()) {
+                processInline(inlineNode, nodeCtx, msg, fromRelationType);
+            } else {
+                nodeCtx.getSelfActor().tell(new RuleChainToRuleNodeMsg(new DefaultTbContext(systemContext, ruleChainName, nodeCtx), msg, fromRelationType));
+            }
         } else {
             log.error("[{}][{}] RuleNodeCtx is empty", entityId, ruleChainName);
             msg.getCallback().onFailure(new RuleEngineException("Rule Node CTX is empty"));
         }
     }
 
+    /**
+     * Executes the inlineable rule node on the rule chain actor thread, the same way the rule node actor does.
+     * The messages the node passes on are processed in a loop instead of the recursion,
+     * so a run of inlineable nodes costs one actor task instead of two mailbox hand-offs per node.
+     * Only the active nodes are executed inline: a node that failed to initialize goes through its actor,
+     * which fails the message the same way as for any other inactive rule node.
+     */
+    private void processInline(InlineRuleNode inlineNode, RuleNodeCtx nodeCtx, TbMsg msg, String fromRelationType) {
+        InlineTbContext ctx = new InlineTbContext(systemContext, ruleChainName, nodeCtx, inlineOutbox);
+        try {
+            msg.getCallback().onProcessingStart(inlineNode.getInfo());
+            int ruleNodeCount = msg.getAndIncrementRuleNodeCounter();
+            int maxRuleNodeExecutionsPerMessage = getTenantProfileConfiguration().getMaxRuleNodeExecsPerMessage();
+            if (maxRuleNodeExecutionsPerMessage == 0 || ruleNodeCount < maxRuleNodeExecutionsPerMessage) {
+                apiUsageClient.report(tenantId, msg.getCustomerId(), ApiUsageRecordKey.RE_EXEC_COUNT);
+                if (nodeCtx.getSelf().isDebugMode()) {
+                    systemContext.persistDebugInput(tenantId, nodeCtx.getSelf().getId(), msg, fromRelationType);
+                }
+                try {
+                    inlineNode.getTbNode().onMsg(ctx, msg);
+                } catch (Exception e) {
+                    ctx.tellFailure(msg, e);
+                    logAndPersistInlineNodeError(inlineNode, e);
+                }
+                inlineNode.increaseMessagesProcessedCount();
+            } else {
+                msg.getCallback().onFailure(new RuleNodeException("Message is processed by more then " + maxRuleNodeExecutionsPerMessage + " rule nodes!", ruleChainName, nodeCtx.getSelf()));
+            }
+        } finally {
+            ctx.complete();
+        }
+        if (!inlineProcessing) {
+            inlineProcessing = true;
+            try {
+                RuleNodeToRuleChainTellNextMsg next;
+                while ((next = inlineOutbox.poll()) != null) {
+                    onTellNext(next);
+                }
+            } finally {
+                inlineProcessing = false;
+            }
+        }
+    }
+
     @Override
     protected RuleNodeException getInactiveException() {
         RuleNode firstRuleNode = firstNode != null ? firstNode.getSelf() : null;
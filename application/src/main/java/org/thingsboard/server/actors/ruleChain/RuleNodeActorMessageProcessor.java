@@ -26,6 +26,7 @@ import org.thingsboard.server.actors.shared.ComponentMsgProcessor;
 import org.thingsboard.server.common.data.ApiUsageRecordKey;
 import org.thingsboard.server.common.data.id.RuleNodeId;
 import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.plugin.ComponentLifecycleEvent;
 import org.thingsboard.server.common.data.plugin.ComponentLifecycleState;
 import org.thingsboard.server.common.data.rule.RuleNode;
 import org.thingsboard.server.common.msg.TbMsg;
@@ -79,6 +80,9 @@ public class RuleNodeActorMessageProcessor extends ComponentMsgProcessor<RuleNod
             this.info = new RuleNodeInfo(entityId, ruleChainName, getName(newRuleNode));
             boolean restartRequired = state != ComponentLifecycleState.ACTIVE ||
                     !(ruleNode.getType().equals(newRuleNode.getType()) && ruleNode.getConfiguration().equals(newRuleNode.getConfiguration()));
+            if (!newRuleNode.isDebugMode()) {
+                clearDebugEventBuffer();
+            }
             this.ruleNode = newRuleNode;
             this.defaultCtx.updateSelf(newRuleNode);
             if (restartRequired) {
@@ -101,9 +105,39 @@ public class RuleNodeActorMessageProcessor extends ComponentMsgProcessor<RuleNod
     public void stop(TbActorCtx context) {
         log.debug("[{}][{}] Stopping", tenantId, entityId);
         if (tbNode != null) {
-            tbNode.destroy();
+            tbNode.destroy(defaultCtx, isDeleted() ? ComponentLifecycleEvent.DELETED : ComponentLifecycleEvent.STOPPED);
+            state = ComponentLifecycleState.SUSPENDED;
+        }
+        clearDebugEventBuffer();
+    }
+
+    @Override
+    public void onStop(TbActorCtx context) {
+        log.debug("[{}][{}] Stopping deleted rule node", tenantId, entityId);
+        if (tbNode != null) {
+            tbNode.destroy(defaultCtx, ComponentLifecycleEvent.DELETED);
+            tbNode = null;
             state = ComponentLifecycleState.SUSPENDED;
         }
+        clearDebugEventBuffer();
+    }
+
+    // the actors are stopped without the lifecycle event when the whole rule chain or tenant is deleted
+    private boolean isDeleted() {
+        try {
+            return systemContext.getRuleChainService().findRuleNodeById(tenantId, entityId) == null
+                    || systemContext.getTenantService().findTenantById(tenantId) == null;
+        } catch (Exception e) {
+            log.debug("[{}][{}] Failed to check whether the rule node is deleted", tenantId, entityId, e);
+            return false;
+        }
+    }
+
+    private void clearDebugEventBuffer() {
+        RuleNodeDebugEventBuffer debugEventBuffer = systemContext.getDebugEventBuffer();
+        if (debugEventBuffer != null) {
+            debugEventBuffer.remove(entityId.getId());
+        }
     }
 
     @Override
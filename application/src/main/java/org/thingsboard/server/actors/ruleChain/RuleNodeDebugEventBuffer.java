@@ -0,0 +1,123 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors.ruleChain;
+
+import org.thingsboard.server.common.data.StringUtils;
+import org.thingsboard.server.common.data.event.RuleNodeDebugEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the latest debug events of each rule node in memory, in a bounded ring buffer per rule node.
+ * Only every n-th event is captured, and the data and metadata of the events are truncated to the configured size,
+ * so the memory used by a busy rule node in debug mode is bounded by the buffer size.
+ */
+public class RuleNodeDebugEventBuffer {
+
+    private final int bufferSize;
+    private final int samplingRate;
+    private final int maxEventSize;
+    private final ConcurrentMap<UUID, RingBuffer> buffers = new ConcurrentHashMap<>();
+
+    public RuleNodeDebugEventBuffer(int bufferSize, int samplingRate, int maxEventSize) {
+        this.bufferSize = Math.max(1, bufferSize);
+        this.samplingRate = Math.max(1, samplingRate);
+        this.maxEventSize = maxEventSize;
+    }
+
+    /**
+     * Adds the event to the buffer of the rule node, unless the event is skipped by sampling.
+     * The sampling decision is made first, so the event is created only if it is captured.
+     *
+     * @return true if the event was added
+     */
+    public boolean add(UUID ruleNodeId, Supplier<RuleNodeDebugEvent> eventSupplier) {
+        RingBuffer buffer = buffers.computeIfAbsent(ruleNodeId, id -> new RingBuffer(bufferSize));
+        if (!buffer.sample(samplingRate)) {
+            return false;
+        }
+        RuleNodeDebugEvent event = eventSupplier.get();
+        event.setData(StringUtils.truncate(event.getData(), maxEventSize));
+        event.setMetadata(StringUtils.truncate(event.getMetadata(), maxEventSize));
+        buffer.add(event);
+        return true;
+    }
+
+    /**
+     * Returns the buffered events of the rule node, the newest first.
+     */
+    public List<RuleNodeDebugEvent> get(UUID ruleNodeId) {
+        RingBuffer buffer = buffers.get(ruleNodeId);
+        return buffer != null ? buffer.get(false) : Collections.emptyList();
+    }
+
+    /**
+     * Returns the buffered events of the rule node, the newest first, and clears the buffer.
+     */
+    public List<RuleNodeDebugEvent> drain(UUID ruleNodeId) {
+        RingBuffer buffer = buffers.get(ruleNodeId);
+        return buffer != null ? buffer.get(true) : Collections.emptyList();
+    }
+
+    public void remove(UUID ruleNodeId) {
+        buffers.remove(ruleNodeId);
+    }
+
+    private static class RingBuffer {
+
+        private final RuleNodeDebugEvent[] events;
+        private final AtomicLong received = new AtomicLong();
+        private int head;
+        private int size;
+
+        RingBuffer(int capacity) {
+            this.events = new RuleNodeDebugEvent[capacity];
+        }
+
+        boolean sample(int samplingRate) {
+            return received.getAndIncrement() % samplingRate == 0;
+        }
+
+        synchronized void add(RuleNodeDebugEvent event) {
+            events[head] = event;
+            head = (head + 1) % events.length;
+            size = Math.min(size + 1, events.length);
+        }
+
+        synchronized List<RuleNodeDebugEvent> get(boolean clear) {
+            List<RuleNodeDebugEvent> result = new ArrayList<>(size);
+            for (int i = 1; i <= size; i++) {
+                result.add(events[(head - i + events.length) % events.length]);
+            }
+            if (clear) {
+                for (int i = 0; i < events.length; i++) {
+                    events[i] = null;
+                }
+                size = 0;
+            }
+            return result;
+        }
+
+    }
+
+}
@@ -15,6 +15,7 @@
  */
 package org.thingsboard.server.actors.service;
 
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
@@ -29,17 +30,23 @@ import org.thingsboard.server.actors.DefaultTbActorSystem;
 import org.thingsboard.server.actors.TbActorRef;
 import org.thingsboard.server.actors.TbActorSystem;
 import org.thingsboard.server.actors.TbActorSystemSettings;
+import org.thingsboard.server.actors.TbDispatcherListener;
 import org.thingsboard.server.actors.app.AppActor;
 import org.thingsboard.server.actors.app.AppInitMsg;
 import org.thingsboard.server.actors.stats.StatsActor;
 import org.thingsboard.server.common.msg.queue.PartitionChangeMsg;
 import org.thingsboard.server.common.msg.queue.ServiceType;
+import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.queue.discovery.TbApplicationEventListener;
 import org.thingsboard.server.queue.discovery.event.PartitionChangeEvent;
 import org.thingsboard.server.queue.util.AfterStartUp;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 @Slf4j
@@ -50,9 +57,14 @@ public class DefaultActorService extends TbApplicationEventListener<PartitionCha
     public static final String DEVICE_DISPATCHER_NAME = "device-dispatcher";
     public static final String RULE_DISPATCHER_NAME = "rule-dispatcher";
 
+    private static final String VIRTUAL_DISPATCHER_TYPE = "virtual";
+
     @Autowired
     private ActorSystemContext actorContext;
 
+    @Autowired
+    private StatsFactory statsFactory;
+
     private TbActorSystem system;
 
     private TbActorRef appActor;
@@ -78,6 +90,23 @@ public class DefaultActorService extends TbApplicationEventListener<PartitionCha
     @Value("${actors.system.rule_dispatcher_pool_size:8}")
     private int ruleDispatcherSize;
 
+    @Value("${actors.system.device_dispatcher_type:platform}")
+    private String deviceDispatcherType;
+
+    @Value("${actors.system.device_dispatcher_max_concurrency:256}")
+    private int deviceDispatcherMaxConcurrency;
+
+    @Value("${actors.system.rule_dispatcher_type:platform}")
+    private String ruleDispatcherType;
+
+    @Value("${actors.system.rule_dispatcher_max_concurrency:256}")
+    private int ruleDispatcherMaxConcurrency;
+
+    @Value("${metrics.enabled:false}")
+    private boolean metricsEnabled;
+
+    private final Map<String, AtomicInteger> dispatcherQueueSizes = new ConcurrentHashMap<>();
+
     @PostConstruct
     public void initActorSystem() {
         log.info("Initializing actor system.");
@@ -85,10 +114,12 @@ public class DefaultActorService extends TbApplicationEventListener<PartitionCha
         TbActorSystemSettings settings = new TbActorSystemSettings(actorThroughput, schedulerPoolSize, maxActorInitAttempts);
         system = new DefaultTbActorSystem(settings);
 
-        system.createDispatcher(APP_DISPATCHER_NAME, initDispatcherExecutor(APP_DISPATCHER_NAME, appDispatcherSize));
-        system.createDispatcher(TENANT_DISPATCHER_NAME, initDispatcherExecutor(TENANT_DISPATCHER_NAME, tenantDispatcherSize));
-        system.createDispatcher(DEVICE_DISPATCHER_NAME, initDispatcherExecutor(DEVICE_DISPATCHER_NAME, deviceDispatcherSize));
-        system.createDispatcher(RULE_DISPATCHER_NAME, initDispatcherExecutor(RULE_DISPATCHER_NAME, ruleDispatcherSize));
+        system.createDispatcher(APP_DISPATCHER_NAME, initDispatcherExecutor(APP_DISPATCHER_NAME, appDispatcherSize), createDispatcherListener(APP_DISPATCHER_NAME));
+        system.createDispatcher(TENANT_DISPATCHER_NAME, initDispatcherExecutor(TENANT_DISPATCHER_NAME, tenantDispatcherSize), createDispatcherListener(TENANT_DISPATCHER_NAME));
+        system.createDispatcher(DEVICE_DISPATCHER_NAME, initDispatcherExecutor(DEVICE_DISPATCHER_NAME, deviceDispatcherSize, deviceDispatcherType, deviceDispatcherMaxConcurrency),
+                createDispatcherListener(DEVICE_DISPATCHER_NAME));
+        system.createDispatcher(RULE_DISPATCHER_NAME, initDispatcherExecutor(RULE_DISPATCHER_NAME, ruleDispatcherSize, ruleDispatcherType, ruleDispatcherMaxConcurrency),
+                createDispatcherListener(RULE_DISPATCHER_NAME));
 
         actorContext.setActorSystem(system);
 
@@ -101,6 +132,18 @@ public class DefaultActorService extends TbApplicationEventListener<PartitionCha
         log.info("Actor system initialized.");
     }
 
+    private ExecutorService initDispatcherExecutor(String dispatcherName, int poolSize, String type, int maxConcurrency) {
+        if (VIRTUAL_DISPATCHER_TYPE.equalsIgnoreCase(type)) {
+            if (ThingsBoardExecutors.isVirtualThreadsSupported()) {
+                log.info("[{}] Using virtual threads dispatcher with max concurrency {}", dispatcherName, maxConcurrency);
+                return ThingsBoardExecutors.newVirtualThreadPool(dispatcherName, maxConcurrency);
+            }
+            log.warn("[{}] Virtual threads are not supported by the current JVM ({}), using the platform threads pool of size {}",
+                    dispatcherName, Runtime.version(), poolSize);
+        }
+        return initDispatcherExecutor(dispatcherName, poolSize);
+    }
+
     private ExecutorService initDispatcherExecutor(String dispatcherName, int poolSize) {
         if (poolSize == 0) {
             int cores = Runtime.getRuntime().availableProcessors();
@@ -113,6 +156,33 @@ public class DefaultActorService extends TbApplicationEventListener<PartitionCha
         }
     }
 
+    private TbDispatcherListener createDispatcherListener(String dispatcherName) {
+        if (!metricsEnabled) {
+            return TbDispatcherListener.NOOP;
+        }
+        // the gauge holds a weak reference to the number, so keep it here
+        AtomicInteger queueSize = dispatcherQueueSizes.computeIfAbsent(dispatcherName,
+                name -> statsFactory.createGauge("actorDispatcherQueueSize", new AtomicInteger(), "dispatcher", name));
+        Timer schedulingLatency = statsFactory.createTimer("actorDispatcherSchedulingLatency", "dispatcher", dispatcherName);
+        return new TbDispatcherListener() {
+            @Override
+            public void onTaskScheduled() {
+                queueSize.incrementAndGet();
+            }
+
+            @Override
+            public void onTaskStarted(long schedulingLatencyNanos) {
+                queueSize.decrementAndGet();
+                schedulingLatency.record(schedulingLatencyNanos, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void onTaskRejected() {
+                queueSize.decrementAndGet();
+            }
+        };
+    }
+
     @AfterStartUp(order = AfterStartUp.ACTOR_SYSTEM)
     public void onApplicationEvent(ApplicationReadyEvent applicationReadyEvent) {
         log.info("Received application ready event. Sending application init message to actor system");
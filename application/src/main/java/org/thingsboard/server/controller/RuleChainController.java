@@ -40,7 +40,9 @@ import org.thingsboard.rule.engine.api.ScriptEngine;
 import org.thingsboard.script.api.js.JsInvokeService;
 import org.thingsboard.script.api.tbel.TbelInvokeService;
 import org.thingsboard.server.actors.ActorSystemContext;
+import org.thingsboard.server.actors.ruleChain.RuleNodeDebugEventBuffer;
 import org.thingsboard.server.actors.tenant.DebugTbRateLimits;
+import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.data.EventInfo;
 import org.thingsboard.server.common.data.StringUtils;
 import org.thingsboard.server.common.data.edge.Edge;
@@ -73,12 +75,14 @@ import org.thingsboard.server.service.security.permission.Operation;
 import org.thingsboard.server.service.security.permission.Resource;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static org.thingsboard.server.controller.ControllerConstants.EDGE_ASSIGN_ASYNC_FIRST_STEP_DESCRIPTION;
 import static org.thingsboard.server.controller.ControllerConstants.EDGE_ASSIGN_RECEIVE_STEP_DESCRIPTION;
@@ -340,6 +344,44 @@ public class RuleChainController extends BaseController {
                 .map(EventInfo::getBody).orElse(null);
     }
 
+    @ApiOperation(value = "Get buffered debug events (getRuleNodeBufferedDebugEvents)",
+            notes = "Returns the latest debug events of the rule node captured in memory, the newest first. " +
+                    "Available only if the debug events are captured in the 'buffer' mode. " +
+                    "Referencing non-existing rule node Id will cause an error. " + TENANT_AUTHORITY_PARAGRAPH)
+    @PreAuthorize("hasAnyAuthority('TENANT_ADMIN')")
+    @RequestMapping(value = "/ruleNode/{ruleNodeId}/debugEvents", method = RequestMethod.GET)
+    @ResponseBody
+    public List<EventInfo> getRuleNodeBufferedDebugEvents(
+            @Parameter(description = RULE_NODE_ID_PARAM_DESCRIPTION)
+            @PathVariable(RULE_NODE_ID) String strRuleNodeId) throws ThingsboardException {
+        checkParameter(RULE_NODE_ID, strRuleNodeId);
+        RuleNodeId ruleNodeId = new RuleNodeId(toUUID(strRuleNodeId));
+        checkRuleNode(ruleNodeId, Operation.READ);
+        RuleNodeDebugEventBuffer debugEventBuffer = actorContext != null ? actorContext.getDebugEventBuffer() : null;
+        if (debugEventBuffer == null) {
+            return Collections.emptyList();
+        }
+        return debugEventBuffer.get(ruleNodeId.getId()).stream()
+                .map(event -> event.toInfo(EntityType.RULE_NODE))
+                .collect(Collectors.toList());
+    }
+
+    @ApiOperation(value = "Persist buffered debug events (persistRuleNodeBufferedDebugEvents)",
+            notes = "Saves the debug events of the rule node captured in memory to the database and clears the buffer. " +
+                    "Returns the number of saved events. " +
+                    "Referencing non-existing rule node Id will cause an error. " + TENANT_AUTHORITY_PARAGRAPH)
+    @PreAuthorize("hasAnyAuthority('TENANT_ADMIN')")
+    @RequestMapping(value = "/ruleNode/{ruleNodeId}/debugEvents/persist", method = RequestMethod.POST)
+    @ResponseBody
+    public int persistRuleNodeBufferedDebugEvents(
+            @Parameter(description = RULE_NODE_ID_PARAM_DESCRIPTION)
+            @PathVariable(RULE_NODE_ID) String strRuleNodeId) throws ThingsboardException {
+        checkParameter(RULE_NODE_ID, strRuleNodeId);
+        RuleNodeId ruleNodeId = new RuleNodeId(toUUID(strRuleNodeId));
+        checkRuleNode(ruleNodeId, Operation.WRITE);
+        return actorContext != null ? actorContext.persistBufferedDebugEvents(ruleNodeId.getId()) : 0;
+    }
+
     @ApiOperation(value = "Is TBEL script executor enabled",
             notes = "Returns 'True' if the TBEL script execution is enabled" + TENANT_AUTHORITY_PARAGRAPH)
     @PreAuthorize("hasAuthority('TENANT_ADMIN')")
@@ -58,6 +58,7 @@ import org.thingsboard.server.service.security.model.UserPrincipal;
 import org.thingsboard.server.service.subscription.SubscriptionErrorCode;
 import org.thingsboard.server.service.ws.AuthCmd;
 import org.thingsboard.server.service.ws.SessionEvent;
+import org.thingsboard.server.service.ws.LatestValuesUpdate;
 import org.thingsboard.server.service.ws.WebSocketMsgEndpoint;
 import org.thingsboard.server.service.ws.WebSocketService;
 import org.thingsboard.server.service.ws.WebSocketSessionRef;
@@ -109,6 +110,8 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements WebSocke
     private int wsMaxQueueMessagesPerSession;
     @Value("${server.ws.auth_timeout_ms:10000}")
     private int authTimeoutMs;
+    @Value("${server.ws.max_updates_per_frame:1}")
+    private int maxUpdatesPerFrame;
 
     private final ConcurrentMap<String, WebSocketSessionRef> blacklistedSessions = new ConcurrentHashMap<>();
 
@@ -357,6 +360,7 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements WebSocke
         final AtomicBoolean isSending = new AtomicBoolean(false);
         private final Queue<TbWebSocketMsg<?>> outboundMsgQueue = new ConcurrentLinkedQueue<>();
         private final AtomicInteger outboundMsgQueueSize = new AtomicInteger();
+        private final ConcurrentMap<Integer, TbWebSocketLatestMsg> pendingLatestMsgs = new ConcurrentHashMap<>();
         @Setter
         private int maxMsgQueueSize = wsMaxQueueMessagesPerSession;
 
@@ -396,6 +400,7 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements WebSocke
                 log.trace("{} Session transport error", sessionRef, ioe);
             } finally {
                 outboundMsgQueue.clear();
+                pendingLatestMsgs.clear();
             }
         }
 
@@ -418,11 +423,23 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements WebSocke
             }
         }
 
+        void sendLatestUpdate(int cmdId, LatestValuesUpdate update) {
+            TbWebSocketLatestMsg msg;
+            synchronized (pendingLatestMsgs) {
+                TbWebSocketLatestMsg pendingMsg = pendingLatestMsgs.get(cmdId);
+                if (pendingMsg != null && pendingMsg.merge(update)) {
+                    return;
+                }
+                msg = new TbWebSocketLatestMsg(cmdId, update);
+                pendingLatestMsgs.put(cmdId, msg);
+            }
+            sendMsg(msg);
+        }
+
         private void sendMsgInternal(TbWebSocketMsg<?> msg) {
             try {
                 if (TbWebSocketMsgType.TEXT.equals(msg.getType())) {
-                    TbWebSocketTextMsg textMsg = (TbWebSocketTextMsg) msg;
-                    this.asyncRemote.sendText(textMsg.getMsg(), this);
+                    this.asyncRemote.sendText(toFrame(msg), this);
                     // isSending status will be reset in the onResult method by call back
                 } else {
                     TbWebSocketPingMsg pingMsg = (TbWebSocketPingMsg) msg;
@@ -436,6 +453,38 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements WebSocke
             }
         }
 
+        /**
+         * Packs the text messages waiting in the queue into a single frame with a JSON array of updates,
+         * if enabled. Nothing is packed while the queue is empty, so the updates are never delayed.
+         */
+        private String toFrame(TbWebSocketMsg<?> msg) {
+            String text = toText(msg);
+            if (maxUpdatesPerFrame <= 1 || !isText(outboundMsgQueue.peek())) {
+                return text;
+            }
+            StringBuilder frame = new StringBuilder("[").append(text);
+            int count = 1;
+            while (count < maxUpdatesPerFrame && isText(outboundMsgQueue.peek())) {
+                // this thread is the only consumer of the queue, so the peeked message is polled
+                TbWebSocketMsg<?> next = outboundMsgQueue.poll();
+                outboundMsgQueueSize.decrementAndGet();
+                frame.append(',').append(toText(next));
+                count++;
+            }
+            return frame.append(']').toString();
+        }
+
+        private String toText(TbWebSocketMsg<?> msg) {
+            if (msg instanceof TbWebSocketLatestMsg latestMsg) {
+                pendingLatestMsgs.remove(latestMsg.getCmdId(), latestMsg);
+            }
+            return (String) msg.getMsg();
+        }
+
+        private boolean isText(TbWebSocketMsg<?> msg) {
+            return msg != null && TbWebSocketMsgType.TEXT.equals(msg.getType());
+        }
+
         @Override
         public void onResult(SendResult result) {
             if (!result.isOK()) {
@@ -487,6 +536,22 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements WebSocke
     @Override
     public void send(WebSocketSessionRef sessionRef, int subscriptionId, String msg) throws IOException {
         log.debug("{} Sending {}", sessionRef, msg);
+        SessionMetaData sessionMd = getSessionMdForUpdate(sessionRef, subscriptionId);
+        if (sessionMd != null) {
+            sessionMd.sendMsg(msg);
+        }
+    }
+
+    @Override
+    public void sendLatest(WebSocketSessionRef sessionRef, int cmdId, LatestValuesUpdate update) throws IOException {
+        log.debug("{} Sending latest values {}", sessionRef, update);
+        SessionMetaData sessionMd = getSessionMdForUpdate(sessionRef, cmdId);
+        if (sessionMd != null) {
+            sessionMd.sendLatestUpdate(cmdId, update);
+        }
+    }
+
+    private SessionMetaData getSessionMdForUpdate(WebSocketSessionRef sessionRef, int subscriptionId) {
         String externalId = sessionRef.getSessionId();
         String internalId = externalSessionMap.get(externalId);
         if (internalId != null) {
@@ -498,18 +563,19 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements WebSocke
                         log.info("{} Failed to process session update. Max session updates limit reached", sessionRef);
                         sessionMd.sendMsg("{\"subscriptionId\":" + subscriptionId + ", \"errorCode\":" + ThingsboardErrorCode.TOO_MANY_UPDATES.getErrorCode() + ", \"errorMsg\":\"Too many updates!\"}");
                     }
-                    return;
+                    return null;
                 } else {
                     log.debug("{} Session is no longer blacklisted.", sessionRef);
                     blacklistedSessions.remove(externalId);
                 }
-                sessionMd.sendMsg(msg);
+                return sessionMd;
             } else {
                 log.warn("[{}][{}] Failed to find session by internal id", externalId, internalId);
             }
         } else {
             log.warn("[{}] Failed to find session by external id", externalId);
         }
+        return null;
     }
 
     @Override
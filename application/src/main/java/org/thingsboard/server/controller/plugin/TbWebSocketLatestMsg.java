@@ -0,0 +1,61 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.controller.plugin;
+
+import lombok.Getter;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.service.ws.LatestValuesUpdate;
+
+/**
+ * Pending update of the latest values of a command. Newer updates of the same command are merged into it
+ * until the message is taken for sending.
+ */
+public class TbWebSocketLatestMsg implements TbWebSocketMsg<String> {
+
+    @Getter
+    private final int cmdId;
+    private LatestValuesUpdate update;
+    private boolean sent;
+
+    public TbWebSocketLatestMsg(int cmdId, LatestValuesUpdate update) {
+        this.cmdId = cmdId;
+        this.update = update;
+    }
+
+    /**
+     * @return false if the message is already taken for sending or the update is of another type,
+     * so the update must be queued separately
+     */
+    public synchronized boolean merge(LatestValuesUpdate newer) {
+        if (sent || update.getClass() != newer.getClass()) {
+            return false;
+        }
+        update = update.mergeLatest(newer);
+        return true;
+    }
+
+    @Override
+    public TbWebSocketMsgType getType() {
+        return TbWebSocketMsgType.TEXT;
+    }
+
+    @Override
+    public synchronized String getMsg() {
+        sent = true;
+        return JacksonUtil.toString(update);
+    }
+
+}
@@ -206,6 +206,7 @@ public class MainQueueConsumerManager<M extends TbQueueMsg, C extends QueueConfi
             try {
                 List<M> msgs = consumer.poll(config.getPollInterval());
                 if (msgs.isEmpty()) {
+                    onEmptyPoll(consumer);
                     continue;
                 }
                 processMsgs(msgs, consumer, config);
@@ -220,6 +221,7 @@ public class MainQueueConsumerManager<M extends TbQueueMsg, C extends QueueConfi
                 }
             }
         }
+        onConsumerLoopFinished(consumer);
         if (consumer.isStopped()) {
             consumer.unsubscribe();
         }
@@ -229,6 +231,12 @@ public class MainQueueConsumerManager<M extends TbQueueMsg, C extends QueueConfi
         msgPackProcessor.process(msgs, consumer, config);
     }
 
+    protected void onEmptyPoll(TbQueueConsumer<M> consumer) {
+    }
+
+    protected void onConsumerLoopFinished(TbQueueConsumer<M> consumer) {
+    }
+
     public void stop() {
         log.debug("[{}] Stopping consumers", queueKey);
         consumerWrapper.getConsumers().forEach(TbQueueConsumerTask::initiateStop);
@@ -20,9 +20,11 @@ import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.gen.transport.TransportProtos;
 import org.thingsboard.server.queue.common.TbProtoQueueMsg;
 
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -83,6 +85,16 @@ public abstract class SequentialByEntityIdTbRuleEngineSubmitStrategy extends Abs
         }
     }
 
+    @Override
+    public EntityId getOrderingEntityId(UUID id) {
+        return msgToEntityIdMap.get(id);
+    }
+
+    @Override
+    public Set<EntityId> getOrderingEntityIds() {
+        return new HashSet<>(entityIdToListMap.keySet());
+    }
+
     private void initMaps() {
         msgToEntityIdMap.clear();
         entityIdToListMap.clear();
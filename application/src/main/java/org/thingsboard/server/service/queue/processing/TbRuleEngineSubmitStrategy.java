@@ -15,10 +15,13 @@
  */
 package org.thingsboard.server.service.queue.processing;
 
+import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.gen.transport.TransportProtos;
 import org.thingsboard.server.queue.common.TbProtoQueueMsg;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentMap;
 import java.util.function.BiConsumer;
@@ -36,4 +39,19 @@ public interface TbRuleEngineSubmitStrategy {
     void onSuccess(UUID id);
 
     void stop();
+
+    /**
+     * Returns the entity the message is kept in order by, or null if the strategy doesn't order the messages per entity.
+     */
+    default EntityId getOrderingEntityId(UUID id) {
+        return null;
+    }
+
+    /**
+     * Returns the entities the messages of the pack are kept in order by, empty if the strategy doesn't order the messages per entity.
+     */
+    default Set<EntityId> getOrderingEntityIds() {
+        return Collections.emptySet();
+    }
+
 }
@@ -0,0 +1,222 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.queue.ruleengine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.queue.TbQueueConsumer;
+import org.thingsboard.server.queue.TbQueuePosition;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Packs of a single consumer that are processed concurrently in the pipelined mode.
+ * The consumer keeps polling while up to maxPacksInFlight packs are processed,
+ * and commits the position of the newest pack that has all the previously polled packs processed (the watermark).
+ * Completion is tracked per pack, not per message: a single slow message holds back the watermark of its pack
+ * and of all the packs polled after it, even if their other messages are already processed.
+ * Messages of the same ordering entity (e.g. the originator for SEQUENTIAL_BY_ORIGINATOR) wait for the previous
+ * in-flight pack that contains this entity, so the order of the entity messages is the same as in the classic mode.
+ * <p>
+ * Except for the pack results, used by the consumer loop thread only.
+ */
+@Slf4j
+class TbRuleEnginePackPipeline {
+
+    private final TbQueueConsumer<?> consumer;
+    private final int maxPacksInFlight;
+    private final Deque<InFlightPack> packs = new ArrayDeque<>();
+    private final Map<EntityId, CompletableFuture<Boolean>> lastPackByEntity = new ConcurrentHashMap<>();
+
+    TbRuleEnginePackPipeline(TbQueueConsumer<?> consumer, int maxPacksInFlight) {
+        this.consumer = consumer;
+        this.maxPacksInFlight = maxPacksInFlight;
+    }
+
+    /**
+     * Registers the pack that was polled last. The result is completed with true when the pack is processed and may be committed.
+     *
+     * @return the barriers that defer the messages of the ordering entities until the previous in-flight packs are processed
+     */
+    PackBarriers add(TbQueuePosition position, Set<EntityId> entityIds, CompletableFuture<Boolean> result) {
+        packs.addLast(new InFlightPack(position, result));
+        if (entityIds.isEmpty()) {
+            return PackBarriers.NONE;
+        }
+        Map<EntityId, CompletableFuture<Boolean>> barriers = new HashMap<>();
+        for (EntityId entityId : entityIds) {
+            CompletableFuture<Boolean> previous = lastPackByEntity.put(entityId, result);
+            if (previous != null && !previous.isDone()) {
+                barriers.put(entityId, previous);
+            }
+        }
+        result.whenComplete((r, e) -> entityIds.forEach(entityId -> lastPackByEntity.remove(entityId, result)));
+        return barriers.isEmpty() ? PackBarriers.NONE : new PackBarriers(barriers);
+    }
+
+    /**
+     * Commits the processed packs and waits until one more pack may be added.
+     */
+    void awaitCapacity(long pollInterval, BooleanSupplier stopped) throws InterruptedException {
+        commitProcessed();
+        while (packs.size() >= maxPacksInFlight && !stopped.getAsBoolean()) {
+            awaitOldest(pollInterval);
+            commitProcessed();
+        }
+    }
+
+    /**
+     * Waits for the in-flight packs and commits the processed ones.
+     */
+    void drain(long packProcessingTimeout) {
+        try {
+            for (InFlightPack pack : packs) {
+                pack.result().get(packProcessingTimeout, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.debug("[{}] Failed to wait for in-flight packs", consumer.getTopic(), e);
+        }
+        commitProcessed();
+        packs.clear();
+    }
+
+    void commitProcessed() {
+        TbQueuePosition position = null;
+        while (!packs.isEmpty()) {
+            InFlightPack pack = packs.peekFirst();
+            if (!pack.result().isDone()) {
+                break;
+            }
+            if (pack.result().isCompletedExceptionally()) {
+                // same as in the classic mode, where the failed pack is committed together with the next one
+                log.debug("[{}] Pack processing failed, moving the watermark over it", consumer.getTopic());
+            } else if (!pack.result().join()) {
+                // processing was interrupted by the consumer stop, the pack must be polled again
+                break;
+            }
+            packs.pollFirst();
+            position = pack.position();
+        }
+        if (position != null) {
+            try {
+                consumer.commit(position);
+            } catch (Exception e) {
+                log.warn("[{}] Failed to commit processed packs", consumer.getTopic(), e);
+            }
+        }
+    }
+
+    int size() {
+        return packs.size();
+    }
+
+    private void awaitOldest(long pollInterval) throws InterruptedException {
+        try {
+            packs.peekFirst().result().get(pollInterval, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException ignored) {
+        }
+    }
+
+    private record InFlightPack(TbQueuePosition position, CompletableFuture<Boolean> result) {
+    }
+
+    /**
+     * Defers the messages of a pack until the previous in-flight packs with the same ordering entities are processed.
+     * <p>
+     * The processing strategy may submit a message several times, once per attempt. The message is registered on the
+     * previous pack only once, and is submitted to the attempt that is current when the previous pack is done.
+     * Nothing is submitted to the attempts that were replaced by a retry or finished in the meantime.
+     */
+    static class PackBarriers {
+
+        static final PackBarriers NONE = new PackBarriers(Collections.emptyMap());
+
+        private final Map<EntityId, CompletableFuture<Boolean>> barriers;
+        private final Map<UUID, Runnable> deferred = new ConcurrentHashMap<>();
+        private final Set<UUID> registered = ConcurrentHashMap.newKeySet();
+        private volatile Object currentAttempt;
+
+        PackBarriers(Map<EntityId, CompletableFuture<Boolean>> barriers) {
+            this.barriers = barriers;
+        }
+
+        boolean isEmpty() {
+            return barriers.isEmpty();
+        }
+
+        CompletableFuture<Boolean> get(EntityId entityId) {
+            return barriers.get(entityId);
+        }
+
+        /**
+         * Makes the attempt current, so the messages deferred by the previous attempts are not submitted anymore.
+         */
+        void startAttempt(Object attempt) {
+            currentAttempt = attempt;
+            deferred.clear();
+        }
+
+        void finish() {
+            currentAttempt = null;
+            deferred.clear();
+        }
+
+        /**
+         * Submits the message of the attempt right away, or once the previous pack with the entity is processed.
+         */
+        void submit(Object attempt, EntityId entityId, UUID msgId, Runnable submit) {
+            CompletableFuture<Boolean> barrier = entityId != null ? barriers.get(entityId) : null;
+            if (barrier == null || barrier.isDone()) {
+                submit.run();
+                return;
+            }
+            deferred.put(msgId, () -> {
+                if (currentAttempt == attempt) {
+                    submit.run();
+                }
+            });
+            if (registered.add(msgId)) {
+                barrier.whenComplete((r, e) -> submitDeferred(msgId));
+            } else if (barrier.isDone()) {
+                // the barrier callback may have run between the start of the attempt and the registration above
+                submitDeferred(msgId);
+            }
+        }
+
+        private void submitDeferred(UUID msgId) {
+            Runnable submit = deferred.remove(msgId);
+            if (submit != null) {
+                submit.run();
+            }
+        }
+
+    }
+
+}
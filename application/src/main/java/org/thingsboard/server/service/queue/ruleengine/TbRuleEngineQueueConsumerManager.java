@@ -22,6 +22,7 @@ import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.EntityIdFactory;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.queue.Queue;
+import org.thingsboard.server.common.data.queue.SubmitStrategyType;
 import org.thingsboard.server.common.msg.TbMsg;
 import org.thingsboard.server.common.msg.gen.MsgProtos;
 import org.thingsboard.server.common.msg.queue.QueueToRuleEngineMsg;
@@ -33,6 +34,7 @@ import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
 import org.thingsboard.server.gen.transport.TransportProtos.ToRuleEngineMsg;
 import org.thingsboard.server.queue.TbQueueConsumer;
 import org.thingsboard.server.queue.common.TbProtoQueueMsg;
+import org.thingsboard.server.queue.common.TbRuleEngineProducerService;
 import org.thingsboard.server.queue.discovery.QueueKey;
 import org.thingsboard.server.service.queue.TbMsgPackCallback;
 import org.thingsboard.server.service.queue.TbMsgPackProcessingContext;
@@ -42,6 +44,7 @@ import org.thingsboard.server.service.queue.processing.TbRuleEngineProcessingDec
 import org.thingsboard.server.service.queue.processing.TbRuleEngineProcessingResult;
 import org.thingsboard.server.service.queue.processing.TbRuleEngineProcessingStrategy;
 import org.thingsboard.server.service.queue.processing.TbRuleEngineSubmitStrategy;
+import org.thingsboard.server.service.queue.ruleengine.TbRuleEnginePackPipeline.PackBarriers;
 
 import java.util.Collections;
 import java.util.HashSet;
@@ -49,6 +52,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -62,6 +68,7 @@ public class TbRuleEngineQueueConsumerManager extends MainQueueConsumerManager<T
 
     private final TbRuleEngineConsumerContext ctx;
     private final TbRuleEngineConsumerStats stats;
+    private final ConcurrentMap<TbQueueConsumer<?>, TbRuleEnginePackPipeline> pipelines = new ConcurrentHashMap<>();
 
     @Builder(builderMethodName = "create") // not to conflict with super.builder()
     public TbRuleEngineQueueConsumerManager(TbRuleEngineConsumerContext ctx,
@@ -119,12 +126,90 @@ public class TbRuleEngineQueueConsumerManager extends MainQueueConsumerManager<T
     protected void processMsgs(List<TbProtoQueueMsg<ToRuleEngineMsg>> msgs,
                                TbQueueConsumer<TbProtoQueueMsg<ToRuleEngineMsg>> consumer,
                                Queue queue) throws Exception {
+        msgs = TbRuleEngineProducerService.unpack(msgs);
         TbRuleEngineSubmitStrategy submitStrategy = getSubmitStrategy(queue);
         TbRuleEngineProcessingStrategy ackStrategy = getProcessingStrategy(queue);
         submitStrategy.init(msgs);
+        if (isPipelined(consumer, queue)) {
+            submitPack(submitStrategy, ackStrategy, consumer, queue);
+            return;
+        }
+        TbRuleEnginePackPipeline pipeline = pipelines.remove(consumer);
+        if (pipeline != null) { // pipelined mode was switched off by the queue update
+            pipeline.drain(queue.getPackProcessingTimeout());
+        }
+        if (processPack(submitStrategy, ackStrategy, consumer, queue, PackBarriers.NONE)) {
+            consumer.commit();
+        }
+    }
+
+    @Override
+    protected void onEmptyPoll(TbQueueConsumer<TbProtoQueueMsg<ToRuleEngineMsg>> consumer) {
+        TbRuleEnginePackPipeline pipeline = pipelines.get(consumer);
+        if (pipeline != null) {
+            pipeline.commitProcessed();
+        }
+    }
+
+    @Override
+    protected void onConsumerLoopFinished(TbQueueConsumer<TbProtoQueueMsg<ToRuleEngineMsg>> consumer) {
+        TbRuleEnginePackPipeline pipeline = pipelines.remove(consumer);
+        if (pipeline != null) {
+            pipeline.drain(config.getPackProcessingTimeout());
+        }
+    }
+
+    private boolean isPipelined(TbQueueConsumer<TbProtoQueueMsg<ToRuleEngineMsg>> consumer, Queue queue) {
+        // whole-queue sequential processing leaves nothing to run concurrently
+        return ctx.isPipelinedEnabled() && ctx.getMaxPacksInFlight() > 1 && consumer.isPositionCommitSupported()
+                && queue.getSubmitStrategy().getType() != SubmitStrategyType.SEQUENTIAL;
+    }
+
+    private void submitPack(TbRuleEngineSubmitStrategy submitStrategy,
+                            TbRuleEngineProcessingStrategy ackStrategy,
+                            TbQueueConsumer<TbProtoQueueMsg<ToRuleEngineMsg>> consumer,
+                            Queue queue) throws InterruptedException {
+        TbRuleEnginePackPipeline pipeline = pipelines.computeIfAbsent(consumer, c -> new TbRuleEnginePackPipeline(c, ctx.getMaxPacksInFlight()));
+        pipeline.awaitCapacity(queue.getPollInterval(), () -> stopped || consumer.isStopped());
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        PackBarriers barriers = pipeline.add(consumer.getPosition(), submitStrategy.getOrderingEntityIds(), result);
+        consumerExecutor.execute(() -> {
+            try {
+                result.complete(processPack(submitStrategy, ackStrategy, consumer, queue, barriers));
+            } catch (Throwable e) {
+                log.warn("[{}] Failed to process messages from queue", queueKey, e);
+                result.completeExceptionally(e);
+            }
+        });
+    }
+
+    /**
+     * Processes the pack until the processing strategy decides to commit it.
+     *
+     * @return true if the pack may be committed, false if processing was interrupted by the consumer stop
+     */
+    private boolean processPack(TbRuleEngineSubmitStrategy submitStrategy,
+                                TbRuleEngineProcessingStrategy ackStrategy,
+                                TbQueueConsumer<TbProtoQueueMsg<ToRuleEngineMsg>> consumer,
+                                Queue queue,
+                                PackBarriers barriers) throws InterruptedException {
+        try {
+            return doProcessPack(submitStrategy, ackStrategy, consumer, queue, barriers);
+        } finally {
+            barriers.finish();
+        }
+    }
+
+    private boolean doProcessPack(TbRuleEngineSubmitStrategy submitStrategy,
+                                  TbRuleEngineProcessingStrategy ackStrategy,
+                                  TbQueueConsumer<TbProtoQueueMsg<ToRuleEngineMsg>> consumer,
+                                  Queue queue,
+                                  PackBarriers barriers) throws InterruptedException {
         while (!stopped && !consumer.isStopped()) {
             TbMsgPackProcessingContext packCtx = new TbMsgPackProcessingContext(queue.getName(), submitStrategy, ackStrategy.isSkipTimeoutMsgs());
-            submitStrategy.submitAttempt((id, msg) -> submitMessage(packCtx, id, msg));
+            barriers.startAttempt(packCtx);
+            submitStrategy.submitAttempt((id, msg) -> barriers.submit(packCtx, barriers.isEmpty() ? null : submitStrategy.getOrderingEntityId(id),
+                    id, () -> submitMessage(packCtx, id, msg)));
 
             final boolean timeout = !packCtx.await(queue.getPackProcessingTimeout(), TimeUnit.MILLISECONDS);
 
@@ -146,12 +231,12 @@ public class TbRuleEngineQueueConsumerManager extends MainQueueConsumerManager<T
 
             if (decision.isCommit()) {
                 submitStrategy.stop();
-                consumer.commit();
-                break;
+                return true;
             } else {
                 submitStrategy.update(decision.getReprocessMap());
             }
         }
+        return false;
     }
 
     private TbRuleEngineSubmitStrategy getSubmitStrategy(Queue queue) {
@@ -226,7 +311,7 @@ public class TbRuleEngineQueueConsumerManager extends MainQueueConsumerManager<T
                     if (msgs.isEmpty()) {
                         continue;
                     }
-                    for (TbProtoQueueMsg<ToRuleEngineMsg> msg : msgs) {
+                    for (TbProtoQueueMsg<ToRuleEngineMsg> msg : TbRuleEngineProducerService.unpack(msgs)) {
                         try {
                             MsgProtos.TbMsgProto tbMsgProto = MsgProtos.TbMsgProto.parseFrom(msg.getValue().getTbMsg().toByteArray());
                             EntityId originator = EntityIdFactory.getByTypeAndUuid(tbMsgProto.getEntityType(), new UUID(tbMsgProto.getEntityIdMSB(), tbMsgProto.getEntityIdLSB()));
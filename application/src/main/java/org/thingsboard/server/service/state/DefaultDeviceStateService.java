@@ -23,6 +23,7 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import jakarta.annotation.PostConstruct;
@@ -73,6 +74,8 @@ import org.thingsboard.server.common.msg.notification.NotificationRuleProcessor;
 import org.thingsboard.server.common.msg.queue.ServiceType;
 import org.thingsboard.server.common.msg.queue.TbCallback;
 import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.common.stats.DefaultCounter;
+import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.common.stats.TbApiUsageReportClient;
 import org.thingsboard.server.dao.attributes.AttributesService;
 import org.thingsboard.server.dao.device.DeviceService;
@@ -157,6 +160,7 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
     private final DbTypeInfoComponent dbTypeInfoComponent;
     private final TbApiUsageReportClient apiUsageReportClient;
     private final NotificationRuleProcessor notificationRuleProcessor;
+    private final StatsFactory statsFactory;
     @Autowired
     @Lazy
     private TelemetrySubscriptionService tsSubService;
@@ -192,11 +196,28 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
     @Getter
     private int telemetryTtl;
 
+    @Value("${state.inactivityTimer.enabled:true}")
+    @Getter
+    private boolean inactivityTimerEnabled;
+
+    @Value("${state.inactivityTimer.tickInMs:1000}")
+    @Getter
+    private long inactivityTimerTickInMs;
+
+    @Value("${state.inactivityTimer.wheelSize:3600}")
+    @Getter
+    private int inactivityTimerWheelSize;
+
     private ListeningExecutorService deviceStateExecutor;
     private ListeningExecutorService deviceStateCallbackExecutor;
 
     final ConcurrentMap<DeviceId, DeviceStateData> deviceStates = new ConcurrentHashMap<>();
 
+    private InactivityTimingWheel<DeviceId> inactivityTimer;
+    private final AtomicInteger inactivityTimerSize = new AtomicInteger();
+    private DefaultCounter inactivityExpirationsCounter;
+    private Timer inactivityDetectionLagTimer;
+
     @PostConstruct
     public void init() {
         super.init();
@@ -204,7 +225,15 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
                 Math.max(4, Runtime.getRuntime().availableProcessors()), "device-state"));
         deviceStateCallbackExecutor = MoreExecutors.listeningDecorator(ThingsBoardExecutors.newWorkStealingPool(
                 Math.max(4, Runtime.getRuntime().availableProcessors()), "device-state-callback"));
-        scheduledExecutor.scheduleWithFixedDelay(this::checkStates, new Random().nextInt(defaultStateCheckIntervalInSec), defaultStateCheckIntervalInSec, TimeUnit.SECONDS);
+        if (inactivityTimerEnabled) {
+            inactivityTimer = new InactivityTimingWheel<>(inactivityTimerTickInMs, inactivityTimerWheelSize, getCurrentTimeMillis());
+            statsFactory.createGauge("deviceStateInactivityTimerSize", inactivityTimerSize);
+            inactivityExpirationsCounter = statsFactory.createDefaultCounter("deviceStateInactivityExpirations");
+            inactivityDetectionLagTimer = statsFactory.createTimer("deviceStateInactivityDetectionLag");
+            scheduledExecutor.scheduleWithFixedDelay(this::checkExpiredStates, inactivityTimerTickInMs, inactivityTimerTickInMs, TimeUnit.MILLISECONDS);
+        } else {
+            scheduledExecutor.scheduleWithFixedDelay(this::checkStates, new Random().nextInt(defaultStateCheckIntervalInSec), defaultStateCheckIntervalInSec, TimeUnit.SECONDS);
+        }
         scheduledExecutor.scheduleWithFixedDelay(this::reportActivityStats, defaultActivityStatsIntervalInSec, defaultActivityStatsIntervalInSec, TimeUnit.SECONDS);
     }
 
@@ -271,6 +300,7 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
             save(deviceId, LAST_ACTIVITY_TIME, lastReportedActivity);
             DeviceState state = stateData.getState();
             state.setLastActivityTime(lastReportedActivity);
+            scheduleInactivityCheck(deviceId, stateData);
             if (!state.isActive()) {
                 state.setActive(true);
                 if (lastReportedActivity <= state.getLastInactivityAlarmTime()) {
@@ -414,6 +444,9 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
 
     private void initializeActivityState(DeviceId deviceId, DeviceStateData fetchedState) {
         DeviceStateData cachedState = deviceStates.putIfAbsent(fetchedState.getDeviceId(), fetchedState);
+        if (cachedState == null) {
+            scheduleInactivityCheck(deviceId, fetchedState);
+        }
         boolean activityState = Objects.requireNonNullElse(cachedState, fetchedState).getState().isActive();
         save(deviceId, ACTIVITY_STATE, activityState);
     }
@@ -485,6 +518,7 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
 
     void checkAndUpdateState(@Nonnull DeviceId deviceId, @Nonnull DeviceStateData state) {
         var deviceState = state.getState();
+        scheduleInactivityCheck(deviceId, state);
         if (deviceState.isActive()) {
             updateInactivityStateIfExpired(getCurrentTimeMillis(), deviceId, state);
         } else {
@@ -530,6 +564,52 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
         }
     }
 
+    void checkExpiredStates() {
+        try {
+            final long ts = getCurrentTimeMillis();
+            inactivityTimer.advance(ts, (deviceId, scheduledDeadline) -> {
+                DeviceStateData stateData = deviceStates.get(deviceId);
+                if (stateData == null) {
+                    return;
+                }
+                // the deadline might be postponed without rescheduling, e.g. when the state was modified directly
+                long deadline = getInactivityDeadline(stateData);
+                if (deadline > ts) {
+                    inactivityTimer.schedule(deviceId, deadline);
+                    return;
+                }
+                inactivityExpirationsCounter.increment();
+                if (stateData.getState().isActive()) {
+                    inactivityDetectionLagTimer.record(ts - deadline, TimeUnit.MILLISECONDS);
+                }
+                try {
+                    updateInactivityStateIfExpired(ts, deviceId, stateData);
+                } catch (Exception e) {
+                    if (e instanceof TenantNotFoundException) {
+                        partitionedEntities.values().forEach(deviceIds -> deviceIds.remove(deviceId));
+                        cleanupEntity(deviceId);
+                    } else {
+                        log.warn("[{}] Failed to update inactivity state [{}]", deviceId, e.getMessage());
+                    }
+                }
+            });
+            inactivityTimerSize.set(inactivityTimer.size());
+        } catch (Throwable t) {
+            log.warn("Failed to check expired devices states", t);
+        }
+    }
+
+    private void scheduleInactivityCheck(DeviceId deviceId, DeviceStateData stateData) {
+        if (inactivityTimer != null) {
+            inactivityTimer.schedule(deviceId, getInactivityDeadline(stateData));
+        }
+    }
+
+    private static long getInactivityDeadline(DeviceStateData stateData) {
+        DeviceState state = stateData.getState();
+        return Math.max(state.getLastActivityTime(), stateData.getDeviceCreationTime()) + state.getInactivityTimeout();
+    }
+
     void reportActivityStats() {
         try {
             Map<TenantId, Pair<AtomicInteger, AtomicInteger>> stats = new HashMap<>();
@@ -590,7 +670,11 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
 
     @Nonnull
     DeviceStateData getOrFetchDeviceStateData(DeviceId deviceId) {
-        return deviceStates.computeIfAbsent(deviceId, this::fetchDeviceStateDataUsingSeparateRequests);
+        return deviceStates.computeIfAbsent(deviceId, id -> {
+            DeviceStateData stateData = fetchDeviceStateDataUsingSeparateRequests(id);
+            scheduleInactivityCheck(id, stateData);
+            return stateData;
+        });
     }
 
     DeviceStateData fetchDeviceStateDataUsingSeparateRequests(final DeviceId deviceId) {
@@ -638,6 +722,9 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
 
     private void cleanupEntity(DeviceId deviceId) {
         deviceStates.remove(deviceId);
+        if (inactivityTimer != null) {
+            inactivityTimer.cancel(deviceId);
+        }
     }
 
 
@@ -0,0 +1,124 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.state;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Hashed timing wheel that keeps a single deadline per key.
+ * <p>
+ * Postponing the deadline is a map update only: the key stays in the bucket of the earlier deadline and is moved
+ * to the proper bucket once that bucket is processed. Deadlines that are further than one wheel rotation stay
+ * in their bucket until the corresponding round comes. Every tick touches only the keys of the current bucket.
+ */
+class InactivityTimingWheel<K> {
+
+    private final long tickMs;
+    private final Set<K>[] buckets;
+    private final ConcurrentMap<K, Long> deadlines = new ConcurrentHashMap<>();
+    private final Object lock = new Object();
+    private long processedTick;
+
+    @SuppressWarnings("unchecked")
+    InactivityTimingWheel(long tickMs, int wheelSize, long startTs) {
+        if (tickMs <= 0) {
+            throw new IllegalArgumentException("Tick duration must be positive!");
+        }
+        if (wheelSize < 2) {
+            throw new IllegalArgumentException("Wheel size must be at least 2!");
+        }
+        this.tickMs = tickMs;
+        this.buckets = new Set[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new HashSet<>();
+        }
+        this.processedTick = startTs / tickMs - 1;
+    }
+
+    void schedule(K key, long deadline) {
+        Long previous = deadlines.put(key, deadline);
+        if (previous == null || deadline < previous) {
+            synchronized (lock) {
+                addToBucket(key, deadline);
+            }
+        }
+    }
+
+    void cancel(K key) {
+        deadlines.remove(key);
+    }
+
+    int size() {
+        return deadlines.size();
+    }
+
+    /**
+     * Processes the ticks that are fully elapsed by the given time and passes the expired keys along with
+     * their deadlines to the consumer. Expired keys are removed from the wheel; the consumer is invoked outside the lock,
+     * so it may schedule the key again.
+     */
+    void advance(long now, BiConsumer<K, Long> expiredConsumer) {
+        List<Map.Entry<K, Long>> expired = new ArrayList<>();
+        synchronized (lock) {
+            long lastTick = now / tickMs - 1;
+            // buckets are reused every rotation, so there is no need to process the same bucket twice
+            long fromTick = Math.max(processedTick + 1, lastTick - buckets.length + 1);
+            for (long tick = fromTick; tick <= lastTick; tick++) {
+                processedTick = tick;
+                int idx = index(tick);
+                Iterator<K> iterator = buckets[idx].iterator();
+                while (iterator.hasNext()) {
+                    K key = iterator.next();
+                    Long deadline = deadlines.get(key);
+                    if (deadline != null && deadline <= now && deadlines.remove(key, deadline)) {
+                        iterator.remove();
+                        expired.add(Map.entry(key, deadline));
+                        continue;
+                    }
+                    deadline = deadlines.get(key);
+                    if (deadline == null) {
+                        iterator.remove();
+                    } else if (deadline <= now || index(tickOf(deadline)) != idx) {
+                        iterator.remove();
+                        addToBucket(key, deadline);
+                    }
+                }
+            }
+        }
+        expired.forEach(entry -> expiredConsumer.accept(entry.getKey(), entry.getValue()));
+    }
+
+    private void addToBucket(K key, long deadline) {
+        buckets[index(Math.max(tickOf(deadline), processedTick + 1))].add(key);
+    }
+
+    private long tickOf(long ts) {
+        return ts / tickMs;
+    }
+
+    private int index(long tick) {
+        return (int) Math.floorMod(tick, (long) buckets.length);
+    }
+
+}
@@ -42,6 +42,7 @@ import org.thingsboard.server.dao.entity.EntityService;
 import org.thingsboard.server.service.ws.WebSocketService;
 import org.thingsboard.server.service.ws.WebSocketSessionRef;
 import org.thingsboard.server.service.ws.telemetry.cmd.v2.CmdUpdate;
+import org.thingsboard.server.service.ws.telemetry.cmd.v2.EntityDataUpdate;
 import org.thingsboard.server.service.ws.telemetry.sub.TelemetrySubscriptionUpdate;
 
 import java.util.ArrayList;
@@ -343,4 +344,13 @@ public abstract class TbAbstractSubCtx<T extends EntityCountQuery> {
         }
     }
 
+    protected void sendLatestValuesWsMsg(EntityDataUpdate update) {
+        wsLock.lock();
+        try {
+            wsService.sendLatestUpdate(sessionRef.getSessionId(), update);
+        } finally {
+            wsLock.unlock();
+        }
+    }
+
 }
@@ -278,6 +278,41 @@ public class DefaultWebSocketService implements WebSocketService {
         sendUpdate(sessionRef, update);
     }
 
+    @Override
+    public void sendLatestUpdate(String sessionId, EntityDataUpdate update) {
+        if (update.getErrorCode() != SubscriptionErrorCode.NO_ERROR.getCode()) {
+            doSendUpdate(sessionId, update.getCmdId(), update);
+        } else {
+            doSendLatestUpdate(sessionId, update.getCmdId(), update);
+        }
+    }
+
+    /**
+     * Sends the update of a latest values subscription. While the update waits in the session queue,
+     * the next updates of the same command are merged into it, keeping the newest value of each key.
+     */
+    private void sendLatestUpdate(String sessionId, int cmdId, TelemetrySubscriptionUpdate update) {
+        TelemetrySubscriptionUpdate cmdUpdate = update.copyWithNewSubscriptionId(cmdId);
+        if (cmdUpdate.getErrorCode() != SubscriptionErrorCode.NO_ERROR.getCode()) {
+            doSendUpdate(sessionId, cmdId, cmdUpdate);
+        } else {
+            doSendLatestUpdate(sessionId, cmdId, cmdUpdate);
+        }
+    }
+
+    private void doSendLatestUpdate(String sessionId, int cmdId, LatestValuesUpdate update) {
+        WsSessionMetaData md = wsSessionsMap.get(sessionId);
+        if (md != null) {
+            executor.submit(() -> {
+                try {
+                    msgEndpoint.sendLatest(md.getSessionRef(), cmdId, update);
+                } catch (IOException e) {
+                    log.warn("[{}] Failed to send reply: {}", sessionId, update, e);
+                }
+            });
+        }
+    }
+
     private <T> void doSendUpdate(String sessionId, int cmdId, T update) {
         WsSessionMetaData md = wsSessionsMap.get(sessionId);
         if (md != null) {
@@ -461,7 +496,7 @@ public class DefaultWebSocketService implements WebSocketService {
                         .updateProcessor((subscription, update) -> {
                             subLock.lock();
                             try {
-                                sendUpdate(subscription.getSessionId(), cmd.getCmdId(), update);
+                                sendLatestUpdate(subscription.getSessionId(), cmd.getCmdId(), update);
                             } finally {
                                 subLock.unlock();
                             }
@@ -573,7 +608,7 @@ public class DefaultWebSocketService implements WebSocketService {
                         .updateProcessor((subscription, update) -> {
                             subLock.lock();
                             try {
-                                sendUpdate(subscription.getSessionId(), cmd.getCmdId(), update);
+                                sendLatestUpdate(subscription.getSessionId(), cmd.getCmdId(), update);
                             } finally {
                                 subLock.unlock();
                             }
@@ -668,7 +703,7 @@ public class DefaultWebSocketService implements WebSocketService {
                         .updateProcessor((subscription, update) -> {
                             subLock.lock();
                             try {
-                                sendUpdate(subscription.getSessionId(), cmd.getCmdId(), update);
+                                sendLatestUpdate(subscription.getSessionId(), cmd.getCmdId(), update);
                             } finally {
                                 subLock.unlock();
                             }
@@ -723,7 +758,11 @@ public class DefaultWebSocketService implements WebSocketService {
                         .updateProcessor((subscription, update) -> {
                             subLock.lock();
                             try {
-                                sendUpdate(subscription.getSessionId(), cmd.getCmdId(), update);
+                                if (cmd.getTimeWindow() > 0) {
+                                    sendUpdate(subscription.getSessionId(), cmd.getCmdId(), update);
+                                } else {
+                                    sendLatestUpdate(subscription.getSessionId(), cmd.getCmdId(), update);
+                                }
                             } finally {
                                 subLock.unlock();
                             }
@@ -0,0 +1,30 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.ws;
+
+/**
+ * Update of the latest values of a command. While the update waits in the session queue,
+ * the newer updates of the same command are merged into it instead of being queued.
+ */
+public interface LatestValuesUpdate {
+
+    /**
+     * Returns the update with the newest value of each key from this and the newer update of the same command.
+     * The newer update is of the same class as this one.
+     */
+    LatestValuesUpdate mergeLatest(LatestValuesUpdate newer);
+
+}
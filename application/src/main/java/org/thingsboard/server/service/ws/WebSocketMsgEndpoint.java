@@ -26,6 +26,11 @@ public interface WebSocketMsgEndpoint {
 
     void send(WebSocketSessionRef sessionRef, int subscriptionId, String msg) throws IOException;
 
+    /**
+     * Sends the latest values update of the command, merging it into the pending update of the same command if any.
+     */
+    void sendLatest(WebSocketSessionRef sessionRef, int cmdId, LatestValuesUpdate update) throws IOException;
+
     void sendPing(WebSocketSessionRef sessionRef, long currentTime) throws IOException;
 
     void close(WebSocketSessionRef sessionRef, CloseStatus withReason) throws IOException;
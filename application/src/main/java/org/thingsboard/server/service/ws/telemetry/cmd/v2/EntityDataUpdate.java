@@ -19,14 +19,22 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Getter;
 import lombok.ToString;
+import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.page.PageData;
 import org.thingsboard.server.common.data.query.EntityData;
+import org.thingsboard.server.common.data.query.EntityKeyType;
 import org.thingsboard.server.service.subscription.SubscriptionErrorCode;
+import org.thingsboard.server.service.ws.LatestValuesUpdate;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @ToString
-public class EntityDataUpdate extends DataUpdate<EntityData> {
+public class EntityDataUpdate extends DataUpdate<EntityData> implements LatestValuesUpdate {
 
     @Getter
     private long allowedEntities;
@@ -45,6 +53,32 @@ public class EntityDataUpdate extends DataUpdate<EntityData> {
         return CmdUpdateType.ENTITY_DATA;
     }
 
+    /**
+     * Merges the newer latest values update of the same command: the newer value of each key of each entity wins,
+     * since the stale values are filtered out by the subscription context before the update is sent.
+     */
+    @Override
+    public EntityDataUpdate mergeLatest(LatestValuesUpdate newerUpdate) {
+        EntityDataUpdate newer = (EntityDataUpdate) newerUpdate;
+        Map<EntityId, EntityData> merged = new LinkedHashMap<>();
+        List<EntityData> updates = new ArrayList<>();
+        if (getUpdate() != null) {
+            updates.addAll(getUpdate());
+        }
+        if (newer.getUpdate() != null) {
+            updates.addAll(newer.getUpdate());
+        }
+        for (EntityData entityData : updates) {
+            EntityData mergedData = merged.computeIfAbsent(entityData.getEntityId(),
+                    entityId -> new EntityData(entityId, new EnumMap<>(EntityKeyType.class), null));
+            if (entityData.getLatest() != null) {
+                entityData.getLatest().forEach((keyType, values) ->
+                        mergedData.getLatest().computeIfAbsent(keyType, type -> new HashMap<>()).putAll(values));
+            }
+        }
+        return new EntityDataUpdate(getCmdId(), null, new ArrayList<>(merged.values()), allowedEntities);
+    }
+
     @JsonCreator
     public EntityDataUpdate(@JsonProperty("cmdId") int cmdId,
                             @JsonProperty("data") PageData<EntityData> data,
@@ -18,6 +18,7 @@ package org.thingsboard.server.service.ws.telemetry.sub;
 import lombok.AllArgsConstructor;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
 import org.thingsboard.server.service.subscription.SubscriptionErrorCode;
+import org.thingsboard.server.service.ws.LatestValuesUpdate;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -28,7 +29,7 @@ import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @AllArgsConstructor
-public class TelemetrySubscriptionUpdate {
+public class TelemetrySubscriptionUpdate implements LatestValuesUpdate {
     private final int subscriptionId;
     private int errorCode;
     private String errorMsg;
@@ -94,6 +95,31 @@ public class TelemetrySubscriptionUpdate {
         return errorMsg;
     }
 
+    /**
+     * Merges the newer update of the same latest values subscription: keeps the value with the greatest timestamp for each key.
+     */
+    @Override
+    public TelemetrySubscriptionUpdate mergeLatest(LatestValuesUpdate newerUpdate) {
+        TelemetrySubscriptionUpdate newer = (TelemetrySubscriptionUpdate) newerUpdate;
+        Map<String, List<Object>> merged = new TreeMap<>();
+        if (data != null) {
+            merged.putAll(data);
+        }
+        if (newer.data != null) {
+            newer.data.forEach((key, values) -> {
+                if (values.isEmpty()) {
+                    return;
+                }
+                Object[] latest = (Object[]) values.get(values.size() - 1);
+                List<Object> current = merged.get(key);
+                if (current == null || current.isEmpty() || (long) ((Object[]) current.get(current.size() - 1))[0] <= (long) latest[0]) {
+                    merged.put(key, Collections.singletonList(latest));
+                }
+            });
+        }
+        return new TelemetrySubscriptionUpdate(subscriptionId, errorCode, errorMsg, merged);
+    }
+
     public TelemetrySubscriptionUpdate copyWithNewSubscriptionId(int subscriptionId){
         return new TelemetrySubscriptionUpdate(subscriptionId, errorCode, errorMsg, data);
     }
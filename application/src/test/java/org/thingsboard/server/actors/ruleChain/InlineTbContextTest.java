@@ -0,0 +1,96 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors.ruleChain;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.actors.ActorSystemContext;
+import org.thingsboard.server.actors.TbActorRef;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.RuleChainId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.msg.TbMsgType;
+import org.thingsboard.server.common.data.msg.TbNodeConnectionType;
+import org.thingsboard.server.common.data.rule.RuleNode;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class InlineTbContextTest {
+
+    TbActorRef chainActor;
+    RuleNodeCtx nodeCtx;
+    Queue<RuleNodeToRuleChainTellNextMsg> outbox;
+    TbMsg msg;
+
+    @BeforeEach
+    void setUp() {
+        chainActor = mock(TbActorRef.class);
+        RuleNode ruleNode = new RuleNode(new RuleNodeId(UUID.randomUUID()));
+        ruleNode.setRuleChainId(new RuleChainId(UUID.randomUUID()));
+        nodeCtx = new RuleNodeCtx(TenantId.SYS_TENANT_ID, chainActor, mock(TbActorRef.class), ruleNode);
+        outbox = new ArrayDeque<>();
+        msg = TbMsg.newMsg(TbMsgType.POST_TELEMETRY_REQUEST, new DeviceId(UUID.randomUUID()), TbMsgMetaData.EMPTY, TbMsg.EMPTY_JSON_OBJECT);
+    }
+
+    @Test
+    void givenInlineExecution_whenTellNext_thenMsgIsPutToOutbox() {
+        InlineTbContext ctx = new InlineTbContext(mock(ActorSystemContext.class), "Root", nodeCtx, outbox);
+
+        ctx.tellNext(msg, TbNodeConnectionType.TRUE);
+
+        assertThat(outbox).hasSize(1);
+        RuleNodeToRuleChainTellNextMsg tellNextMsg = outbox.poll();
+        assertThat(tellNextMsg.getOriginator()).isEqualTo(nodeCtx.getSelf().getId());
+        assertThat(tellNextMsg.getRelationTypes()).containsExactly(TbNodeConnectionType.TRUE);
+        assertThat(tellNextMsg.getMsg()).isSameAs(msg);
+        verify(chainActor, never()).tell(any());
+    }
+
+    @Test
+    void givenCompletedInlineExecution_whenTellNext_thenMsgIsSentToRuleChainActor() {
+        InlineTbContext ctx = new InlineTbContext(mock(ActorSystemContext.class), "Root", nodeCtx, outbox);
+        ctx.complete();
+
+        ctx.tellFailure(msg, new RuntimeException("failure"));
+
+        assertThat(outbox).isEmpty();
+        verify(chainActor).tell(any(RuleNodeToRuleChainTellNextMsg.class));
+    }
+
+    @Test
+    void givenInlineExecution_whenTellNextFromOtherThread_thenMsgIsSentToRuleChainActor() throws Exception {
+        InlineTbContext ctx = new InlineTbContext(mock(ActorSystemContext.class), "Root", nodeCtx, outbox);
+
+        Thread thread = new Thread(() -> ctx.tellSuccess(msg));
+        thread.start();
+        thread.join();
+
+        assertThat(outbox).isEmpty();
+        verify(chainActor).tell(any(RuleNodeToRuleChainTellNextMsg.class));
+    }
+
+}
@@ -0,0 +1,264 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors.ruleChain;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.rule.engine.api.EmptyNodeConfiguration;
+import org.thingsboard.rule.engine.api.TbContext;
+import org.thingsboard.rule.engine.api.TbNode;
+import org.thingsboard.rule.engine.api.TbNodeConfiguration;
+import org.thingsboard.rule.engine.api.TbNodeException;
+import org.thingsboard.server.actors.ActorSystemContext;
+import org.thingsboard.server.actors.TbActorCtx;
+import org.thingsboard.server.actors.TbActorRef;
+import org.thingsboard.server.actors.TbEntityActorId;
+import org.thingsboard.server.actors.stats.StatsPersistMsg;
+import org.thingsboard.server.cluster.TbClusterService;
+import org.thingsboard.server.common.data.TenantProfile;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.RuleChainId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.msg.TbMsgType;
+import org.thingsboard.server.common.data.msg.TbNodeConnectionType;
+import org.thingsboard.server.common.data.plugin.ComponentType;
+import org.thingsboard.server.common.data.relation.EntityRelation;
+import org.thingsboard.server.common.data.rule.RuleChain;
+import org.thingsboard.server.common.data.rule.RuleChainType;
+import org.thingsboard.server.common.data.rule.RuleNode;
+import org.thingsboard.server.common.data.tenant.profile.DefaultTenantProfileConfiguration;
+import org.thingsboard.server.common.data.tenant.profile.TenantProfileData;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+import org.thingsboard.server.common.msg.queue.RuleNodeException;
+import org.thingsboard.server.common.msg.queue.TbMsgCallback;
+import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.common.stats.TbApiUsageReportClient;
+import org.thingsboard.server.dao.rule.RuleChainService;
+import org.thingsboard.server.dao.tenant.TbTenantProfileCache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RuleChainActorMessageProcessorTest {
+
+    private static final List<TbMsg> processedInline = Collections.synchronizedList(new ArrayList<>());
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final RuleChainId ruleChainId = new RuleChainId(UUID.randomUUID());
+
+    private ActorSystemContext systemContext;
+    private RuleChainService ruleChainService;
+    private TbActorCtx actorCtx;
+    private TenantProfile tenantProfile;
+    private final Map<RuleNodeId, TbActorRef> nodeActors = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        processedInline.clear();
+        systemContext = mock(ActorSystemContext.class);
+        ruleChainService = mock(RuleChainService.class);
+        when(systemContext.getRuleChainService()).thenReturn(ruleChainService);
+        when(systemContext.getApiUsageClient()).thenReturn(mock(TbApiUsageReportClient.class));
+        when(systemContext.getClusterService()).thenReturn(mock(TbClusterService.class));
+        when(systemContext.isRuleChainInlineNodesEnabled()).thenReturn(true);
+        TbTenantProfileCache tenantProfileCache = mock(TbTenantProfileCache.class);
+        tenantProfile = new TenantProfile();
+        when(tenantProfileCache.get(tenantId)).thenReturn(tenantProfile);
+        when(systemContext.getTenantProfileCache()).thenReturn(tenantProfileCache);
+        when(systemContext.resolve(eq(tenantId), any(), any())).thenReturn(new TopicPartitionInfo("tb_rule_engine", tenantId, 0, true));
+
+        actorCtx = mock(TbActorCtx.class);
+        willAnswer(invocation -> {
+            TbActorRef actorRef = mock(TbActorRef.class);
+            nodeActors.put(new RuleNodeId(((TbEntityActorId) invocation.getArgument(0)).getEntityId().getId()), actorRef);
+            return actorRef;
+        }).given(actorCtx).getOrCreateChildActor(any(), any(), any(), any());
+    }
+
+    @Test
+    void givenActiveInlineNode_whenMsgPushed_thenNodeIsExecutedInlineAndOutputIsRouted() {
+        RuleNode inlineNode = newRuleNode(InlineTestNode.class);
+        RuleNode nextNode = newRuleNode(ActorTestNode.class);
+        RuleChainActorMessageProcessor processor = startRuleChain(inlineNode, nextNode);
+        TbMsgCallback callback = mock(TbMsgCallback.class);
+        when(callback.isMsgValid()).thenReturn(true);
+        TbMsg msg = newMsg(callback);
+
+        processor.onRuleChainToRuleChainMsg(new RuleChainToRuleChainMsg(ruleChainId, ruleChainId, msg, TbNodeConnectionType.SUCCESS));
+
+        assertThat(processedInline).containsExactly(msg);
+        verify(callback).onProcessingStart(any());
+        verify(nodeActors.get(inlineNode.getId()), never()).tell(any());
+        verify(nodeActors.get(nextNode.getId())).tell(any(RuleChainToRuleNodeMsg.class));
+        verify(callback, never()).onFailure(any());
+    }
+
+    @Test
+    void givenInlineNodeFailedToInit_whenMsgPushed_thenMsgIsSentToRuleNodeActor() {
+        RuleNode failedNode = newRuleNode(FailingInitTestNode.class);
+        RuleNode nextNode = newRuleNode(ActorTestNode.class);
+        RuleChainActorMessageProcessor processor = startRuleChain(failedNode, nextNode);
+        TbMsgCallback callback = mock(TbMsgCallback.class);
+        when(callback.isMsgValid()).thenReturn(true);
+        TbMsg msg = newMsg(callback);
+
+        processor.onRuleChainToRuleChainMsg(new RuleChainToRuleChainMsg(ruleChainId, ruleChainId, msg, TbNodeConnectionType.SUCCESS));
+
+        assertThat(processedInline).isEmpty();
+        verify(nodeActors.get(failedNode.getId())).tell(any(RuleChainToRuleNodeMsg.class));
+        verify(nodeActors.get(nextNode.getId()), never()).tell(any());
+    }
+
+    @Test
+    void givenMaxRuleNodeExecutionsReached_whenMsgPushed_thenInlineNodeIsNotExecuted() {
+        DefaultTenantProfileConfiguration configuration = DefaultTenantProfileConfiguration.builder().maxRuleNodeExecutionsPerMessage(1).build();
+        TenantProfileData profileData = new TenantProfileData();
+        profileData.setConfiguration(configuration);
+        tenantProfile.setProfileData(profileData);
+        RuleNode firstNode = newRuleNode(InlineTestNode.class);
+        RuleNode nextNode = newRuleNode(InlineTestNode.class);
+        RuleChainActorMessageProcessor processor = startRuleChain(firstNode, nextNode);
+        TbMsgCallback callback = mock(TbMsgCallback.class);
+        when(callback.isMsgValid()).thenReturn(true);
+        TbMsg msg = newMsg(callback);
+
+        processor.onRuleChainToRuleChainMsg(new RuleChainToRuleChainMsg(ruleChainId, ruleChainId, msg, TbNodeConnectionType.SUCCESS));
+
+        assertThat(processedInline).containsExactly(msg);
+        verify(callback).onFailure(any(RuleNodeException.class));
+    }
+
+    @Test
+    void givenInlineNodeFailedToProcessMsg_whenStatsPersistTick_thenErrorIsCountedAndPersisted() {
+        TbActorRef statsActor = mock(TbActorRef.class);
+        when(systemContext.getStatsActor()).thenReturn(statsActor);
+        RuleNode failingNode = newRuleNode(FailingOnMsgTestNode.class);
+        RuleNode nextNode = newRuleNode(ActorTestNode.class);
+        RuleChainActorMessageProcessor processor = startRuleChain(failingNode, nextNode);
+        TbMsgCallback callback = mock(TbMsgCallback.class);
+        when(callback.isMsgValid()).thenReturn(true);
+
+        processor.onRuleChainToRuleChainMsg(new RuleChainToRuleChainMsg(ruleChainId, ruleChainId, newMsg(callback), TbNodeConnectionType.SUCCESS));
+        processor.onStatsPersistTick();
+
+        verify(systemContext).persistError(eq(tenantId), eq(failingNode.getId()), eq("onRuleMsg"), any(RuntimeException.class));
+        ArgumentCaptor<StatsPersistMsg> statsCaptor = ArgumentCaptor.forClass(StatsPersistMsg.class);
+        verify(statsActor).tell(statsCaptor.capture());
+        assertThat(statsCaptor.getValue().getEntityId()).isEqualTo(failingNode.getId());
+        assertThat(statsCaptor.getValue().getMessagesProcessed()).isEqualTo(1);
+        assertThat(statsCaptor.getValue().getErrorsOccurred()).isEqualTo(1);
+        verify(nodeActors.get(nextNode.getId()), never()).tell(any());
+    }
+
+    private RuleChainActorMessageProcessor startRuleChain(RuleNode firstNode, RuleNode nextNode) {
+        RuleChain ruleChain = new RuleChain(ruleChainId);
+        ruleChain.setTenantId(tenantId);
+        ruleChain.setName("Root");
+        ruleChain.setType(RuleChainType.CORE);
+        ruleChain.setFirstRuleNodeId(firstNode.getId());
+        when(ruleChainService.findRuleChainById(tenantId, ruleChainId)).thenReturn(ruleChain);
+        when(ruleChainService.getRuleChainNodes(tenantId, ruleChainId)).thenReturn(List.of(firstNode, nextNode));
+        EntityRelation relation = new EntityRelation(firstNode.getId(), nextNode.getId(), TbNodeConnectionType.SUCCESS);
+        when(ruleChainService.getRuleNodeRelations(TenantId.SYS_TENANT_ID, firstNode.getId())).thenReturn(List.of(relation));
+        when(ruleChainService.getRuleNodeRelations(TenantId.SYS_TENANT_ID, nextNode.getId())).thenReturn(Collections.emptyList());
+
+        RuleChainActorMessageProcessor processor = new RuleChainActorMessageProcessor(tenantId, ruleChain, systemContext,
+                mock(TbActorRef.class), mock(TbActorRef.class));
+        processor.start(actorCtx);
+        return processor;
+    }
+
+    private RuleNode newRuleNode(Class<? extends TbNode> type) {
+        RuleNode ruleNode = new RuleNode(new RuleNodeId(UUID.randomUUID()));
+        ruleNode.setRuleChainId(ruleChainId);
+        ruleNode.setName(type.getSimpleName());
+        ruleNode.setType(type.getName());
+        ruleNode.setConfiguration(JacksonUtil.newObjectNode());
+        return ruleNode;
+    }
+
+    private TbMsg newMsg(TbMsgCallback callback) {
+        return TbMsg.newMsg(TbMsgType.POST_TELEMETRY_REQUEST.name(), new DeviceId(UUID.randomUUID()), TbMsgMetaData.EMPTY, TbMsg.EMPTY_JSON_OBJECT, callback);
+    }
+
+    @org.thingsboard.rule.engine.api.RuleNode(type = ComponentType.FILTER, name = "inline test", nodeDescription = "", nodeDetails = "",
+            configClazz = EmptyNodeConfiguration.class, inlineable = true)
+    public static class InlineTestNode implements TbNode {
+
+        @Override
+        public void init(TbContext ctx, TbNodeConfiguration configuration) throws TbNodeException {
+        }
+
+        @Override
+        public void onMsg(TbContext ctx, TbMsg msg) {
+            processedInline.add(msg);
+            ctx.tellSuccess(msg);
+        }
+
+    }
+
+    @org.thingsboard.rule.engine.api.RuleNode(type = ComponentType.FILTER, name = "failing init test", nodeDescription = "", nodeDetails = "",
+            configClazz = EmptyNodeConfiguration.class, inlineable = true)
+    public static class FailingInitTestNode extends InlineTestNode {
+
+        @Override
+        public void init(TbContext ctx, TbNodeConfiguration configuration) throws TbNodeException {
+            throw new TbNodeException("init failure");
+        }
+
+    }
+
+    @org.thingsboard.rule.engine.api.RuleNode(type = ComponentType.FILTER, name = "failing msg test", nodeDescription = "", nodeDetails = "",
+            configClazz = EmptyNodeConfiguration.class, inlineable = true)
+    public static class FailingOnMsgTestNode extends InlineTestNode {
+
+        @Override
+        public void onMsg(TbContext ctx, TbMsg msg) {
+            throw new RuntimeException("msg failure");
+        }
+
+    }
+
+    public static class ActorTestNode implements TbNode {
+
+        @Override
+        public void init(TbContext ctx, TbNodeConfiguration configuration) {
+        }
+
+        @Override
+        public void onMsg(TbContext ctx, TbMsg msg) {
+        }
+
+    }
+
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors.ruleChain;
+
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.event.RuleNodeDebugEvent;
+import org.thingsboard.server.common.data.id.TenantId;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RuleNodeDebugEventBufferTest {
+
+    private final UUID ruleNodeId = UUID.randomUUID();
+
+    @Test
+    void givenMoreEventsThanBufferSize_whenGet_thenLatestEventsReturnedNewestFirst() {
+        RuleNodeDebugEventBuffer buffer = new RuleNodeDebugEventBuffer(3, 1, 0);
+        for (int i = 0; i < 5; i++) {
+            String data = "data" + i;
+            buffer.add(ruleNodeId, () -> newEvent(ruleNodeId, data));
+        }
+
+        List<RuleNodeDebugEvent> events = buffer.get(ruleNodeId);
+
+        assertThat(events).extracting(RuleNodeDebugEvent::getData).containsExactly("data4", "data3", "data2");
+        assertThat(buffer.get(ruleNodeId)).hasSize(3);
+    }
+
+    @Test
+    void givenSamplingRate_whenAdd_thenOnlyEveryNthEventCaptured() {
+        RuleNodeDebugEventBuffer buffer = new RuleNodeDebugEventBuffer(10, 2, 0);
+        for (int i = 0; i < 5; i++) {
+            String data = "data" + i;
+            buffer.add(ruleNodeId, () -> newEvent(ruleNodeId, data));
+        }
+
+        assertThat(buffer.get(ruleNodeId)).extracting(RuleNodeDebugEvent::getData).containsExactly("data4", "data2", "data0");
+    }
+
+    @Test
+    void givenSamplingRate_whenEventSkipped_thenEventIsNotCreated() {
+        RuleNodeDebugEventBuffer buffer = new RuleNodeDebugEventBuffer(10, 3, 0);
+        AtomicInteger created = new AtomicInteger();
+        for (int i = 0; i < 6; i++) {
+            boolean added = buffer.add(ruleNodeId, () -> {
+                created.incrementAndGet();
+                return newEvent(ruleNodeId, "data");
+            });
+            assertThat(added).isEqualTo(i % 3 == 0);
+        }
+
+        assertThat(created).hasValue(2);
+        assertThat(buffer.get(ruleNodeId)).hasSize(2);
+    }
+
+    @Test
+    void givenMaxEventSize_whenAdd_thenDataIsTruncated() {
+        RuleNodeDebugEventBuffer buffer = new RuleNodeDebugEventBuffer(10, 1, 4);
+        buffer.add(ruleNodeId, () -> newEvent(ruleNodeId, "1234567"));
+
+        assertThat(buffer.get(ruleNodeId).get(0).getData()).startsWith("1234").contains("truncated 3 symbols");
+    }
+
+    @Test
+    void givenBufferedEvents_whenDrain_thenBufferIsCleared() {
+        RuleNodeDebugEventBuffer buffer = new RuleNodeDebugEventBuffer(10, 1, 0);
+        UUID otherRuleNodeId = UUID.randomUUID();
+        buffer.add(ruleNodeId, () -> newEvent(ruleNodeId, "data0"));
+        buffer.add(ruleNodeId, () -> newEvent(ruleNodeId, "data1"));
+        buffer.add(otherRuleNodeId, () -> newEvent(otherRuleNodeId, "other"));
+
+        assertThat(buffer.drain(ruleNodeId)).hasSize(2);
+        assertThat(buffer.get(ruleNodeId)).isEmpty();
+        assertThat(buffer.get(otherRuleNodeId)).hasSize(1);
+
+        buffer.remove(otherRuleNodeId);
+        assertThat(buffer.get(otherRuleNodeId)).isEmpty();
+    }
+
+    private static RuleNodeDebugEvent newEvent(UUID ruleNodeId, String data) {
+        return RuleNodeDebugEvent.builder()
+                .tenantId(TenantId.SYS_TENANT_ID)
+                .entityId(ruleNodeId)
+                .serviceId("test")
+                .eventType("IN")
+                .data(data)
+                .metadata("{}")
+                .build();
+    }
+
+}
@@ -15,6 +15,7 @@
  */
 package org.thingsboard.server.controller.plugin;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import jakarta.websocket.RemoteEndpoint;
 import jakarta.websocket.SendHandler;
 import jakarta.websocket.SendResult;
@@ -25,16 +26,32 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.thingsboard.common.util.JacksonUtil;
 import org.thingsboard.common.util.ThingsBoardThreadFactory;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.StringDataEntry;
+import org.thingsboard.server.common.data.query.EntityData;
+import org.thingsboard.server.common.data.query.EntityKeyType;
+import org.thingsboard.server.common.data.query.TsValue;
 import org.thingsboard.server.service.ws.WebSocketSessionRef;
+import org.thingsboard.server.service.ws.telemetry.cmd.v2.EntityDataUpdate;
+import org.thingsboard.server.service.ws.telemetry.sub.TelemetrySubscriptionUpdate;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
@@ -163,6 +180,75 @@ class TbWebSocketHandlerTest {
         verify(asyncRemote, times(1)).sendText(anyString(), any());
     }
 
+    @Test
+    void sendHandler_sendLatestUpdate_conflatedWhileQueued() {
+        List<String> outputs = new ArrayList<>();
+        willAnswer(invocation -> outputs.add(invocation.getArgument(0))).given(asyncRemote).sendText(anyString(), any());
+        sendHandler.sendMsg("first message to stay in-flight until the callback");
+        sendHandler.sendLatestUpdate(1, latestUpdate(1, "temperature", 1L, "10"));
+        sendHandler.sendLatestUpdate(2, latestUpdate(2, "humidity", 1L, "50"));
+        sendHandler.sendLatestUpdate(1, latestUpdate(1, "temperature", 3L, "30"));
+        sendHandler.sendLatestUpdate(1, latestUpdate(1, "temperature", 2L, "20"));
+        sendHandler.sendLatestUpdate(1, latestUpdate(1, "pressure", 2L, "1000"));
+
+        for (int i = 0; i < 3; i++) {
+            sendHandler.onResult(new SendResult());
+        }
+
+        assertThat(outputs).hasSize(3);
+        JsonNode first = JacksonUtil.toJsonNode(outputs.get(1));
+        assertThat(first.get("subscriptionId").asInt()).isEqualTo(1);
+        assertThat(first.get("data").get("temperature").get(0).get(1).asText()).as("newest value is kept").isEqualTo("30");
+        assertThat(first.get("data").get("pressure").get(0).get(1).asText()).isEqualTo("1000");
+        JsonNode second = JacksonUtil.toJsonNode(outputs.get(2));
+        assertThat(second.get("subscriptionId").asInt()).isEqualTo(2);
+        verify(sendHandler, never()).closeSession(any());
+    }
+
+    @Test
+    void sendHandler_sendLatestEntityDataUpdate_conflatedWhileQueued() {
+        List<String> outputs = new ArrayList<>();
+        willAnswer(invocation -> outputs.add(invocation.getArgument(0))).given(asyncRemote).sendText(anyString(), any());
+        DeviceId firstDeviceId = new DeviceId(UUID.randomUUID());
+        DeviceId secondDeviceId = new DeviceId(UUID.randomUUID());
+        sendHandler.sendMsg("first message to stay in-flight until the callback");
+        sendHandler.sendLatestUpdate(1, latestEntityDataUpdate(1, firstDeviceId, "temperature", 1L, "10"));
+        sendHandler.sendLatestUpdate(1, latestEntityDataUpdate(1, secondDeviceId, "temperature", 1L, "15"));
+        sendHandler.sendLatestUpdate(1, latestEntityDataUpdate(1, firstDeviceId, "temperature", 2L, "20"));
+        sendHandler.sendLatestUpdate(1, latestEntityDataUpdate(1, firstDeviceId, "humidity", 2L, "50"));
+
+        for (int i = 0; i < 2; i++) {
+            sendHandler.onResult(new SendResult());
+        }
+
+        assertThat(outputs).hasSize(2);
+        EntityDataUpdate update = JacksonUtil.fromString(outputs.get(1), EntityDataUpdate.class);
+        assertThat(update.getCmdId()).isEqualTo(1);
+        assertThat(update.getUpdate()).extracting(EntityData::getEntityId).containsExactly(firstDeviceId, secondDeviceId);
+        Map<String, TsValue> firstDeviceLatest = update.getUpdate().get(0).getLatest().get(EntityKeyType.TIME_SERIES);
+        assertThat(firstDeviceLatest.get("temperature")).as("newest value is kept").isEqualTo(new TsValue(2L, "20"));
+        assertThat(firstDeviceLatest.get("humidity")).isEqualTo(new TsValue(2L, "50"));
+        assertThat(update.getUpdate().get(1).getLatest().get(EntityKeyType.TIME_SERIES).get("temperature")).isEqualTo(new TsValue(1L, "15"));
+        verify(sendHandler, never()).closeSession(any());
+    }
+
+    @Test
+    void sendHandler_sendMsg_queuedMsgsPackedIntoFrame() {
+        ReflectionTestUtils.setField(wsHandler, "maxUpdatesPerFrame", 2);
+        List<String> outputs = new ArrayList<>();
+        willAnswer(invocation -> outputs.add(invocation.getArgument(0))).given(asyncRemote).sendText(anyString(), any());
+        sendHandler.sendMsg("{\"msg\":0}");
+        sendHandler.sendMsg("{\"msg\":1}");
+        sendHandler.sendMsg("{\"msg\":2}");
+        sendHandler.sendMsg("{\"msg\":3}");
+
+        for (int i = 0; i < 3; i++) {
+            sendHandler.onResult(new SendResult());
+        }
+
+        assertThat(outputs).containsExactly("{\"msg\":0}", "[{\"msg\":1},{\"msg\":2}]", "{\"msg\":3}");
+    }
+
     @Test
     void sendHandler_onMsg_allProcessed() throws Exception {
         Deque<String> msgs = new ConcurrentLinkedDeque<>();
@@ -184,4 +270,15 @@ class TbWebSocketHandlerTest {
         assertThat(msgs).map(Integer::parseInt).doesNotHaveDuplicates().hasSize(100);
     }
 
+    private static EntityDataUpdate latestEntityDataUpdate(int cmdId, EntityId entityId, String key, long ts, String value) {
+        Map<String, TsValue> latest = new HashMap<>();
+        latest.put(key, new TsValue(ts, value));
+        EntityData entityData = new EntityData(entityId, Collections.singletonMap(EntityKeyType.TIME_SERIES, latest), null);
+        return new EntityDataUpdate(cmdId, null, Collections.singletonList(entityData), 100);
+    }
+
+    private static TelemetrySubscriptionUpdate latestUpdate(int cmdId, String key, long ts, String value) {
+        return new TelemetrySubscriptionUpdate(cmdId, List.of(new BasicTsKvEntry(ts, new StringDataEntry(key, value))));
+    }
+
 }
@@ -37,6 +37,7 @@ import org.thingsboard.server.common.data.id.UUIDBased;
 import org.thingsboard.server.common.data.queue.Queue;
 import org.thingsboard.server.common.msg.queue.ServiceType;
 import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.gen.transport.TransportProtos;
 import org.thingsboard.server.gen.transport.TransportProtos.ServiceInfo;
 import org.thingsboard.server.queue.discovery.event.PartitionChangeEvent;
@@ -81,6 +82,7 @@ public class HashPartitionServiceTest {
     private TopicService topicService;
 
     private String hashFunctionName = "murmur3_128";
+    private String assignmentStrategyName = "modulo";
 
     @BeforeEach
     public void setup() throws Exception {
@@ -394,6 +396,43 @@ public class HashPartitionServiceTest {
         });
     }
 
+    @Test
+    public void testRendezvousAssignmentMovesOnlyPartitionsOfChangedServer() {
+        assignmentStrategyName = "rendezvous";
+        partitionService = createPartitionService();
+        int partitions = 120;
+        List<ServiceInfo> ruleEngines = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            ruleEngines.add(ServiceInfo.newBuilder()
+                    .setServiceId("tb-rule-engine-" + i)
+                    .addAllServiceTypes(List.of(ServiceType.TB_RULE_ENGINE.name()))
+                    .build());
+        }
+        QueueKey queueKey = new QueueKey(ServiceType.TB_RULE_ENGINE, TenantId.SYS_TENANT_ID);
+
+        List<ServiceInfo> before = new ArrayList<>();
+        for (int partition = 0; partition < partitions; partition++) {
+            before.add(partitionService.resolveByPartitionIdx(ruleEngines, queueKey, partition, Collections.emptyMap()));
+        }
+        assertThat(before.stream().distinct().count()).isGreaterThan(8);
+
+        ServiceInfo removed = ruleEngines.remove(5);
+        for (int partition = 0; partition < partitions; partition++) {
+            ServiceInfo after = partitionService.resolveByPartitionIdx(ruleEngines, queueKey, partition, Collections.emptyMap());
+            if (before.get(partition).equals(removed)) {
+                assertThat(after).isNotEqualTo(removed);
+            } else {
+                assertThat(after).as("partition " + partition + " should not move").isEqualTo(before.get(partition));
+            }
+        }
+
+        ruleEngines.add(5, removed);
+        for (int partition = 0; partition < partitions; partition++) {
+            assertThat(partitionService.resolveByPartitionIdx(ruleEngines, queueKey, partition, Collections.emptyMap()))
+                    .isEqualTo(before.get(partition));
+        }
+    }
+
     private void verifyPartitionChangeEvent(Predicate<PartitionChangeEvent> predicate) {
         verify(applicationEventPublisher).publishEvent(argThat(event -> event instanceof PartitionChangeEvent && predicate.test((PartitionChangeEvent) event)));
     }
@@ -423,12 +462,14 @@ public class HashPartitionServiceTest {
                 routingInfoService,
                 applicationEventPublisher,
                 queueRoutingInfoService,
-                topicService);
+                topicService,
+                mock(StatsFactory.class, Mockito.RETURNS_MOCKS));
         ReflectionTestUtils.setField(partitionService, "coreTopic", "tb.core");
         ReflectionTestUtils.setField(partitionService, "corePartitions", 10);
         ReflectionTestUtils.setField(partitionService, "vcTopic", "tb.vc");
         ReflectionTestUtils.setField(partitionService, "vcPartitions", 10);
         ReflectionTestUtils.setField(partitionService, "hashFunctionName", hashFunctionName);
+        ReflectionTestUtils.setField(partitionService, "assignmentStrategyName", assignmentStrategyName);
         ReflectionTestUtils.setField(partitionService, "edgeTopic", "tb.edge");
         ReflectionTestUtils.setField(partitionService, "edgePartitions", 10);
         partitionService.init();
@@ -0,0 +1,146 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.queue.ruleengine;
+
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.queue.TbQueueConsumer;
+import org.thingsboard.server.queue.TbQueuePosition;
+import org.thingsboard.server.service.queue.ruleengine.TbRuleEnginePackPipeline.PackBarriers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class TbRuleEnginePackPipelineTest {
+
+    private final TbQueueConsumer<?> consumer = mock(TbQueueConsumer.class);
+    private final TbRuleEnginePackPipeline pipeline = new TbRuleEnginePackPipeline(consumer, 4);
+
+    @Test
+    public void testCommitsHighestContiguousProcessedPack() {
+        TbQueuePosition position1 = mock(TbQueuePosition.class);
+        TbQueuePosition position2 = mock(TbQueuePosition.class);
+        TbQueuePosition position3 = mock(TbQueuePosition.class);
+        CompletableFuture<Boolean> pack1 = new CompletableFuture<>();
+        CompletableFuture<Boolean> pack2 = new CompletableFuture<>();
+        CompletableFuture<Boolean> pack3 = new CompletableFuture<>();
+        pipeline.add(position1, Collections.emptySet(), pack1);
+        pipeline.add(position2, Collections.emptySet(), pack2);
+        pipeline.add(position3, Collections.emptySet(), pack3);
+
+        pack2.complete(true);
+        pack3.complete(true);
+        pipeline.commitProcessed();
+        verify(consumer, never()).commit(any(TbQueuePosition.class));
+
+        pack1.complete(true);
+        pipeline.commitProcessed();
+        verify(consumer).commit(position3);
+        verify(consumer, never()).commit(position1);
+        assertThat(pipeline.size()).isZero();
+    }
+
+    @Test
+    public void testDoesNotCommitPackInterruptedByStop() {
+        TbQueuePosition position1 = mock(TbQueuePosition.class);
+        TbQueuePosition position2 = mock(TbQueuePosition.class);
+        CompletableFuture<Boolean> pack1 = new CompletableFuture<>();
+        CompletableFuture<Boolean> pack2 = new CompletableFuture<>();
+        pipeline.add(position1, Collections.emptySet(), pack1);
+        pipeline.add(position2, Collections.emptySet(), pack2);
+
+        pack1.complete(true);
+        pack2.complete(false);
+        pipeline.drain(100);
+
+        verify(consumer).commit(position1);
+        verify(consumer, never()).commit(position2);
+    }
+
+    @Test
+    public void testMessagesOfSameEntityWaitForPreviousPack() {
+        EntityId device1 = new DeviceId(UUID.randomUUID());
+        EntityId device2 = new DeviceId(UUID.randomUUID());
+        CompletableFuture<Boolean> pack1 = new CompletableFuture<>();
+        CompletableFuture<Boolean> pack2 = new CompletableFuture<>();
+        CompletableFuture<Boolean> pack3 = new CompletableFuture<>();
+
+        assertThat(pipeline.add(mock(TbQueuePosition.class), Set.of(device1), pack1).isEmpty()).isTrue();
+        PackBarriers barriers = pipeline.add(mock(TbQueuePosition.class), Set.of(device1, device2), pack2);
+        assertThat(barriers.get(device1)).isSameAs(pack1);
+        assertThat(barriers.get(device2)).isNull();
+
+        pack1.complete(true);
+        pack2.complete(true);
+        assertThat(pipeline.add(mock(TbQueuePosition.class), Set.of(device1, device2), pack3).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testDeferredMessageIsSubmittedOnceToCurrentAttempt() {
+        EntityId device = new DeviceId(UUID.randomUUID());
+        CompletableFuture<Boolean> pack1 = new CompletableFuture<>();
+        pipeline.add(mock(TbQueuePosition.class), Set.of(device), pack1);
+        PackBarriers barriers = pipeline.add(mock(TbQueuePosition.class), Set.of(device), new CompletableFuture<>());
+        UUID msgId = UUID.randomUUID();
+        List<String> submitted = new ArrayList<>();
+
+        Object attempt1 = new Object();
+        barriers.startAttempt(attempt1);
+        barriers.submit(attempt1, device, msgId, () -> submitted.add("attempt1"));
+        // the processing strategy retries the timed out message
+        Object attempt2 = new Object();
+        barriers.startAttempt(attempt2);
+        barriers.submit(attempt2, device, msgId, () -> submitted.add("attempt2"));
+        assertThat(submitted).isEmpty();
+
+        pack1.complete(true);
+        assertThat(submitted).containsExactly("attempt2");
+
+        Object attempt3 = new Object();
+        barriers.startAttempt(attempt3);
+        barriers.submit(attempt3, device, msgId, () -> submitted.add("attempt3"));
+        assertThat(submitted).containsExactly("attempt2", "attempt3");
+    }
+
+    @Test
+    public void testDeferredMessageIsNotSubmittedAfterPackIsFinished() {
+        EntityId device = new DeviceId(UUID.randomUUID());
+        CompletableFuture<Boolean> pack1 = new CompletableFuture<>();
+        pipeline.add(mock(TbQueuePosition.class), Set.of(device), pack1);
+        PackBarriers barriers = pipeline.add(mock(TbQueuePosition.class), Set.of(device), new CompletableFuture<>());
+        List<String> submitted = new ArrayList<>();
+
+        Object attempt = new Object();
+        barriers.startAttempt(attempt);
+        barriers.submit(attempt, device, UUID.randomUUID(), () -> submitted.add("attempt"));
+        barriers.finish();
+
+        pack1.complete(true);
+        assertThat(submitted).isEmpty();
+    }
+
+}
@@ -45,10 +45,12 @@ import org.thingsboard.server.common.msg.TbMsg;
 import org.thingsboard.server.common.msg.TbMsgMetaData;
 import org.thingsboard.server.common.msg.queue.QueueToRuleEngineMsg;
 import org.thingsboard.server.common.msg.queue.ServiceType;
+import org.thingsboard.server.common.msg.queue.TbMsgCallback;
 import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
 import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.gen.transport.TransportProtos.ToRuleEngineMsg;
 import org.thingsboard.server.queue.TbQueueAdmin;
+import org.thingsboard.server.queue.TbQueuePosition;
 import org.thingsboard.server.queue.TbQueueProducer;
 import org.thingsboard.server.queue.common.AbstractTbQueueConsumerTemplate;
 import org.thingsboard.server.queue.common.TbProtoQueueMsg;
@@ -71,6 +73,9 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -134,6 +139,9 @@ public class TbRuleEngineQueueConsumerManagerTest {
     private boolean generateQueueMsgs;
     private AtomicInteger totalConsumedMsgs;
     private AtomicInteger totalProcessedMsgs;
+    private boolean positionCommitSupported;
+    private ConcurrentLinkedQueue<TbMsg> msgsToPoll;
+    private List<TbQueuePosition> committedPositions;
 
     @BeforeEach
     public void beforeEach() {
@@ -146,6 +154,9 @@ public class TbRuleEngineQueueConsumerManagerTest {
         generateQueueMsgs = true;
         totalConsumedMsgs = new AtomicInteger();
         totalProcessedMsgs = new AtomicInteger();
+        positionCommitSupported = false;
+        msgsToPoll = new ConcurrentLinkedQueue<>();
+        committedPositions = new CopyOnWriteArrayList<>();
         doAnswer(inv -> {
             QueueToRuleEngineMsg msg = inv.getArgument(0);
             msg.getMsg().getCallback().onSuccess();
@@ -621,6 +632,58 @@ public class TbRuleEngineQueueConsumerManagerTest {
         });
     }
 
+    @Test
+    public void testPipelined_timedOutMsgWaitingForPreviousPackIsSubmittedOnce() {
+        ruleEngineConsumerContext.setPipelinedEnabled(true);
+        ruleEngineConsumerContext.setMaxPacksInFlight(4);
+        positionCommitSupported = true;
+        generateQueueMsgs = false;
+        queue.setPackProcessingTimeout(300);
+        queue.getSubmitStrategy().setType(SubmitStrategyType.SEQUENTIAL_BY_ORIGINATOR);
+        queue.getProcessingStrategy().setType(ProcessingStrategyType.RETRY_TIMED_OUT);
+        queue.getProcessingStrategy().setPauseBetweenRetries(0);
+
+        DeviceId deviceId = new DeviceId(UUID.randomUUID());
+        TbMsg msg1 = TbMsg.newMsg(TbMsgType.POST_TELEMETRY_REQUEST, deviceId, new TbMsgMetaData(), "{}");
+        TbMsg msg2 = TbMsg.newMsg(TbMsgType.POST_TELEMETRY_REQUEST, deviceId, new TbMsgMetaData(), "{}");
+        msgsToPoll.add(msg1);
+        msgsToPoll.add(msg2);
+
+        // msg1 is not processed until released, so both packs time out and are retried meanwhile
+        CountDownLatch msg1Released = new CountDownLatch(1);
+        List<TbMsgCallback> heldCallbacks = new CopyOnWriteArrayList<>();
+        AtomicInteger msg1Submits = new AtomicInteger();
+        AtomicInteger msg2Submits = new AtomicInteger();
+        doAnswer(inv -> {
+            TbMsg msg = ((QueueToRuleEngineMsg) inv.getArgument(0)).getMsg();
+            if (msg.getId().equals(msg1.getId())) {
+                msg1Submits.incrementAndGet();
+                if (msg1Released.getCount() > 0) {
+                    heldCallbacks.add(msg.getCallback());
+                    return null;
+                }
+            } else if (msg.getId().equals(msg2.getId())) {
+                msg2Submits.incrementAndGet();
+            }
+            msg.getCallback().onSuccess();
+            return null;
+        }).when(actorContext).tell(any());
+
+        consumerManager.init(queue);
+        consumerManager.update(createTpis(1));
+
+        await().atMost(10, TimeUnit.SECONDS).until(() -> msg1Submits.get() >= 4);
+        assertThat(msgsToPoll).isEmpty();
+        assertThat(msg2Submits.get()).isZero();
+
+        msg1Released.countDown();
+        heldCallbacks.forEach(TbMsgCallback::onSuccess);
+
+        await().atMost(5, TimeUnit.SECONDS)
+                .untilAsserted(() -> assertThat(committedPositions).last().isEqualTo(new TestPosition(msg2)));
+        assertThat(msg2Submits.get()).isOne();
+    }
+
     private void verifySubscribedAndLaunched(TestConsumer consumer, Set<TopicPartitionInfo> expectedPartitions) {
         await().atMost(2, TimeUnit.SECONDS)
                 .until(() -> consumer.subscribed && consumer.getPartitions().equals(expectedPartitions) && consumer.pollingStarted);
@@ -710,6 +773,7 @@ public class TbRuleEngineQueueConsumerManagerTest {
         private boolean pollingStarted;
 
         private TbMsg testMsg;
+        private TbMsg lastPolled;
 
         public TestConsumer(String topic) {
             super(topic);
@@ -723,6 +787,10 @@ public class TbRuleEngineQueueConsumerManagerTest {
                 throw new IllegalStateException("Cannot poll because not subscribed");
             }
             pollingStarted = true;
+            if (positionCommitSupported) {
+                lastPolled = msgsToPoll.poll();
+                return lastPolled != null ? List.of(lastPolled) : Collections.emptyList();
+            }
             if (testMsg != null && RandomUtils.nextBoolean()) {
                 Thread.sleep(100);
                 return List.of(testMsg);
@@ -757,6 +825,21 @@ public class TbRuleEngineQueueConsumerManagerTest {
             log.debug("doCommit() totalConsumedMsgs = {}", totalConsumedMsgs.incrementAndGet());
         }
 
+        @Override
+        public boolean isPositionCommitSupported() {
+            return positionCommitSupported;
+        }
+
+        @Override
+        public TbQueuePosition getPosition() {
+            return new TestPosition(lastPolled);
+        }
+
+        @Override
+        protected void doCommit(TbQueuePosition position) {
+            committedPositions.add(position);
+        }
+
         @Override
         public void unsubscribe() {
             super.unsubscribe();
@@ -786,4 +869,7 @@ public class TbRuleEngineQueueConsumerManagerTest {
         }
     }
 
+    record TestPosition(TbMsg msg) implements TbQueuePosition {
+    }
+
 }
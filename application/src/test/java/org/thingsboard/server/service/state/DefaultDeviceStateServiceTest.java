@@ -25,6 +25,7 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.thingsboard.server.cluster.TbClusterService;
@@ -46,6 +47,7 @@ import org.thingsboard.server.common.msg.notification.NotificationRuleProcessor;
 import org.thingsboard.server.common.msg.queue.ServiceType;
 import org.thingsboard.server.common.msg.queue.TbCallback;
 import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.dao.attributes.AttributesService;
 import org.thingsboard.server.dao.device.DeviceService;
 import org.thingsboard.server.dao.sql.query.EntityQueryRepository;
@@ -79,6 +81,8 @@ import static org.mockito.BDDMockito.then;
 import static org.mockito.BDDMockito.willReturn;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.spy;
@@ -121,9 +125,11 @@ public class DefaultDeviceStateServiceTest {
 
     DefaultDeviceStateService service;
 
+    final AtomicLong currentTimeMillis = new AtomicLong();
+
     @BeforeEach
     public void setUp() {
-        service = spy(new DefaultDeviceStateService(deviceService, attributesService, tsService, clusterService, partitionService, entityQueryRepository, null, defaultTbApiUsageReportClient, notificationRuleProcessor));
+        service = spy(new DefaultDeviceStateService(deviceService, attributesService, tsService, clusterService, partitionService, entityQueryRepository, null, defaultTbApiUsageReportClient, notificationRuleProcessor, mock(StatsFactory.class, Mockito.RETURNS_MOCKS)));
         ReflectionTestUtils.setField(service, "tsSubService", telemetrySubscriptionService);
         ReflectionTestUtils.setField(service, "defaultStateCheckIntervalInSec", 60);
         ReflectionTestUtils.setField(service, "defaultActivityStatsIntervalInSec", 60);
@@ -530,10 +536,12 @@ public class DefaultDeviceStateServiceTest {
         assertThat(deviceStateData.getState().getInactivityTimeout()).isEqualTo(5000L);
     }
 
-    private void initStateService(long timeout) throws InterruptedException {
+    private void initStateService(long timeout) {
         service.stop();
         reset(service, telemetrySubscriptionService);
         service.setDefaultInactivityTimeoutMs(timeout);
+        currentTimeMillis.set(System.currentTimeMillis());
+        lenient().doAnswer(invocation -> currentTimeMillis.get()).when(service).getCurrentTimeMillis();
         service.init();
         when(partitionService.resolve(ServiceType.TB_CORE, tenantId, deviceId)).thenReturn(tpi);
         when(entityQueryRepository.findEntityDataByQueryInternal(any())).thenReturn(new PageData<>());
@@ -544,7 +552,11 @@ public class DefaultDeviceStateServiceTest {
                 new QueueKey(ServiceType.TB_CORE), Collections.singleton(tpi)
         ));
         service.onApplicationEvent(event);
-        Thread.sleep(100);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> service.getPartitionedEntities(tpi) != null);
+    }
+
+    private void advanceTime(long ms) {
+        currentTimeMillis.addAndGet(ms);
     }
 
     @Test
@@ -562,28 +574,28 @@ public class DefaultDeviceStateServiceTest {
         service.deviceStates.put(deviceId, deviceStateData);
         service.getPartitionedEntities(tpi).add(deviceId);
 
-        service.onDeviceActivity(tenantId, deviceId, System.currentTimeMillis());
+        service.onDeviceActivity(tenantId, deviceId, currentTimeMillis.get());
         activityVerify(true);
-        Thread.sleep(defaultTimeout);
+        advanceTime(defaultTimeout);
         service.checkStates();
         activityVerify(false);
 
         reset(telemetrySubscriptionService);
 
         long increase = 100;
-        long newTimeout = System.currentTimeMillis() - deviceState.getLastActivityTime() + increase;
+        long newTimeout = currentTimeMillis.get() - deviceState.getLastActivityTime() + increase;
 
         service.onDeviceInactivityTimeoutUpdate(tenantId, deviceId, newTimeout);
         activityVerify(true);
-        Thread.sleep(increase);
+        advanceTime(increase);
         service.checkStates();
         activityVerify(false);
 
         reset(telemetrySubscriptionService);
 
-        service.onDeviceActivity(tenantId, deviceId, System.currentTimeMillis());
+        service.onDeviceActivity(tenantId, deviceId, currentTimeMillis.get());
         activityVerify(true);
-        Thread.sleep(newTimeout + 5);
+        advanceTime(newTimeout + 5);
         service.checkStates();
         activityVerify(false);
     }
@@ -603,25 +615,25 @@ public class DefaultDeviceStateServiceTest {
         service.deviceStates.put(deviceId, deviceStateData);
         service.getPartitionedEntities(tpi).add(deviceId);
 
-        service.onDeviceActivity(tenantId, deviceId, System.currentTimeMillis());
+        service.onDeviceActivity(tenantId, deviceId, currentTimeMillis.get());
         activityVerify(true);
 
         reset(telemetrySubscriptionService);
 
         long increase = 100;
-        long newTimeout = System.currentTimeMillis() - deviceState.getLastActivityTime() + increase;
+        long newTimeout = currentTimeMillis.get() - deviceState.getLastActivityTime() + increase;
 
         service.onDeviceInactivityTimeoutUpdate(tenantId, deviceId, newTimeout);
         verify(telemetrySubscriptionService, never()).saveAttrAndNotify(any(), eq(deviceId), any(AttributeScope.class), eq(ACTIVITY_STATE), any(), any());
-        Thread.sleep(defaultTimeout + increase);
+        advanceTime(defaultTimeout + increase);
         service.checkStates();
         activityVerify(false);
 
         reset(telemetrySubscriptionService);
 
-        service.onDeviceActivity(tenantId, deviceId, System.currentTimeMillis());
+        service.onDeviceActivity(tenantId, deviceId, currentTimeMillis.get());
         activityVerify(true);
-        Thread.sleep(newTimeout);
+        advanceTime(newTimeout);
         service.checkStates();
         activityVerify(false);
     }
@@ -641,16 +653,16 @@ public class DefaultDeviceStateServiceTest {
         service.deviceStates.put(deviceId, deviceStateData);
         service.getPartitionedEntities(tpi).add(deviceId);
 
-        service.onDeviceActivity(tenantId, deviceId, System.currentTimeMillis());
+        service.onDeviceActivity(tenantId, deviceId, currentTimeMillis.get());
         activityVerify(true);
-        Thread.sleep(defaultTimeout);
+        advanceTime(defaultTimeout);
         service.checkStates();
         activityVerify(false);
 
         reset(telemetrySubscriptionService);
 
         long newTimeout = 1;
-        Thread.sleep(newTimeout);
+        advanceTime(newTimeout);
         verify(telemetrySubscriptionService, never()).saveAttrAndNotify(any(), eq(deviceId), any(AttributeScope.class), eq(ACTIVITY_STATE), any(), any());
     }
 
@@ -669,13 +681,13 @@ public class DefaultDeviceStateServiceTest {
         service.deviceStates.put(deviceId, deviceStateData);
         service.getPartitionedEntities(tpi).add(deviceId);
 
-        service.onDeviceActivity(tenantId, deviceId, System.currentTimeMillis());
+        service.onDeviceActivity(tenantId, deviceId, currentTimeMillis.get());
         activityVerify(true);
 
         verify(telemetrySubscriptionService, never()).saveAttrAndNotify(any(), eq(deviceId), any(AttributeScope.class), eq(ACTIVITY_STATE), any(), any());
 
         long newTimeout = 1;
-        Thread.sleep(newTimeout);
+        advanceTime(newTimeout);
 
         service.onDeviceInactivityTimeoutUpdate(tenantId, deviceId, newTimeout);
         activityVerify(false);
@@ -683,7 +695,7 @@ public class DefaultDeviceStateServiceTest {
 
         service.onDeviceInactivityTimeoutUpdate(tenantId, deviceId, defaultTimeout);
         activityVerify(true);
-        Thread.sleep(defaultTimeout);
+        advanceTime(defaultTimeout);
         service.checkStates();
         activityVerify(false);
     }
@@ -703,9 +715,9 @@ public class DefaultDeviceStateServiceTest {
         service.deviceStates.put(deviceId, deviceStateData);
         service.getPartitionedEntities(tpi).add(deviceId);
 
-        service.onDeviceActivity(tenantId, deviceId, System.currentTimeMillis());
+        service.onDeviceActivity(tenantId, deviceId, currentTimeMillis.get());
         activityVerify(true);
-        Thread.sleep(defaultTimeout);
+        advanceTime(defaultTimeout);
         service.checkStates();
         activityVerify(false);
         reset(telemetrySubscriptionService);
@@ -716,6 +728,40 @@ public class DefaultDeviceStateServiceTest {
         verify(telemetrySubscriptionService, never()).saveAttrAndNotify(any(), eq(deviceId), any(AttributeScope.class), eq(ACTIVITY_STATE), any(), any());
     }
 
+    @Test
+    public void givenInactivityTimerEnabled_whenInactivityTimeoutExpires_thenReportsInactivity() throws Exception {
+        ReflectionTestUtils.setField(service, "inactivityTimerEnabled", true);
+        // the scheduled tick is far away, so the test is the only one to advance the wheel
+        ReflectionTestUtils.setField(service, "inactivityTimerTickInMs", TimeUnit.MINUTES.toMillis(1));
+        ReflectionTestUtils.setField(service, "inactivityTimerWheelSize", 16);
+        final long defaultTimeout = TimeUnit.MINUTES.toMillis(10);
+        initStateService(defaultTimeout);
+        DeviceState deviceState = DeviceState.builder().inactivityTimeout(defaultTimeout).build();
+        DeviceStateData deviceStateData = DeviceStateData.builder()
+                .tenantId(tenantId)
+                .deviceId(deviceId)
+                .state(deviceState)
+                .metaData(new TbMsgMetaData())
+                .build();
+
+        service.deviceStates.put(deviceId, deviceStateData);
+        service.getPartitionedEntities(tpi).add(deviceId);
+
+        service.onDeviceActivity(tenantId, deviceId, currentTimeMillis.get());
+        activityVerify(true);
+        service.checkExpiredStates();
+        verify(telemetrySubscriptionService, never()).saveAttrAndNotify(any(), eq(deviceId), any(AttributeScope.class), eq(ACTIVITY_STATE), eq(false), any());
+
+        advanceTime(defaultTimeout - 1);
+        service.checkExpiredStates();
+        verify(telemetrySubscriptionService, never()).saveAttrAndNotify(any(), eq(deviceId), any(AttributeScope.class), eq(ACTIVITY_STATE), eq(false), any());
+
+        // the bucket of the deadline is processed once it is fully elapsed
+        advanceTime(TimeUnit.MINUTES.toMillis(2));
+        service.checkExpiredStates();
+        activityVerify(false);
+    }
+
     private void activityVerify(boolean isActive) {
         verify(telemetrySubscriptionService).saveAttrAndNotify(any(), eq(deviceId), any(AttributeScope.class), eq(ACTIVITY_STATE), eq(isActive), any());
     }
@@ -0,0 +1,90 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.state;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InactivityTimingWheelTest {
+
+    private final Map<String, Long> expired = new LinkedHashMap<>();
+
+    @Test
+    public void givenDeadlines_whenAdvance_thenExpiresOnlyElapsedKeys() {
+        InactivityTimingWheel<String> wheel = new InactivityTimingWheel<>(10, 4, 0);
+        wheel.schedule("a", 25);
+        wheel.schedule("b", 55);
+
+        wheel.advance(20, expired::put);
+        assertThat(expired).isEmpty();
+
+        wheel.advance(30, expired::put);
+        assertThat(expired).containsExactly(Map.entry("a", 25L));
+        assertThat(wheel.size()).isEqualTo(1);
+
+        wheel.advance(60, expired::put);
+        assertThat(expired).containsExactly(Map.entry("a", 25L), Map.entry("b", 55L));
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    public void givenPostponedDeadline_whenAdvance_thenExpiresByLatestDeadline() {
+        InactivityTimingWheel<String> wheel = new InactivityTimingWheel<>(10, 4, 0);
+        wheel.schedule("a", 25);
+        wheel.schedule("a", 45);
+
+        wheel.advance(30, expired::put);
+        assertThat(expired).isEmpty();
+
+        wheel.advance(50, expired::put);
+        assertThat(expired).containsExactly(Map.entry("a", 45L));
+    }
+
+    @Test
+    public void givenEarlierDeadline_whenAdvance_thenExpiresByEarlierDeadline() {
+        InactivityTimingWheel<String> wheel = new InactivityTimingWheel<>(10, 4, 0);
+        wheel.schedule("a", 45);
+        wheel.schedule("a", 15);
+
+        wheel.advance(20, expired::put);
+        assertThat(expired).containsExactly(Map.entry("a", 15L));
+    }
+
+    @Test
+    public void givenCancelledKey_whenAdvance_thenDoesNotExpire() {
+        InactivityTimingWheel<String> wheel = new InactivityTimingWheel<>(10, 4, 0);
+        wheel.schedule("a", 15);
+        wheel.cancel("a");
+
+        wheel.advance(100, expired::put);
+        assertThat(expired).isEmpty();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    public void givenDeadlineInThePast_whenAdvance_thenExpiresOnNextTick() {
+        InactivityTimingWheel<String> wheel = new InactivityTimingWheel<>(10, 4, 100);
+        wheel.schedule("a", 5);
+
+        wheel.advance(110, expired::put);
+        assertThat(expired).containsExactly(Map.entry("a", 5L));
+    }
+
+}
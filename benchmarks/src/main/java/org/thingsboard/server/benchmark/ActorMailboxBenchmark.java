@@ -0,0 +1,142 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.common.util.ThingsBoardExecutors;
+import org.thingsboard.server.actors.AbstractTbActor;
+import org.thingsboard.server.actors.DefaultTbActorSystem;
+import org.thingsboard.server.actors.TbActor;
+import org.thingsboard.server.actors.TbActorCreator;
+import org.thingsboard.server.actors.TbActorId;
+import org.thingsboard.server.actors.TbActorRef;
+import org.thingsboard.server.actors.TbActorSystem;
+import org.thingsboard.server.actors.TbActorSystemSettings;
+import org.thingsboard.server.actors.TbStringActorId;
+import org.thingsboard.server.common.msg.MsgType;
+import org.thingsboard.server.common.msg.TbActorMsg;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the actor mailboxes: enqueue of the messages by the producer thread
+ * and processing of the mailboxes by the dispatcher pool of the given size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ActorMailboxBenchmark {
+
+    private static final String DISPATCHER_ID = "benchmark-dispatcher";
+    private static final int MSGS_PER_INVOCATION = 100_000;
+
+    @Param({"1", "4", "8"})
+    private int dispatcherPoolSize;
+
+    @Param({"1", "100"})
+    private int actorsCount;
+
+    @Param({"5", "30"})
+    private int actorThroughput;
+
+    private TbActorSystem actorSystem;
+    private TbActorRef[] actors;
+    private volatile CountDownLatch latch;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        actorSystem = new DefaultTbActorSystem(new TbActorSystemSettings(actorThroughput, 1, 1));
+        actorSystem.createDispatcher(DISPATCHER_ID, ThingsBoardExecutors.newWorkStealingPool(dispatcherPoolSize, getClass()));
+        actors = new TbActorRef[actorsCount];
+        for (int i = 0; i < actorsCount; i++) {
+            actors[i] = actorSystem.createRootActor(DISPATCHER_ID, new CountingActorCreator(new TbStringActorId("actor-" + i)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        actorSystem.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MSGS_PER_INVOCATION)
+    public void tellAndProcess() throws InterruptedException {
+        latch = new CountDownLatch(MSGS_PER_INVOCATION);
+        for (int i = 0; i < MSGS_PER_INVOCATION; i++) {
+            actors[i % actorsCount].tell(BenchmarkActorMsg.INSTANCE);
+        }
+        latch.await();
+    }
+
+    private static class BenchmarkActorMsg implements TbActorMsg {
+
+        private static final BenchmarkActorMsg INSTANCE = new BenchmarkActorMsg();
+
+        @Override
+        public MsgType getMsgType() {
+            return MsgType.QUEUE_TO_RULE_ENGINE_MSG;
+        }
+
+    }
+
+    private class CountingActor extends AbstractTbActor {
+
+        @Override
+        public boolean process(TbActorMsg msg) {
+            latch.countDown();
+            return true;
+        }
+
+    }
+
+    private class CountingActorCreator implements TbActorCreator {
+
+        private final TbActorId actorId;
+
+        CountingActorCreator(TbActorId actorId) {
+            this.actorId = actorId;
+        }
+
+        @Override
+        public TbActorId createActorId() {
+            return actorId;
+        }
+
+        @Override
+        public TbActor createActor() {
+            return new CountingActor();
+        }
+
+    }
+
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.benchmark;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.msg.queue.ServiceType;
+import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.common.stats.StatsFactory;
+import org.thingsboard.server.gen.transport.TransportProtos.ServiceInfo;
+import org.thingsboard.server.queue.discovery.HashPartitionService;
+import org.thingsboard.server.queue.discovery.QueueRoutingInfoService;
+import org.thingsboard.server.queue.discovery.TbServiceInfoProvider;
+import org.thingsboard.server.queue.discovery.TenantRoutingInfoService;
+import org.thingsboard.server.queue.discovery.TopicService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Resolution of the entity partitions, as done for every message pushed to the queue.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HashPartitionServiceBenchmark {
+
+    private static final int DEVICES_COUNT = 1024;
+
+    @Param({"murmur3_32", "murmur3_128", "sha256"})
+    private String hashFunctionName;
+
+    @Param({"10", "100"})
+    private int partitions;
+
+    private HashPartitionService partitionService;
+    private DeviceId[] devices;
+    private int idx;
+
+    @Setup
+    public void setup() {
+        TopicService topicService = new TopicService();
+        ReflectionTestUtils.setField(topicService, "prefix", "");
+        partitionService = new HashPartitionService(mock(TbServiceInfoProvider.class),
+                mock(TenantRoutingInfoService.class),
+                mock(ApplicationEventPublisher.class),
+                mock(QueueRoutingInfoService.class),
+                topicService,
+                mock(StatsFactory.class, Mockito.RETURNS_MOCKS));
+        ReflectionTestUtils.setField(partitionService, "coreTopic", "tb_core");
+        ReflectionTestUtils.setField(partitionService, "corePartitions", partitions);
+        ReflectionTestUtils.setField(partitionService, "vcTopic", "tb_version_control");
+        ReflectionTestUtils.setField(partitionService, "vcPartitions", 10);
+        ReflectionTestUtils.setField(partitionService, "edgeTopic", "tb_edge");
+        ReflectionTestUtils.setField(partitionService, "edgePartitions", 10);
+        ReflectionTestUtils.setField(partitionService, "hashFunctionName", hashFunctionName);
+        ReflectionTestUtils.setField(partitionService, "assignmentStrategyName", "modulo");
+        partitionService.init();
+        partitionService.partitionsInit();
+
+        ServiceInfo currentServer = ServiceInfo.newBuilder()
+                .setServiceId("tb-core-0")
+                .addServiceTypes(ServiceType.TB_CORE.name())
+                .build();
+        List<ServiceInfo> otherServers = new ArrayList<>();
+        for (int i = 1; i < 3; i++) {
+            otherServers.add(ServiceInfo.newBuilder()
+                    .setServiceId("tb-core-" + i)
+                    .addServiceTypes(ServiceType.TB_CORE.name())
+                    .build());
+        }
+        partitionService.recalculatePartitions(currentServer, otherServers);
+
+        devices = new DeviceId[DEVICES_COUNT];
+        for (int i = 0; i < DEVICES_COUNT; i++) {
+            devices[i] = new DeviceId(UUID.randomUUID());
+        }
+    }
+
+    @Benchmark
+    public TopicPartitionInfo resolve() {
+        DeviceId deviceId = devices[idx++ & (DEVICES_COUNT - 1)];
+        return partitionService.resolve(ServiceType.TB_CORE, TenantId.SYS_TENANT_ID, deviceId);
+    }
+
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.benchmark;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.server.common.adaptor.JsonConverter;
+import org.thingsboard.server.common.data.kv.KvEntry;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of the device telemetry payloads, as done by the transports for every uplink.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonConverterBenchmark {
+
+    @Param({"10", "100"})
+    private int keysCount;
+
+    @Param({"false", "true"})
+    private boolean withTs;
+
+    private String payload;
+    private JsonElement json;
+    private long systemTs;
+
+    @Setup
+    public void setup() {
+        StringBuilder values = new StringBuilder("{");
+        for (int i = 0; i < keysCount; i++) {
+            if (i > 0) {
+                values.append(',');
+            }
+            switch (i % 4) {
+                case 0 -> values.append("\"temperature").append(i).append("\":").append(20.5 + i);
+                case 1 -> values.append("\"counter").append(i).append("\":").append(i * 1000L);
+                case 2 -> values.append("\"active").append(i).append("\":").append(i % 3 == 0);
+                default -> values.append("\"status").append(i).append("\":\"state-").append(i).append('"');
+            }
+        }
+        values.append('}');
+        systemTs = System.currentTimeMillis();
+        payload = withTs ? "{\"ts\":" + systemTs + ",\"values\":" + values + "}" : values.toString();
+        json = JsonParser.parseString(payload);
+    }
+
+    @Benchmark
+    public Map<Long, List<KvEntry>> convertToTelemetry() {
+        return JsonConverter.convertToTelemetry(json, systemTs);
+    }
+
+    @Benchmark
+    public Map<Long, List<KvEntry>> parseAndConvertToTelemetry() {
+        return JsonConverter.convertToTelemetry(JsonParser.parseString(payload), systemTs);
+    }
+
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.benchmark;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.stats.DefaultStatsFactory;
+import org.thingsboard.server.dao.sql.ScheduledLogExecutorComponent;
+import org.thingsboard.server.dao.sql.TbSqlBlockingQueueParams;
+import org.thingsboard.server.dao.sql.TbSqlBlockingQueueWrapper;
+import org.thingsboard.server.dao.sql.TbSqlQueueType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Batch flush of the SQL write queues, as used by the timeseries, attributes and events DAOs.
+ * The database is replaced with a stand-in that costs a fixed round trip per batch plus a fixed cost per row,
+ * which is how a JDBC batch insert into Postgres behaves, so the numbers show the queue overhead and the batching efficiency
+ * without depending on the database in the benchmark environment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TbSqlQueueBenchmark {
+
+    private static final int ENTITIES_PER_INVOCATION = 10_000;
+
+    @Param({"BLOCKING", "RING_BUFFER"})
+    private TbSqlQueueType queueType;
+
+    @Param({"100", "1000"})
+    private int batchSize;
+
+    @Param({"1", "4"})
+    private int maxThreads;
+
+    @Param({"500"})
+    private long roundTripMicros;
+
+    @Param({"2000"})
+    private long rowNanos;
+
+    private ScheduledLogExecutorComponent logExecutor;
+    private TbSqlBlockingQueueWrapper<Long, Void> queue;
+    private long counter;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        DefaultStatsFactory statsFactory = new DefaultStatsFactory();
+        ReflectionTestUtils.setField(statsFactory, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(statsFactory, "metricsEnabled", false);
+        ReflectionTestUtils.setField(statsFactory, "timerPercentilesStr", "");
+        statsFactory.init();
+
+        TbSqlBlockingQueueParams params = TbSqlBlockingQueueParams.builder()
+                .logName("Benchmark")
+                .batchSize(batchSize)
+                .maxDelay(100)
+                .statsPrintIntervalMs(10000)
+                .statsNamePrefix("benchmark")
+                .batchSortEnabled(true)
+                .queueType(queueType)
+                .capacity(100_000)
+                .batchTargetLatencyMs(50)
+                .build();
+        logExecutor = new ScheduledLogExecutorComponent();
+        logExecutor.init();
+        queue = new TbSqlBlockingQueueWrapper<>(params, Object::hashCode, maxThreads, statsFactory);
+        queue.init(logExecutor, this::save, Comparator.naturalOrder());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        queue.destroy();
+        logExecutor.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTITIES_PER_INVOCATION)
+    public List<Void> addAndFlush() throws Exception {
+        List<ListenableFuture<Void>> futures = new ArrayList<>(ENTITIES_PER_INVOCATION);
+        for (int i = 0; i < ENTITIES_PER_INVOCATION; i++) {
+            futures.add(queue.add(counter++));
+        }
+        return Futures.allAsList(futures).get();
+    }
+
+    private void save(List<Long> entities) {
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(roundTripMicros) + rowNanos * entities.size());
+    }
+
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.benchmark;
+
+import org.mvel2.ExecutionContext;
+import org.mvel2.MVEL;
+import org.mvel2.ParserContext;
+import org.mvel2.SandboxedParserConfiguration;
+import org.mvel2.optimizers.OptimizerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.script.api.tbel.TbDate;
+import org.thingsboard.script.api.tbel.TbJson;
+import org.thingsboard.script.api.tbel.TbUtils;
+
+import java.io.Serializable;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Invocation of the TBEL scripts, configured the same way as DefaultTbelInvokeService does,
+ * but executed on the caller thread to measure the script itself rather than the executor hand-off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TbelScriptBenchmark {
+
+    private static final long MAX_MEMORY_LIMIT = 8L * 1024 * 1024;
+
+    private static final String DECODER_SCRIPT = "var bytes = hexToBytes(msg.payload);\n" +
+            "var temperature = parseBytesToInt(bytes, 0, 2) / 10.0;\n" +
+            "var humidity = parseBytesToInt(bytes, 2, 2) / 10.0;\n" +
+            "return {msg: {temperature: toFixed(temperature, 1), humidity: toFixed(humidity, 1)}, metadata: metadata, msgType: msgType};";
+
+    private static final String FILTER_SCRIPT = "return msg.temperature > 20 && metadata.deviceType == 'thermostat';";
+
+    private SandboxedParserConfiguration parserConfig;
+    private Serializable decoderScript;
+    private Serializable filterScript;
+    private byte[] payload;
+
+    @Setup
+    public void setup() throws Exception {
+        OptimizerFactory.setDefaultOptimizer(OptimizerFactory.SAFE_REFLECTIVE);
+        parserConfig = ParserContext.enableSandboxedMode();
+        parserConfig.addImport("JSON", TbJson.class);
+        parserConfig.registerDataType("Date", TbDate.class, date -> 8L);
+        parserConfig.registerDataType("Random", Random.class, date -> 8L);
+        parserConfig.registerDataType("Calendar", Calendar.class, date -> 8L);
+        TbUtils.register(parserConfig);
+        decoderScript = MVEL.compileExpression(DECODER_SCRIPT, new ParserContext());
+        filterScript = MVEL.compileExpression(FILTER_SCRIPT, new ParserContext());
+        payload = new byte[]{0x00, (byte) 0xEB, 0x02, 0x1C};
+    }
+
+    @Benchmark
+    public Object decoderScript() {
+        Map<String, Object> msg = new HashMap<>();
+        msg.put("payload", "00EB021C");
+        return MVEL.executeTbExpression(decoderScript, new ExecutionContext(parserConfig, MAX_MEMORY_LIMIT), createVars(msg));
+    }
+
+    @Benchmark
+    public Object filterScript() {
+        Map<String, Object> msg = new HashMap<>();
+        msg.put("temperature", 23.5);
+        return MVEL.executeTbExpression(filterScript, new ExecutionContext(parserConfig, MAX_MEMORY_LIMIT), createVars(msg));
+    }
+
+    @Benchmark
+    public int parseBytesToIntDirect() {
+        return TbUtils.parseBytesToInt(payload, 0, 2) + TbUtils.parseBytesToInt(payload, 2, 2);
+    }
+
+    private static Map<String, Object> createVars(Map<String, Object> msg) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("deviceType", "thermostat");
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("msg", msg);
+        vars.put("metadata", metadata);
+        vars.put("msgType", "POST_TELEMETRY_REQUEST");
+        return vars;
+    }
+
+}
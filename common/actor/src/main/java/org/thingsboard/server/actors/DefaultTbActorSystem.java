@@ -56,7 +56,12 @@ public class DefaultTbActorSystem implements TbActorSystem {
 
     @Override
     public void createDispatcher(String dispatcherId, ExecutorService executor) {
-        Dispatcher current = dispatchers.putIfAbsent(dispatcherId, new Dispatcher(dispatcherId, executor));
+        createDispatcher(dispatcherId, executor, TbDispatcherListener.NOOP);
+    }
+
+    @Override
+    public void createDispatcher(String dispatcherId, ExecutorService executor, TbDispatcherListener listener) {
+        Dispatcher current = dispatchers.putIfAbsent(dispatcherId, new Dispatcher(dispatcherId, executor, listener));
         if (current != null) {
             throw new RuntimeException("Dispatcher with id [" + dispatcherId + "] is already registered!");
         }
@@ -18,11 +18,31 @@ package org.thingsboard.server.actors;
 import lombok.Data;
 
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 @Data
 class Dispatcher {
 
     private final String dispatcherId;
     private final ExecutorService executor;
+    private final TbDispatcherListener listener;
+
+    void execute(Runnable task) {
+        if (listener == TbDispatcherListener.NOOP) {
+            executor.execute(task);
+            return;
+        }
+        long scheduledTs = System.nanoTime();
+        listener.onTaskScheduled();
+        try {
+            executor.execute(() -> {
+                listener.onTaskStarted(System.nanoTime() - scheduledTs);
+                task.run();
+            });
+        } catch (RejectedExecutionException e) {
+            listener.onTaskRejected();
+            throw e;
+        }
+    }
 
 }
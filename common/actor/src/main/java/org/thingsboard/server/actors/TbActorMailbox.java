@@ -58,7 +58,7 @@ public final class TbActorMailbox implements TbActorCtx {
     private volatile TbActorStopReason stopReason;
 
     public void initActor() {
-        dispatcher.getExecutor().execute(() -> tryInit(1));
+        dispatcher.execute(() -> tryInit(1));
     }
 
     private void tryInit(int attempt) {
@@ -87,11 +87,11 @@ public final class TbActorMailbox implements TbActorCtx {
             } else if (strategy.getRetryDelay() > 0) {
                 log.info("[{}] Failed to init actor, attempt {}, going to retry in attempts in {}ms", selfId, attempt, strategy.getRetryDelay());
                 log.debug("[{}] Error", selfId, t);
-                system.getScheduler().schedule(() -> dispatcher.getExecutor().execute(() -> tryInit(attemptIdx)), strategy.getRetryDelay(), TimeUnit.MILLISECONDS);
+                system.getScheduler().schedule(() -> dispatcher.execute(() -> tryInit(attemptIdx)), strategy.getRetryDelay(), TimeUnit.MILLISECONDS);
             } else {
                 log.info("[{}] Failed to init actor, attempt {}, going to retry immediately", selfId, attempt);
                 log.debug("[{}] Error", selfId, t);
-                dispatcher.getExecutor().execute(() -> tryInit(attemptIdx));
+                dispatcher.execute(() -> tryInit(attemptIdx));
             }
         }
     }
@@ -132,7 +132,7 @@ public final class TbActorMailbox implements TbActorCtx {
         if (ready.get() == READY) {
             if (newMsg || !highPriorityMsgs.isEmpty() || !normalPriorityMsgs.isEmpty()) {
                 if (busy.compareAndSet(FREE, BUSY)) {
-                    dispatcher.getExecutor().execute(this::processMailbox);
+                    dispatcher.execute(this::processMailbox);
                 } else {
                     log.trace("[{}] MessageBox is busy, new msg: {}", selfId, newMsg);
                 }
@@ -172,9 +172,9 @@ public final class TbActorMailbox implements TbActorCtx {
         }
         if (noMoreElements) {
             busy.set(FREE);
-            dispatcher.getExecutor().execute(() -> tryProcessQueue(false));
+            dispatcher.execute(() -> tryProcessQueue(false));
         } else {
-            dispatcher.getExecutor().execute(this::processMailbox);
+            dispatcher.execute(this::processMailbox);
         }
     }
 
@@ -233,7 +233,7 @@ public final class TbActorMailbox implements TbActorCtx {
             stopReason = TbActorStopReason.STOPPED;
         }
         destroyInProgress.set(true);
-        dispatcher.getExecutor().execute(() -> {
+        dispatcher.execute(() -> {
             try {
                 ready.set(NOT_READY);
                 actor.destroy(stopReason, cause);
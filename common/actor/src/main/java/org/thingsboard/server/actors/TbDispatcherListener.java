@@ -0,0 +1,46 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors;
+
+/**
+ * Receives the scheduling events of the dispatcher, e.g. to report the dispatcher queue depth and latency.
+ * Invoked on the hot path, so the implementation must be cheap and non-blocking.
+ */
+public interface TbDispatcherListener {
+
+    TbDispatcherListener NOOP = new TbDispatcherListener() {};
+
+    /**
+     * The task (mailbox processing or actor init) was submitted to the dispatcher executor.
+     */
+    default void onTaskScheduled() {
+    }
+
+    /**
+     * The task was picked up by the dispatcher executor.
+     *
+     * @param schedulingLatencyNanos time between the submission and the start of the task
+     */
+    default void onTaskStarted(long schedulingLatencyNanos) {
+    }
+
+    /**
+     * The task was rejected by the dispatcher executor, e.g. because the dispatcher is destroyed.
+     */
+    default void onTaskRejected() {
+    }
+
+}
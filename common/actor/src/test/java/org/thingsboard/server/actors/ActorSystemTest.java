@@ -21,6 +21,7 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.thingsboard.common.util.ConcurrencyLimitedExecutorService;
 import org.thingsboard.common.util.ThingsBoardExecutors;
 import org.thingsboard.common.util.ThingsBoardThreadFactory;
 import org.thingsboard.server.common.data.id.DeviceId;
@@ -97,6 +98,28 @@ public class ActorSystemTest {
         testActorsAndMessages(_100K, 1, 5);
     }
 
+    @Test
+    public void test10actorsAnd100KMessagesOnConcurrencyLimitedDispatcher() throws InterruptedException {
+        executor = new ConcurrencyLimitedExecutorService(Executors.newCachedThreadPool(), parallelism);
+        AtomicInteger scheduled = new AtomicInteger();
+        AtomicInteger started = new AtomicInteger();
+        actorSystem.createDispatcher(ROOT_DISPATCHER, executor, new TbDispatcherListener() {
+            @Override
+            public void onTaskScheduled() {
+                scheduled.incrementAndGet();
+            }
+
+            @Override
+            public void onTaskStarted(long schedulingLatencyNanos) {
+                assertThat(schedulingLatencyNanos).isNotNegative();
+                started.incrementAndGet();
+            }
+        });
+        testActorsAndMessages(10, _100K, 1);
+        Awaitility.await().atMost(TIMEOUT_AWAIT_MAX_SEC, TimeUnit.SECONDS).until(() -> scheduled.get() == started.get());
+        assertThat(started.get()).isPositive();
+    }
+
     @Test
     public void test100KActorsAnd10Messages() throws InterruptedException {
         executor = ThingsBoardExecutors.newWorkStealingPool(parallelism, getClass());
@@ -0,0 +1,57 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class DispatcherTest {
+
+    private final ExecutorService executor = mock(ExecutorService.class);
+
+    @Test
+    public void givenNoopListener_whenExecute_thenTaskIsNotWrapped() {
+        Runnable task = () -> {};
+        new Dispatcher("test", executor, TbDispatcherListener.NOOP).execute(task);
+
+        verify(executor).execute(same(task));
+    }
+
+    @Test
+    public void givenListener_whenExecute_thenListenerIsNotified() {
+        TbDispatcherListener listener = mock(TbDispatcherListener.class);
+        Runnable task = mock(Runnable.class);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(executor).execute(any());
+
+        new Dispatcher("test", executor, listener).execute(task);
+
+        verify(listener).onTaskScheduled();
+        verify(listener).onTaskStarted(anyLong());
+        verify(task).run();
+    }
+
+}
@@ -36,7 +36,7 @@ public class CaffeineTbCacheTransaction<K extends Serializable, V extends Serial
     private final List<K> keys;
     @Getter
     @Setter
-    private boolean failed;
+    private volatile boolean failed;
 
     private final Map<K, V> pendingPuts = new LinkedHashMap<>();
 
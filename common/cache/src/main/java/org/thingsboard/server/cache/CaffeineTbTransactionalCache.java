@@ -16,37 +16,51 @@
 package org.thingsboard.server.cache;
 
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
-@RequiredArgsConstructor
+/**
+ * Writes and transactions are guarded by the lock stripes of their keys, so the writes of unrelated keys don't block each other.
+ * Transaction of several keys acquires all their stripes in the stripe order.
+ */
 public abstract class CaffeineTbTransactionalCache<K extends Serializable, V extends Serializable> implements TbTransactionalCache<K, V> {
 
+    private static final int LOCK_STRIPES = 64; // power of two
+
     @Getter
     protected final String cacheName;
     protected final Cache cache;
-    protected final Lock lock = new ReentrantLock();
-    private final Map<K, Set<UUID>> objectTransactions = new HashMap<>();
-    private final Map<UUID, CaffeineTbCacheTransaction<K, V>> transactions = new HashMap<>();
+    private final Lock[] locks = new Lock[LOCK_STRIPES];
+    // the set of the key transactions is guarded by the key stripe
+    private final Map<K, Set<UUID>> objectTransactions = new ConcurrentHashMap<>();
+    private final Map<UUID, CaffeineTbCacheTransaction<K, V>> transactions = new ConcurrentHashMap<>();
+    /**
+     * Called on each contended lock acquisition, e.g. to count them in the stats.
+     */
+    @Setter
+    private volatile Runnable lockContentionListener = () -> {};
 
     public CaffeineTbTransactionalCache(CacheManager cacheManager, String cacheName) {
         this.cacheName = cacheName;
         this.cache = Optional.ofNullable(cacheManager.getCache(cacheName))
                 .orElseThrow(() -> new IllegalArgumentException("Cache '" + cacheName + "' is not configured"));
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
     }
 
     @Override
@@ -56,7 +70,7 @@ public abstract class CaffeineTbTransactionalCache<K extends Serializable, V ext
 
     @Override
     public void put(K key, V value) {
-        lock.lock();
+        Lock lock = lock(key);
         try {
             failAllTransactionsByKey(key);
             cache.put(key, value);
@@ -67,7 +81,7 @@ public abstract class CaffeineTbTransactionalCache<K extends Serializable, V ext
 
     @Override
     public void putIfAbsent(K key, V value) {
-        lock.lock();
+        Lock lock = lock(key);
         try {
             failAllTransactionsByKey(key);
             doPutIfAbsent(key, value);
@@ -78,7 +92,7 @@ public abstract class CaffeineTbTransactionalCache<K extends Serializable, V ext
 
     @Override
     public void evict(K key) {
-        lock.lock();
+        Lock lock = lock(key);
         try {
             failAllTransactionsByKey(key);
             doEvict(key);
@@ -89,15 +103,7 @@ public abstract class CaffeineTbTransactionalCache<K extends Serializable, V ext
 
     @Override
     public void evict(Collection<K> keys) {
-        lock.lock();
-        try {
-            keys.forEach(key -> {
-                failAllTransactionsByKey(key);
-                doEvict(key);
-            });
-        } finally {
-            lock.unlock();
-        }
+        keys.forEach(this::evict);
     }
 
     @Override
@@ -125,7 +131,7 @@ public abstract class CaffeineTbTransactionalCache<K extends Serializable, V ext
     }
 
     TbCacheTransaction<K, V> newTransaction(List<K> keys) {
-        lock.lock();
+        int[] stripes = lock(keys);
         try {
             var transaction = new CaffeineTbCacheTransaction<>(this, keys);
             var transactionId = transaction.getId();
@@ -135,14 +141,14 @@ public abstract class CaffeineTbTransactionalCache<K extends Serializable, V ext
             transactions.put(transactionId, transaction);
             return transaction;
         } finally {
-            lock.unlock();
+            unlock(stripes);
         }
     }
 
     public boolean commit(UUID trId, Map<K, V> pendingPuts) {
-        lock.lock();
+        var tr = transactions.get(trId);
+        int[] stripes = lock(tr.getKeys());
         try {
-            var tr = transactions.get(trId);
             var success = !tr.isFailed();
             if (success) {
                 for (K key : tr.getKeys()) {
@@ -160,16 +166,20 @@ public abstract class CaffeineTbTransactionalCache<K extends Serializable, V ext
             removeTransaction(trId);
             return success;
         } finally {
-            lock.unlock();
+            unlock(stripes);
         }
     }
 
     void rollback(UUID id) {
-        lock.lock();
+        CaffeineTbCacheTransaction<K, V> transaction = transactions.get(id);
+        if (transaction == null) {
+            return;
+        }
+        int[] stripes = lock(transaction.getKeys());
         try {
             removeTransaction(id);
         } finally {
-            lock.unlock();
+            unlock(stripes);
         }
     }
 
@@ -188,6 +198,9 @@ public abstract class CaffeineTbTransactionalCache<K extends Serializable, V ext
         }
     }
 
+    /**
+     * Must be called with the key stripe locked.
+     */
     protected void failAllTransactionsByKey(K key) {
         Set<UUID> transactionsIds = objectTransactions.get(key);
         if (transactionsIds != null) {
@@ -197,4 +210,36 @@ public abstract class CaffeineTbTransactionalCache<K extends Serializable, V ext
         }
     }
 
+    protected Lock lock(K key) {
+        Lock lock = locks[stripe(key)];
+        acquire(lock);
+        return lock;
+    }
+
+    private int[] lock(List<K> keys) {
+        int[] stripes = keys.stream().mapToInt(this::stripe).distinct().sorted().toArray();
+        for (int stripe : stripes) {
+            acquire(locks[stripe]);
+        }
+        return stripes;
+    }
+
+    private void unlock(int[] stripes) {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            locks[stripes[i]].unlock();
+        }
+    }
+
+    private void acquire(Lock lock) {
+        if (!lock.tryLock()) {
+            lockContentionListener.run();
+            lock.lock();
+        }
+    }
+
+    private int stripe(K key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (LOCK_STRIPES - 1);
+    }
+
 }
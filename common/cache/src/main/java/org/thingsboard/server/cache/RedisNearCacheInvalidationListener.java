@@ -0,0 +1,110 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.thingsboard.common.util.JacksonUtil;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Applies the near cache invalidations published by the other nodes through Redis pub/sub.
+ * The message is the JSON of the publisher node id, the cache name and the invalidated keys,
+ * so the keys may contain any characters.
+ */
+@Component
+@ConditionalOnExpression("'${cache.type:caffeine}'=='redis' && '${redis.near_cache.enabled:false}'=='true'")
+@RequiredArgsConstructor
+@Slf4j
+public class RedisNearCacheInvalidationListener implements MessageListener {
+
+    static final String NODE_ID = UUID.randomUUID().toString();
+
+    private final ObjectProvider<RedisTbTransactionalCache<?, ?>> caches;
+    private final RedisConnectionFactory connectionFactory;
+    private final TBRedisCacheConfiguration configuration;
+
+    private final Map<String, RedisTbTransactionalCache<?, ?>> nearCaches = new HashMap<>();
+    private RedisMessageListenerContainer container;
+
+    @PostConstruct
+    public void init() {
+        caches.orderedStream()
+                .filter(RedisTbTransactionalCache::isNearCacheEnabled)
+                .forEach(cache -> nearCaches.put(cache.getCacheName(), cache));
+        if (nearCaches.isEmpty()) {
+            log.info("Near cache is enabled but none of the caches use it");
+            return;
+        }
+        container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(this, new ChannelTopic(configuration.getNearCacheInvalidationChannel()));
+        container.afterPropertiesSet();
+        container.start();
+        log.info("Near cache is enabled for {}", nearCaches.keySet());
+    }
+
+    @PreDestroy
+    public void destroy() throws Exception {
+        if (container != null) {
+            container.destroy();
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        InvalidationMsg msg = fromMessage(message.getBody());
+        if (msg == null || NODE_ID.equals(msg.nodeId()) || msg.keys() == null || msg.keys().isEmpty()) {
+            return;
+        }
+        RedisTbTransactionalCache<?, ?> cache = nearCaches.get(msg.cacheName());
+        if (cache != null) {
+            log.trace("[{}] Invalidating {} keys published by {}", msg.cacheName(), msg.keys().size(), msg.nodeId());
+            cache.onRemoteInvalidation(msg.keys());
+        }
+    }
+
+    static byte[] toMessage(String cacheName, List<String> keys) {
+        return JacksonUtil.writeValueAsBytes(new InvalidationMsg(NODE_ID, cacheName, keys));
+    }
+
+    static InvalidationMsg fromMessage(byte[] message) {
+        try {
+            return JacksonUtil.fromBytes(message, InvalidationMsg.class);
+        } catch (IllegalArgumentException e) {
+            log.warn("Failed to parse the near cache invalidation message", e);
+            return null;
+        }
+    }
+
+    record InvalidationMsg(String nodeId, String cacheName, List<String> keys) {
+    }
+
+}
@@ -20,6 +20,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.connection.RedisConnection;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 @Slf4j
@@ -28,10 +30,12 @@ public class RedisTbCacheTransaction<K extends Serializable, V extends Serializa
 
     private final RedisTbTransactionalCache<K, V> cache;
     private final RedisConnection connection;
+    private final List<K> keys = new ArrayList<>();
 
     @Override
     public void put(K key, V value) {
         cache.put(key, value, connection);
+        keys.add(key);
     }
 
     @Override
@@ -39,6 +43,9 @@ public class RedisTbCacheTransaction<K extends Serializable, V extends Serializa
         try {
             var execResult = connection.exec();
             var result = execResult != null && execResult.stream().anyMatch(Objects::nonNull);
+            if (result) {
+                cache.onUpdate(keys);
+            }
             return result;
         } finally {
             connection.close();
@@ -34,11 +34,17 @@ import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.util.JedisClusterCRC16;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -60,6 +66,12 @@ public abstract class RedisTbTransactionalCache<K extends Serializable, V extend
     protected final Expiration evictExpiration;
     protected final Expiration cacheTtl;
     protected final boolean cacheEnabled;
+    private final TbRedisNearCache<V> nearCache;
+    private final String invalidationChannel;
+    @Getter
+    private final LongAdder remoteHits = new LongAdder();
+    @Getter
+    private final LongAdder remoteMisses = new LongAdder();
 
     public RedisTbTransactionalCache(String cacheName,
                                      CacheSpecsMap cacheSpecsMap,
@@ -83,6 +95,9 @@ public abstract class RedisTbTransactionalCache<K extends Serializable, V extend
                 .map(CacheSpecs::getMaxSize)
                 .map(size -> size > 0)
                 .orElse(false);
+        this.nearCache = cacheEnabled && configuration.isNearCacheEnabled() && configuration.getNearCacheNames().contains(cacheName) ?
+                new TbRedisNearCache<>(configuration.getNearCacheMaxSize(), configuration.getNearCacheTtlInMs()) : null;
+        this.invalidationChannel = configuration.getNearCacheInvalidationChannel();
     }
 
     @Override
@@ -90,22 +105,108 @@ public abstract class RedisTbTransactionalCache<K extends Serializable, V extend
         if (!cacheEnabled) {
             return null;
         }
+        if (nearCache == null) {
+            return getFromRedis(key);
+        }
+        String localKey = key.toString();
+        TbCacheValueWrapper<V> value = nearCache.get(localKey);
+        if (value == null) {
+            long stamp = nearCache.getStamp();
+            value = getFromRedis(key);
+            nearCache.put(localKey, value, stamp);
+        }
+        return value;
+    }
+
+    private TbCacheValueWrapper<V> getFromRedis(K key) {
+        TbCacheValueWrapper<V> value;
         try (var connection = connectionFactory.getConnection()) {
             byte[] rawValue = doGet(key, connection);
-            if (rawValue == null || rawValue.length == 0) {
-                return null;
-            } else if (Arrays.equals(rawValue, BINARY_NULL_VALUE)) {
-                return SimpleTbCacheValueWrapper.empty();
-            } else {
-                long startTime = System.nanoTime();
-                V value = valueSerializer.deserialize(key, rawValue);
+            value = toValueWrapper(key, rawValue);
+            if (value == null && isUnreadable(rawValue)) {
+                connection.keyCommands().del(getRawKey(key));
+            }
+        }
+        (value != null ? remoteHits : remoteMisses).increment();
+        return value;
+    }
+
+    /**
+     * Fetches the keys with a pipeline per cluster slot, a single round trip for the standalone Redis.
+     */
+    @Override
+    public Map<K, TbCacheValueWrapper<V>> getAll(Collection<K> keys) {
+        if (!cacheEnabled || keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<K, TbCacheValueWrapper<V>> result = new HashMap<>();
+        Collection<K> remoteKeys = keys;
+        long stamp = 0;
+        if (nearCache != null) {
+            remoteKeys = new ArrayList<>(keys.size());
+            for (K key : keys) {
+                TbCacheValueWrapper<V> value = nearCache.get(key.toString());
                 if (value != null) {
-                    fstStatsService.recordDecodeTime(value.getClass(), startTime);
-                    fstStatsService.incrementDecode(value.getClass());
+                    result.put(key, value);
+                } else {
+                    remoteKeys.add(key);
                 }
-                return SimpleTbCacheValueWrapper.wrap(value);
+            }
+            if (remoteKeys.isEmpty()) {
+                return result;
+            }
+            stamp = nearCache.getStamp();
+        }
+        Map<K, Object> rawValues = executeInPipelines(remoteKeys, (connection, key) -> doGet(key, connection));
+        List<byte[]> unreadableKeys = new ArrayList<>();
+        for (K key : remoteKeys) {
+            byte[] rawValue = (byte[]) rawValues.get(key);
+            TbCacheValueWrapper<V> value = toValueWrapper(key, rawValue);
+            if (value == null && isUnreadable(rawValue)) {
+                unreadableKeys.add(getRawKey(key));
+            }
+            if (value != null) {
+                remoteHits.increment();
+                result.put(key, value);
+                if (nearCache != null) {
+                    nearCache.put(key.toString(), value, stamp);
+                }
+            } else {
+                remoteMisses.increment();
+            }
+        }
+        if (!unreadableKeys.isEmpty()) {
+            try (var connection = connectionFactory.getConnection()) {
+                connection.keyCommands().del(unreadableKeys.toArray(byte[][]::new));
             }
         }
+        return result;
+    }
+
+    private TbCacheValueWrapper<V> toValueWrapper(K key, byte[] rawValue) {
+        if (rawValue == null || rawValue.length == 0) {
+            return null;
+        } else if (Arrays.equals(rawValue, BINARY_NULL_VALUE)) {
+            return SimpleTbCacheValueWrapper.empty();
+        } else {
+            long startTime = System.nanoTime();
+            V value = valueSerializer.deserialize(key, rawValue);
+            if (value == null) {
+                // written in a format the serializer doesn't support (e.g. by another version), same as missing
+                return null;
+            }
+            fstStatsService.recordDecodeTime(value.getClass(), startTime);
+            fstStatsService.incrementDecode(value.getClass());
+            return SimpleTbCacheValueWrapper.wrap(value);
+        }
+    }
+
+    /**
+     * The value is present but the serializer doesn't recognize its format, e.g. it was written before the serializer changed.
+     * Such entries are deleted on read, otherwise the versioned caches would not overwrite them until the entity changes.
+     */
+    private static boolean isUnreadable(byte[] rawValue) {
+        return rawValue != null && rawValue.length > 0;
     }
 
     protected byte[] doGet(K key, RedisConnection connection) {
@@ -120,12 +221,22 @@ public abstract class RedisTbTransactionalCache<K extends Serializable, V extend
         try (var connection = connectionFactory.getConnection()) {
             put(key, value, connection);
         }
+        onUpdate(key);
     }
 
     public void put(K key, V value, RedisConnection connection) {
         put(connection, key, value, RedisStringCommands.SetOption.UPSERT);
     }
 
+    @Override
+    public void putAll(Map<K, V> values) {
+        if (!cacheEnabled || values.isEmpty()) {
+            return;
+        }
+        executeInPipelines(values.keySet(), (connection, key) -> put(key, values.get(key), connection));
+        onUpdate(values.keySet());
+    }
+
     @Override
     public void putIfAbsent(K key, V value) {
         if (!cacheEnabled) {
@@ -134,6 +245,7 @@ public abstract class RedisTbTransactionalCache<K extends Serializable, V extend
         try (var connection = connectionFactory.getConnection()) {
             put(connection, key, value, RedisStringCommands.SetOption.SET_IF_ABSENT);
         }
+        onUpdate(key);
     }
 
     @Override
@@ -144,6 +256,7 @@ public abstract class RedisTbTransactionalCache<K extends Serializable, V extend
         try (var connection = connectionFactory.getConnection()) {
             connection.keyCommands().del(getRawKey(key));
         }
+        onUpdate(key);
     }
 
     @Override
@@ -158,6 +271,7 @@ public abstract class RedisTbTransactionalCache<K extends Serializable, V extend
         try (var connection = connectionFactory.getConnection()) {
             connection.keyCommands().del(keys.stream().map(this::getRawKey).toArray(byte[][]::new));
         }
+        onUpdate(keys);
     }
 
     @Override
@@ -173,6 +287,7 @@ public abstract class RedisTbTransactionalCache<K extends Serializable, V extend
                 connection.stringCommands().set(rawKey, getRawValue(value), evictExpiration, RedisStringCommands.SetOption.UPSERT);
             }
         }
+        onUpdate(key);
     }
 
     @Override
@@ -196,6 +311,47 @@ public abstract class RedisTbTransactionalCache<K extends Serializable, V extend
         return TbTransactionalCache.super.getAndPutInTransaction(key, dbCall, cacheValueToResult, dbValueToCacheValue, cacheNullValue);
     }
 
+    public boolean isNearCacheEnabled() {
+        return nearCache != null;
+    }
+
+    public TbRedisNearCache<V> getNearCache() {
+        return nearCache;
+    }
+
+    protected void onUpdate(K key) {
+        if (nearCache != null) {
+            onUpdate(Collections.singletonList(key));
+        }
+    }
+
+    /**
+     * Drops the keys from the local tier of this node and notifies the other nodes to do the same.
+     * Must be called after the values are changed in Redis.
+     */
+    protected void onUpdate(Collection<K> keys) {
+        if (nearCache == null || keys.isEmpty()) {
+            return;
+        }
+        List<String> localKeys = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            String localKey = key.toString();
+            nearCache.invalidate(localKey);
+            localKeys.add(localKey);
+        }
+        try (var connection = connectionFactory.getConnection()) {
+            connection.publish(keySerializer.serialize(invalidationChannel), RedisNearCacheInvalidationListener.toMessage(cacheName, localKeys));
+        } catch (Exception e) {
+            log.warn("[{}] Failed to publish near cache invalidation of {} keys", cacheName, localKeys.size(), e);
+        }
+    }
+
+    void onRemoteInvalidation(List<String> localKeys) {
+        if (nearCache != null) {
+            localKeys.forEach(nearCache::invalidate);
+        }
+    }
+
     protected RedisConnection getConnection(byte[] rawKey) {
         if (!connectionFactory.isRedisClusterAware()) {
             return connectionFactory.getConnection();
@@ -211,6 +367,43 @@ public abstract class RedisTbTransactionalCache<K extends Serializable, V extend
         return jedisConnection;
     }
 
+    /**
+     * Executes the command for each key, pipelining the commands of the keys that belong to the same cluster slot
+     * (all the keys for the standalone Redis). The command is expected to send a single Redis command per key.
+     *
+     * @return the pipelined command results by key
+     */
+    protected Map<K, Object> executeInPipelines(Collection<K> keys, BiConsumer<RedisConnection, K> command) {
+        Map<Integer, List<K>> keysBySlot = new HashMap<>();
+        Map<Integer, byte[]> slotRawKeys = new HashMap<>();
+        boolean clusterAware = connectionFactory.isRedisClusterAware();
+        for (K key : keys) {
+            int slot = 0;
+            if (clusterAware) {
+                byte[] rawKey = getRawKey(key);
+                slot = JedisClusterCRC16.getSlot(rawKey);
+                slotRawKeys.putIfAbsent(slot, rawKey);
+            }
+            keysBySlot.computeIfAbsent(slot, s -> new ArrayList<>()).add(key);
+        }
+        Map<K, Object> result = new HashMap<>();
+        keysBySlot.forEach((slot, slotKeys) -> {
+            try (var connection = clusterAware ? getConnection(slotRawKeys.get(slot)) : connectionFactory.getConnection()) {
+                connection.openPipeline();
+                List<Object> results;
+                try {
+                    slotKeys.forEach(key -> command.accept(connection, key));
+                } finally {
+                    results = connection.closePipeline();
+                }
+                for (int i = 0; i < slotKeys.size() && i < results.size(); i++) {
+                    result.put(slotKeys.get(i), results.get(i));
+                }
+            }
+        });
+        return result;
+    }
+
     protected RedisConnection watch(byte[][] rawKeysList) {
         RedisConnection connection = getConnection(rawKeysList[0]);
         try {
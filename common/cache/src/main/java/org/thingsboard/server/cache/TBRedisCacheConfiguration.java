@@ -106,6 +106,21 @@ public abstract class TBRedisCacheConfiguration {
     @Value("${redis.ssl.enabled:false}")
     private boolean sslEnabled;
 
+    @Value("${redis.near_cache.enabled:false}")
+    private boolean nearCacheEnabled;
+
+    @Value("${redis.near_cache.caches:devices,deviceProfiles,assetProfiles,tenants,tenantProfiles,tenantsExist}")
+    private List<String> nearCacheNames;
+
+    @Value("${redis.near_cache.max_size:10000}")
+    private long nearCacheMaxSize;
+
+    @Value("${redis.near_cache.ttl_in_ms:60000}")
+    private long nearCacheTtlInMs;
+
+    @Value("${redis.near_cache.invalidation_channel:tb_cache_invalidation}")
+    private String nearCacheInvalidationChannel;
+
     @Bean
     public RedisConnectionFactory redisConnectionFactory() {
         return loadFactory();
@@ -0,0 +1,90 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.util.function.Function;
+
+/**
+ * Stores the cache values as protobuf messages prefixed with a two-byte header: a zero marker byte and the format version.
+ * <p>
+ * A protobuf message, a JSON document or a Java serialized object never starts with a zero byte,
+ * so the entries written by the previous serializer of the cache, as well as the entries of another format version,
+ * are recognized and treated as cache misses. Bump the format version whenever the mapping to the proto message changes
+ * incompatibly.
+ */
+@Slf4j
+public class TbProtoRedisSerializer<K, V, P extends MessageLite> implements TbRedisSerializer<K, V> {
+
+    static final byte MARKER = 0;
+    static final int HEADER_SIZE = 2;
+
+    private final byte formatVersion;
+    private final Parser<P> parser;
+    private final Function<V, P> toProto;
+    private final Function<P, V> fromProto;
+
+    public TbProtoRedisSerializer(int formatVersion, Parser<P> parser, Function<V, P> toProto, Function<P, V> fromProto) {
+        if (formatVersion <= 0 || formatVersion > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Format version must be in range [1, 127]");
+        }
+        this.formatVersion = (byte) formatVersion;
+        this.parser = parser;
+        this.toProto = toProto;
+        this.fromProto = fromProto;
+    }
+
+    @Override
+    public byte[] serialize(V value) throws SerializationException {
+        P proto = toProto.apply(value);
+        int size = proto.getSerializedSize();
+        byte[] bytes = new byte[HEADER_SIZE + size];
+        bytes[0] = MARKER;
+        bytes[1] = formatVersion;
+        try {
+            CodedOutputStream output = CodedOutputStream.newInstance(bytes, HEADER_SIZE, size);
+            proto.writeTo(output);
+            output.checkNoSpaceLeft();
+        } catch (IOException e) {
+            throw new SerializationException("Failed to serialize " + proto.getClass().getSimpleName(), e);
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the value, or null if the bytes were written with a different serializer or format version
+     */
+    @Override
+    public V deserialize(K key, byte[] bytes) throws SerializationException {
+        if (bytes.length < HEADER_SIZE || bytes[0] != MARKER || bytes[1] != formatVersion) {
+            log.trace("[{}] Ignoring the value of unknown format", key);
+            return null;
+        }
+        try {
+            return fromProto.apply(parser.parseFrom(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE));
+        } catch (InvalidProtocolBufferException e) {
+            throw new SerializationException(e.getMessage());
+        }
+    }
+
+}
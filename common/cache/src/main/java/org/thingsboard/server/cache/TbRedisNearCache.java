@@ -0,0 +1,88 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded local tier in front of the Redis cache. Keyed by the string form of the cache key.
+ * <p>
+ * The values are never put on write, only on read from Redis. A value read from Redis is not kept
+ * if any invalidation happened while it was being read, so a concurrent update on this or another node
+ * can't leave a stale value behind. Invalidation messages may still be lost (e.g. on reconnect),
+ * that's why the entries expire after the configured TTL.
+ */
+public class TbRedisNearCache<V> {
+
+    private final Cache<String, TbCacheValueWrapper<V>> cache;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Getter
+    private final LongAdder hits = new LongAdder();
+    @Getter
+    private final LongAdder misses = new LongAdder();
+
+    public TbRedisNearCache(long maxSize, long ttlInMs) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlInMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    public TbCacheValueWrapper<V> get(String key) {
+        TbCacheValueWrapper<V> value = cache.getIfPresent(key);
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return value;
+    }
+
+    /**
+     * @return the stamp to pass to {@link #put(String, TbCacheValueWrapper, long)} after the value is read from Redis
+     */
+    public long getStamp() {
+        return invalidations.get();
+    }
+
+    public void put(String key, TbCacheValueWrapper<V> value, long stamp) {
+        if (value == null) {
+            return;
+        }
+        cache.put(key, value);
+        // re-check after the put: an invalidation that raced with it must win
+        if (invalidations.get() != stamp) {
+            cache.invalidate(key);
+        }
+    }
+
+    public void invalidate(String key) {
+        invalidations.incrementAndGet();
+        cache.invalidate(key);
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+}
@@ -17,7 +17,9 @@ package org.thingsboard.server.cache;
 
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -27,8 +29,26 @@ public interface TbTransactionalCache<K extends Serializable, V extends Serializ
 
     TbCacheValueWrapper<V> get(K key);
 
+    /**
+     * Returns the cached values of the keys. The keys that are not cached are absent in the result.
+     */
+    default Map<K, TbCacheValueWrapper<V>> getAll(Collection<K> keys) {
+        Map<K, TbCacheValueWrapper<V>> result = new HashMap<>();
+        for (K key : keys) {
+            TbCacheValueWrapper<V> value = get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
     void put(K key, V value);
 
+    default void putAll(Map<K, V> values) {
+        values.forEach(this::put);
+    }
+
     void putIfAbsent(K key, V value);
 
     void evict(K key);
@@ -21,6 +21,7 @@ import org.thingsboard.server.common.data.HasVersion;
 import org.thingsboard.server.common.data.util.TbPair;
 
 import java.io.Serializable;
+import java.util.concurrent.locks.Lock;
 
 public abstract class VersionedCaffeineTbCache<K extends VersionedCacheKey, V extends Serializable & HasVersion> extends CaffeineTbTransactionalCache<K, V> implements VersionedTbCache<K, V> {
 
@@ -47,7 +48,7 @@ public abstract class VersionedCaffeineTbCache<K extends VersionedCacheKey, V ex
     }
 
     private void doPut(K key, V value, Long version) {
-        lock.lock();
+        Lock lock = lock(key);
         try {
             TbPair<Long, V> versionValuePair = doGet(key);
             if (versionValuePair == null || version > versionValuePair.getFirst()) {
@@ -66,7 +67,7 @@ public abstract class VersionedCaffeineTbCache<K extends VersionedCacheKey, V ex
 
     @Override
     public void evict(K key) {
-        lock.lock();
+        Lock lock = lock(key);
         try {
             failAllTransactionsByKey(key);
             cache.evict(key);
@@ -21,6 +21,7 @@ import org.apache.commons.lang3.NotImplementedException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisPipelineException;
 import org.springframework.data.redis.connection.ReturnType;
 import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
@@ -28,6 +29,7 @@ import org.thingsboard.server.common.data.HasVersion;
 
 import java.io.Serializable;
 import java.util.Arrays;
+import java.util.Map;
 
 @Slf4j
 public abstract class VersionedRedisTbCache<K extends VersionedCacheKey, V extends Serializable & HasVersion> extends RedisTbTransactionalCache<K, V> implements VersionedTbCache<K, V> {
@@ -98,6 +100,7 @@ public abstract class VersionedRedisTbCache<K extends VersionedCacheKey, V exten
             return;
         }
         doPut(key, value, version, cacheTtl);
+        onUpdate(key);
     }
 
     @Override
@@ -114,6 +117,20 @@ public abstract class VersionedRedisTbCache<K extends VersionedCacheKey, V exten
         doPut(rawKey, value, version, cacheTtl, connection);
     }
 
+    @Override
+    public void putAll(Map<K, V> values) {
+        if (!cacheEnabled || values.isEmpty()) {
+            return;
+        }
+        try {
+            super.putAll(values);
+        } catch (RedisPipelineException e) {
+            // most likely the script is not loaded yet, the single put loads it
+            log.debug("Failed to put values in pipeline, putting one by one", e);
+            values.forEach(this::put);
+        }
+    }
+
     private void doPut(K key, V value, Long version, Expiration expiration) {
         if (!cacheEnabled) {
             return;
@@ -151,6 +168,7 @@ public abstract class VersionedRedisTbCache<K extends VersionedCacheKey, V exten
         log.trace("evict [{}][{}]", key, version);
         if (version != null) {
             doPut(key, null, version, evictExpiration);
+            onUpdate(key);
         }
     }
 
@@ -0,0 +1,108 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CaffeineTbTransactionalCacheTest {
+
+    private static final String CACHE_NAME = "test";
+
+    private CaffeineTbTransactionalCache<String, String> cache;
+
+    @BeforeEach
+    public void setUp() {
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(new CaffeineCache(CACHE_NAME, Caffeine.newBuilder().build())));
+        cacheManager.initializeCaches();
+        cache = new CaffeineTbTransactionalCache<>(cacheManager, CACHE_NAME) {};
+    }
+
+    @Test
+    public void testTransactionFailsOnConcurrentEvict() {
+        TbCacheTransaction<String, String> transaction = cache.newTransactionForKey("a");
+        cache.evict("a");
+        transaction.put("a", "stale");
+
+        assertThat(transaction.commit()).isFalse();
+        assertThat(cache.get("a")).isNull();
+    }
+
+    @Test
+    public void testTransactionsOfDifferentKeysDoNotConflict() {
+        TbCacheTransaction<String, String> first = cache.newTransactionForKey("a");
+        TbCacheTransaction<String, String> second = cache.newTransactionForKey("b");
+        cache.put("c", "c");
+        first.put("a", "a");
+        second.put("b", "b");
+
+        assertThat(first.commit()).isTrue();
+        assertThat(second.commit()).isTrue();
+        assertThat(cache.get("a").get()).isEqualTo("a");
+        assertThat(cache.get("b").get()).isEqualTo("b");
+    }
+
+    @Test
+    public void testCommitFailsOtherTransactionsOfSameKeys() {
+        TbCacheTransaction<String, String> multiKey = cache.newTransactionForKeys(List.of("a", "b"));
+        TbCacheTransaction<String, String> singleKey = cache.newTransactionForKey("b");
+        singleKey.put("b", "b");
+        assertThat(singleKey.commit()).isTrue();
+
+        multiKey.put("a", "a");
+        assertThat(multiKey.commit()).isFalse();
+        assertThat(cache.get("a")).isNull();
+    }
+
+    @Test
+    public void testConcurrentWritesOfManyKeys() throws Exception {
+        int threads = 8;
+        int keysPerThread = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(threads);
+        try {
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                executor.submit(() -> {
+                    for (int i = 0; i < keysPerThread; i++) {
+                        String key = thread + "-" + i;
+                        TbCacheTransaction<String, String> transaction = cache.newTransactionForKeys(List.of(key, "shared-" + (i % 10)));
+                        transaction.put(key, key);
+                        transaction.commit();
+                        cache.put("shared-" + (i % 10), key);
+                    }
+                    latch.countDown();
+                });
+            }
+            assertThat(latch.await(30, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.FstStatsService;
+import redis.clients.jedis.util.JedisClusterCRC16;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RedisTbTransactionalCachePipelineTest {
+
+    private static final String CACHE_NAME = "test";
+    private static final byte[] UNREADABLE_VALUE = "unreadable".getBytes(StandardCharsets.UTF_8);
+
+    private JedisConnectionFactory connectionFactory;
+    private RedisConnection connection;
+    private RedisStringCommands stringCommands;
+    private RedisTbTransactionalCache<String, String> cache;
+
+    @BeforeEach
+    public void setUp() {
+        connectionFactory = mock(JedisConnectionFactory.class);
+        connection = mockConnection();
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        stringCommands = (RedisStringCommands) connection.stringCommands();
+        cache = newCache(connectionFactory);
+    }
+
+    @Test
+    public void givenPartialMisses_whenGetAll_thenReturnsOnlyCachedKeysWithSinglePipeline() {
+        when(connection.closePipeline()).thenReturn(Arrays.asList(raw("a-value"), null, RedisTbTransactionalCache.BINARY_NULL_VALUE, new byte[0], raw("e-value")));
+
+        Map<String, TbCacheValueWrapper<String>> result = cache.getAll(List.of("a", "b", "c", "d", "e"));
+
+        assertThat(result).containsOnlyKeys("a", "c", "e");
+        assertThat(result.get("a").get()).isEqualTo("a-value");
+        assertThat(result.get("c").get()).isNull();
+        assertThat(result.get("e").get()).isEqualTo("e-value");
+        assertThat(cache.getRemoteHits().sum()).isEqualTo(3);
+        assertThat(cache.getRemoteMisses().sum()).isEqualTo(2);
+
+        InOrder inOrder = inOrder(connection, stringCommands);
+        inOrder.verify(connection).openPipeline();
+        for (String key : List.of("a", "b", "c", "d", "e")) {
+            inOrder.verify(stringCommands).get(rawKey(key));
+        }
+        inOrder.verify(connection).closePipeline();
+        verify(connectionFactory, times(1)).getConnection();
+    }
+
+    @Test
+    public void givenUnreadableValue_whenGetAll_thenValueIsMissingAndDeleted() {
+        when(connection.closePipeline()).thenReturn(Arrays.asList(UNREADABLE_VALUE, raw("b-value")));
+
+        Map<String, TbCacheValueWrapper<String>> result = cache.getAll(List.of("a", "b"));
+
+        assertThat(result).containsOnlyKeys("b");
+        verify(connection.keyCommands()).del(eq(rawKey("a")));
+    }
+
+    @Test
+    public void whenPutAll_thenValuesAreSetWithSinglePipeline() {
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("a", "a-value");
+        values.put("b", null);
+
+        cache.putAll(values);
+
+        InOrder inOrder = inOrder(connection, stringCommands);
+        inOrder.verify(connection).openPipeline();
+        inOrder.verify(stringCommands).set(eq(rawKey("a")), eq(raw("a-value")), any(), eq(RedisStringCommands.SetOption.UPSERT));
+        inOrder.verify(stringCommands).set(eq(rawKey("b")), eq(RedisTbTransactionalCache.BINARY_NULL_VALUE), any(), eq(RedisStringCommands.SetOption.UPSERT));
+        inOrder.verify(connection).closePipeline();
+        verify(connectionFactory, times(1)).getConnection();
+    }
+
+    @Test
+    public void givenCluster_whenExecuteInPipelines_thenPipelinePerSlotAndResultsMatchKeys() {
+        List<String> keys = List.of("{e1}a", "{e2}a", "{e1}b", "{e2}b");
+        assertThat(JedisClusterCRC16.getSlot(rawKey("{e1}a"))).isNotEqualTo(JedisClusterCRC16.getSlot(rawKey("{e2}a")));
+        when(connectionFactory.isRedisClusterAware()).thenReturn(true);
+        List<RedisConnection> slotConnections = new ArrayList<>();
+        cache = new RedisTbTransactionalCache<>(CACHE_NAME, cacheSpecsMap(), connectionFactory, mock(TBRedisCacheConfiguration.class), new StringSerializer()) {
+            @Override
+            protected RedisConnection getConnection(byte[] rawKey) {
+                RedisConnection slotConnection = mockConnection();
+                List<Object> results = new ArrayList<>();
+                String hashTag = new String(rawKey, StandardCharsets.UTF_8).substring(CACHE_NAME.length(), CACHE_NAME.length() + 4);
+                keys.stream().filter(key -> key.startsWith(hashTag)).forEach(key -> results.add(key + "-result"));
+                when(slotConnection.closePipeline()).thenReturn(results);
+                slotConnections.add(slotConnection);
+                return slotConnection;
+            }
+        };
+
+        Map<String, Object> result = cache.executeInPipelines(keys, (connection, key) -> connection.stringCommands().get(rawKey(key)));
+
+        assertThat(slotConnections).hasSize(2);
+        assertThat(result).containsOnlyKeys(keys);
+        keys.forEach(key -> assertThat(result.get(key)).isEqualTo(key + "-result"));
+        for (RedisConnection slotConnection : slotConnections) {
+            verify(slotConnection).openPipeline();
+            verify(slotConnection.stringCommands(), times(2)).get(any());
+            verify(slotConnection).close();
+        }
+        verify(connectionFactory, times(0)).getConnection();
+    }
+
+    private static RedisConnection mockConnection() {
+        RedisConnection connection = mock(RedisConnection.class);
+        RedisStringCommands stringCommands = mock(RedisStringCommands.class);
+        RedisKeyCommands keyCommands = mock(RedisKeyCommands.class);
+        when(connection.stringCommands()).thenReturn(stringCommands);
+        when(connection.keyCommands()).thenReturn(keyCommands);
+        return connection;
+    }
+
+    private static RedisTbTransactionalCache<String, String> newCache(JedisConnectionFactory connectionFactory) {
+        var cache = new RedisTbTransactionalCache<String, String>(CACHE_NAME, cacheSpecsMap(), connectionFactory, mock(TBRedisCacheConfiguration.class), new StringSerializer()) {};
+        ReflectionTestUtils.setField(cache, RedisTbTransactionalCache.class, "fstStatsService", mock(FstStatsService.class), FstStatsService.class);
+        return cache;
+    }
+
+    private static CacheSpecsMap cacheSpecsMap() {
+        CacheSpecs specs = new CacheSpecs();
+        specs.setTimeToLiveInMinutes(60);
+        specs.setMaxSize(100);
+        CacheSpecsMap cacheSpecsMap = new CacheSpecsMap();
+        cacheSpecsMap.setSpecs(Map.of(CACHE_NAME, specs));
+        return cacheSpecsMap;
+    }
+
+    private static byte[] rawKey(String key) {
+        return raw(CACHE_NAME + key);
+    }
+
+    private static byte[] raw(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static class StringSerializer implements TbRedisSerializer<String, String> {
+
+        @Override
+        public byte[] serialize(String value) {
+            return raw(value);
+        }
+
+        @Override
+        public String deserialize(String key, byte[] bytes) {
+            return Arrays.equals(bytes, UNREADABLE_VALUE) ? null : new String(bytes, StandardCharsets.UTF_8);
+        }
+
+    }
+
+}
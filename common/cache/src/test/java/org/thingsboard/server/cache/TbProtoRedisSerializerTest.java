@@ -0,0 +1,73 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache;
+
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.Tenant;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.id.TenantProfileId;
+import org.thingsboard.server.common.util.ProtoUtils;
+import org.thingsboard.server.gen.transport.TransportProtos;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TbProtoRedisSerializerTest {
+
+    private final TbProtoRedisSerializer<TenantId, Tenant, TransportProtos.TenantProto> serializer =
+            new TbProtoRedisSerializer<>(1, TransportProtos.TenantProto.parser(), ProtoUtils::toProto, ProtoUtils::fromProto);
+
+    @Test
+    public void testSerializeAndDeserialize() {
+        Tenant tenant = createTenant();
+
+        byte[] bytes = serializer.serialize(tenant);
+
+        assertThat(bytes[0]).isEqualTo(TbProtoRedisSerializer.MARKER);
+        assertThat(bytes[1]).isEqualTo((byte) 1);
+        Tenant result = serializer.deserialize(tenant.getId(), bytes);
+        assertThat(result).isEqualTo(tenant);
+    }
+
+    @Test
+    public void testValueOfPreviousFormatIsIgnored() {
+        Tenant tenant = createTenant();
+
+        assertThat(serializer.deserialize(tenant.getId(), ProtoUtils.toProto(tenant).toByteArray())).isNull();
+        assertThat(serializer.deserialize(tenant.getId(), "{\"title\":\"test\"}".getBytes(StandardCharsets.UTF_8))).isNull();
+    }
+
+    @Test
+    public void testValueOfAnotherFormatVersionIsIgnored() {
+        Tenant tenant = createTenant();
+        var newSerializer = new TbProtoRedisSerializer<TenantId, Tenant, TransportProtos.TenantProto>(2,
+                TransportProtos.TenantProto.parser(), ProtoUtils::toProto, ProtoUtils::fromProto);
+
+        assertThat(newSerializer.deserialize(tenant.getId(), serializer.serialize(tenant))).isNull();
+    }
+
+    private Tenant createTenant() {
+        Tenant tenant = new Tenant(TenantId.fromUUID(UUID.randomUUID()));
+        tenant.setCreatedTime(System.currentTimeMillis());
+        tenant.setTitle("test");
+        tenant.setTenantProfileId(new TenantProfileId(UUID.randomUUID()));
+        tenant.setVersion(1L);
+        return tenant;
+    }
+
+}
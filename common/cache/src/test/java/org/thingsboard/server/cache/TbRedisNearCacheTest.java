@@ -0,0 +1,73 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TbRedisNearCacheTest {
+
+    private TbRedisNearCache<String> nearCache;
+
+    @BeforeEach
+    public void setUp() {
+        nearCache = new TbRedisNearCache<>(100, 60000);
+    }
+
+    @Test
+    public void testPutAndGet() {
+        nearCache.put("a", SimpleTbCacheValueWrapper.wrap("value"), nearCache.getStamp());
+
+        assertThat(nearCache.get("a").get()).isEqualTo("value");
+        assertThat(nearCache.get("b")).isNull();
+        assertThat(nearCache.getHits().sum()).isEqualTo(1);
+        assertThat(nearCache.getMisses().sum()).isEqualTo(1);
+    }
+
+    @Test
+    public void testValueReadBeforeInvalidationIsNotKept() {
+        long stamp = nearCache.getStamp();
+        nearCache.invalidate("a");
+        nearCache.put("a", SimpleTbCacheValueWrapper.wrap("stale"), stamp);
+
+        assertThat(nearCache.get("a")).isNull();
+    }
+
+    @Test
+    public void testInvalidate() {
+        nearCache.put("a", SimpleTbCacheValueWrapper.wrap("value"), nearCache.getStamp());
+        nearCache.invalidate("a");
+
+        assertThat(nearCache.get("a")).isNull();
+        nearCache.put("a", SimpleTbCacheValueWrapper.wrap("new"), nearCache.getStamp());
+        assertThat(nearCache.get("a").get()).isEqualTo("new");
+    }
+
+    @Test
+    public void testInvalidationMessage() {
+        byte[] message = RedisNearCacheInvalidationListener.toMessage("devices", List.of("k1", "line\nbreak"));
+
+        RedisNearCacheInvalidationListener.InvalidationMsg msg = RedisNearCacheInvalidationListener.fromMessage(message);
+        assertThat(msg.nodeId()).isEqualTo(RedisNearCacheInvalidationListener.NODE_ID);
+        assertThat(msg.cacheName()).isEqualTo("devices");
+        assertThat(msg.keys()).containsExactly("k1", "line\nbreak");
+    }
+
+}
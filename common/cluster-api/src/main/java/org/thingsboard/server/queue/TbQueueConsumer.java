@@ -40,4 +40,30 @@ public interface TbQueueConsumer<T extends TbQueueMsg> {
 
     List<String> getFullTopicNames();
 
+    /**
+     * Whether the consumer is able to commit the position taken after some earlier poll,
+     * not only everything polled so far. See {@link #getPosition()} and {@link #commit(TbQueuePosition)}.
+     */
+    default boolean isPositionCommitSupported() {
+        return false;
+    }
+
+    /**
+     * Returns the position of the consumer right after the last poll.
+     * Must be called from the thread that polls the consumer.
+     * Consumers without the position commit support return {@link TbQueuePosition#POLLED}.
+     */
+    default TbQueuePosition getPosition() {
+        return TbQueuePosition.POLLED;
+    }
+
+    /**
+     * Commits the messages polled before the position was taken.
+     * Must be called from the thread that polls the consumer.
+     * Consumers without the position commit support fall back to {@link #commit()}, i.e. commit everything polled so far.
+     */
+    default void commit(TbQueuePosition position) {
+        commit();
+    }
+
 }
@@ -0,0 +1,29 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue;
+
+/**
+ * Opaque position of the consumer in the topics it reads: everything polled before the position was taken.
+ * Committed later with {@link TbQueueConsumer#commit(TbQueuePosition)}, when the newer messages may be already polled.
+ */
+public interface TbQueuePosition {
+
+    /**
+     * Everything polled by the moment of the commit. Used by the consumers that can't commit an earlier position.
+     */
+    TbQueuePosition POLLED = new TbQueuePosition() {};
+
+}
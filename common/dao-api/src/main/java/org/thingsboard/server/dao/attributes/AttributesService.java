@@ -24,6 +24,7 @@ import org.thingsboard.server.common.data.kv.AttributeKvEntry;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -35,6 +36,8 @@ public interface AttributesService {
 
     ListenableFuture<List<AttributeKvEntry>> find(TenantId tenantId, EntityId entityId, AttributeScope scope, Collection<String> attributeKeys);
 
+    ListenableFuture<Map<EntityId, List<AttributeKvEntry>>> findByEntityIds(TenantId tenantId, Collection<EntityId> entityIds, AttributeScope scope, Collection<String> attributeKeys);
+
     ListenableFuture<List<AttributeKvEntry>> findAll(TenantId tenantId, EntityId entityId, AttributeScope scope);
 
     @Deprecated(since = "3.7.0")
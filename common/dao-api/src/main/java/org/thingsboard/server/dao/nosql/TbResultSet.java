@@ -20,7 +20,6 @@ import com.datastax.oss.driver.api.core.cql.ColumnDefinitions;
 import com.datastax.oss.driver.api.core.cql.ExecutionInfo;
 import com.datastax.oss.driver.api.core.cql.Row;
 import com.datastax.oss.driver.api.core.cql.Statement;
-import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -34,6 +33,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 public class TbResultSet implements AsyncResultSet {
@@ -90,17 +90,29 @@ public class TbResultSet implements AsyncResultSet {
 
     public ListenableFuture<List<Row>> allRows(Executor executor) {
         List<Row> allRows = new ArrayList<>();
-        SettableFuture<List<Row>> resultFuture = SettableFuture.create();
-        this.processRows(originalStatement, delegate, allRows, resultFuture, executor);
+        return Futures.transform(forEachRow(allRows::add, executor), v -> allRows, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Passes the rows of all pages to the consumer page by page, without keeping the rows of the previous pages.
+     */
+    public ListenableFuture<Void> forEachRow(Consumer<Row> consumer, Executor executor) {
+        SettableFuture<Void> resultFuture = SettableFuture.create();
+        this.processRows(originalStatement, delegate, consumer, resultFuture, executor);
         return resultFuture;
     }
 
     private void processRows(Statement statement,
                              AsyncResultSet resultSet,
-                             List<Row> allRows,
-                             SettableFuture<List<Row>> resultFuture,
+                             Consumer<Row> consumer,
+                             SettableFuture<Void> resultFuture,
                              Executor executor) {
-        allRows.addAll(loadRows(resultSet));
+        try {
+            resultSet.currentPage().forEach(consumer);
+        } catch (Throwable t) {
+            resultFuture.setException(t);
+            return;
+        }
         if (resultSet.hasMorePages()) {
             ByteBuffer nextPagingState = resultSet.getExecutionInfo().getPagingState();
             Statement<?> nextStatement = statement.setPagingState(nextPagingState);
@@ -110,7 +122,7 @@ public class TbResultSet implements AsyncResultSet {
                         @Override
                         public void onSuccess(@Nullable TbResultSet result) {
                             processRows(nextStatement, result,
-                                    allRows, resultFuture, executor);
+                                    consumer, resultFuture, executor);
                         }
 
                         @Override
@@ -120,12 +132,8 @@ public class TbResultSet implements AsyncResultSet {
                     }, executor != null ? executor : MoreExecutors.directExecutor()
             );
         } else {
-            resultFuture.set(allRows);
+            resultFuture.set(null);
         }
     }
 
-    List<Row> loadRows(AsyncResultSet resultSet) {
-        return Lists.newArrayList(resultSet.currentPage());
-    }
-
 }
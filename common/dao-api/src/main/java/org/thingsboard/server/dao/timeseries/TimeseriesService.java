@@ -27,6 +27,7 @@ import org.thingsboard.server.common.data.kv.TsKvLatestRemovingResult;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -42,6 +43,8 @@ public interface TimeseriesService {
 
     ListenableFuture<List<TsKvEntry>> findLatest(TenantId tenantId, EntityId entityId, Collection<String> keys);
 
+    ListenableFuture<Map<EntityId, List<TsKvEntry>>> findLatestByEntityIds(TenantId tenantId, Collection<EntityId> entityIds, Collection<String> keys);
+
     ListenableFuture<List<TsKvEntry>> findAllLatest(TenantId tenantId, EntityId entityId);
 
     ListenableFuture<Integer> save(TenantId tenantId, EntityId entityId, TsKvEntry tsKvEntry);
@@ -0,0 +1,133 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.msg;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.common.data.kv.BooleanDataEntry;
+import org.thingsboard.server.common.data.kv.DataType;
+import org.thingsboard.server.common.data.kv.DoubleDataEntry;
+import org.thingsboard.server.common.data.kv.JsonDataEntry;
+import org.thingsboard.server.common.data.kv.KvEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.StringDataEntry;
+import org.thingsboard.server.common.msg.gen.MsgProtos;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typed body of the telemetry and attributes messages: a flat list of key-value entries.
+ * Lets the rule nodes consume the values without parsing {@link TbMsg#getData()}.
+ * The JSON representation is produced lazily, only if somebody asks for the message data.
+ */
+@ToString(onlyExplicitlyIncluded = true)
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public final class TbMsgKvPayload implements Serializable {
+
+    @Getter
+    @ToString.Include
+    @EqualsAndHashCode.Include
+    private final List<KvEntry> kvEntries;
+
+    private transient volatile String json;
+
+    public TbMsgKvPayload(List<? extends KvEntry> kvEntries) {
+        // The same key may appear several times; keep the last value like the JSON object does.
+        Map<String, KvEntry> entries = new LinkedHashMap<>();
+        for (KvEntry kvEntry : kvEntries) {
+            entries.remove(kvEntry.getKey());
+            entries.put(kvEntry.getKey(), kvEntry);
+        }
+        this.kvEntries = Collections.unmodifiableList(new ArrayList<>(entries.values()));
+    }
+
+    public boolean isEmpty() {
+        return kvEntries.isEmpty();
+    }
+
+    public String toJson() {
+        String result = json;
+        if (result == null) {
+            result = buildJson();
+            json = result;
+        }
+        return result;
+    }
+
+    private String buildJson() {
+        ObjectNode node = JacksonUtil.newObjectNode();
+        for (KvEntry kvEntry : kvEntries) {
+            switch (kvEntry.getDataType()) {
+                case BOOLEAN -> kvEntry.getBooleanValue().ifPresent(v -> node.put(kvEntry.getKey(), v));
+                case LONG -> kvEntry.getLongValue().ifPresent(v -> node.put(kvEntry.getKey(), v));
+                case DOUBLE -> kvEntry.getDoubleValue().ifPresent(v -> node.put(kvEntry.getKey(), v));
+                case STRING -> kvEntry.getStrValue().ifPresent(v -> node.put(kvEntry.getKey(), v));
+                case JSON -> kvEntry.getJsonValue().ifPresent(v -> node.set(kvEntry.getKey(), JacksonUtil.toJsonNode(v)));
+            }
+        }
+        return JacksonUtil.toString(node);
+    }
+
+    public MsgProtos.TbMsgKvPayloadProto toProto() {
+        MsgProtos.TbMsgKvPayloadProto.Builder builder = MsgProtos.TbMsgKvPayloadProto.newBuilder();
+        for (KvEntry kvEntry : kvEntries) {
+            MsgProtos.TbMsgKvProto.Builder kvBuilder = MsgProtos.TbMsgKvProto.newBuilder()
+                    .setKey(kvEntry.getKey())
+                    .setType(kvEntry.getDataType().getProtoNumber());
+            switch (kvEntry.getDataType()) {
+                case BOOLEAN -> kvEntry.getBooleanValue().ifPresent(kvBuilder::setBoolV);
+                case LONG -> kvEntry.getLongValue().ifPresent(kvBuilder::setLongV);
+                case DOUBLE -> kvEntry.getDoubleValue().ifPresent(kvBuilder::setDoubleV);
+                case STRING -> kvEntry.getStrValue().ifPresent(kvBuilder::setStringV);
+                case JSON -> kvEntry.getJsonValue().ifPresent(kvBuilder::setJsonV);
+            }
+            builder.addKv(kvBuilder);
+        }
+        return builder.build();
+    }
+
+    public static TbMsgKvPayload fromProto(MsgProtos.TbMsgKvPayloadProto proto) {
+        List<KvEntry> kvEntries = new ArrayList<>(proto.getKvCount());
+        for (MsgProtos.TbMsgKvProto kv : proto.getKvList()) {
+            kvEntries.add(switch (getDataType(kv.getType())) {
+                case BOOLEAN -> new BooleanDataEntry(kv.getKey(), kv.getBoolV());
+                case LONG -> new LongDataEntry(kv.getKey(), kv.getLongV());
+                case DOUBLE -> new DoubleDataEntry(kv.getKey(), kv.getDoubleV());
+                case STRING -> new StringDataEntry(kv.getKey(), kv.getStringV());
+                case JSON -> new JsonDataEntry(kv.getKey(), kv.getJsonV());
+            });
+        }
+        return new TbMsgKvPayload(kvEntries);
+    }
+
+    private static DataType getDataType(int protoNumber) {
+        for (DataType dataType : DataType.values()) {
+            if (dataType.getProtoNumber() == protoNumber) {
+                return dataType;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported data type: " + protoNumber);
+    }
+
+}
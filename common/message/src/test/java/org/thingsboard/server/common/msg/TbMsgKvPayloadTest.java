@@ -0,0 +1,84 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.msg;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.kv.BooleanDataEntry;
+import org.thingsboard.server.common.data.kv.DoubleDataEntry;
+import org.thingsboard.server.common.data.kv.JsonDataEntry;
+import org.thingsboard.server.common.data.kv.KvEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.StringDataEntry;
+import org.thingsboard.server.common.data.msg.TbMsgType;
+import org.thingsboard.server.common.msg.queue.TbMsgCallback;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class TbMsgKvPayloadTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<KvEntry> kvEntries = List.of(
+            new BooleanDataEntry("active", true),
+            new LongDataEntry("counter", 42L),
+            new DoubleDataEntry("temperature", 21.5),
+            new StringDataEntry("status", "ok"),
+            new JsonDataEntry("config", "{\"mode\":\"auto\",\"levels\":[1,2]}"));
+
+    @Test
+    public void testPayloadToJson() throws Exception {
+        TbMsgKvPayload payload = new TbMsgKvPayload(kvEntries);
+        JsonNode expected = objectMapper.readTree("{\"active\":true,\"counter\":42,\"temperature\":21.5,\"status\":\"ok\",\"config\":{\"mode\":\"auto\",\"levels\":[1,2]}}");
+        assertEquals(expected, objectMapper.readTree(payload.toJson()));
+    }
+
+    @Test
+    public void testDuplicatedKeysKeepLastValue() {
+        TbMsgKvPayload payload = new TbMsgKvPayload(List.of(new LongDataEntry("counter", 1L), new StringDataEntry("status", "ok"), new LongDataEntry("counter", 2L)));
+        assertEquals(List.of(new StringDataEntry("status", "ok"), new LongDataEntry("counter", 2L)), payload.getKvEntries());
+    }
+
+    @Test
+    public void testMsgWithPayloadSerialization() {
+        TbMsg msg = TbMsg.newMsgWithKvPayload("Main", TbMsgType.POST_TELEMETRY_REQUEST, new DeviceId(UUID.randomUUID()), null,
+                new TbMsgMetaData(), new TbMsgKvPayload(kvEntries), null, null);
+
+        TbMsg restored = TbMsg.fromBytes("Main", TbMsg.toByteArray(msg), TbMsgCallback.EMPTY);
+
+        assertEquals(msg.getKvPayload(), restored.getKvPayload());
+        assertEquals(msg.getData(), restored.getData());
+    }
+
+    @Test
+    public void testTransformMsgDataDropsPayload() {
+        TbMsg msg = TbMsg.newMsgWithKvPayload("Main", TbMsgType.POST_TELEMETRY_REQUEST, new DeviceId(UUID.randomUUID()), null,
+                new TbMsgMetaData(), new TbMsgKvPayload(kvEntries), null, null);
+
+        TbMsg transformed = TbMsg.transformMsgData(msg, "{\"counter\":43}");
+
+        assertNull(transformed.getKvPayload());
+        assertEquals("{\"counter\":43}", transformed.getData());
+        assertEquals(msg.getKvPayload(), TbMsg.transformMsgOriginator(msg, new DeviceId(UUID.randomUUID())).getKvPayload());
+    }
+
+}
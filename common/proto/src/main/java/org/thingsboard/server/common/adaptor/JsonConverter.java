@@ -18,10 +18,13 @@ package org.thingsboard.server.common.adaptor;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.thingsboard.server.common.data.DataConstants;
 import org.thingsboard.server.common.data.StringUtils;
@@ -53,10 +56,14 @@ import org.thingsboard.server.gen.transport.TransportProtos.ValidateBasicMqttCre
 import org.thingsboard.server.gen.transport.TransportProtos.ValidateDeviceTokenRequestMsg;
 import org.thingsboard.server.gen.transport.TransportProtos.ValidateDeviceX509CertRequestMsg;
 
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -85,6 +92,150 @@ public class JsonConverter {
         return convertToTelemetryProto(jsonElement, System.currentTimeMillis());
     }
 
+    /**
+     * Streaming counterpart of {@link #convertToTelemetryProto(JsonElement)}: reads the payload token by token
+     * and builds the same message without the payload string and the JSON tree.
+     */
+    public static PostTelemetryMsg convertToTelemetryProto(Reader reader) throws JsonSyntaxException {
+        return convertToTelemetryProto(reader, System.currentTimeMillis());
+    }
+
+    public static PostTelemetryMsg convertToTelemetryProto(Reader reader, long systemTs) throws JsonSyntaxException {
+        PostTelemetryMsg.Builder builder = PostTelemetryMsg.newBuilder();
+        JsonReader in = new JsonReader(reader);
+        in.setLenient(true);
+        try {
+            JsonToken token;
+            try {
+                token = in.peek();
+            } catch (EOFException e) {
+                throw new JsonSyntaxException(CAN_T_PARSE_VALUE + JsonNull.INSTANCE);
+            }
+            if (token == JsonToken.BEGIN_OBJECT) {
+                parseObject(builder, systemTs, in);
+            } else if (token == JsonToken.BEGIN_ARRAY) {
+                in.beginArray();
+                while (in.hasNext()) {
+                    if (in.peek() == JsonToken.BEGIN_OBJECT) {
+                        parseObject(builder, systemTs, in);
+                    } else {
+                        throw new JsonSyntaxException(CAN_T_PARSE_VALUE + JsonParser.parseReader(in));
+                    }
+                }
+                in.endArray();
+            } else {
+                throw new JsonSyntaxException(CAN_T_PARSE_VALUE + JsonParser.parseReader(in));
+            }
+            if (in.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("Did not consume the entire document.");
+            }
+        } catch (IOException e) {
+            throw new JsonSyntaxException(e);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Same rules as {@link #parseObject(PostTelemetryMsg.Builder, long, JsonObject)}. The object is in the ts format
+     * if it has both "ts" and "values" fields, so the values are converted right away only after the "ts" field.
+     * The last value of a duplicate key wins at the position of the first one, as in {@link JsonObject}.
+     */
+    private static void parseObject(PostTelemetryMsg.Builder request, long systemTs, JsonReader in) throws IOException {
+        Map<String, Object> values = new LinkedHashMap<>();
+        JsonElement ts = null;
+        JsonElement valuesElement = null;
+        Map<String, Object> tsValues = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            String key = in.nextName();
+            if ("ts".equals(key)) {
+                ts = JsonParser.parseReader(in);
+                values.put(key, toKeyValue(key, ts));
+            } else if ("values".equals(key)) {
+                if (ts != null && in.peek() == JsonToken.BEGIN_OBJECT) {
+                    tsValues = readValues(in);
+                    valuesElement = null;
+                } else {
+                    valuesElement = JsonParser.parseReader(in);
+                    tsValues = null;
+                    values.put(key, toKeyValue(key, valuesElement));
+                }
+            } else if (ts != null && (tsValues != null || valuesElement != null)) {
+                in.skipValue();
+            } else {
+                values.put(key, readValue(key, in));
+            }
+        }
+        in.endObject();
+
+        TsKvListProto.Builder builder = TsKvListProto.newBuilder();
+        if (ts != null && (tsValues != null || valuesElement != null)) {
+            builder.setTs(ts.getAsLong());
+            if (tsValues != null) {
+                addValues(builder, tsValues);
+            } else {
+                builder.addAllKv(parseProtoValues(valuesElement.getAsJsonObject()));
+            }
+        } else {
+            builder.setTs(systemTs);
+            addValues(builder, values);
+        }
+        request.addTsKvList(builder.build());
+    }
+
+    private static Map<String, Object> readValues(JsonReader in) throws IOException {
+        Map<String, Object> values = new LinkedHashMap<>();
+        in.beginObject();
+        while (in.hasNext()) {
+            String key = in.nextName();
+            values.put(key, readValue(key, in));
+        }
+        in.endObject();
+        return values;
+    }
+
+    /**
+     * @return the key value, null for the JSON null or the conversion error to throw if the key is not overwritten later
+     */
+    private static Object readValue(String key, JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        switch (token) {
+            case NULL:
+                in.nextNull();
+                return null;
+            case BOOLEAN:
+                return KeyValueProto.newBuilder().setKey(key).setType(KeyValueType.BOOLEAN_V).setBoolV(in.nextBoolean()).build();
+            case STRING:
+            case NUMBER:
+                String value = in.nextString();
+                try {
+                    return token == JsonToken.STRING ? buildStringKeyValueProto(value, key) : buildNumericKeyValueProto(value, key);
+                } catch (JsonSyntaxException e) {
+                    return e;
+                }
+            default:
+                return KeyValueProto.newBuilder().setKey(key).setType(KeyValueType.JSON_V).setJsonV(JsonParser.parseReader(in).toString()).build();
+        }
+    }
+
+    private static Object toKeyValue(String key, JsonElement element) {
+        try {
+            return toKeyValueProto(key, element);
+        } catch (JsonSyntaxException e) {
+            return e;
+        }
+    }
+
+    private static void addValues(TsKvListProto.Builder builder, Map<String, Object> values) {
+        for (Object value : values.values()) {
+            if (value instanceof JsonSyntaxException e) {
+                throw e;
+            } else if (value != null) {
+                builder.addKv((KeyValueProto) value);
+            }
+        }
+    }
+
     public static TbPair<TransportProtos.PostTelemetryMsg, List<GatewayMetadata>> convertToGatewayTelemetry(JsonElement jsonElement, long systemTs) {
         List<GatewayMetadata> metadataResult = null;
         PostTelemetryMsg.Builder builder = PostTelemetryMsg.newBuilder();
@@ -233,44 +384,51 @@ public class JsonConverter {
     private static List<KeyValueProto> parseProtoValues(JsonObject valuesObject) {
         List<KeyValueProto> result = new ArrayList<>();
         for (Entry<String, JsonElement> valueEntry : valuesObject.entrySet()) {
-            JsonElement element = valueEntry.getValue();
-            if (element.isJsonPrimitive()) {
-                JsonPrimitive value = element.getAsJsonPrimitive();
-                if (value.isString()) {
-                    if (maxStringValueLength > 0 && value.getAsString().length() > maxStringValueLength) {
-                        String message = String.format("String value length [%d] for key [%s] is greater than maximum allowed [%d]", value.getAsString().length(), valueEntry.getKey(), maxStringValueLength);
-                        throw new JsonSyntaxException(message);
-                    }
-                    if (isTypeCastEnabled && NumberUtils.isParsable(value.getAsString())) {
-                        try {
-                            result.add(buildNumericKeyValueProto(value, valueEntry.getKey()));
-                        } catch (RuntimeException th) {
-                            result.add(KeyValueProto.newBuilder().setKey(valueEntry.getKey()).setType(KeyValueType.STRING_V)
-                                    .setStringV(value.getAsString()).build());
-                        }
-                    } else {
-                        result.add(KeyValueProto.newBuilder().setKey(valueEntry.getKey()).setType(KeyValueType.STRING_V)
-                                .setStringV(value.getAsString()).build());
-                    }
-                } else if (value.isBoolean()) {
-                    result.add(KeyValueProto.newBuilder().setKey(valueEntry.getKey()).setType(KeyValueType.BOOLEAN_V)
-                            .setBoolV(value.getAsBoolean()).build());
-                } else if (value.isNumber()) {
-                    result.add(buildNumericKeyValueProto(value, valueEntry.getKey()));
-                } else if (!value.isJsonNull()) {
-                    throw new JsonSyntaxException(CAN_T_PARSE_VALUE + value);
-                }
-            } else if (element.isJsonObject() || element.isJsonArray()) {
-                result.add(KeyValueProto.newBuilder().setKey(valueEntry.getKey()).setType(KeyValueType.JSON_V).setJsonV(element.toString()).build());
-            } else if (!element.isJsonNull()) {
-                throw new JsonSyntaxException(CAN_T_PARSE_VALUE + element);
+            KeyValueProto kv = toKeyValueProto(valueEntry.getKey(), valueEntry.getValue());
+            if (kv != null) {
+                result.add(kv);
             }
         }
         return result;
     }
 
-    private static KeyValueProto buildNumericKeyValueProto(JsonPrimitive value, String key) {
-        String valueAsString = value.getAsString();
+    private static KeyValueProto toKeyValueProto(String key, JsonElement element) {
+        if (element.isJsonPrimitive()) {
+            JsonPrimitive value = element.getAsJsonPrimitive();
+            if (value.isString()) {
+                return buildStringKeyValueProto(value.getAsString(), key);
+            } else if (value.isBoolean()) {
+                return KeyValueProto.newBuilder().setKey(key).setType(KeyValueType.BOOLEAN_V)
+                        .setBoolV(value.getAsBoolean()).build();
+            } else if (value.isNumber()) {
+                return buildNumericKeyValueProto(value.getAsString(), key);
+            } else if (!value.isJsonNull()) {
+                throw new JsonSyntaxException(CAN_T_PARSE_VALUE + value);
+            }
+        } else if (element.isJsonObject() || element.isJsonArray()) {
+            return KeyValueProto.newBuilder().setKey(key).setType(KeyValueType.JSON_V).setJsonV(element.toString()).build();
+        } else if (!element.isJsonNull()) {
+            throw new JsonSyntaxException(CAN_T_PARSE_VALUE + element);
+        }
+        return null;
+    }
+
+    private static KeyValueProto buildStringKeyValueProto(String value, String key) {
+        if (maxStringValueLength > 0 && value.length() > maxStringValueLength) {
+            String message = String.format("String value length [%d] for key [%s] is greater than maximum allowed [%d]", value.length(), key, maxStringValueLength);
+            throw new JsonSyntaxException(message);
+        }
+        if (isTypeCastEnabled && NumberUtils.isParsable(value)) {
+            try {
+                return buildNumericKeyValueProto(value, key);
+            } catch (RuntimeException th) {
+                return KeyValueProto.newBuilder().setKey(key).setType(KeyValueType.STRING_V).setStringV(value).build();
+            }
+        }
+        return KeyValueProto.newBuilder().setKey(key).setType(KeyValueType.STRING_V).setStringV(value).build();
+    }
+
+    private static KeyValueProto buildNumericKeyValueProto(String valueAsString, String key) {
         KeyValueProto.Builder builder = KeyValueProto.newBuilder().setKey(key);
         var bd = new BigDecimal(valueAsString);
         if (bd.stripTrailingZeros().scale() <= 0 && !isSimpleDouble(valueAsString)) {
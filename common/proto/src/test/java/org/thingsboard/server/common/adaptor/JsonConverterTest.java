@@ -23,7 +23,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.parallel.Isolated;
 
+import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.List;
 
 @Isolated("JsonConverter static settings being modified")
 public class JsonConverterTest {
@@ -93,6 +95,30 @@ public class JsonConverterTest {
         Assertions.assertEquals("10000000000000000000", result.get(0L).get(0).getStrValue().get());
     }
 
+    @Test
+    public void testStreamingTelemetryParsingSameAsTree() {
+        List<String> payloads = List.of(
+                "{\"temperature\": 42, \"humidity\": 73.5, \"active\": true, \"name\": \"sensor\", \"empty\": null}",
+                "{\"ts\": 1451649600512, \"values\": {\"key1\": \"value1\", \"key2\": \"12\", \"key3\": 1E+1}}",
+                "{\"values\": {\"key1\": 1.0}, \"ts\": \"1451649600512\", \"ignored\": {\"a\": 1}}",
+                "[{\"ts\": 1, \"values\": {\"a\": 1}}, {\"b\": [1, 2, {\"c\": \"d\"}]}, {\"ts\": 2}]",
+                "{\"json\": {\"nested\": {\"value\": 9.9701010061400066E19}}, \"big\": 99701010061400066001}",
+                "{\"dup\": 1, \"other\": 2, \"dup\": \"last\", \"ts\": 5}",
+                "{\"ts\": 3, \"values\": {\"dup\": 1, \"dup\": null, \"x\": false}}",
+                "{unquoted: 'single', \"weird\": NaN}");
+        for (String payload : payloads) {
+            Assertions.assertEquals(JsonConverter.convertToTelemetryProto(JsonParser.parseString(payload), 0L),
+                    JsonConverter.convertToTelemetryProto(new StringReader(payload), 0L), payload);
+        }
+    }
+
+    @Test
+    public void testStreamingTelemetryParsingInvalidPayload() {
+        for (String payload : List.of("", "42", "[1]", "{\"a\": 1} {\"b\": 2}", "{\"a\": ")) {
+            Assertions.assertThrows(JsonSyntaxException.class, () -> JsonConverter.convertToTelemetryProto(new StringReader(payload), 0L), payload);
+        }
+    }
+
     @Test
     public void testParseBigDecimalOutOfLongRangeWithoutParsing() {
         JsonConverter.setTypeCastEnabled(false);
@@ -21,6 +21,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
 import org.thingsboard.server.queue.TbQueueConsumer;
 import org.thingsboard.server.queue.TbQueueMsg;
+import org.thingsboard.server.queue.TbQueuePosition;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -159,6 +160,16 @@ public abstract class AbstractTbQueueConsumerTemplate<R, T extends TbQueueMsg> i
         }
     }
 
+    @Override
+    public void commit(TbQueuePosition position) {
+        consumerLock.lock();
+        try {
+            doCommit(position);
+        } finally {
+            consumerLock.unlock();
+        }
+    }
+
     @Override
     public void stop() {
         stopped = true;
@@ -191,6 +202,10 @@ public abstract class AbstractTbQueueConsumerTemplate<R, T extends TbQueueMsg> i
 
     abstract protected void doCommit();
 
+    protected void doCommit(TbQueuePosition position) {
+        doCommit();
+    }
+
     abstract protected void doUnsubscribe();
 
     @Override
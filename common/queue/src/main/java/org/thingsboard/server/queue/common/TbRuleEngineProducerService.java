@@ -15,6 +15,7 @@
  */
 package org.thingsboard.server.queue.common;
 
+import com.google.protobuf.ByteString;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -27,7 +28,10 @@ import org.thingsboard.server.queue.TbQueueCallback;
 import org.thingsboard.server.queue.TbQueueProducer;
 import org.thingsboard.server.queue.discovery.PartitionService;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
@@ -59,6 +63,82 @@ public class TbRuleEngineProducerService {
         }
     }
 
+    /**
+     * Sends the msgs of the tenant, packing the ones that go to the same partition into a single queue msg.
+     * The rule engine consumer restores the original msgs with {@link #unpack(List)}.
+     * The callback is notified once all the queue msgs are sent.
+     */
+    public void sendToRuleEngine(TbQueueProducer<TbProtoQueueMsg<ToRuleEngineMsg>> producer,
+                                 TenantId tenantId, List<TbMsg> tbMsgs, TbQueueCallback callback) {
+        Map<TopicPartitionInfo, List<TbMsg>> msgsByTpi = new LinkedHashMap<>();
+        for (TbMsg tbMsg : tbMsgs) {
+            List<TopicPartitionInfo> tpis = partitionService.resolveAll(ServiceType.TB_RULE_ENGINE, tbMsg.getQueueName(), tenantId, tbMsg.getOriginator());
+            if (tpis.size() > 1) {
+                UUID correlationId = UUID.randomUUID();
+                for (int i = 0; i < tpis.size(); i++) {
+                    TopicPartitionInfo tpi = tpis.get(i);
+                    msgsByTpi.computeIfAbsent(tpi, k -> new ArrayList<>()).add(tbMsg.toBuilder()
+                            .id(i > 0 ? UUID.randomUUID() : tbMsg.getId())
+                            .correlationId(correlationId)
+                            .partition(tpi.getPartition().orElse(null))
+                            .build());
+                }
+            } else {
+                msgsByTpi.computeIfAbsent(tpis.get(0), k -> new ArrayList<>()).add(tbMsg);
+            }
+        }
+        if (msgsByTpi.isEmpty()) {
+            if (callback != null) {
+                callback.onSuccess(null);
+            }
+            return;
+        }
+        TbQueueCallback packCallback = callback != null ? new MultipleTbQueueCallbackWrapper(msgsByTpi.size(), callback) : null;
+        msgsByTpi.forEach((tpi, msgs) -> {
+            if (msgs.size() == 1) {
+                sendToRuleEngine(producer, tpi, tenantId, msgs.get(0), packCallback);
+                return;
+            }
+            if (log.isTraceEnabled()) {
+                log.trace("[{}] Pushing to topic {} {} packed messages", tenantId, tpi.getFullTopicName(), msgs.size());
+            }
+            ToRuleEngineMsg.Builder msg = ToRuleEngineMsg.newBuilder()
+                    .setTenantIdMSB(tenantId.getId().getMostSignificantBits())
+                    .setTenantIdLSB(tenantId.getId().getLeastSignificantBits());
+            for (TbMsg tbMsg : msgs) {
+                msg.addPackedTbMsgs(TbMsg.toByteString(tbMsg));
+            }
+            producer.send(tpi, new TbProtoQueueMsg<>(msgs.get(0).getId(), msg.build()), packCallback);
+        });
+    }
+
+    /**
+     * Replaces the packed queue msgs with the msgs they carry, keeping the order.
+     */
+    public static List<TbProtoQueueMsg<ToRuleEngineMsg>> unpack(List<TbProtoQueueMsg<ToRuleEngineMsg>> msgs) {
+        if (msgs.stream().noneMatch(msg -> msg.getValue().getPackedTbMsgsCount() > 0)) {
+            return msgs;
+        }
+        List<TbProtoQueueMsg<ToRuleEngineMsg>> result = new ArrayList<>(msgs.size());
+        for (TbProtoQueueMsg<ToRuleEngineMsg> msg : msgs) {
+            ToRuleEngineMsg value = msg.getValue();
+            if (value.getPackedTbMsgsCount() == 0) {
+                result.add(msg);
+                continue;
+            }
+            List<ByteString> packed = value.getPackedTbMsgsList();
+            for (int i = 0; i < packed.size(); i++) {
+                ToRuleEngineMsg unpacked = ToRuleEngineMsg.newBuilder()
+                        .setTenantIdMSB(value.getTenantIdMSB())
+                        .setTenantIdLSB(value.getTenantIdLSB())
+                        .setTbMsg(packed.get(i))
+                        .build();
+                result.add(new TbProtoQueueMsg<>(i > 0 ? UUID.randomUUID() : msg.getKey(), unpacked, msg.getHeaders()));
+            }
+        }
+        return result;
+    }
+
     private void sendToRuleEngine(TbQueueProducer<TbProtoQueueMsg<ToRuleEngineMsg>> producer, TopicPartitionInfo tpi,
                                   TenantId tenantId, TbMsg tbMsg, TbQueueCallback callback) {
         if (log.isTraceEnabled()) {
@@ -30,6 +30,8 @@ import org.thingsboard.server.common.data.id.TenantProfileId;
 import org.thingsboard.server.common.data.util.CollectionsUtil;
 import org.thingsboard.server.common.msg.queue.ServiceType;
 import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.common.stats.DefaultCounter;
+import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.gen.transport.TransportProtos;
 import org.thingsboard.server.gen.transport.TransportProtos.ServiceInfo;
 import org.thingsboard.server.queue.discovery.event.ClusterTopologyChangeEvent;
@@ -72,12 +74,15 @@ public class HashPartitionService implements PartitionService {
     private Integer edgePartitions;
     @Value("${queue.partitions.hash_function_name:murmur3_128}")
     private String hashFunctionName;
+    @Value("${queue.partitions.assignment_strategy:modulo}")
+    private String assignmentStrategyName;
 
     private final ApplicationEventPublisher applicationEventPublisher;
     private final TbServiceInfoProvider serviceInfoProvider;
     private final TenantRoutingInfoService tenantRoutingInfoService;
     private final QueueRoutingInfoService queueRoutingInfoService;
     private final TopicService topicService;
+    private final StatsFactory statsFactory;
 
     protected volatile ConcurrentMap<QueueKey, List<Integer>> myPartitions = new ConcurrentHashMap<>();
 
@@ -92,22 +97,27 @@ public class HashPartitionService implements PartitionService {
     private volatile Map<TenantProfileId, List<ServiceInfo>> responsibleServices = Collections.emptyMap();
 
     private HashFunction hashFunction;
+    private PartitionAssignmentStrategy assignmentStrategy;
+    private final ConcurrentMap<ServiceType, DefaultCounter> movedPartitionsCounters = new ConcurrentHashMap<>();
 
     public HashPartitionService(TbServiceInfoProvider serviceInfoProvider,
                                 TenantRoutingInfoService tenantRoutingInfoService,
                                 ApplicationEventPublisher applicationEventPublisher,
                                 QueueRoutingInfoService queueRoutingInfoService,
-                                TopicService topicService) {
+                                TopicService topicService,
+                                StatsFactory statsFactory) {
         this.serviceInfoProvider = serviceInfoProvider;
         this.tenantRoutingInfoService = tenantRoutingInfoService;
         this.applicationEventPublisher = applicationEventPublisher;
         this.queueRoutingInfoService = queueRoutingInfoService;
         this.topicService = topicService;
+        this.statsFactory = statsFactory;
     }
 
     @PostConstruct
     public void init() {
         this.hashFunction = forName(hashFunctionName);
+        this.assignmentStrategy = PartitionAssignmentStrategy.forName(assignmentStrategyName, hashFunction);
         QueueKey coreKey = new QueueKey(ServiceType.TB_CORE);
         partitionSizesMap.put(coreKey, corePartitions);
         partitionTopicsMap.put(coreKey, coreTopic);
@@ -408,6 +418,10 @@ public class HashPartitionService implements PartitionService {
             changedPartitionsMap.put(queueKey, Collections.emptySet());
         });
 
+        if (currentOtherServices != null) { // not the initial assignment
+            countMovedPartitions(oldPartitions, newPartitions);
+        }
+
         myPartitions.forEach((queueKey, partitions) -> {
             if (!partitions.equals(oldPartitions.get(queueKey))) {
                 Set<TopicPartitionInfo> tpiList = partitions.stream()
@@ -454,6 +468,26 @@ public class HashPartitionService implements PartitionService {
         applicationEventPublisher.publishEvent(new ServiceListChangedEvent(otherServices, currentService));
     }
 
+    private void countMovedPartitions(Map<QueueKey, List<Integer>> oldPartitions, Map<QueueKey, List<Integer>> newPartitions) {
+        Map<ServiceType, Integer> moved = new HashMap<>();
+        Set<QueueKey> queueKeys = new HashSet<>(oldPartitions.keySet());
+        queueKeys.addAll(newPartitions.keySet());
+        for (QueueKey queueKey : queueKeys) {
+            List<Integer> oldList = oldPartitions.getOrDefault(queueKey, Collections.emptyList());
+            List<Integer> newList = newPartitions.getOrDefault(queueKey, Collections.emptyList());
+            int acquired = (int) newList.stream().filter(partition -> !oldList.contains(partition)).count();
+            int released = (int) oldList.stream().filter(partition -> !newList.contains(partition)).count();
+            if (acquired + released > 0) {
+                moved.merge(queueKey.getType(), acquired + released, Integer::sum);
+            }
+        }
+        moved.forEach((serviceType, count) -> {
+            log.info("[{}] Partitions moved during rebalance: {}", serviceType, count);
+            movedPartitionsCounters.computeIfAbsent(serviceType, type ->
+                    statsFactory.createDefaultCounter("partitionsMoved", "serviceType", type.name())).add(count);
+        });
+    }
+
     private void publishPartitionChangeEvent(ServiceType serviceType, Map<QueueKey, Set<TopicPartitionInfo>> partitionsMap) {
         log.info("Partitions changed: {}", System.lineSeparator() + partitionsMap.entrySet().stream()
                 .map(entry -> "[" + entry.getKey() + "] - [" + entry.getValue().stream()
@@ -642,11 +676,8 @@ public class HashPartitionService implements PartitionService {
                 servers = responsible;
             }
 
-            int hash = hash(tenantId.getId());
-            return servers.get(Math.abs((hash + partition) % servers.size()));
-        } else {
-            return servers.get(partition % servers.size());
         }
+        return assignmentStrategy.assign(servers, queueKey, partition);
     }
 
     private int hash(UUID key) {
@@ -0,0 +1,48 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.discovery;
+
+import com.google.common.hash.HashFunction;
+import lombok.RequiredArgsConstructor;
+import org.thingsboard.server.common.msg.queue.ServiceType;
+import org.thingsboard.server.gen.transport.TransportProtos.ServiceInfo;
+
+import java.util.List;
+
+/**
+ * Round-robin over the sorted servers. Spreads the partitions evenly,
+ * but adding or removing a server reassigns almost every partition.
+ */
+@RequiredArgsConstructor
+public class ModuloPartitionAssignmentStrategy implements PartitionAssignmentStrategy {
+
+    private final HashFunction hashFunction;
+
+    @Override
+    public ServiceInfo assign(List<ServiceInfo> servers, QueueKey queueKey, int partition) {
+        if (queueKey.getType() == ServiceType.TB_RULE_ENGINE) {
+            // Shift by tenant so the first partitions of the isolated queues don't end up on the same server
+            int hash = hashFunction.newHasher()
+                    .putLong(queueKey.getTenantId().getId().getMostSignificantBits())
+                    .putLong(queueKey.getTenantId().getId().getLeastSignificantBits())
+                    .hash().asInt();
+            return servers.get(Math.abs((hash + partition) % servers.size()));
+        } else {
+            return servers.get(partition % servers.size());
+        }
+    }
+
+}
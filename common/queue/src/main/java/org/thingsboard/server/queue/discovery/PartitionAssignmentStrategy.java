@@ -0,0 +1,44 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.discovery;
+
+import com.google.common.hash.HashFunction;
+import org.thingsboard.server.gen.transport.TransportProtos.ServiceInfo;
+
+import java.util.List;
+
+/**
+ * Decides which of the servers is responsible for the partition of the queue.
+ * Every server calculates the assignment on its own, so the result must depend only on the arguments.
+ */
+public interface PartitionAssignmentStrategy {
+
+    /**
+     * @param servers   servers that may consume the queue, sorted by service id; not empty
+     * @param queueKey  queue of the partition
+     * @param partition partition index
+     */
+    ServiceInfo assign(List<ServiceInfo> servers, QueueKey queueKey, int partition);
+
+    static PartitionAssignmentStrategy forName(String name, HashFunction hashFunction) {
+        return switch (name) {
+            case "modulo" -> new ModuloPartitionAssignmentStrategy(hashFunction);
+            case "rendezvous" -> new RendezvousPartitionAssignmentStrategy(hashFunction);
+            default -> throw new IllegalArgumentException("Can't find partition assignment strategy with name " + name);
+        };
+    }
+
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.discovery;
+
+import com.google.common.hash.HashFunction;
+import lombok.RequiredArgsConstructor;
+import org.thingsboard.server.gen.transport.TransportProtos.ServiceInfo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Rendezvous (highest random weight) hashing: the partition goes to the server with the highest hash of
+ * (server, service type, tenant, partition). The queue name is not a part of the hash, so the same partition
+ * of all queues of the tenant is processed by the same server, as with the modulo assignment.
+ * When a server joins, it takes over only the partitions it wins (~1/N); when a server leaves, only its
+ * partitions are moved, the rest of the cluster keeps its assignment.
+ * The distribution is even only statistically, so it works best when there are many more partitions than servers.
+ */
+@RequiredArgsConstructor
+public class RendezvousPartitionAssignmentStrategy implements PartitionAssignmentStrategy {
+
+    private final HashFunction hashFunction;
+
+    @Override
+    public ServiceInfo assign(List<ServiceInfo> servers, QueueKey queueKey, int partition) {
+        ServiceInfo result = null;
+        long maxWeight = Long.MIN_VALUE;
+        for (ServiceInfo server : servers) {
+            long weight = weight(server.getServiceId(), queueKey, partition);
+            // servers are sorted by id, so ties are resolved the same way on every server
+            if (result == null || weight > maxWeight) {
+                result = server;
+                maxWeight = weight;
+            }
+        }
+        return result;
+    }
+
+    private long weight(String serviceId, QueueKey queueKey, int partition) {
+        return hashFunction.newHasher()
+                .putString(serviceId, StandardCharsets.UTF_8)
+                .putString(queueKey.getType().name(), StandardCharsets.UTF_8)
+                .putLong(queueKey.getTenantId().getId().getMostSignificantBits())
+                .putLong(queueKey.getTenantId().getId().getLeastSignificantBits())
+                .putInt(partition)
+                .hash().padToLong();
+    }
+
+}
@@ -13,33 +13,30 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package org.thingsboard.rule.engine.deduplication;
+package org.thingsboard.server.queue.file;
 
-import lombok.Data;
-import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.queue.TbQueueAdmin;
 
-import java.util.LinkedList;
-import java.util.List;
+public class TbFileQueueAdmin implements TbQueueAdmin {
 
-@Data
-public class DeduplicationData {
+    private final TbFileQueueStorage storage;
 
-    private final List<TbMsg> msgList;
-    private boolean tickScheduled;
-
-    public DeduplicationData() {
-        msgList = new LinkedList<>();
+    public TbFileQueueAdmin(TbFileQueueStorage storage) {
+        this.storage = storage;
     }
 
-    public int size() {
-        return msgList.size();
+    @Override
+    public void createTopicIfNotExists(String topic, String properties) {
+        storage.getLog(topic);
     }
 
-    public void add(TbMsg msg) {
-        msgList.add(msg);
+    @Override
+    public void deleteTopic(String topic) {
+        storage.deleteTopic(topic);
     }
 
-    public boolean isEmpty() {
-        return msgList.isEmpty();
+    @Override
+    public void destroy() {
     }
+
 }
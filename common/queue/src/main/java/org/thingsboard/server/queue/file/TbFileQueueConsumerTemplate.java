@@ -0,0 +1,105 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.file;
+
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.queue.TbQueueMsg;
+import org.thingsboard.server.queue.TbQueueMsgDecoder;
+import org.thingsboard.server.queue.common.AbstractTbQueueConsumerTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Polls the partition logs of the subscribed topics. The polled batches are committed on {@link #commit()}
+ * and returned to the logs on unsubscribe or re-subscribe, so that they are delivered again.
+ */
+@Slf4j
+public class TbFileQueueConsumerTemplate<T extends TbQueueMsg> extends AbstractTbQueueConsumerTemplate<TbQueueMsg, T> {
+
+    private final TbFileQueueStorage storage;
+    private final TbQueueMsgDecoder<T> decoder;
+    private final int maxPollRecords;
+    private final List<TbFileQueueLog.Batch> pendingBatches = new ArrayList<>();
+    private List<TbFileQueueLog> logs = Collections.emptyList();
+
+    public TbFileQueueConsumerTemplate(TbFileQueueStorage storage, TbFileQueueSettings settings, String topic, TbQueueMsgDecoder<T> decoder) {
+        super(topic);
+        this.storage = storage;
+        this.decoder = decoder;
+        this.maxPollRecords = settings.getMaxPollRecords();
+    }
+
+    @Override
+    protected void doSubscribe(List<String> topicNames) {
+        abortPendingBatches();
+        List<TbFileQueueLog> logs = new ArrayList<>(topicNames.size());
+        for (String topicName : topicNames) {
+            logs.add(storage.getLog(topicName));
+        }
+        this.logs = logs;
+    }
+
+    @Override
+    protected List<TbQueueMsg> doPoll(long durationInMillis) {
+        List<TbQueueMsg> result = null;
+        for (TbFileQueueLog queueLog : logs) {
+            TbFileQueueLog.Batch batch = queueLog.poll(maxPollRecords);
+            if (batch != null) {
+                pendingBatches.add(batch);
+                if (result == null) {
+                    result = new ArrayList<>(batch.getMsgs());
+                } else {
+                    result.addAll(batch.getMsgs());
+                }
+            }
+        }
+        return result != null ? result : Collections.emptyList();
+    }
+
+    @Override
+    protected T decode(TbQueueMsg msg) throws IOException {
+        return decoder.decode(msg);
+    }
+
+    @Override
+    protected void doCommit() {
+        for (TbFileQueueLog.Batch batch : pendingBatches) {
+            try {
+                storage.getLog(batch.getTopic()).commit(batch.getStartOffset());
+            } catch (IOException e) {
+                log.warn("[{}] Failed to commit offset {}", batch.getTopic(), batch.getStartOffset(), e);
+            }
+        }
+        pendingBatches.clear();
+    }
+
+    @Override
+    protected void doUnsubscribe() {
+        abortPendingBatches();
+        logs = Collections.emptyList();
+    }
+
+    private void abortPendingBatches() {
+        for (TbFileQueueLog.Batch batch : pendingBatches) {
+            storage.getLog(batch.getTopic()).abort(batch.getStartOffset());
+        }
+        pendingBatches.clear();
+    }
+
+}
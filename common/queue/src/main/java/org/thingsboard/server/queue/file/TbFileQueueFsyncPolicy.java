@@ -0,0 +1,33 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.file;
+
+public enum TbFileQueueFsyncPolicy {
+
+    /**
+     * Forces every appended message to the disk before the producer callback. Safest and slowest.
+     */
+    ALWAYS,
+    /**
+     * Forces the changes to the disk periodically, a crash of the OS may lose the last interval.
+     */
+    INTERVAL,
+    /**
+     * Leaves flushing to the OS. A crash of the process loses nothing, a crash of the OS may lose the unflushed pages.
+     */
+    NEVER
+
+}
@@ -0,0 +1,297 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.file;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.queue.TbQueueMsg;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of a single topic partition: a sequence of {@link TbFileQueueSegment}s and the committed offset.
+ * <p>
+ * The consumers of the partition share the read position, like the consumers of the in-memory queue do.
+ * Every poll returns a batch that stays in flight until the consumer commits or aborts it.
+ * The committed offset is the start of the oldest batch that is not committed yet, so after a restart
+ * everything that was not committed is delivered again. Segments behind the committed offset are deleted.
+ */
+@Slf4j
+public class TbFileQueueLog implements Closeable {
+
+    private static final String OFFSET_FILE = "consumer.offset";
+    private static final String OFFSET_TMP_FILE = "consumer.offset.tmp";
+
+    @Getter
+    private final String topic;
+    private final Path dir;
+    private final TbFileQueueSettings settings;
+    private final TreeMap<Long, TbFileQueueSegment> segments = new TreeMap<>();
+    private final TreeMap<Long, Batch> inFlight = new TreeMap<>();
+    private final TreeMap<Long, Batch> redelivery = new TreeMap<>();
+    private TbFileQueueSegment active;
+    private long readOffset;
+    private long committedOffset;
+    private long lag;
+    private boolean dirty;
+
+    public TbFileQueueLog(String topic, Path dir, TbFileQueueSettings settings) throws IOException {
+        this.topic = topic;
+        this.dir = dir;
+        this.settings = settings;
+        Files.createDirectories(dir);
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path path : files.filter(TbFileQueueSegment::isSegmentFile).toList()) {
+                TbFileQueueSegment segment = TbFileQueueSegment.open(path, settings.getSegmentSizeBytes());
+                segments.put(segment.getBaseOffset(), segment);
+            }
+        }
+        committedOffset = readCommittedOffset();
+        if (segments.isEmpty()) {
+            segments.put(committedOffset, TbFileQueueSegment.create(dir, committedOffset, settings.getSegmentSizeBytes()));
+        }
+        active = segments.lastEntry().getValue();
+        committedOffset = Math.min(Math.max(committedOffset, segments.firstKey()), active.getEndOffset());
+        readOffset = committedOffset;
+        for (TbFileQueueSegment segment : segments.tailMap(segments.floorKey(readOffset)).values()) {
+            lag += segment.countRecords(readOffset);
+        }
+        log.info("[{}] Opened queue log with {} segments, offset {}, {} messages to deliver", topic, segments.size(), readOffset, lag);
+    }
+
+    public synchronized long append(TbQueueMsg msg) throws IOException {
+        byte[] payload = TbFileQueueMsg.encode(msg);
+        long offset = active.getEndOffset();
+        if (!active.append(payload)) {
+            active.force();
+            active = TbFileQueueSegment.create(dir, offset, Math.max(settings.getSegmentSizeBytes(), TbFileQueueSegment.recordSize(payload)));
+            segments.put(offset, active);
+            active.append(payload);
+        }
+        if (settings.getFsyncPolicy() == TbFileQueueFsyncPolicy.ALWAYS) {
+            active.force();
+        } else {
+            dirty = true;
+        }
+        lag++;
+        return offset;
+    }
+
+    /**
+     * Polls the next batch: a batch released by {@link #abort(long)} or up to maxRecords new messages.
+     * The messages of a batch always belong to a single segment.
+     */
+    public synchronized Batch poll(int maxRecords) {
+        Map.Entry<Long, Batch> released = redelivery.pollFirstEntry();
+        if (released != null) {
+            Batch batch = released.getValue();
+            inFlight.put(batch.getStartOffset(), batch);
+            lag -= batch.size();
+            return batch;
+        }
+        if (readOffset >= active.getEndOffset()) {
+            return null;
+        }
+        TbFileQueueSegment segment = segments.floorEntry(readOffset).getValue();
+        if (readOffset >= segment.getEndOffset()) {
+            segment = segments.higherEntry(segment.getBaseOffset()).getValue();
+            readOffset = segment.getBaseOffset();
+        }
+        Batch batch = toBatch(readOffset, segment.read(readOffset, maxRecords));
+        readOffset = batch.getEndOffset();
+        inFlight.put(batch.getStartOffset(), batch);
+        lag -= batch.size();
+        return batch;
+    }
+
+    private Batch toBatch(long startOffset, List<ByteBuffer> records) {
+        List<TbQueueMsg> msgs = new ArrayList<>(records.size());
+        long endOffset = startOffset;
+        for (ByteBuffer record : records) {
+            endOffset += TbFileQueueSegment.RECORD_HEADER_SIZE + record.remaining();
+            msgs.add(TbFileQueueMsg.decode(record));
+        }
+        return new Batch(topic, startOffset, endOffset, msgs);
+    }
+
+    public synchronized void commit(long startOffset) throws IOException {
+        if (inFlight.remove(startOffset) != null) {
+            updateCommittedOffset();
+        }
+    }
+
+    /**
+     * Returns the uncommitted batch to the log, it will be polled again before the new messages.
+     */
+    public synchronized void abort(long startOffset) {
+        Batch batch = inFlight.remove(startOffset);
+        if (batch != null) {
+            redelivery.put(startOffset, batch);
+            lag += batch.size();
+        }
+    }
+
+    private void updateCommittedOffset() throws IOException {
+        long offset = readOffset;
+        if (!inFlight.isEmpty()) {
+            offset = Math.min(offset, inFlight.firstKey());
+        }
+        if (!redelivery.isEmpty()) {
+            offset = Math.min(offset, redelivery.firstKey());
+        }
+        if (offset == committedOffset) {
+            return;
+        }
+        committedOffset = offset;
+        Path tmp = dir.resolve(OFFSET_TMP_FILE);
+        Files.writeString(tmp, Long.toString(committedOffset), StandardCharsets.UTF_8);
+        Files.move(tmp, dir.resolve(OFFSET_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Iterator<TbFileQueueSegment> iterator = segments.values().iterator();
+        while (iterator.hasNext()) {
+            TbFileQueueSegment segment = iterator.next();
+            if (segment == active || segment.getEndOffset() > committedOffset) {
+                break;
+            }
+            log.debug("[{}] Deleting consumed segment {}", topic, segment.getPath());
+            segment.delete();
+            iterator.remove();
+        }
+    }
+
+    private long readCommittedOffset() throws IOException {
+        Path path = dir.resolve(OFFSET_FILE);
+        if (!Files.exists(path)) {
+            return segments.isEmpty() ? 0L : segments.firstKey();
+        }
+        return Long.parseLong(Files.readString(path, StandardCharsets.UTF_8).trim());
+    }
+
+    /**
+     * Drops the oldest segments that exceed the retention, even if they are not consumed yet.
+     *
+     * @return the number of dropped messages that were not consumed
+     */
+    public synchronized long applyRetention(long now) throws IOException {
+        long size = 0;
+        for (TbFileQueueSegment segment : segments.values()) {
+            size += segment.getSize();
+        }
+        long dropped = 0;
+        while (segments.size() > 1) {
+            TbFileQueueSegment oldest = segments.firstEntry().getValue();
+            if (size <= settings.getRetentionBytes() && oldest.getLastAppendTime() >= now - settings.getRetentionMs()) {
+                break;
+            }
+            long endOffset = oldest.getEndOffset();
+            if (readOffset < endOffset) {
+                dropped += oldest.countRecords(readOffset);
+                readOffset = endOffset;
+            }
+            dropped += dropBatches(redelivery, endOffset);
+            dropBatches(inFlight, endOffset);
+            size -= oldest.getSize();
+            segments.pollFirstEntry();
+            oldest.delete();
+        }
+        if (dropped > 0) {
+            lag -= dropped;
+            log.warn("[{}] Dropped {} messages that exceeded the retention", topic, dropped);
+        }
+        updateCommittedOffset();
+        return dropped;
+    }
+
+    private static long dropBatches(TreeMap<Long, Batch> batches, long endOffset) {
+        long dropped = 0;
+        Map<Long, Batch> head = batches.headMap(endOffset);
+        for (Batch batch : head.values()) {
+            dropped += batch.size();
+        }
+        head.clear();
+        return dropped;
+    }
+
+    public synchronized void flush() {
+        if (dirty) {
+            active.force();
+            dirty = false;
+        }
+    }
+
+    public synchronized long getLag() {
+        return lag;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        active.force();
+        for (TbFileQueueSegment segment : segments.values()) {
+            segment.close();
+        }
+    }
+
+    public synchronized void delete() throws IOException {
+        close();
+        deleteDir(dir);
+    }
+
+    static void deleteDir(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Getter
+    public static class Batch {
+
+        private final String topic;
+        private final long startOffset;
+        private final long endOffset;
+        private final List<TbQueueMsg> msgs;
+
+        Batch(String topic, long startOffset, long endOffset, List<TbQueueMsg> msgs) {
+            this.topic = topic;
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+            this.msgs = Collections.unmodifiableList(msgs);
+        }
+
+        public int size() {
+            return msgs.size();
+        }
+
+    }
+
+}
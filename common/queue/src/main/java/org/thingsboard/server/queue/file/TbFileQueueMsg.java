@@ -0,0 +1,91 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.file;
+
+import lombok.Getter;
+import org.thingsboard.server.queue.TbQueueMsg;
+import org.thingsboard.server.queue.TbQueueMsgHeaders;
+import org.thingsboard.server.queue.common.DefaultTbQueueMsgHeaders;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Message read from the file queue. Binary layout: key (two longs), number of headers,
+ * each header as length-prefixed name and value, then the length-prefixed data.
+ */
+@Getter
+public class TbFileQueueMsg implements TbQueueMsg {
+
+    private final UUID key;
+    private final TbQueueMsgHeaders headers;
+    private final byte[] data;
+
+    private TbFileQueueMsg(UUID key, TbQueueMsgHeaders headers, byte[] data) {
+        this.key = key;
+        this.headers = headers;
+        this.data = data;
+    }
+
+    public static byte[] encode(TbQueueMsg msg) {
+        Map<String, byte[]> headers = msg.getHeaders() != null ? msg.getHeaders().getData() : Map.of();
+        List<byte[]> headerNames = new ArrayList<>(headers.size());
+        int size = Long.BYTES * 2 + Integer.BYTES;
+        for (Map.Entry<String, byte[]> header : headers.entrySet()) {
+            byte[] name = header.getKey().getBytes(StandardCharsets.UTF_8);
+            headerNames.add(name);
+            size += Integer.BYTES * 2 + name.length + header.getValue().length;
+        }
+        byte[] data = msg.getData();
+        size += Integer.BYTES + data.length;
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        UUID key = msg.getKey();
+        buffer.putLong(key != null ? key.getMostSignificantBits() : 0L);
+        buffer.putLong(key != null ? key.getLeastSignificantBits() : 0L);
+        buffer.putInt(headers.size());
+        int i = 0;
+        for (Map.Entry<String, byte[]> header : headers.entrySet()) {
+            byte[] name = headerNames.get(i++);
+            buffer.putInt(name.length).put(name);
+            buffer.putInt(header.getValue().length).put(header.getValue());
+        }
+        buffer.putInt(data.length).put(data);
+        return buffer.array();
+    }
+
+    public static TbFileQueueMsg decode(ByteBuffer buffer) {
+        UUID key = new UUID(buffer.getLong(), buffer.getLong());
+        int headersCount = buffer.getInt();
+        DefaultTbQueueMsgHeaders headers = new DefaultTbQueueMsgHeaders();
+        for (int i = 0; i < headersCount; i++) {
+            String name = new String(readBytes(buffer), StandardCharsets.UTF_8);
+            headers.put(name, readBytes(buffer));
+        }
+        return new TbFileQueueMsg(key, headers, readBytes(buffer));
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+}
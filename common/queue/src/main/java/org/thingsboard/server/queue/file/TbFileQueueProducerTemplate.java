@@ -0,0 +1,61 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.file;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.queue.TbQueueCallback;
+import org.thingsboard.server.queue.TbQueueMsg;
+import org.thingsboard.server.queue.TbQueueProducer;
+
+@Slf4j
+public class TbFileQueueProducerTemplate<T extends TbQueueMsg> implements TbQueueProducer<T> {
+
+    private final TbFileQueueStorage storage;
+    @Getter
+    private final String defaultTopic;
+
+    public TbFileQueueProducerTemplate(TbFileQueueStorage storage, String defaultTopic) {
+        this.storage = storage;
+        this.defaultTopic = defaultTopic;
+    }
+
+    @Override
+    public void init() {
+    }
+
+    @Override
+    public void send(TopicPartitionInfo tpi, T msg, TbQueueCallback callback) {
+        try {
+            storage.append(tpi.getFullTopicName(), msg);
+        } catch (Exception e) {
+            log.warn("[{}] Failed to append msg {}", tpi.getFullTopicName(), msg.getKey(), e);
+            if (callback != null) {
+                callback.onFailure(e);
+            }
+            return;
+        }
+        if (callback != null) {
+            callback.onSuccess(null);
+        }
+    }
+
+    @Override
+    public void stop() {
+    }
+
+}
@@ -0,0 +1,210 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.file;
+
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Memory-mapped file holding the records of the offsets [baseOffset, baseOffset + capacity).
+ * The offset of a record is its byte position in the partition log.
+ * The file and its mapping start small and double on demand up to the capacity, so an idle partition takes little disk and memory.
+ * Each record is the payload length, the CRC32 of the payload and the payload. The length of zero terminates the segment,
+ * so the write position is recovered on open by scanning the valid records.
+ */
+class TbFileQueueSegment implements Closeable {
+
+    static final int RECORD_HEADER_SIZE = Integer.BYTES * 2;
+    static final int INITIAL_MAPPED_SIZE = 64 * 1024;
+    private static final String SUFFIX = ".log";
+
+    @Getter
+    private final long baseOffset;
+    @Getter
+    private final Path path;
+    private final FileChannel channel;
+    private final int capacity;
+    private MappedByteBuffer buffer;
+    private int mappedSize;
+    private int writePosition;
+    @Getter
+    private long lastAppendTime;
+
+    private TbFileQueueSegment(long baseOffset, Path path, int capacity) throws IOException {
+        this.baseOffset = baseOffset;
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.capacity = Math.max(capacity, (int) channel.size());
+        map(Math.max((int) channel.size(), Math.min(INITIAL_MAPPED_SIZE, this.capacity)));
+        this.lastAppendTime = Files.getLastModifiedTime(path).toMillis();
+    }
+
+    static TbFileQueueSegment create(Path dir, long baseOffset, int capacity) throws IOException {
+        return new TbFileQueueSegment(baseOffset, dir.resolve(String.format("%020d", baseOffset) + SUFFIX), capacity);
+    }
+
+    /**
+     * Opens the existing segment. The segment may grow up to the capacity if the file is smaller.
+     */
+    static TbFileQueueSegment open(Path path, int capacity) throws IOException {
+        String fileName = path.getFileName().toString();
+        long baseOffset = Long.parseLong(fileName.substring(0, fileName.length() - SUFFIX.length()));
+        TbFileQueueSegment segment = new TbFileQueueSegment(baseOffset, path, capacity);
+        segment.recover();
+        return segment;
+    }
+
+    // mapping beyond the end of the file extends it with zeros, so the new region is terminated
+    private void map(int size) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        mappedSize = size;
+    }
+
+    private boolean ensureMapped(int size) throws IOException {
+        if (size <= mappedSize) {
+            return true;
+        }
+        if (size > capacity) {
+            return false;
+        }
+        int newSize = mappedSize;
+        while (newSize < size) {
+            newSize = (int) Math.min(capacity, newSize * 2L);
+        }
+        map(newSize);
+        return true;
+    }
+
+    static boolean isSegmentFile(Path path) {
+        return path.getFileName().toString().endsWith(SUFFIX);
+    }
+
+    private void recover() {
+        int position = 0;
+        while (position + RECORD_HEADER_SIZE <= mappedSize) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER_SIZE + length > mappedSize) {
+                break;
+            }
+            if (crc(buffer.slice(position + RECORD_HEADER_SIZE, length)) != buffer.getInt(position + Integer.BYTES)) {
+                // torn write of the last record before the crash
+                break;
+            }
+            position += RECORD_HEADER_SIZE + length;
+        }
+        writePosition = position;
+        terminate();
+    }
+
+    /**
+     * @return false if the record doesn't fit the segment
+     */
+    boolean append(byte[] payload) throws IOException {
+        int recordSize = RECORD_HEADER_SIZE + payload.length;
+        // reserve the space for the terminator as well, unless the record fills the segment up
+        if (!ensureMapped(Math.min(writePosition + recordSize + Integer.BYTES, capacity)) || writePosition + recordSize > capacity) {
+            return false;
+        }
+        buffer.put(writePosition + RECORD_HEADER_SIZE, payload);
+        buffer.putInt(writePosition + Integer.BYTES, crc(ByteBuffer.wrap(payload)));
+        buffer.putInt(writePosition, payload.length);
+        writePosition += recordSize;
+        terminate();
+        lastAppendTime = System.currentTimeMillis();
+        return true;
+    }
+
+    private void terminate() {
+        if (writePosition + Integer.BYTES <= mappedSize) {
+            buffer.putInt(writePosition, 0);
+        }
+    }
+
+    /**
+     * Reads up to maxRecords records starting from the offset, which must point to the beginning of a record.
+     */
+    List<ByteBuffer> read(long offset, int maxRecords) {
+        List<ByteBuffer> records = new ArrayList<>(Math.min(maxRecords, 64));
+        int position = (int) (offset - baseOffset);
+        while (position < writePosition && records.size() < maxRecords) {
+            int length = buffer.getInt(position);
+            records.add(buffer.slice(position + RECORD_HEADER_SIZE, length));
+            position += RECORD_HEADER_SIZE + length;
+        }
+        return records;
+    }
+
+    int countRecords(long fromOffset) {
+        int count = 0;
+        int position = (int) Math.max(0, fromOffset - baseOffset);
+        while (position < writePosition) {
+            position += RECORD_HEADER_SIZE + buffer.getInt(position);
+            count++;
+        }
+        return count;
+    }
+
+    long getEndOffset() {
+        return baseOffset + writePosition;
+    }
+
+    boolean isEmpty() {
+        return writePosition == 0;
+    }
+
+    /**
+     * @return the current size of the file
+     */
+    int getSize() {
+        return mappedSize;
+    }
+
+    static int recordSize(byte[] payload) {
+        return RECORD_HEADER_SIZE + payload.length + Integer.BYTES;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+
+    private static int crc(ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+}
@@ -0,0 +1,52 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.file;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConditionalOnExpression("'${queue.type:null}'=='file'")
+public class TbFileQueueSettings {
+
+    @Value("${queue.file.data_dir:data/queue}")
+    private String dataDir;
+
+    @Value("${queue.file.segment_size_bytes:67108864}")
+    private int segmentSizeBytes;
+
+    @Value("${queue.file.retention_bytes:1073741824}")
+    private long retentionBytes;
+
+    @Value("${queue.file.retention_ms:604800000}")
+    private long retentionMs;
+
+    @Value("${queue.file.fsync_policy:INTERVAL}")
+    private TbFileQueueFsyncPolicy fsyncPolicy;
+
+    @Value("${queue.file.fsync_interval_ms:1000}")
+    private long fsyncIntervalMs;
+
+    @Value("${queue.file.cleanup_interval_ms:60000}")
+    private long cleanupIntervalMs;
+
+    @Value("${queue.file.max_poll_records:1000}")
+    private int maxPollRecords;
+
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.file;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+import org.thingsboard.server.queue.TbQueueMsg;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a {@link TbFileQueueLog} per topic partition in a sub-directory of the queue data directory.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("'${queue.type:null}'=='file'")
+@RequiredArgsConstructor
+public class TbFileQueueStorage {
+
+    private final TbFileQueueSettings settings;
+    private final ConcurrentMap<String, TbFileQueueLog> logs = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+    private Path dataDir;
+
+    @PostConstruct
+    public void init() throws IOException {
+        dataDir = Paths.get(settings.getDataDir()).toAbsolutePath();
+        Files.createDirectories(dataDir);
+        scheduler = Executors.newSingleThreadScheduledExecutor(ThingsBoardThreadFactory.forName("file-queue-scheduler"));
+        if (settings.getFsyncPolicy() == TbFileQueueFsyncPolicy.INTERVAL) {
+            scheduler.scheduleWithFixedDelay(this::flush, settings.getFsyncIntervalMs(), settings.getFsyncIntervalMs(), TimeUnit.MILLISECONDS);
+        }
+        scheduler.scheduleWithFixedDelay(this::cleanUp, settings.getCleanupIntervalMs(), settings.getCleanupIntervalMs(), TimeUnit.MILLISECONDS);
+        log.info("File queue data directory: {}, fsync policy: {}", dataDir, settings.getFsyncPolicy());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        logs.values().forEach(queueLog -> {
+            try {
+                queueLog.close();
+            } catch (IOException e) {
+                log.warn("[{}] Failed to close queue log", queueLog.getTopic(), e);
+            }
+        });
+        logs.clear();
+    }
+
+    public TbFileQueueLog getLog(String topic) {
+        return logs.computeIfAbsent(topic, t -> {
+            try {
+                return new TbFileQueueLog(t, dataDir.resolve(toDirName(t)), settings);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to open queue log for topic " + t, e);
+            }
+        });
+    }
+
+    public long append(String topic, TbQueueMsg msg) throws IOException {
+        return getLog(topic).append(msg);
+    }
+
+    public void deleteTopic(String topic) {
+        TbFileQueueLog queueLog = logs.remove(topic);
+        try {
+            if (queueLog != null) {
+                queueLog.delete();
+            } else {
+                TbFileQueueLog.deleteDir(dataDir.resolve(toDirName(topic)));
+            }
+        } catch (IOException e) {
+            log.warn("[{}] Failed to delete queue log", topic, e);
+        }
+    }
+
+    public long getLagTotal() {
+        return logs.values().stream().mapToLong(TbFileQueueLog::getLag).sum();
+    }
+
+    public long getLag(String topic) {
+        TbFileQueueLog queueLog = logs.get(topic);
+        return queueLog != null ? queueLog.getLag() : 0;
+    }
+
+    public void printStats() {
+        if (log.isDebugEnabled()) {
+            logs.forEach((topic, queueLog) -> {
+                long lag = queueLog.getLag();
+                if (lag > 0) {
+                    log.debug("[{}] Queue Size [{}]", topic, lag);
+                }
+            });
+        }
+    }
+
+    private void flush() {
+        logs.values().forEach(TbFileQueueLog::flush);
+    }
+
+    private void cleanUp() {
+        long now = System.currentTimeMillis();
+        logs.values().forEach(queueLog -> {
+            try {
+                queueLog.applyRetention(now);
+            } catch (Exception e) {
+                log.warn("[{}] Failed to apply retention", queueLog.getTopic(), e);
+            }
+        });
+    }
+
+    static String toDirName(String topic) {
+        return topic.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+}
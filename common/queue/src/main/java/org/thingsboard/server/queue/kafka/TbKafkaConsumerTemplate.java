@@ -21,16 +21,21 @@ import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
 import org.springframework.util.StopWatch;
 import org.thingsboard.server.queue.TbQueueAdmin;
 import org.thingsboard.server.queue.TbQueueMsg;
+import org.thingsboard.server.queue.TbQueuePosition;
 import org.thingsboard.server.queue.common.AbstractTbQueueConsumerTemplate;
 
 import java.io.IOException;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 /**
@@ -46,6 +51,9 @@ public class TbKafkaConsumerTemplate<T extends TbQueueMsg> extends AbstractTbQue
     private final TbKafkaConsumerStatsService statsService;
     private final String groupId;
 
+    // offsets of the next records to poll, per partition; updated by the polling thread only
+    private Map<TopicPartition, OffsetAndMetadata> polledOffsets = Collections.emptyMap();
+
     @Builder
     private TbKafkaConsumerTemplate(TbKafkaSettings settings, TbKafkaDecoder<T> decoder,
                                     String clientId, String groupId, String topic,
@@ -71,6 +79,7 @@ public class TbKafkaConsumerTemplate<T extends TbQueueMsg> extends AbstractTbQue
 
     @Override
     protected void doSubscribe(List<String> topicNames) {
+        polledOffsets = Collections.emptyMap();
         if (!topicNames.isEmpty()) {
             topicNames.forEach(admin::createTopicIfNotExists);
             consumer.subscribe(topicNames);
@@ -96,7 +105,12 @@ public class TbKafkaConsumerTemplate<T extends TbQueueMsg> extends AbstractTbQue
             return Collections.emptyList();
         } else {
             List<ConsumerRecord<String, byte[]>> recordList = new ArrayList<>(256);
-            records.forEach(recordList::add);
+            Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>(polledOffsets);
+            records.forEach(record -> {
+                recordList.add(record);
+                offsets.put(new TopicPartition(record.topic(), record.partition()), new OffsetAndMetadata(record.offset() + 1));
+            });
+            polledOffsets = offsets;
             return recordList;
         }
     }
@@ -111,6 +125,24 @@ public class TbKafkaConsumerTemplate<T extends TbQueueMsg> extends AbstractTbQue
         consumer.commitSync();
     }
 
+    @Override
+    protected void doCommit(TbQueuePosition position) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = ((KafkaPosition) position).offsets();
+        if (!offsets.isEmpty()) {
+            consumer.commitSync(offsets);
+        }
+    }
+
+    @Override
+    public boolean isPositionCommitSupported() {
+        return true;
+    }
+
+    @Override
+    public TbQueuePosition getPosition() {
+        return new KafkaPosition(polledOffsets);
+    }
+
     @Override
     protected void doUnsubscribe() {
         if (consumer != null) {
@@ -127,4 +159,7 @@ public class TbKafkaConsumerTemplate<T extends TbQueueMsg> extends AbstractTbQue
         return true;
     }
 
+    private record KafkaPosition(Map<TopicPartition, OffsetAndMetadata> offsets) implements TbQueuePosition {
+    }
+
 }
@@ -0,0 +1,125 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.provider;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import org.thingsboard.server.gen.transport.TransportProtos;
+import org.thingsboard.server.gen.transport.TransportProtos.ToCoreMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.ToCoreNotificationMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.ToRuleEngineMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.ToTransportMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.TransportApiRequestMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.TransportApiResponseMsg;
+import org.thingsboard.server.queue.TbQueueConsumer;
+import org.thingsboard.server.queue.TbQueueProducer;
+import org.thingsboard.server.queue.TbQueueRequestTemplate;
+import org.thingsboard.server.queue.common.DefaultTbQueueRequestTemplate;
+import org.thingsboard.server.queue.common.TbProtoQueueMsg;
+import org.thingsboard.server.queue.discovery.TbServiceInfoProvider;
+import org.thingsboard.server.queue.discovery.TopicService;
+import org.thingsboard.server.queue.file.TbFileQueueAdmin;
+import org.thingsboard.server.queue.file.TbFileQueueConsumerTemplate;
+import org.thingsboard.server.queue.file.TbFileQueueProducerTemplate;
+import org.thingsboard.server.queue.file.TbFileQueueSettings;
+import org.thingsboard.server.queue.file.TbFileQueueStorage;
+import org.thingsboard.server.queue.settings.TbQueueCoreSettings;
+import org.thingsboard.server.queue.settings.TbQueueTransportApiSettings;
+import org.thingsboard.server.queue.settings.TbQueueTransportNotificationSettings;
+
+@Component
+@ConditionalOnExpression("'${queue.type:null}'=='file' && '${service.type:null}'=='monolith' && '${transport.api_enabled:true}'=='true'")
+@Slf4j
+public class FileTbTransportQueueFactory implements TbTransportQueueFactory {
+    private final TbQueueTransportApiSettings transportApiSettings;
+    private final TbQueueTransportNotificationSettings transportNotificationSettings;
+    private final TbServiceInfoProvider serviceInfoProvider;
+    private final TbQueueCoreSettings coreSettings;
+    private final TbFileQueueStorage storage;
+    private final TbFileQueueSettings fileQueueSettings;
+    private final TopicService topicService;
+
+    public FileTbTransportQueueFactory(TbQueueTransportApiSettings transportApiSettings,
+                                       TbQueueTransportNotificationSettings transportNotificationSettings,
+                                       TbServiceInfoProvider serviceInfoProvider,
+                                       TbQueueCoreSettings coreSettings,
+                                       TbFileQueueStorage storage,
+                                       TbFileQueueSettings fileQueueSettings,
+                                       TopicService topicService) {
+        this.transportApiSettings = transportApiSettings;
+        this.transportNotificationSettings = transportNotificationSettings;
+        this.serviceInfoProvider = serviceInfoProvider;
+        this.coreSettings = coreSettings;
+        this.storage = storage;
+        this.fileQueueSettings = fileQueueSettings;
+        this.topicService = topicService;
+    }
+
+    @Override
+    public TbQueueRequestTemplate<TbProtoQueueMsg<TransportApiRequestMsg>, TbProtoQueueMsg<TransportApiResponseMsg>> createTransportApiRequestTemplate() {
+        TbFileQueueProducerTemplate<TbProtoQueueMsg<TransportApiRequestMsg>> producerTemplate =
+                new TbFileQueueProducerTemplate<>(storage, topicService.buildTopicName(transportApiSettings.getRequestsTopic()));
+
+        TbFileQueueConsumerTemplate<TbProtoQueueMsg<TransportApiResponseMsg>> consumerTemplate =
+                new TbFileQueueConsumerTemplate<>(storage, fileQueueSettings, topicService.buildTopicName(transportApiSettings.getResponsesTopic() + "." + serviceInfoProvider.getServiceId()),
+                        msg -> new TbProtoQueueMsg<>(msg.getKey(), TransportApiResponseMsg.parseFrom(msg.getData()), msg.getHeaders()));
+
+        DefaultTbQueueRequestTemplate.DefaultTbQueueRequestTemplateBuilder
+                <TbProtoQueueMsg<TransportApiRequestMsg>, TbProtoQueueMsg<TransportApiResponseMsg>> templateBuilder = DefaultTbQueueRequestTemplate.builder();
+
+        templateBuilder.queueAdmin(new TbFileQueueAdmin(storage));
+
+        templateBuilder.requestTemplate(producerTemplate);
+        templateBuilder.responseTemplate(consumerTemplate);
+        templateBuilder.maxPendingRequests(transportApiSettings.getMaxPendingRequests());
+        templateBuilder.maxRequestTimeout(transportApiSettings.getMaxRequestsTimeout());
+        templateBuilder.pollInterval(transportApiSettings.getResponsePollInterval());
+        return templateBuilder.build();
+    }
+
+    @Override
+    public TbQueueProducer<TbProtoQueueMsg<ToRuleEngineMsg>> createRuleEngineMsgProducer() {
+        return new TbFileQueueProducerTemplate<>(storage, topicService.buildTopicName(transportApiSettings.getRequestsTopic()));
+    }
+
+    @Override
+    public TbQueueProducer<TbProtoQueueMsg<ToCoreMsg>> createTbCoreMsgProducer() {
+        return new TbFileQueueProducerTemplate<>(storage, topicService.buildTopicName(coreSettings.getTopic()));
+    }
+
+    @Override
+    public TbQueueProducer<TbProtoQueueMsg<ToCoreNotificationMsg>> createTbCoreNotificationsMsgProducer() {
+        return new TbFileQueueProducerTemplate<>(storage, topicService.buildTopicName(coreSettings.getTopic()));
+    }
+
+    @Override
+    public TbQueueConsumer<TbProtoQueueMsg<ToTransportMsg>> createTransportNotificationsConsumer() {
+        return new TbFileQueueConsumerTemplate<>(storage, fileQueueSettings, topicService.buildTopicName(transportNotificationSettings.getNotificationsTopic() + "." + serviceInfoProvider.getServiceId()),
+                msg -> new TbProtoQueueMsg<>(msg.getKey(), ToTransportMsg.parseFrom(msg.getData()), msg.getHeaders()));
+    }
+
+    @Override
+    public TbQueueProducer<TbProtoQueueMsg<TransportProtos.ToUsageStatsServiceMsg>> createToUsageStatsServiceMsgProducer() {
+        return new TbFileQueueProducerTemplate<>(storage, topicService.buildTopicName(coreSettings.getUsageStatsTopic()));
+    }
+
+    @Override
+    public TbQueueProducer<TbProtoQueueMsg<TransportProtos.ToHousekeeperServiceMsg>> createHousekeeperMsgProducer() {
+        return new TbFileQueueProducerTemplate<>(storage, topicService.buildTopicName(coreSettings.getHousekeeperTopic()));
+    }
+
+}
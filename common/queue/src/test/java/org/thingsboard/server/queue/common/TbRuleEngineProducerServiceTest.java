@@ -0,0 +1,127 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.common;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.msg.TbMsgType;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+import org.thingsboard.server.common.msg.queue.ServiceType;
+import org.thingsboard.server.common.msg.queue.TbMsgCallback;
+import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.gen.transport.TransportProtos.ToRuleEngineMsg;
+import org.thingsboard.server.queue.TbQueueCallback;
+import org.thingsboard.server.queue.TbQueueProducer;
+import org.thingsboard.server.queue.discovery.PartitionService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class TbRuleEngineProducerServiceTest {
+
+    @Mock
+    PartitionService partitionService;
+    @Mock
+    TbQueueProducer<TbProtoQueueMsg<ToRuleEngineMsg>> producer;
+
+    TbRuleEngineProducerService producerService;
+
+    final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    final TopicPartitionInfo firstTpi = new TopicPartitionInfo("tb_rule_engine.main", tenantId, 0, true);
+    final TopicPartitionInfo secondTpi = new TopicPartitionInfo("tb_rule_engine.main", tenantId, 1, true);
+
+    @BeforeEach
+    public void setUp() {
+        producerService = new TbRuleEngineProducerService(partitionService);
+    }
+
+    @Test
+    public void givenMsgsOfManyDevices_whenSendPacked_thenOneQueueMsgPerPartition() {
+        DeviceId firstDevice = new DeviceId(UUID.randomUUID());
+        DeviceId secondDevice = new DeviceId(UUID.randomUUID());
+        DeviceId thirdDevice = new DeviceId(UUID.randomUUID());
+        given(partitionService.resolveAll(ServiceType.TB_RULE_ENGINE, "Main", tenantId, firstDevice)).willReturn(List.of(firstTpi));
+        given(partitionService.resolveAll(ServiceType.TB_RULE_ENGINE, "Main", tenantId, secondDevice)).willReturn(List.of(firstTpi));
+        given(partitionService.resolveAll(ServiceType.TB_RULE_ENGINE, "Main", tenantId, thirdDevice)).willReturn(List.of(secondTpi));
+        List<TbMsg> tbMsgs = List.of(newMsg(firstDevice, 1), newMsg(secondDevice, 2), newMsg(firstDevice, 3), newMsg(thirdDevice, 4));
+        TbQueueCallback callback = mock(TbQueueCallback.class);
+
+        producerService.sendToRuleEngine(producer, tenantId, tbMsgs, callback);
+
+        ArgumentCaptor<TbQueueCallback> sendCallbacks = ArgumentCaptor.forClass(TbQueueCallback.class);
+        ArgumentCaptor<TbProtoQueueMsg<ToRuleEngineMsg>> firstPartitionMsgs = newQueueMsgCaptor();
+        ArgumentCaptor<TbProtoQueueMsg<ToRuleEngineMsg>> secondPartitionMsgs = newQueueMsgCaptor();
+        verify(producer).send(eq(firstTpi), firstPartitionMsgs.capture(), sendCallbacks.capture());
+        verify(producer).send(eq(secondTpi), secondPartitionMsgs.capture(), sendCallbacks.capture());
+
+        ToRuleEngineMsg packed = firstPartitionMsgs.getValue().getValue();
+        assertThat(packed.getPackedTbMsgsCount()).isEqualTo(3);
+        assertThat(packed.getTbMsg().isEmpty()).isTrue();
+        assertThat(secondPartitionMsgs.getValue().getValue().getPackedTbMsgsCount()).isZero();
+
+        List<TbProtoQueueMsg<ToRuleEngineMsg>> unpacked = TbRuleEngineProducerService.unpack(List.of(firstPartitionMsgs.getValue(), secondPartitionMsgs.getValue()));
+        assertThat(unpacked).hasSize(4);
+        assertThat(unpacked).extracting(msg -> TbMsg.fromBytes("Main", msg.getValue().getTbMsg().toByteArray(), TbMsgCallback.EMPTY).getData())
+                .containsExactly("{\"value\":1}", "{\"value\":2}", "{\"value\":3}", "{\"value\":4}");
+        assertThat(unpacked).allSatisfy(msg -> {
+            assertThat(msg.getValue().getTenantIdMSB()).isEqualTo(tenantId.getId().getMostSignificantBits());
+            assertThat(msg.getValue().getTenantIdLSB()).isEqualTo(tenantId.getId().getLeastSignificantBits());
+        });
+        assertThat(unpacked).extracting(TbProtoQueueMsg::getKey).doesNotHaveDuplicates();
+
+        sendCallbacks.getAllValues().get(0).onSuccess(null);
+        verify(callback, never()).onSuccess(any());
+        sendCallbacks.getAllValues().get(1).onSuccess(null);
+        verify(callback, times(1)).onSuccess(any());
+    }
+
+    @Test
+    public void givenNotPackedMsgs_whenUnpack_thenSameList() {
+        List<TbProtoQueueMsg<ToRuleEngineMsg>> msgs = new ArrayList<>();
+        msgs.add(new TbProtoQueueMsg<>(UUID.randomUUID(), ToRuleEngineMsg.newBuilder()
+                .setTbMsg(TbMsg.toByteString(newMsg(new DeviceId(UUID.randomUUID()), 1))).build()));
+
+        assertThat(TbRuleEngineProducerService.unpack(msgs)).isSameAs(msgs);
+    }
+
+    private static TbMsg newMsg(DeviceId deviceId, int value) {
+        return TbMsg.newMsg("Main", TbMsgType.POST_TELEMETRY_REQUEST, deviceId, TbMsgMetaData.EMPTY, "{\"value\":" + value + "}");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<TbProtoQueueMsg<ToRuleEngineMsg>> newQueueMsgCaptor() {
+        return ArgumentCaptor.forClass(TbProtoQueueMsg.class);
+    }
+
+}
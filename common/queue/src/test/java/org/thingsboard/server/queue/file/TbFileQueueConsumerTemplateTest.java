@@ -0,0 +1,170 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.file;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.queue.TbQueueCallback;
+import org.thingsboard.server.queue.TbQueueMsg;
+import org.thingsboard.server.queue.TbQueueMsgHeaders;
+import org.thingsboard.server.queue.common.DefaultTbQueueMsgHeaders;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class TbFileQueueConsumerTemplateTest {
+
+    static final String TOPIC = "tb_rule_engine.main";
+
+    @TempDir
+    Path dir;
+
+    TbFileQueueSettings settings;
+    TbFileQueueStorage storage;
+    TbFileQueueProducerTemplate<TbQueueMsg> producer;
+    TbFileQueueConsumerTemplate<TbQueueMsg> consumer;
+    TopicPartitionInfo tpi = new TopicPartitionInfo(TOPIC, null, 0, true);
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        settings = new TbFileQueueSettings();
+        settings.setDataDir(dir.toString());
+        settings.setSegmentSizeBytes(1024);
+        settings.setRetentionBytes(Long.MAX_VALUE);
+        settings.setRetentionMs(Long.MAX_VALUE);
+        settings.setFsyncPolicy(TbFileQueueFsyncPolicy.NEVER);
+        settings.setCleanupIntervalMs(60000);
+        settings.setMaxPollRecords(3);
+        storage = new TbFileQueueStorage(settings);
+        storage.init();
+        producer = new TbFileQueueProducerTemplate<>(storage, TOPIC);
+        consumer = newConsumer();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        consumer.unsubscribe();
+        storage.destroy();
+    }
+
+    @Test
+    public void givenSentMsgs_whenPollAndCommit_thenReceivedInOrderOnce() {
+        TbQueueCallback callback = mock(TbQueueCallback.class);
+        for (int i = 0; i < 5; i++) {
+            producer.send(tpi, msg("msg-" + i), callback);
+        }
+        verify(callback, times(5)).onSuccess(null);
+        assertThat(storage.getLag(tpi.getFullTopicName())).isEqualTo(5);
+
+        consumer.subscribe(Set.of(tpi));
+        assertThat(toData(consumer.poll(10))).containsExactly("msg-0", "msg-1", "msg-2");
+        consumer.commit();
+        assertThat(toData(consumer.poll(10))).containsExactly("msg-3", "msg-4");
+        consumer.commit();
+
+        assertThat(consumer.poll(10)).isEmpty();
+        assertThat(storage.getLag(tpi.getFullTopicName())).isZero();
+    }
+
+    @Test
+    public void givenUncommittedBatch_whenUnsubscribe_thenRedeliveredToNextConsumer() {
+        for (int i = 0; i < 4; i++) {
+            producer.send(tpi, msg("msg-" + i), null);
+        }
+        consumer.subscribe(Set.of(tpi));
+        consumer.poll(10);
+        consumer.commit();
+        assertThat(toData(consumer.poll(10))).containsExactly("msg-3");
+        consumer.unsubscribe();
+
+        consumer = newConsumer();
+        consumer.subscribe(Set.of(tpi));
+        assertThat(toData(consumer.poll(10))).containsExactly("msg-3");
+    }
+
+    @Test
+    public void givenUncommittedBatch_whenResubscribe_thenRedelivered() {
+        producer.send(tpi, msg("msg-0"), null);
+        consumer.subscribe(Set.of(tpi));
+        assertThat(toData(consumer.poll(10))).containsExactly("msg-0");
+
+        consumer.subscribe(Set.of(tpi));
+        producer.send(tpi, msg("msg-1"), null);
+
+        assertThat(toData(consumer.poll(10))).containsExactly("msg-0");
+        assertThat(toData(consumer.poll(10))).containsExactly("msg-1");
+    }
+
+    @Test
+    public void givenFailedAppend_whenSend_thenCallbackFailure() throws IOException {
+        TbFileQueueStorage failingStorage = mock(TbFileQueueStorage.class);
+        IOException error = new IOException("No space left on device");
+        willThrow(error).given(failingStorage).append(anyString(), any());
+        TbQueueCallback callback = mock(TbQueueCallback.class);
+
+        new TbFileQueueProducerTemplate<>(failingStorage, TOPIC).send(tpi, msg("msg-0"), callback);
+
+        verify(callback).onFailure(error);
+        verify(callback, never()).onSuccess(any());
+    }
+
+    private TbFileQueueConsumerTemplate<TbQueueMsg> newConsumer() {
+        return new TbFileQueueConsumerTemplate<>(storage, settings, TOPIC, msg -> msg);
+    }
+
+    private static List<String> toData(List<TbQueueMsg> msgs) {
+        return msgs.stream().map(msg -> new String(msg.getData(), StandardCharsets.UTF_8)).toList();
+    }
+
+    private static TbQueueMsg msg(String data) {
+        UUID key = UUID.randomUUID();
+        TbQueueMsgHeaders headers = new DefaultTbQueueMsgHeaders();
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        return new TbQueueMsg() {
+            @Override
+            public UUID getKey() {
+                return key;
+            }
+
+            @Override
+            public TbQueueMsgHeaders getHeaders() {
+                return headers;
+            }
+
+            @Override
+            public byte[] getData() {
+                return bytes;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,220 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.file;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.thingsboard.server.queue.TbQueueMsg;
+import org.thingsboard.server.queue.TbQueueMsgHeaders;
+import org.thingsboard.server.queue.common.DefaultTbQueueMsgHeaders;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TbFileQueueLogTest {
+
+    static final String TOPIC = "tb_rule_engine.main.0";
+
+    @TempDir
+    Path dir;
+
+    TbFileQueueSettings settings;
+    TbFileQueueLog log;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        settings = new TbFileQueueSettings();
+        settings.setSegmentSizeBytes(1024);
+        settings.setRetentionBytes(Long.MAX_VALUE);
+        settings.setRetentionMs(Long.MAX_VALUE);
+        settings.setFsyncPolicy(TbFileQueueFsyncPolicy.NEVER);
+        log = new TbFileQueueLog(TOPIC, dir, settings);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        log.close();
+    }
+
+    @Test
+    public void givenAppendedMessages_whenPollAndCommit_thenReturnedInOrderOnce() throws IOException {
+        for (int i = 0; i < 5; i++) {
+            log.append(msg("msg-" + i));
+        }
+        assertThat(log.getLag()).isEqualTo(5);
+
+        TbFileQueueLog.Batch batch = log.poll(3);
+        assertThat(toData(batch)).containsExactly("msg-0", "msg-1", "msg-2");
+        log.commit(batch.getStartOffset());
+
+        batch = log.poll(3);
+        assertThat(toData(batch)).containsExactly("msg-3", "msg-4");
+        log.commit(batch.getStartOffset());
+
+        assertThat(log.poll(3)).isNull();
+        assertThat(log.getLag()).isZero();
+    }
+
+    @Test
+    public void givenUncommittedBatch_whenReopen_thenRedeliverFromCommittedOffset() throws IOException {
+        for (int i = 0; i < 4; i++) {
+            log.append(msg("msg-" + i));
+        }
+        log.commit(log.poll(2).getStartOffset());
+        log.poll(2);
+        log.close();
+
+        log = new TbFileQueueLog(TOPIC, dir, settings);
+        assertThat(log.getLag()).isEqualTo(2);
+        assertThat(toData(log.poll(10))).containsExactly("msg-2", "msg-3");
+    }
+
+    @Test
+    public void givenAbortedBatch_whenPoll_thenRedeliverBeforeNewMessages() throws IOException {
+        log.append(msg("msg-0"));
+        TbFileQueueLog.Batch batch = log.poll(10);
+        log.append(msg("msg-1"));
+        log.abort(batch.getStartOffset());
+
+        assertThat(log.getLag()).isEqualTo(2);
+        assertThat(toData(log.poll(10))).containsExactly("msg-0");
+        assertThat(toData(log.poll(10))).containsExactly("msg-1");
+    }
+
+    @Test
+    public void givenFullSegment_whenAppend_thenRollAndDeleteConsumedSegments() throws IOException {
+        for (int i = 0; i < 50; i++) {
+            log.append(msg("msg-" + i));
+        }
+        assertThat(countSegmentFiles()).isGreaterThan(1);
+
+        int received = 0;
+        TbFileQueueLog.Batch batch;
+        while ((batch = log.poll(100)) != null) {
+            for (String data : toData(batch)) {
+                assertThat(data).isEqualTo("msg-" + received++);
+            }
+            log.commit(batch.getStartOffset());
+        }
+        assertThat(received).isEqualTo(50);
+        assertThat(countSegmentFiles()).isEqualTo(1);
+    }
+
+    @Test
+    public void givenExceededRetention_whenApplyRetention_thenDropOldestSegments() throws IOException {
+        for (int i = 0; i < 50; i++) {
+            log.append(msg("msg-" + i));
+        }
+        long segments = countSegmentFiles();
+        settings.setRetentionBytes(settings.getSegmentSizeBytes());
+
+        long dropped = log.applyRetention(System.currentTimeMillis());
+
+        assertThat(dropped).isPositive();
+        assertThat(countSegmentFiles()).isEqualTo(1).isLessThan(segments);
+        assertThat(log.getLag()).isEqualTo(50 - dropped);
+        assertThat(toData(log.poll(100)).get(0)).isEqualTo("msg-" + dropped);
+    }
+
+    @Test
+    public void givenLargeSegmentSize_whenAppend_thenGrowFileOnDemand() throws IOException {
+        log.close();
+        settings.setSegmentSizeBytes(1024 * 1024);
+        log = new TbFileQueueLog(TOPIC, dir, settings);
+        Path segmentFile = findSegmentFile();
+        assertThat(Files.size(segmentFile)).isEqualTo(TbFileQueueSegment.INITIAL_MAPPED_SIZE);
+
+        String data = "x".repeat(1000);
+        for (int i = 0; i < 100; i++) {
+            log.append(msg(data));
+        }
+        assertThat(countSegmentFiles()).isEqualTo(1);
+        assertThat(Files.size(segmentFile)).isGreaterThan(TbFileQueueSegment.INITIAL_MAPPED_SIZE).isLessThan(settings.getSegmentSizeBytes());
+
+        log.close();
+        log = new TbFileQueueLog(TOPIC, dir, settings);
+        log.append(msg("last"));
+        assertThat(countSegmentFiles()).isEqualTo(1);
+        List<String> received = toData(log.poll(1000));
+        assertThat(received).hasSize(101);
+        assertThat(received.subList(0, 100)).containsOnly(data);
+        assertThat(received.get(100)).isEqualTo("last");
+    }
+
+    @Test
+    public void givenMsgWithHeaders_whenEncodeAndDecode_thenSameContent() {
+        TbQueueMsg msg = msg("payload");
+        msg.getHeaders().put("first", "1".getBytes(StandardCharsets.UTF_8));
+        msg.getHeaders().put("second", new byte[0]);
+
+        TbFileQueueMsg decoded = TbFileQueueMsg.decode(ByteBuffer.wrap(TbFileQueueMsg.encode(msg)));
+
+        assertThat(decoded.getKey()).isEqualTo(msg.getKey());
+        assertThat(decoded.getData()).isEqualTo(msg.getData());
+        assertThat(decoded.getHeaders().getData()).containsOnlyKeys("first", "second");
+        assertThat(decoded.getHeaders().get("first")).isEqualTo("1".getBytes(StandardCharsets.UTF_8));
+        assertThat(decoded.getHeaders().get("second")).isEmpty();
+    }
+
+    private long countSegmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(TbFileQueueSegment::isSegmentFile).count();
+        }
+    }
+
+    private Path findSegmentFile() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(TbFileQueueSegment::isSegmentFile).findFirst().orElseThrow();
+        }
+    }
+
+    private static List<String> toData(TbFileQueueLog.Batch batch) {
+        return batch.getMsgs().stream().map(msg -> new String(msg.getData(), StandardCharsets.UTF_8)).toList();
+    }
+
+    private static TbQueueMsg msg(String data) {
+        UUID key = UUID.randomUUID();
+        TbQueueMsgHeaders headers = new DefaultTbQueueMsgHeaders();
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        return new TbQueueMsg() {
+            @Override
+            public UUID getKey() {
+                return key;
+            }
+
+            @Override
+            public TbQueueMsgHeaders getHeaders() {
+                return headers;
+            }
+
+            @Override
+            public byte[] getData() {
+                return bytes;
+            }
+        };
+    }
+
+}
@@ -15,6 +15,7 @@
  */
 package org.thingsboard.server.transport.http;
 
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
@@ -28,7 +29,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -41,6 +42,7 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.context.request.async.DeferredResult;
+import org.thingsboard.common.util.DonAsynchron;
 import org.thingsboard.server.common.adaptor.JsonConverter;
 import org.thingsboard.server.common.data.DataConstants;
 import org.thingsboard.server.common.data.DeviceTransportType;
@@ -71,6 +73,8 @@ import org.thingsboard.server.gen.transport.TransportProtos.ToServerRpcRequestMs
 import org.thingsboard.server.gen.transport.TransportProtos.ToServerRpcResponseMsg;
 import org.thingsboard.server.gen.transport.TransportProtos.ValidateDeviceTokenRequestMsg;
 
+import java.io.StringReader;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
@@ -207,7 +211,7 @@ public class DeviceApiController implements TbTransportService {
         transportContext.getTransportService().process(DeviceTransportType.DEFAULT, ValidateDeviceTokenRequestMsg.newBuilder().setToken(deviceToken).build(),
                 new DeviceAuthCallback(transportContext, responseWriter, sessionInfo -> {
                     TransportService transportService = transportContext.getTransportService();
-                    transportService.process(sessionInfo, JsonConverter.convertToTelemetryProto(JsonParser.parseString(json)),
+                    transportService.process(sessionInfo, JsonConverter.convertToTelemetryProto(new StringReader(json)),
                             new HttpOkCallback(responseWriter));
                 }));
         return responseWriter;
@@ -512,19 +516,29 @@ public class DeviceApiController implements TbTransportService {
                 responseWriter.setResult(new ResponseEntity<>(HttpStatus.NOT_FOUND));
             } else if (title.equals(otaPackageResponseMsg.getTitle()) && version.equals(otaPackageResponseMsg.getVersion())) {
                 String otaPackageId = new UUID(otaPackageResponseMsg.getOtaPackageIdMSB(), otaPackageResponseMsg.getOtaPackageIdLSB()).toString();
-                ByteArrayResource resource = new ByteArrayResource(transportContext.getOtaPackageDataCache().get(otaPackageId, chunkSize, chunk));
-                ResponseEntity<ByteArrayResource> response = ResponseEntity.ok()
-                        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment;filename=" + otaPackageResponseMsg.getFileName())
-                        .header("x-filename", otaPackageResponseMsg.getFileName())
-                        .contentLength(resource.contentLength())
-                        .contentType(parseMediaType(otaPackageResponseMsg.getContentType()))
-                        .body(resource);
-                responseWriter.setResult(response);
+                DonAsynchron.withCallback(transportContext.getOtaPackageStore().prefetch(otaPackageId),
+                        v -> sendOtaPackage(otaPackageResponseMsg, otaPackageId), this::onError);
             } else {
                 responseWriter.setResult(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
             }
         }
 
+        private void sendOtaPackage(TransportProtos.GetOtaPackageResponseMsg otaPackageResponseMsg, String otaPackageId) {
+            ByteBuffer data = transportContext.getOtaPackageStore().get(otaPackageId, chunkSize, chunk);
+            if (data == null) {
+                data = ByteBuffer.allocate(0);
+            }
+            // streams the slice of the stored package data to the response without copying it to the heap
+            InputStreamResource resource = new InputStreamResource(new ByteBufferBackedInputStream(data));
+            ResponseEntity<InputStreamResource> response = ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment;filename=" + otaPackageResponseMsg.getFileName())
+                    .header("x-filename", otaPackageResponseMsg.getFileName())
+                    .contentLength(data.remaining())
+                    .contentType(parseMediaType(otaPackageResponseMsg.getContentType()))
+                    .body(resource);
+            responseWriter.setResult(response);
+        }
+
         @Override
         public void onError(Throwable e) {
             String body = null;
@@ -45,6 +45,7 @@ import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.leshan.core.ResponseCode;
+import org.thingsboard.common.util.DonAsynchron;
 import org.thingsboard.common.util.JacksonUtil;
 import org.thingsboard.server.common.adaptor.AdaptorException;
 import org.thingsboard.server.common.data.DataConstants;
@@ -94,6 +95,7 @@ import org.thingsboard.server.transport.mqtt.util.sparkplug.SparkplugTopic;
 import javax.net.ssl.SSLPeerUnverifiedException;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
 import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
@@ -617,7 +619,15 @@ public class MqttTransportHandler extends ChannelInboundHandlerAdapter implement
         String otaPackageId = otaPackSessions.get(requestId);
 
         if (otaPackageId != null) {
-            sendOtaPackage(ctx, mqttMsg.variableHeader().packetId(), otaPackageId, requestId, chunkSize, chunk, type);
+            int packetId = mqttMsg.variableHeader().packetId();
+            int otaChunkSize = chunkSize;
+            // the package may be evicted from the store between the chunks, so it is never loaded on the event loop
+            DonAsynchron.withCallback(context.getOtaPackageStore().prefetch(otaPackageId),
+                    v -> sendOtaPackage(ctx, packetId, otaPackageId, requestId, otaChunkSize, chunk, type),
+                    e -> {
+                        log.trace("[{}] Failed to get firmware [{}]", sessionId, otaPackageId, e);
+                        closeCtx(ctx, MqttReasonCodes.Disconnect.IMPLEMENTATION_SPECIFIC_ERROR);
+                    });
         } else {
             TransportProtos.SessionInfoProto sessionInfo = deviceSessionCtx.getSessionInfo();
             TransportProtos.GetOtaPackageRequestMsg getOtaPackageRequestMsg = TransportProtos.GetOtaPackageRequestMsg.newBuilder()
@@ -714,8 +724,11 @@ public class MqttTransportHandler extends ChannelInboundHandlerAdapter implement
         public void onSuccess(TransportProtos.GetOtaPackageResponseMsg response) {
             if (TransportProtos.ResponseStatus.SUCCESS.equals(response.getResponseStatus())) {
                 OtaPackageId firmwareId = new OtaPackageId(new UUID(response.getOtaPackageIdMSB(), response.getOtaPackageIdLSB()));
-                otaPackSessions.put(requestId, firmwareId.toString());
-                sendOtaPackage(ctx, msgId, firmwareId.toString(), requestId, chunkSize, chunk, OtaPackageType.valueOf(response.getType()));
+                // the package is loaded once by the store, without blocking the callback executor, before the first chunk is sent
+                DonAsynchron.withCallback(context.getOtaPackageStore().prefetch(firmwareId.toString()), v -> {
+                    otaPackSessions.put(requestId, firmwareId.toString());
+                    sendOtaPackage(ctx, msgId, firmwareId.toString(), requestId, chunkSize, chunk, OtaPackageType.valueOf(response.getType()));
+                }, this::onError);
             } else {
                 sendOtaPackageError(ctx, response.getResponseStatus().toString());
             }
@@ -732,7 +745,7 @@ public class MqttTransportHandler extends ChannelInboundHandlerAdapter implement
         log.trace("[{}] Send firmware [{}] to device!", sessionId, firmwareId);
         ack(ctx, msgId, MqttReasonCodes.PubAck.SUCCESS);
         try {
-            byte[] firmwareChunk = context.getOtaPackageDataCache().get(firmwareId, chunkSize, chunk);
+            ByteBuffer firmwareChunk = context.getOtaPackageStore().get(firmwareId, chunkSize, chunk);
             deviceSessionCtx.getPayloadAdaptor()
                     .convertToPublish(deviceSessionCtx, firmwareChunk, requestId, chunk, type)
                     .ifPresent(deviceSessionCtx.getChannel()::writeAndFlush);
@@ -25,6 +25,7 @@ import org.thingsboard.server.common.data.ota.OtaPackageType;
 import org.thingsboard.server.gen.transport.TransportProtos;
 import org.thingsboard.server.transport.mqtt.session.MqttDeviceAwareSessionContext;
 
+import java.nio.ByteBuffer;
 import java.util.Optional;
 
 @Data
@@ -153,7 +154,7 @@ public class BackwardCompatibilityAdaptor implements MqttTransportAdaptor {
     }
 
     @Override
-    public Optional<MqttMessage> convertToPublish(MqttDeviceAwareSessionContext ctx, byte[] firmwareChunk, String requestId, int chunk, OtaPackageType firmwareType) throws AdaptorException {
+    public Optional<MqttMessage> convertToPublish(MqttDeviceAwareSessionContext ctx, ByteBuffer firmwareChunk, String requestId, int chunk, OtaPackageType firmwareType) throws AdaptorException {
         return protoAdaptor.convertToPublish(ctx, firmwareChunk, requestId, chunk, firmwareType);
     }
 }
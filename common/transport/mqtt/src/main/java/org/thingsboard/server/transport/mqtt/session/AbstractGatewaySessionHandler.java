@@ -55,6 +55,7 @@ import org.thingsboard.server.common.transport.TransportService;
 import org.thingsboard.server.common.transport.TransportServiceCallback;
 import org.thingsboard.server.common.transport.auth.GetOrCreateDeviceFromGatewayResponse;
 import org.thingsboard.server.common.transport.auth.TransportDeviceInfo;
+import org.thingsboard.server.common.transport.limits.GatewayDevicesRateLimitsException;
 import org.thingsboard.server.gen.transport.TransportApiProtos;
 import org.thingsboard.server.gen.transport.TransportProtos;
 import org.thingsboard.server.gen.transport.TransportProtos.GetOrCreateDeviceFromGatewayRequestMsg;
@@ -76,8 +77,11 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
@@ -372,31 +376,32 @@ public abstract class AbstractGatewaySessionHandler<T extends AbstractGatewayDev
     protected void onDeviceTelemetryJson(int msgId, ByteBuf payload) throws AdaptorException {
         JsonElement json = JsonMqttAdaptor.validateJsonPayload(sessionId, payload);
         validateJsonObject(json);
+        List<TbPair<String, TransportProtos.PostTelemetryMsg>> deviceMsgs = new ArrayList<>(json.getAsJsonObject().size());
+        boolean invalid = false;
         for (Map.Entry<String, JsonElement> deviceEntry : json.getAsJsonObject().entrySet()) {
             if (!deviceEntry.getValue().isJsonArray()) {
                 log.warn("{}[{}]", CAN_T_PARSE_VALUE, json);
                 continue;
             }
             String deviceName = deviceEntry.getKey();
-            process(deviceName, deviceCtx -> processPostTelemetryMsg(deviceCtx, deviceEntry.getValue(), deviceName, msgId),
-                    t -> failedToProcessLog(deviceName, TELEMETRY, t));
+            try {
+                deviceMsgs.add(TbPair.of(deviceName, convertToPostTelemetryMsg(deviceEntry.getValue())));
+            } catch (Throwable e) {
+                log.warn("[{}][{}][{}] Failed to convert telemetry: [{}]", gateway.getTenantId(), gateway.getDeviceId(), deviceName, deviceEntry.getValue(), e);
+                invalid = true;
+            }
         }
+        processPostTelemetryMsgs(msgId, deviceMsgs, invalid);
     }
 
-    private void processPostTelemetryMsg(T deviceCtx, JsonElement msg, String deviceName, int msgId) {
-        try {
-            long systemTs = System.currentTimeMillis();
-            TbPair<TransportProtos.PostTelemetryMsg, List<GatewayMetadata>> gatewayPayloadPair = JsonConverter.convertToGatewayTelemetry(msg.getAsJsonArray(), systemTs);
-            TransportProtos.PostTelemetryMsg postTelemetryMsg = gatewayPayloadPair.getFirst();
-            List<GatewayMetadata> metadata = gatewayPayloadPair.getSecond();
-            if (!CollectionUtils.isEmpty(metadata)) {
-                gatewayMetricsService.process(deviceSessionCtx.getSessionInfo(), gateway.getDeviceId(), metadata, systemTs);
-            }
-            transportService.process(deviceCtx.getSessionInfo(), postTelemetryMsg, getPubAckCallback(channel, deviceName, msgId, postTelemetryMsg));
-        } catch (Throwable e) {
-            log.warn("[{}][{}][{}] Failed to convert telemetry: [{}]", gateway.getTenantId(), gateway.getDeviceId(), deviceName, msg, e);
-            ackOrClose(msgId);
+    private TransportProtos.PostTelemetryMsg convertToPostTelemetryMsg(JsonElement msg) {
+        long systemTs = System.currentTimeMillis();
+        TbPair<TransportProtos.PostTelemetryMsg, List<GatewayMetadata>> gatewayPayloadPair = JsonConverter.convertToGatewayTelemetry(msg.getAsJsonArray(), systemTs);
+        List<GatewayMetadata> metadata = gatewayPayloadPair.getSecond();
+        if (!CollectionUtils.isEmpty(metadata)) {
+            gatewayMetricsService.process(deviceSessionCtx.getSessionInfo(), gateway.getDeviceId(), metadata, systemTs);
         }
+        return gatewayPayloadPair.getFirst();
     }
 
     protected void onDeviceTelemetryProto(int msgId, ByteBuf payload) throws AdaptorException {
@@ -408,16 +413,67 @@ public abstract class AbstractGatewaySessionHandler<T extends AbstractGatewayDev
                 throw new IllegalArgumentException("[" + sessionId + "] Devices telemetry messages is empty for [" + gateway.getDeviceId() + "]");
             }
 
-            deviceMsgList.forEach(telemetryMsg -> {
+            List<TbPair<String, TransportProtos.PostTelemetryMsg>> deviceMsgs = new ArrayList<>(deviceMsgList.size());
+            boolean invalid = false;
+            for (TransportApiProtos.TelemetryMsg telemetryMsg : deviceMsgList) {
                 String deviceName = checkDeviceName(telemetryMsg.getDeviceName());
-                process(deviceName, deviceCtx -> processPostTelemetryMsg(deviceCtx, telemetryMsg.getMsg(), deviceName, msgId),
-                        t -> failedToProcessLog(deviceName, TELEMETRY, t));
-            });
+                try {
+                    deviceMsgs.add(TbPair.of(deviceName, ProtoConverter.validatePostTelemetryMsg(telemetryMsg.getMsg().toByteArray())));
+                } catch (Throwable e) {
+                    log.warn("[{}][{}][{}] Failed to convert telemetry: [{}]", gateway.getTenantId(), gateway.getDeviceId(), deviceName, telemetryMsg.getMsg(), e);
+                    invalid = true;
+                }
+            }
+            processPostTelemetryMsgs(msgId, deviceMsgs, invalid);
         } catch (RuntimeException | InvalidProtocolBufferException e) {
             throw new AdaptorException(e);
         }
     }
 
+    /**
+     * Pushes the telemetry of all devices from one gateway packet with a single transport call,
+     * so the limits are checked and the packet is acknowledged once instead of once per device.
+     */
+    private void processPostTelemetryMsgs(int msgId, List<TbPair<String, TransportProtos.PostTelemetryMsg>> deviceMsgs, boolean invalid) {
+        if (invalid) {
+            ackOrClose(msgId);
+        }
+        if (deviceMsgs.isEmpty()) {
+            return;
+        }
+        List<ListenableFuture<T>> deviceCtxFutures = new ArrayList<>(deviceMsgs.size());
+        for (TbPair<String, TransportProtos.PostTelemetryMsg> deviceMsg : deviceMsgs) {
+            deviceCtxFutures.add(onDeviceConnect(deviceMsg.getFirst(), DEFAULT_DEVICE_TYPE));
+        }
+        Runnable task = () -> processPostTelemetryMsgs(msgId, deviceMsgs, deviceCtxFutures, !invalid);
+        if (deviceCtxFutures.stream().allMatch(Future::isDone)) {
+            task.run();
+        } else {
+            Futures.whenAllComplete(deviceCtxFutures).run(task, context.getExecutor());
+        }
+    }
+
+    private void processPostTelemetryMsgs(int msgId, List<TbPair<String, TransportProtos.PostTelemetryMsg>> deviceMsgs,
+                                          List<ListenableFuture<T>> deviceCtxFutures, boolean ack) {
+        List<TbPair<SessionInfoProto, TransportProtos.PostTelemetryMsg>> msgs = new ArrayList<>(deviceMsgs.size());
+        List<String> deviceNames = new ArrayList<>(deviceMsgs.size());
+        for (int i = 0; i < deviceMsgs.size(); i++) {
+            String deviceName = deviceMsgs.get(i).getFirst();
+            try {
+                T deviceCtx = Futures.getDone(deviceCtxFutures.get(i));
+                msgs.add(TbPair.of(deviceCtx.getSessionInfo(), deviceMsgs.get(i).getSecond()));
+                deviceNames.add(deviceName);
+            } catch (ExecutionException e) {
+                failedToProcessLog(deviceName, TELEMETRY, e.getCause());
+            } catch (CancellationException e) {
+                failedToProcessLog(deviceName, TELEMETRY, e);
+            }
+        }
+        if (!msgs.isEmpty()) {
+            transportService.process(deviceSessionCtx.getSessionInfo(), msgs, getBatchPubAckCallback(channel, msgId, deviceNames, ack));
+        }
+    }
+
     protected void processPostTelemetryMsg(MqttDeviceAwareSessionContext deviceCtx, TransportProtos.PostTelemetryMsg msg, String deviceName, int msgId) {
         try {
             TransportProtos.PostTelemetryMsg postTelemetryMsg = ProtoConverter.validatePostTelemetryMsg(msg.toByteArray());
@@ -712,6 +768,38 @@ public abstract class AbstractGatewaySessionHandler<T extends AbstractGatewayDev
         transportService.process(sessionInfo, postTelemetryMsg, getPubAckCallback(channel, deviceName, -1, postTelemetryMsg));
     }
 
+    private TransportServiceCallback<Void> getBatchPubAckCallback(final ChannelHandlerContext ctx, final int msgId, final List<String> deviceNames, final boolean ack) {
+        return new TransportServiceCallback<Void>() {
+            @Override
+            public void onSuccess(Void dummy) {
+                log.trace("[{}][{}][{}] Published telemetry of devices: {}", gateway.getTenantId(), gateway.getDeviceId(), sessionId, deviceNames);
+                if (!ack) {
+                    return;
+                }
+                if (msgId > 0) {
+                    ctx.writeAndFlush(MqttTransportHandler.createMqttPubAckMsg(deviceSessionCtx, msgId, MqttReasonCodes.PubAck.SUCCESS.byteValue()));
+                } else {
+                    log.trace("[{}][{}][{}] Wrong msg id: [{}]", gateway.getTenantId(), gateway.getDeviceId(), sessionId, msgId);
+                    ctx.writeAndFlush(MqttTransportHandler.createMqttPubAckMsg(deviceSessionCtx, msgId, MqttReasonCodes.PubAck.UNSPECIFIED_ERROR.byteValue()));
+                    deviceNames.forEach(deviceName -> closeDeviceSession(deviceName, MqttReasonCodes.Disconnect.MALFORMED_PACKET));
+                }
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                log.trace("[{}][{}][{}] Failed to publish telemetry of devices: {}", gateway.getTenantId(), gateway.getDeviceId(), sessionId, deviceNames, e);
+                if (e instanceof GatewayDevicesRateLimitsException) {
+                    ((GatewayDevicesRateLimitsException) e).getDeviceNames().forEach(deviceName -> closeDeviceSession(deviceName, MqttReasonCodes.Disconnect.MESSAGE_RATE_TOO_HIGH));
+                } else if (e instanceof TbRateLimitsException) {
+                    deviceNames.forEach(deviceName -> closeDeviceSession(deviceName, MqttReasonCodes.Disconnect.MESSAGE_RATE_TOO_HIGH));
+                } else {
+                    deviceNames.forEach(deviceName -> closeDeviceSession(deviceName, MqttReasonCodes.Disconnect.UNSPECIFIED_ERROR));
+                }
+                ctx.close();
+            }
+        };
+    }
+
     private <T> TransportServiceCallback<Void> getPubAckCallback(final ChannelHandlerContext ctx, final String deviceName, final int msgId, final T msg) {
         return new TransportServiceCallback<Void>() {
             @Override
@@ -15,9 +15,15 @@
  */
 package org.thingsboard.server.transport.mqtt.session;
 
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.mqtt.MqttReasonCodes;
+import io.netty.handler.codec.mqtt.MqttVersion;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.util.ConcurrentReferenceHashMap;
@@ -25,21 +31,32 @@ import org.thingsboard.server.common.data.id.CustomerId;
 import org.thingsboard.server.common.data.id.DeviceId;
 import org.thingsboard.server.common.data.id.DeviceProfileId;
 import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.util.TbPair;
 import org.thingsboard.server.common.transport.TransportService;
+import org.thingsboard.server.common.transport.TransportServiceCallback;
 import org.thingsboard.server.common.transport.auth.TransportDeviceInfo;
+import org.thingsboard.server.common.transport.limits.GatewayDevicesRateLimitsException;
+import org.thingsboard.server.gen.transport.TransportProtos;
 import org.thingsboard.server.transport.mqtt.MqttTransportContext;
+import org.thingsboard.server.transport.mqtt.adaptors.MqttTransportAdaptor;
 
 import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.BDDMockito.willCallRealMethod;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 public class GatewaySessionHandlerTest {
@@ -53,6 +70,18 @@ public class GatewaySessionHandlerTest {
     @Mock
     private MqttTransportContext transportContext;
 
+    @Mock
+    private ChannelHandlerContext channel;
+
+    @Mock
+    private MqttTransportAdaptor payloadAdaptor;
+
+    @Captor
+    private ArgumentCaptor<List<TbPair<TransportProtos.SessionInfoProto, TransportProtos.PostTelemetryMsg>>> msgsCaptor;
+
+    @Captor
+    private ArgumentCaptor<TransportServiceCallback<Void>> callbackCaptor;
+
     private GatewaySessionHandler handler;
 
     @BeforeEach
@@ -61,6 +90,7 @@ public class GatewaySessionHandlerTest {
         lenient().doNothing().when(transportService).recordActivity(any());
         lenient().when(transportContext.getTransportService()).thenReturn(transportService);
         lenient().when(deviceSessionCtx.getContext()).thenReturn(transportContext);
+        lenient().when(deviceSessionCtx.getChannel()).thenReturn(channel);
 
         var deviceInfo = new TransportDeviceInfo();
         deviceInfo.setDeviceId(new DeviceId(UUID.randomUUID()));
@@ -111,6 +141,58 @@ public class GatewaySessionHandlerTest {
         verify(transportService, never()).recordActivity(any());
     }
 
+    @Test
+    public void shouldPushTelemetryOfAllDevicesWithSingleTransportCall() throws Exception {
+        // Given
+        ConcurrentHashMap<String, GatewayDeviceSessionContext> devices = new ConcurrentHashMap<>();
+        devices.put("device1", createDeviceSessionContext("device1"));
+        devices.put("device2", createDeviceSessionContext("device2"));
+        Field devicesField = AbstractGatewaySessionHandler.class.getDeclaredField("devices");
+        devicesField.setAccessible(true);
+        devicesField.set(handler, devices);
+        String payload = "{\"device1\": [{\"ts\": 1, \"values\": {\"temperature\": 42}}]," +
+                "\"device2\": [{\"ts\": 1, \"values\": {\"humidity\": 73}}, {\"ts\": 2, \"values\": {\"humidity\": 74}}]}";
+
+        // When
+        handler.onDeviceTelemetryJson(1, Unpooled.copiedBuffer(payload, StandardCharsets.UTF_8));
+
+        // Then
+        verify(transportService).process(any(), msgsCaptor.capture(), callbackCaptor.capture());
+        List<TbPair<TransportProtos.SessionInfoProto, TransportProtos.PostTelemetryMsg>> msgs = msgsCaptor.getValue();
+        assertThat(msgs).hasSize(2);
+        assertThat(msgs.get(0).getFirst()).isEqualTo(devices.get("device1").getSessionInfo());
+        assertThat(msgs.get(0).getSecond().getTsKvListCount()).isEqualTo(1);
+        assertThat(msgs.get(1).getFirst()).isEqualTo(devices.get("device2").getSessionInfo());
+        assertThat(msgs.get(1).getSecond().getTsKvListCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldSendDisconnectOfRateLimitedDevicesOnly() throws Exception {
+        // Given
+        ConcurrentHashMap<String, GatewayDeviceSessionContext> devices = new ConcurrentHashMap<>();
+        devices.put("device1", createDeviceSessionContext("device1"));
+        devices.put("device2", createDeviceSessionContext("device2"));
+        Field devicesField = AbstractGatewaySessionHandler.class.getDeclaredField("devices");
+        devicesField.setAccessible(true);
+        devicesField.set(handler, devices);
+        when(deviceSessionCtx.getMqttVersion()).thenReturn(MqttVersion.MQTT_5);
+        when(deviceSessionCtx.getPayloadAdaptor()).thenReturn(payloadAdaptor);
+        when(payloadAdaptor.convertToGatewayDeviceDisconnectPublish(any(), any(), anyInt())).thenReturn(Optional.empty());
+        String payload = "{\"device1\": [{\"ts\": 1, \"values\": {\"temperature\": 42}}]," +
+                "\"device2\": [{\"ts\": 1, \"values\": {\"humidity\": 73}}]}";
+        handler.onDeviceTelemetryJson(1, Unpooled.copiedBuffer(payload, StandardCharsets.UTF_8));
+        verify(transportService).process(any(), msgsCaptor.capture(), callbackCaptor.capture());
+
+        // When
+        callbackCaptor.getValue().onError(new GatewayDevicesRateLimitsException(List.of("device2")));
+
+        // Then
+        int rateTooHigh = MqttReasonCodes.Disconnect.MESSAGE_RATE_TOO_HIGH.byteValue() & 0xFF;
+        verify(payloadAdaptor).convertToGatewayDeviceDisconnectPublish(deviceSessionCtx, "device2", rateTooHigh);
+        verify(payloadAdaptor, never()).convertToGatewayDeviceDisconnectPublish(any(), eq("device1"), anyInt());
+        verify(channel).close();
+    }
+
     @Test
     public void givenGatewaySessionHandler_WhenCreateWeakMap_thenConcurrentReferenceHashMapClass() {
         GatewaySessionHandler gsh = mock(GatewaySessionHandler.class);
@@ -119,4 +201,15 @@ public class GatewaySessionHandlerTest {
         assertThat(gsh.createWeakMap()).isInstanceOf(ConcurrentReferenceHashMap.class);
     }
 
+    private GatewayDeviceSessionContext createDeviceSessionContext(String deviceName) {
+        TransportDeviceInfo deviceInfo = new TransportDeviceInfo();
+        deviceInfo.setDeviceId(new DeviceId(UUID.randomUUID()));
+        deviceInfo.setTenantId(new TenantId(UUID.randomUUID()));
+        deviceInfo.setCustomerId(new CustomerId(UUID.randomUUID()));
+        deviceInfo.setDeviceName(deviceName);
+        deviceInfo.setDeviceType("default");
+        deviceInfo.setDeviceProfileId(new DeviceProfileId(UUID.randomUUID()));
+        return new GatewayDeviceSessionContext(handler, deviceInfo, null, null, transportService);
+    }
+
 }
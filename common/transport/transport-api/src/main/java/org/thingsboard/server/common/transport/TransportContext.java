@@ -55,6 +55,9 @@ public abstract class TransportContext {
     @Autowired
     private OtaPackageDataCache otaPackageDataCache;
 
+    @Autowired
+    private TransportOtaPackageStore otaPackageStore;
+
     @Autowired
     private TransportResourceCache transportResourceCache;
 
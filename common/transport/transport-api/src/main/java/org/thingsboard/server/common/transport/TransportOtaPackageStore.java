@@ -0,0 +1,41 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.transport;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Keeps a single read-only copy of the OTA package data on the transport node, off the heap,
+ * and serves the chunks as slices of it, without copying the data for each device request.
+ */
+public interface TransportOtaPackageStore {
+
+    /**
+     * Returns the read-only chunk of the package data, or the whole data if the chunk size is less than 1.
+     * Returns an empty buffer if the chunk is out of the data range or the package data is not available,
+     * and null if the whole data is requested but not available.
+     */
+    ByteBuffer get(String otaPackageId, int chunkSize, int chunk);
+
+    /**
+     * Loads the package data to the store off the caller thread. The concurrent calls for the same package share
+     * one load, and the returned future is completed at once if the package is already stored.
+     */
+    ListenableFuture<Void> prefetch(String otaPackageId);
+
+}
@@ -95,11 +95,37 @@ public class DefaultTransportRateLimitService implements TransportRateLimitServi
         return null;
     }
 
+    @Override
+    public TbPair<EntityType, Boolean> checkGatewayLimits(TenantId tenantId, DeviceId gatewayId, int msgCount, int dataPoints) {
+        if (!tenantAllowed.getOrDefault(tenantId, Boolean.TRUE)) {
+            return TbPair.of(EntityType.API_USAGE_STATE, false);
+        }
+        if (!checkEntityRateLimit(msgCount, dataPoints, getTenantRateLimits(tenantId))) {
+            return TbPair.of(EntityType.TENANT, false);
+        }
+        if (!checkEntityRateLimit(msgCount, dataPoints, getGatewayRateLimits(tenantId, gatewayId))) {
+            return TbPair.of(EntityType.DEVICE, true);
+        }
+        return null;
+    }
+
+    @Override
+    public TbPair<EntityType, Boolean> checkGatewayDeviceLimits(TenantId tenantId, DeviceId deviceId, int dataPoints) {
+        if (!checkEntityRateLimit(dataPoints, getDeviceRateLimits(tenantId, deviceId))) {
+            return TbPair.of(EntityType.DEVICE, false);
+        }
+        return null;
+    }
+
     private boolean checkEntityRateLimit(int dataPoints, EntityTransportRateLimits limits) {
+        return checkEntityRateLimit(1, dataPoints, limits);
+    }
+
+    private boolean checkEntityRateLimit(int msgCount, int dataPoints, EntityTransportRateLimits limits) {
         if (dataPoints > 0) {
-            return limits.getTelemetryMsgRateLimit().tryConsume() && limits.getTelemetryDataPointsRateLimit().tryConsume(dataPoints);
+            return limits.getTelemetryMsgRateLimit().tryConsume(msgCount) && limits.getTelemetryDataPointsRateLimit().tryConsume(dataPoints);
         } else {
-            return limits.getRegularMsgRateLimit().tryConsume();
+            return limits.getRegularMsgRateLimit().tryConsume(msgCount);
         }
     }
 
@@ -0,0 +1,38 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.transport.limits;
+
+import lombok.Getter;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.msg.tools.TbRateLimitsException;
+
+import java.util.List;
+
+/**
+ * Rate limits of some of the devices from a gateway packet are reached.
+ * Carries the names of these devices, so the gateway can be told which devices were rejected.
+ */
+public class GatewayDevicesRateLimitsException extends TbRateLimitsException {
+
+    @Getter
+    private final List<String> deviceNames;
+
+    public GatewayDevicesRateLimitsException(List<String> deviceNames) {
+        super(EntityType.DEVICE);
+        this.deviceNames = deviceNames;
+    }
+
+}
@@ -27,6 +27,14 @@ public interface TransportRateLimitService {
 
     TbPair<EntityType, Boolean> checkLimits(TenantId tenantId, DeviceId gatewayId, DeviceId deviceId, int dataPoints, boolean isGateway);
 
+    /**
+     * Checks the tenant and gateway limits once for a packet that carries the messages of several gateway devices.
+     * The limits of each device are checked separately with {@link #checkGatewayDeviceLimits}.
+     */
+    TbPair<EntityType, Boolean> checkGatewayLimits(TenantId tenantId, DeviceId gatewayId, int msgCount, int dataPoints);
+
+    TbPair<EntityType, Boolean> checkGatewayDeviceLimits(TenantId tenantId, DeviceId deviceId, int dataPoints);
+
     void update(TenantProfileUpdateResult update);
 
     void update(TenantId tenantId);
@@ -0,0 +1,248 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.transport.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+import org.thingsboard.server.cache.ota.OtaPackageDataCache;
+import org.thingsboard.server.common.data.StringUtils;
+import org.thingsboard.server.common.transport.TransportOtaPackageStore;
+import org.thingsboard.server.queue.util.TbTransportComponent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Loads the package data from the {@link OtaPackageDataCache} once per transport node and keeps it
+ * in a direct buffer, or in a memory-mapped file if the store directory is configured.
+ * The data is read from the cache chunk by chunk, so the whole package is never copied to the heap.
+ * The packages are evicted by the total size and by the access time.
+ */
+@Slf4j
+@Component
+@TbTransportComponent
+@RequiredArgsConstructor
+public class DefaultTransportOtaPackageStore implements TransportOtaPackageStore {
+
+    static final String STORE_SUB_DIR = "ota-packages";
+    static final int LOAD_CHUNK_SIZE = 1024 * 1024;
+
+    private static final String TMP_FILE_SUFFIX = ".tmp";
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0).asReadOnlyBuffer();
+
+    private final OtaPackageDataCache otaPackageDataCache;
+
+    @Value("${transport.ota.store.max_size_mb:256}")
+    private long maxSizeMb;
+    @Value("${transport.ota.store.expire_after_access_sec:3600}")
+    private long expireAfterAccessSec;
+    @Value("${transport.ota.store.dir:}")
+    private String storeDir;
+
+    private Path storePath;
+    private Cache<String, ByteBuffer> packages;
+    private final ConcurrentMap<String, ListenableFuture<Void>> prefetches = new ConcurrentHashMap<>();
+    private ListeningExecutorService prefetchExecutor;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (StringUtils.isNotBlank(storeDir)) {
+            storePath = Paths.get(storeDir).resolve(STORE_SUB_DIR);
+            Files.createDirectories(storePath);
+            try (Stream<Path> files = Files.list(storePath)) {
+                // the package files of the previous run are not mapped by anybody
+                files.filter(DefaultTransportOtaPackageStore::isPackageFile).forEach(this::deleteFile);
+            }
+        }
+        packages = Caffeine.newBuilder()
+                .maximumWeight(maxSizeMb * 1024 * 1024)
+                .weigher((String id, ByteBuffer data) -> data.capacity())
+                .expireAfterAccess(expireAfterAccessSec, TimeUnit.SECONDS)
+                .removalListener(this::onRemoval)
+                .build();
+        prefetchExecutor = MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor(ThingsBoardThreadFactory.forName("ota-package-prefetch")));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (prefetchExecutor != null) {
+            prefetchExecutor.shutdownNow();
+        }
+    }
+
+    @Override
+    public ByteBuffer get(String otaPackageId, int chunkSize, int chunk) {
+        ByteBuffer data = getData(otaPackageId);
+        if (chunkSize < 1) {
+            return data;
+        }
+        if (data == null) {
+            return EMPTY;
+        }
+        long startIndex = (long) chunkSize * chunk;
+        if (startIndex >= data.limit()) {
+            return EMPTY;
+        }
+        int size = (int) Math.min(data.limit() - startIndex, chunkSize);
+        return data.slice((int) startIndex, size);
+    }
+
+    @Override
+    public ListenableFuture<Void> prefetch(String otaPackageId) {
+        if (packages.getIfPresent(otaPackageId) != null) {
+            return Futures.immediateVoidFuture();
+        }
+        ListenableFuture<Void> future = prefetches.computeIfAbsent(otaPackageId, id -> prefetchExecutor.submit(() -> {
+            getData(id);
+            return null;
+        }));
+        future.addListener(() -> prefetches.remove(otaPackageId, future), MoreExecutors.directExecutor());
+        return future;
+    }
+
+    private ByteBuffer getData(String otaPackageId) {
+        ByteBuffer data = packages.get(otaPackageId, this::load);
+        // the callers get own position and limit over the same memory
+        return data != null ? data.duplicate() : null;
+    }
+
+    private ByteBuffer load(String otaPackageId) {
+        try {
+            ByteBuffer data = storePath == null ? loadToDirectMemory(otaPackageId) : loadToFile(otaPackageId);
+            if (data != null) {
+                log.debug("[{}] Loaded OTA package data to the store, size: {}", otaPackageId, data.capacity());
+            }
+            return data;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store OTA package data: " + otaPackageId, e);
+        }
+    }
+
+    private ByteBuffer loadToDirectMemory(String otaPackageId) {
+        ByteBuffer buffer = null;
+        for (int chunk = 0; ; chunk++) {
+            byte[] data = otaPackageDataCache.get(otaPackageId, LOAD_CHUNK_SIZE, chunk);
+            if (data == null || data.length == 0) {
+                break;
+            }
+            if (buffer == null) {
+                buffer = ByteBuffer.allocateDirect(data.length < LOAD_CHUNK_SIZE ? data.length : LOAD_CHUNK_SIZE * 2);
+            } else if (buffer.remaining() < data.length) {
+                buffer = copyToDirectMemory(buffer.flip(), buffer.capacity() * 2);
+            }
+            buffer.put(data);
+            if (data.length < LOAD_CHUNK_SIZE) {
+                break;
+            }
+        }
+        if (buffer == null) {
+            return null;
+        }
+        buffer.flip();
+        // the weight of the package is the capacity of the buffer
+        return (buffer.limit() < buffer.capacity() ? copyToDirectMemory(buffer, buffer.limit()).flip() : buffer).asReadOnlyBuffer();
+    }
+
+    private ByteBuffer loadToFile(String otaPackageId) throws IOException {
+        Path file = storePath.resolve(otaPackageId);
+        Path tmpFile = storePath.resolve(otaPackageId + TMP_FILE_SUFFIX);
+        long size = 0;
+        try (FileChannel channel = FileChannel.open(tmpFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int chunk = 0; ; chunk++) {
+                byte[] data = otaPackageDataCache.get(otaPackageId, LOAD_CHUNK_SIZE, chunk);
+                if (data == null || data.length == 0) {
+                    break;
+                }
+                ByteBuffer src = ByteBuffer.wrap(data);
+                while (src.hasRemaining()) {
+                    channel.write(src);
+                }
+                size += data.length;
+                if (data.length < LOAD_CHUNK_SIZE) {
+                    break;
+                }
+            }
+        }
+        if (size == 0) {
+            deleteFile(tmpFile);
+            return null;
+        }
+        Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    private static ByteBuffer copyToDirectMemory(ByteBuffer data, int capacity) {
+        ByteBuffer copy = ByteBuffer.allocateDirect(capacity);
+        copy.put(data);
+        return copy;
+    }
+
+    private void onRemoval(String otaPackageId, ByteBuffer data, RemovalCause cause) {
+        log.debug("[{}] OTA package data removed from the store: {}", otaPackageId, cause);
+        if (storePath != null && otaPackageId != null && cause != RemovalCause.REPLACED) {
+            deleteFile(storePath.resolve(otaPackageId));
+        }
+    }
+
+    private void deleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete OTA package file: {}", file, e);
+        }
+    }
+
+    private static boolean isPackageFile(Path file) {
+        String name = file.getFileName().toString();
+        if (name.endsWith(TMP_FILE_SUFFIX)) {
+            name = name.substring(0, name.length() - TMP_FILE_SUFFIX.length());
+        }
+        try {
+            return UUID.fromString(name).toString().equals(name);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+}
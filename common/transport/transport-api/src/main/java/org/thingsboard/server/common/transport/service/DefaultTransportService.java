@@ -52,12 +52,15 @@ import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.RuleChainId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.id.TenantProfileId;
+import org.thingsboard.server.common.data.kv.KvEntry;
 import org.thingsboard.server.common.data.limit.LimitedApi;
 import org.thingsboard.server.common.data.msg.TbMsgType;
 import org.thingsboard.server.common.data.notification.rule.trigger.RateLimitsTrigger;
 import org.thingsboard.server.common.data.plugin.ComponentLifecycleEvent;
 import org.thingsboard.server.common.data.rpc.RpcStatus;
+import org.thingsboard.server.common.data.util.TbPair;
 import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgKvPayload;
 import org.thingsboard.server.common.msg.TbMsgMetaData;
 import org.thingsboard.server.common.msg.notification.NotificationRuleProcessor;
 import org.thingsboard.server.common.msg.queue.ServiceType;
@@ -81,8 +84,10 @@ import org.thingsboard.server.common.transport.auth.TransportDeviceInfo;
 import org.thingsboard.server.common.transport.auth.ValidateDeviceCredentialsResponse;
 import org.thingsboard.server.common.transport.limits.EntityLimitKey;
 import org.thingsboard.server.common.transport.limits.EntityLimitsCache;
+import org.thingsboard.server.common.transport.limits.GatewayDevicesRateLimitsException;
 import org.thingsboard.server.common.transport.limits.TransportRateLimitService;
 import org.thingsboard.server.common.transport.util.JsonUtils;
+import org.thingsboard.server.common.util.KvProtoUtil;
 import org.thingsboard.server.common.util.ProtoUtils;
 import org.thingsboard.server.gen.transport.TransportProtos;
 import org.thingsboard.server.gen.transport.TransportProtos.ProvisionDeviceRequestMsg;
@@ -111,6 +116,8 @@ import org.thingsboard.server.queue.scheduler.SchedulerComponent;
 import org.thingsboard.server.queue.util.AfterStartUp;
 import org.thingsboard.server.queue.util.TbTransportComponent;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -124,7 +131,9 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 /**
@@ -156,6 +165,10 @@ public class DefaultTransportService extends TransportActivityManager implements
     private int notificationsPollDuration;
     @Value("${transport.stats.enabled:false}")
     private boolean statsEnabled;
+    @Value("${transport.json.typed_payload_enabled:false}")
+    private boolean typedPayloadEnabled;
+    @Value("${transport.mqtt.gateway_msg_pack_enabled:false}")
+    private boolean gatewayMsgPackEnabled;
 
     @Autowired
     @Lazy
@@ -540,10 +553,7 @@ public class DefaultTransportService extends TransportActivityManager implements
 
     @Override
     public void process(TransportProtos.SessionInfoProto sessionInfo, TransportProtos.PostTelemetryMsg msg, TbMsgMetaData md, TransportServiceCallback<Void> callback) {
-        int dataPoints = 0;
-        for (TransportProtos.TsKvListProto tsKv : msg.getTsKvListList()) {
-            dataPoints += tsKv.getKvCount();
-        }
+        int dataPoints = getDataPoints(msg);
         if (checkLimits(sessionInfo, msg, callback, dataPoints)) {
             recordActivityInternal(sessionInfo);
             TenantId tenantId = getTenantId(sessionInfo);
@@ -555,12 +565,81 @@ public class DefaultTransportService extends TransportActivityManager implements
                 metaData.putValue("deviceName", sessionInfo.getDeviceName());
                 metaData.putValue("deviceType", sessionInfo.getDeviceType());
                 metaData.putValue("ts", tsKv.getTs() + "");
-                JsonObject json = JsonUtils.getJsonObject(tsKv.getKvList());
-                sendToRuleEngine(tenantId, deviceId, customerId, sessionInfo, json, metaData, TbMsgType.POST_TELEMETRY_REQUEST, packCallback);
+                sendToRuleEngine(tenantId, deviceId, customerId, sessionInfo, tsKv.getKvList(), metaData, TbMsgType.POST_TELEMETRY_REQUEST, packCallback);
             }
         }
     }
 
+    @Override
+    public void process(TransportProtos.SessionInfoProto gatewaySessionInfo, List<TbPair<TransportProtos.SessionInfoProto, TransportProtos.PostTelemetryMsg>> msgs,
+                        TransportServiceCallback<Void> callback) {
+        TenantId tenantId = getTenantId(gatewaySessionInfo);
+        DeviceId gatewayId = getDeviceId(gatewaySessionInfo);
+        int dataPoints = 0;
+        for (TbPair<TransportProtos.SessionInfoProto, TransportProtos.PostTelemetryMsg> pair : msgs) {
+            dataPoints += getDataPoints(pair.getSecond());
+        }
+        if (log.isTraceEnabled()) {
+            log.trace("[{}][{}] Processing telemetry of {} gateway devices", tenantId, gatewaySessionInfo.getDeviceName(), msgs.size());
+        }
+        var rateLimitedPair = rateLimitService.checkGatewayLimits(tenantId, gatewayId, msgs.size(), dataPoints);
+        if (rateLimitedPair != null) {
+            onRateLimited(tenantId, gatewayId, null, gatewaySessionInfo.getDeviceName(), rateLimitedPair, callback, false);
+            return;
+        }
+        GatewayMsgPackCallback packCallback = new GatewayMsgPackCallback(tenantId, callback);
+        List<TbMsg> tbMsgs = gatewayMsgPackEnabled ? new ArrayList<>() : null;
+        List<String> rateLimitedDevices = null;
+        for (TbPair<TransportProtos.SessionInfoProto, TransportProtos.PostTelemetryMsg> pair : msgs) {
+            TransportProtos.SessionInfoProto sessionInfo = pair.getFirst();
+            TransportProtos.PostTelemetryMsg msg = pair.getSecond();
+            DeviceId deviceId = getDeviceId(sessionInfo);
+            int deviceDataPoints = getDataPoints(msg);
+            rateLimitedPair = rateLimitService.checkGatewayDeviceLimits(tenantId, deviceId, deviceDataPoints);
+            if (rateLimitedPair != null) {
+                onRateLimited(tenantId, gatewayId, deviceId, sessionInfo.getDeviceName(), rateLimitedPair, null, false);
+                if (rateLimitedDevices == null) {
+                    rateLimitedDevices = new ArrayList<>();
+                }
+                rateLimitedDevices.add(sessionInfo.getDeviceName());
+                continue;
+            }
+            recordActivityInternal(sessionInfo);
+            CustomerId customerId = getCustomerId(sessionInfo);
+            packCallback.addDevice(customerId, deviceDataPoints);
+            for (TransportProtos.TsKvListProto tsKv : msg.getTsKvListList()) {
+                TbMsgMetaData metaData = new TbMsgMetaData();
+                metaData.putValue("deviceName", sessionInfo.getDeviceName());
+                metaData.putValue("deviceType", sessionInfo.getDeviceType());
+                metaData.putValue("ts", tsKv.getTs() + "");
+                if (tbMsgs != null) {
+                    tbMsgs.add(newRuleEngineMsg(deviceId, customerId, sessionInfo, tsKv.getKvList(), metaData, TbMsgType.POST_TELEMETRY_REQUEST));
+                } else {
+                    packCallback.addMsgs(1);
+                    sendToRuleEngine(tenantId, deviceId, customerId, sessionInfo, tsKv.getKvList(), metaData, TbMsgType.POST_TELEMETRY_REQUEST, packCallback);
+                }
+            }
+        }
+        if (tbMsgs != null && !tbMsgs.isEmpty()) {
+            // one queue msg per partition instead of one per device and timestamp
+            packCallback.addMsgs(1);
+            ruleEngineProducerService.sendToRuleEngine(ruleEngineMsgProducer, tenantId, tbMsgs, new StatsCallback(packCallback, ruleEngineProducerStats));
+            ruleEngineProducerStats.incrementTotal();
+        }
+        if (rateLimitedDevices != null) {
+            packCallback.onError(new GatewayDevicesRateLimitsException(rateLimitedDevices));
+        }
+        packCallback.onAllSubmitted();
+    }
+
+    private static int getDataPoints(TransportProtos.PostTelemetryMsg msg) {
+        int dataPoints = 0;
+        for (TransportProtos.TsKvListProto tsKv : msg.getTsKvListList()) {
+            dataPoints += tsKv.getKvCount();
+        }
+        return dataPoints;
+    }
+
     @Override
     public void process(TransportProtos.SessionInfoProto sessionInfo, TransportProtos.PostAttributeMsg msg, TransportServiceCallback<Void> callback) {
         process(sessionInfo, msg, null, callback);
@@ -572,7 +651,6 @@ public class DefaultTransportService extends TransportActivityManager implements
             recordActivityInternal(sessionInfo);
             TenantId tenantId = getTenantId(sessionInfo);
             DeviceId deviceId = new DeviceId(new UUID(sessionInfo.getDeviceIdMSB(), sessionInfo.getDeviceIdLSB()));
-            JsonObject json = JsonUtils.getJsonObject(msg.getKvList());
             TbMsgMetaData metaData = md != null ? md.copy() : new TbMsgMetaData();
             metaData.putValue("deviceName", sessionInfo.getDeviceName());
             metaData.putValue("deviceType", sessionInfo.getDeviceType());
@@ -581,7 +659,7 @@ public class DefaultTransportService extends TransportActivityManager implements
             }
             metaData.putValue(DataConstants.NOTIFY_DEVICE_METADATA_KEY, "false");
             CustomerId customerId = getCustomerId(sessionInfo);
-            sendToRuleEngine(tenantId, deviceId, customerId, sessionInfo, json, metaData, TbMsgType.POST_ATTRIBUTES_REQUEST,
+            sendToRuleEngine(tenantId, deviceId, customerId, sessionInfo, msg.getKvList(), metaData, TbMsgType.POST_ATTRIBUTES_REQUEST,
                     new TransportTbQueueCallback(new ApiStatsProxyCallback<>(tenantId, customerId, msg.getKvList().size(), callback)));
         }
     }
@@ -851,32 +929,37 @@ public class DefaultTransportService extends TransportActivityManager implements
         if (rateLimitedPair == null) {
             return true;
         } else {
-            var rateLimitedEntityType = rateLimitedPair.getFirst();
-            if (callback != null) {
-                callback.onError(new TbRateLimitsException(rateLimitedEntityType));
-            }
-
-            if (rateLimitedEntityType == EntityType.DEVICE || rateLimitedEntityType == EntityType.TENANT) {
-                LimitedApi limitedApi;
+            onRateLimited(tenantId, gatewayId, deviceId, deviceName, rateLimitedPair, callback, isGateway);
+            return false;
+        }
+    }
 
-                if (rateLimitedEntityType == EntityType.TENANT) {
-                    limitedApi = LimitedApi.TRANSPORT_MESSAGES_PER_TENANT;
-                } else if (rateLimitedPair.getSecond()) {
-                    limitedApi = isGateway ? LimitedApi.TRANSPORT_MESSAGES_PER_GATEWAY_DEVICE : LimitedApi.TRANSPORT_MESSAGES_PER_GATEWAY;
-                } else {
-                    limitedApi = LimitedApi.TRANSPORT_MESSAGES_PER_DEVICE;
-                }
+    private void onRateLimited(TenantId tenantId, DeviceId gatewayId, DeviceId deviceId, String deviceName,
+                               TbPair<EntityType, Boolean> rateLimitedPair, TransportServiceCallback<?> callback, boolean isGateway) {
+        var rateLimitedEntityType = rateLimitedPair.getFirst();
+        if (callback != null) {
+            callback.onError(new TbRateLimitsException(rateLimitedEntityType));
+        }
 
-                EntityId limitLevel = rateLimitedEntityType == EntityType.DEVICE ? deviceId == null ? gatewayId : deviceId : tenantId;
+        if (rateLimitedEntityType == EntityType.DEVICE || rateLimitedEntityType == EntityType.TENANT) {
+            LimitedApi limitedApi;
 
-                notificationRuleProcessor.process(RateLimitsTrigger.builder()
-                        .tenantId(tenantId)
-                        .api(limitedApi)
-                        .limitLevel(limitLevel)
-                        .limitLevelEntityName(rateLimitedEntityType == EntityType.DEVICE ? deviceName : null)
-                        .build());
+            if (rateLimitedEntityType == EntityType.TENANT) {
+                limitedApi = LimitedApi.TRANSPORT_MESSAGES_PER_TENANT;
+            } else if (rateLimitedPair.getSecond()) {
+                limitedApi = isGateway ? LimitedApi.TRANSPORT_MESSAGES_PER_GATEWAY_DEVICE : LimitedApi.TRANSPORT_MESSAGES_PER_GATEWAY;
+            } else {
+                limitedApi = LimitedApi.TRANSPORT_MESSAGES_PER_DEVICE;
             }
-            return false;
+
+            EntityId limitLevel = rateLimitedEntityType == EntityType.DEVICE ? deviceId == null ? gatewayId : deviceId : tenantId;
+
+            notificationRuleProcessor.process(RateLimitsTrigger.builder()
+                    .tenantId(tenantId)
+                    .api(limitedApi)
+                    .limitLevel(limitLevel)
+                    .limitLevelEntityName(rateLimitedEntityType == EntityType.DEVICE ? deviceName : null)
+                    .build());
         }
     }
 
@@ -1112,8 +1195,39 @@ public class DefaultTransportService extends TransportActivityManager implements
         tbCoreMsgProducer.send(tpi, new TbProtoQueueMsg<>(routingKey, msg), wrappedCallback);
     }
 
+    private void sendToRuleEngine(TenantId tenantId, DeviceId deviceId, CustomerId customerId, TransportProtos.SessionInfoProto sessionInfo, List<TransportProtos.KeyValueProto> kvList,
+                                  TbMsgMetaData metaData, TbMsgType tbMsgType, TbQueueCallback callback) {
+        sendToRuleEngine(tenantId, newRuleEngineMsg(deviceId, customerId, sessionInfo, kvList, metaData, tbMsgType), callback);
+    }
+
     private void sendToRuleEngine(TenantId tenantId, DeviceId deviceId, CustomerId customerId, TransportProtos.SessionInfoProto sessionInfo, JsonObject json,
                                   TbMsgMetaData metaData, TbMsgType tbMsgType, TbQueueCallback callback) {
+        sendToRuleEngine(tenantId, newRuleEngineMsg(sessionInfo, (queueName, ruleChainId) ->
+                TbMsg.newMsg(queueName, tbMsgType, deviceId, customerId, metaData, gson.toJson(json), ruleChainId, null)), callback);
+    }
+
+    private void sendToRuleEngine(TenantId tenantId, TbMsg tbMsg, TbQueueCallback callback) {
+        ruleEngineProducerService.sendToRuleEngine(ruleEngineMsgProducer, tenantId, tbMsg, new StatsCallback(callback, ruleEngineProducerStats));
+        ruleEngineProducerStats.incrementTotal();
+    }
+
+    private TbMsg newRuleEngineMsg(DeviceId deviceId, CustomerId customerId, TransportProtos.SessionInfoProto sessionInfo, List<TransportProtos.KeyValueProto> kvList,
+                                   TbMsgMetaData metaData, TbMsgType tbMsgType) {
+        if (!typedPayloadEnabled) {
+            JsonObject json = JsonUtils.getJsonObject(kvList);
+            return newRuleEngineMsg(sessionInfo, (queueName, ruleChainId) ->
+                    TbMsg.newMsg(queueName, tbMsgType, deviceId, customerId, metaData, gson.toJson(json), ruleChainId, null));
+        }
+        List<KvEntry> kvEntries = new ArrayList<>(kvList.size());
+        for (TransportProtos.KeyValueProto kv : kvList) {
+            kvEntries.add(KvProtoUtil.fromTsKvProto(kv));
+        }
+        TbMsgKvPayload kvPayload = new TbMsgKvPayload(kvEntries);
+        return newRuleEngineMsg(sessionInfo, (queueName, ruleChainId) ->
+                TbMsg.newMsgWithKvPayload(queueName, tbMsgType, deviceId, customerId, metaData, kvPayload, ruleChainId, null));
+    }
+
+    private TbMsg newRuleEngineMsg(TransportProtos.SessionInfoProto sessionInfo, BiFunction<String, RuleChainId, TbMsg> msgFactory) {
         DeviceProfileId deviceProfileId = new DeviceProfileId(new UUID(sessionInfo.getDeviceProfileIdMSB(), sessionInfo.getDeviceProfileIdLSB()));
         DeviceProfile deviceProfile = deviceProfileCache.get(deviceProfileId);
         RuleChainId ruleChainId;
@@ -1128,9 +1242,7 @@ public class DefaultTransportService extends TransportActivityManager implements
             queueName = deviceProfile.getDefaultQueueName();
         }
 
-        TbMsg tbMsg = TbMsg.newMsg(queueName, tbMsgType, deviceId, customerId, metaData, gson.toJson(json), ruleChainId, null);
-        ruleEngineProducerService.sendToRuleEngine(ruleEngineMsgProducer, tenantId, tbMsg, new StatsCallback(callback, ruleEngineProducerStats));
-        ruleEngineProducerStats.incrementTotal();
+        return msgFactory.apply(queueName, ruleChainId);
     }
 
     private class TransportTbQueueCallback implements TbQueueCallback {
@@ -1197,6 +1309,66 @@ public class DefaultTransportService extends TransportActivityManager implements
         }
     }
 
+    /**
+     * Completes the telemetry of a gateway packet: notifies the callback once, after the messages of all devices are in the queue,
+     * and reports the API usage of the whole packet per customer.
+     */
+    private class GatewayMsgPackCallback implements TbQueueCallback {
+        private final TenantId tenantId;
+        private final TransportServiceCallback<Void> callback;
+        private final Map<CustomerId, int[]> usage = new HashMap<>();
+        private final AtomicInteger msgCount = new AtomicInteger(1);
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        public GatewayMsgPackCallback(TenantId tenantId, TransportServiceCallback<Void> callback) {
+            this.tenantId = tenantId;
+            this.callback = callback;
+        }
+
+        void addDevice(CustomerId customerId, int dataPoints) {
+            int[] customerUsage = usage.computeIfAbsent(customerId, id -> new int[2]);
+            customerUsage[0]++;
+            customerUsage[1] += dataPoints;
+        }
+
+        void addMsgs(int msgCount) {
+            this.msgCount.addAndGet(msgCount);
+        }
+
+        void onAllSubmitted() {
+            onSuccess(null);
+        }
+
+        void onError(Throwable t) {
+            if (done.compareAndSet(false, true)) {
+                callback.onError(t);
+            }
+        }
+
+        @Override
+        public void onSuccess(TbQueueMsgMetadata metadata) {
+            if (msgCount.decrementAndGet() == 0) {
+                DefaultTransportService.this.transportCallbackExecutor.submit(() -> {
+                    try {
+                        usage.forEach((customerId, customerUsage) -> {
+                            apiUsageClient.report(tenantId, customerId, ApiUsageRecordKey.TRANSPORT_MSG_COUNT, customerUsage[0]);
+                            apiUsageClient.report(tenantId, customerId, ApiUsageRecordKey.TRANSPORT_DP_COUNT, customerUsage[1]);
+                        });
+                    } finally {
+                        if (done.compareAndSet(false, true)) {
+                            callback.onSuccess(null);
+                        }
+                    }
+                });
+            }
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+            DefaultTransportService.this.transportCallbackExecutor.submit(() -> onError(t));
+        }
+    }
+
     private class ApiStatsProxyCallback<T> implements TransportServiceCallback<T> {
         private final TenantId tenantId;
         private final CustomerId customerId;
@@ -0,0 +1,200 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.transport.service;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.cache.ota.OtaPackageDataCache;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.thingsboard.server.common.transport.service.DefaultTransportOtaPackageStore.LOAD_CHUNK_SIZE;
+import static org.thingsboard.server.common.transport.service.DefaultTransportOtaPackageStore.STORE_SUB_DIR;
+
+public class DefaultTransportOtaPackageStoreTest {
+
+    private static final String OTA_PACKAGE_ID = "8e6b4f10-0f2a-11ef-8c8a-2d8f3a3b1c01";
+    private static final byte[] DATA = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+
+    private OtaPackageDataCache otaPackageDataCache;
+    private DefaultTransportOtaPackageStore store;
+
+    @BeforeEach
+    public void setUp() {
+        otaPackageDataCache = mock(OtaPackageDataCache.class);
+        mockPackageData(DATA);
+        store = new DefaultTransportOtaPackageStore(otaPackageDataCache);
+        ReflectionTestUtils.setField(store, "maxSizeMb", 16L);
+        ReflectionTestUtils.setField(store, "expireAfterAccessSec", 60L);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        store.destroy();
+    }
+
+    @Test
+    public void testGetChunks() throws Exception {
+        store.init();
+
+        assertThat(toBytes(store.get(OTA_PACKAGE_ID, 4, 0))).containsExactly(0, 1, 2, 3);
+        assertThat(toBytes(store.get(OTA_PACKAGE_ID, 4, 1))).containsExactly(4, 5, 6, 7);
+        assertThat(toBytes(store.get(OTA_PACKAGE_ID, 4, 2))).containsExactly(8, 9);
+        assertThat(store.get(OTA_PACKAGE_ID, 4, 3).hasRemaining()).isFalse();
+        assertThat(toBytes(store.get(OTA_PACKAGE_ID, 0, 0))).containsExactly(DATA);
+
+        verify(otaPackageDataCache, times(1)).get(OTA_PACKAGE_ID, LOAD_CHUNK_SIZE, 0);
+        verify(otaPackageDataCache, never()).get(anyString());
+    }
+
+    @Test
+    public void testGetChunksFromMappedFile(@TempDir Path dir) throws Exception {
+        ReflectionTestUtils.setField(store, "storeDir", dir.toString());
+        store.init();
+
+        assertThat(toBytes(store.get(OTA_PACKAGE_ID, 3, 1))).containsExactly(3, 4, 5);
+        assertThat(dir.resolve(STORE_SUB_DIR).resolve(OTA_PACKAGE_ID)).hasSize(DATA.length);
+    }
+
+    @Test
+    public void testPackageLargerThanLoadChunkIsLoadedChunkByChunk() throws Exception {
+        byte[] data = newData(LOAD_CHUNK_SIZE * 2 + LOAD_CHUNK_SIZE / 2);
+        mockPackageData(data);
+        store.init();
+
+        ByteBuffer stored = store.get(OTA_PACKAGE_ID, 0, 0);
+
+        assertThat(stored.capacity()).isEqualTo(data.length);
+        assertThat(toBytes(stored)).isEqualTo(data);
+        verify(otaPackageDataCache, times(3)).get(eq(OTA_PACKAGE_ID), eq(LOAD_CHUNK_SIZE), anyInt());
+        verify(otaPackageDataCache, never()).get(anyString());
+    }
+
+    @Test
+    public void testPackageOfLoadChunkSizeIsLoadedToMappedFile(@TempDir Path dir) throws Exception {
+        byte[] data = newData(LOAD_CHUNK_SIZE);
+        mockPackageData(data);
+        ReflectionTestUtils.setField(store, "storeDir", dir.toString());
+        store.init();
+
+        assertThat(toBytes(store.get(OTA_PACKAGE_ID, 0, 0))).isEqualTo(data);
+        assertThat(dir.resolve(STORE_SUB_DIR).resolve(OTA_PACKAGE_ID)).hasSize(data.length);
+        assertThat(dir.resolve(STORE_SUB_DIR).resolve(OTA_PACKAGE_ID + ".tmp")).doesNotExist();
+    }
+
+    @Test
+    public void testInitDeletesOnlyPackageFiles(@TempDir Path dir) throws Exception {
+        Path storeDir = Files.createDirectories(dir.resolve(STORE_SUB_DIR));
+        Path otherFile = Files.writeString(dir.resolve("other.txt"), "other");
+        Path notPackageFile = Files.writeString(storeDir.resolve("notes.txt"), "notes");
+        Path packageFile = Files.write(storeDir.resolve(OTA_PACKAGE_ID), DATA);
+        Path tmpPackageFile = Files.write(storeDir.resolve(OTA_PACKAGE_ID + ".tmp"), DATA);
+        ReflectionTestUtils.setField(store, "storeDir", dir.toString());
+
+        store.init();
+
+        assertThat(otherFile).exists();
+        assertThat(notPackageFile).exists();
+        assertThat(packageFile).doesNotExist();
+        assertThat(tmpPackageFile).doesNotExist();
+    }
+
+    @Test
+    public void testPrefetchIsDeduplicated() throws Exception {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch canLoad = new CountDownLatch(1);
+        when(otaPackageDataCache.get(OTA_PACKAGE_ID, LOAD_CHUNK_SIZE, 0)).thenAnswer(invocation -> {
+            loadStarted.countDown();
+            canLoad.await(5, TimeUnit.SECONDS);
+            return DATA;
+        });
+        store.init();
+
+        ListenableFuture<Void> first = store.prefetch(OTA_PACKAGE_ID);
+        assertThat(loadStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        ListenableFuture<Void> second = store.prefetch(OTA_PACKAGE_ID);
+        assertThat(second).isSameAs(first);
+        assertThat(first.isDone()).isFalse();
+
+        canLoad.countDown();
+        first.get(5, TimeUnit.SECONDS);
+
+        assertThat(store.prefetch(OTA_PACKAGE_ID).isDone()).isTrue();
+        assertThat(toBytes(store.get(OTA_PACKAGE_ID, 0, 0))).containsExactly(DATA);
+        verify(otaPackageDataCache, times(1)).get(OTA_PACKAGE_ID, LOAD_CHUNK_SIZE, 0);
+    }
+
+    @Test
+    public void testChunksDoNotShareReadPosition() throws Exception {
+        store.init();
+
+        ByteBuffer first = store.get(OTA_PACKAGE_ID, 5, 0);
+        first.get(new byte[3]);
+
+        assertThat(toBytes(store.get(OTA_PACKAGE_ID, 5, 0))).containsExactly(0, 1, 2, 3, 4);
+        assertThat(first.isReadOnly()).isTrue();
+    }
+
+    @Test
+    public void testMissingPackage() throws Exception {
+        store.init();
+
+        assertThat(store.get("missing", 0, 0)).isNull();
+        assertThat(store.get("missing", 4, 0).hasRemaining()).isFalse();
+    }
+
+    private void mockPackageData(byte[] data) {
+        // the chunks are served the same way as the cache implementations do
+        when(otaPackageDataCache.get(eq(OTA_PACKAGE_ID), anyInt(), anyInt())).thenAnswer(invocation -> {
+            int chunkSize = invocation.getArgument(1);
+            int startIndex = chunkSize * (int) invocation.getArgument(2);
+            return startIndex < data.length ? Arrays.copyOfRange(data, startIndex, Math.min(data.length, startIndex + chunkSize)) : new byte[0];
+        });
+    }
+
+    private static byte[] newData(int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) i;
+        }
+        return data;
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+}
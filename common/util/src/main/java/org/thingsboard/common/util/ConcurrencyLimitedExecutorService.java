@@ -0,0 +1,145 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.common.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the tasks on the delegate executor, but not more than maxConcurrency of them at the same time.
+ * The rest of the tasks wait in the unbounded FIFO queue.
+ * Meant for the thread-per-task executors (e.g. virtual threads), that have no limit on their own.
+ * The queued tasks are still executed after {@link #shutdown()}; the delegate is shut down once the queue is drained.
+ */
+public class ConcurrencyLimitedExecutorService extends AbstractExecutorService {
+
+    private final ExecutorService delegate;
+    private final int maxConcurrency;
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger workers = new AtomicInteger();
+    private volatile boolean shutdown;
+
+    public ConcurrencyLimitedExecutorService(ExecutorService delegate, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Max concurrency must be positive: " + maxConcurrency);
+        }
+        this.delegate = delegate;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Executor is shut down");
+        }
+        tasks.add(task);
+        try {
+            tryStartWorker();
+        } catch (RejectedExecutionException e) {
+            // the delegate is shut down concurrently, the task won't be executed
+            tasks.remove(task);
+            throw e;
+        }
+    }
+
+    private void tryStartWorker() {
+        while (true) {
+            int current = workers.get();
+            if (current >= maxConcurrency || tasks.isEmpty()) {
+                return;
+            }
+            if (workers.compareAndSet(current, current + 1)) {
+                try {
+                    delegate.execute(this::runTasks);
+                } catch (RejectedExecutionException e) {
+                    workers.decrementAndGet();
+                    throw e;
+                }
+                return;
+            }
+        }
+    }
+
+    private void runTasks() {
+        try {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        } finally {
+            workers.decrementAndGet();
+            // a task may have been added after the last poll, but before the worker has finished
+            if (!tasks.isEmpty()) {
+                try {
+                    tryStartWorker();
+                } catch (RejectedExecutionException e) {
+                    // shutdownNow, the pending tasks are returned to the caller
+                }
+            }
+            tryTerminate();
+        }
+    }
+
+    private void tryTerminate() {
+        if (shutdown && workers.get() == 0 && tasks.isEmpty()) {
+            delegate.shutdown();
+        }
+    }
+
+    public int getQueueSize() {
+        return tasks.size();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        tryTerminate();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        List<Runnable> pending = new ArrayList<>();
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            pending.add(task);
+        }
+        delegate.shutdownNow();
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+
+}
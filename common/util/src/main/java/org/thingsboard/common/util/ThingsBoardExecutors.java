@@ -16,7 +16,9 @@
 package org.thingsboard.common.util;
 
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
 
 public class ThingsBoardExecutors {
 
@@ -48,4 +50,35 @@ public class ThingsBoardExecutors {
         return newWorkStealingPool(parallelism, clazz.getSimpleName());
     }
 
+    /**
+     * Creates an executor that runs each task on a new virtual thread, but not more than maxConcurrency tasks at the same time.
+     * Virtual threads are looked up reflectively, since the code is compiled for the Java release that does not have them.
+     *
+     * @param namePrefix used to define thread name
+     * @param maxConcurrency the maximum number of the tasks that run at the same time
+     * @return the newly created executor
+     * @throws UnsupportedOperationException if the current JVM does not support virtual threads
+     */
+    public static ExecutorService newVirtualThreadPool(String namePrefix, int maxConcurrency) {
+        ExecutorService executor;
+        try {
+            executor = (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, newVirtualThreadFactory(namePrefix));
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by the current JVM: " + Runtime.version(), e);
+        }
+        return new ConcurrencyLimitedExecutorService(executor, maxConcurrency);
+    }
+
+    public static boolean isVirtualThreadsSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    private static ThreadFactory newVirtualThreadFactory(String namePrefix) throws ReflectiveOperationException {
+        Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+        Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+        builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix + "-virtual-", 0L);
+        return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+    }
+
 }
@@ -0,0 +1,141 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.common.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ConcurrencyLimitedExecutorServiceTest {
+
+    private final ExecutorService delegate = Executors.newCachedThreadPool();
+    private ConcurrencyLimitedExecutorService executor;
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void givenMoreTasksThanLimit_whenExecute_thenConcurrencyDoesNotExceedLimit() throws InterruptedException {
+        executor = new ConcurrencyLimitedExecutorService(delegate, 3);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(100);
+        for (int i = 0; i < 100; i++) {
+            executor.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(maxRunning.get()).isBetween(1, 3);
+    }
+
+    @Test
+    public void givenFailingTask_whenExecute_thenNextTasksAreExecuted() throws InterruptedException {
+        executor = new ConcurrencyLimitedExecutorService(delegate, 1);
+        CountDownLatch done = new CountDownLatch(2);
+        executor.execute(() -> {
+            done.countDown();
+            throw new RuntimeException("test");
+        });
+        executor.execute(done::countDown);
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void givenBlockedWorkers_whenShutdownNow_thenReturnsPendingTasks() throws InterruptedException {
+        executor = new ConcurrencyLimitedExecutorService(delegate, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        executor.execute(() -> {});
+        executor.execute(() -> {});
+
+        List<Runnable> pending = executor.shutdownNow();
+
+        assertThat(pending).hasSize(2);
+        assertThat(executor.isShutdown()).isTrue();
+        assertThatThrownBy(() -> executor.execute(() -> {})).isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    public void givenQueuedTasks_whenShutdown_thenQueuedTasksAreExecutedBeforeTermination() throws InterruptedException {
+        executor = new ConcurrencyLimitedExecutorService(delegate, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executed = new AtomicInteger();
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 10; i++) {
+            executor.execute(executed::incrementAndGet);
+        }
+
+        executor.shutdown();
+
+        assertThat(executor.isShutdown()).isTrue();
+        assertThat(executor.isTerminated()).isFalse();
+        assertThatThrownBy(() -> executor.execute(() -> {})).isInstanceOf(RejectedExecutionException.class);
+        release.countDown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(executed.get()).isEqualTo(10);
+        assertThat(executor.getQueueSize()).isZero();
+    }
+
+    @Test
+    public void givenNoTasks_whenShutdown_thenTerminates() throws InterruptedException {
+        executor = new ConcurrencyLimitedExecutorService(delegate, 1);
+
+        executor.shutdown();
+
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(executor.isTerminated()).isTrue();
+    }
+
+}
@@ -26,6 +26,7 @@ import org.thingsboard.server.common.data.util.TbPair;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -37,6 +38,8 @@ public interface AttributesDao {
 
     List<AttributeKvEntry> find(TenantId tenantId, EntityId entityId, AttributeScope attributeScope, Collection<String> attributeKey);
 
+    Map<EntityId, List<AttributeKvEntry>> findByEntityIds(TenantId tenantId, Collection<EntityId> entityIds, AttributeScope attributeScope, Collection<String> attributeKeys);
+
     List<AttributeKvEntry> findAll(TenantId tenantId, EntityId entityId, AttributeScope attributeScope);
 
     ListenableFuture<Long> save(TenantId tenantId, EntityId entityId, AttributeScope attributeScope, AttributeKvEntry attribute);
@@ -33,6 +33,7 @@ import org.thingsboard.server.dao.service.Validator;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -69,6 +70,13 @@ public class BaseAttributesService implements AttributesService {
         return Futures.immediateFuture(attributesDao.find(tenantId, entityId, scope, attributeKeys));
     }
 
+    @Override
+    public ListenableFuture<Map<EntityId, List<AttributeKvEntry>>> findByEntityIds(TenantId tenantId, Collection<EntityId> entityIds, AttributeScope scope, Collection<String> attributeKeys) {
+        entityIds.forEach(entityId -> validate(entityId, scope));
+        attributeKeys.forEach(attributeKey -> Validator.validateString(attributeKey, k -> "Incorrect attribute key " + k));
+        return Futures.immediateFuture(attributesDao.findByEntityIds(tenantId, entityIds, scope, attributeKeys));
+    }
+
     @Override
     public ListenableFuture<List<AttributeKvEntry>> findAll(TenantId tenantId, EntityId entityId, AttributeScope scope) {
         validate(entityId, scope);
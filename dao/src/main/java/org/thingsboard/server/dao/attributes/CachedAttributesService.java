@@ -159,13 +159,15 @@ public class CachedAttributesService implements AttributesService {
                     return jpaExecutorService.submit(() -> {
                         log.trace("[{}][{}] Lookup attributes from db: {}", entityId, scope, notFoundAttributeKeys);
                         List<AttributeKvEntry> result = attributesDao.find(tenantId, entityId, scope, notFoundAttributeKeys);
+                        Map<AttributeCacheKey, AttributeKvEntry> toCache = new HashMap<>();
                         for (AttributeKvEntry foundInDbAttribute : result) {
-                            put(entityId, scope, foundInDbAttribute);
+                            toCache.put(new AttributeCacheKey(scope, entityId, foundInDbAttribute.getKey()), foundInDbAttribute);
                             notFoundAttributeKeys.remove(foundInDbAttribute.getKey());
                         }
                         for (String key : notFoundAttributeKeys) {
-                            cache.put(new AttributeCacheKey(scope, entityId, key), null);
+                            toCache.put(new AttributeCacheKey(scope, entityId, key), null);
                         }
+                        cache.putAll(toCache);
                         List<AttributeKvEntry> mergedAttributes = new ArrayList<>(cachedAttributes);
                         mergedAttributes.addAll(result);
                         log.trace("[{}][{}] Commit cache transaction: {}", entityId, scope, notFoundAttributeKeys);
@@ -176,17 +178,74 @@ public class CachedAttributesService implements AttributesService {
     }
 
     private Map<String, TbCacheValueWrapper<AttributeKvEntry>> findCachedAttributes(EntityId entityId, AttributeScope scope, Collection<String> attributeKeys) {
+        List<AttributeCacheKey> cacheKeys = attributeKeys.stream().map(key -> new AttributeCacheKey(scope, entityId, key)).collect(Collectors.toList());
+        Map<AttributeCacheKey, TbCacheValueWrapper<AttributeKvEntry>> cachedValues = cache.getAll(cacheKeys);
         Map<String, TbCacheValueWrapper<AttributeKvEntry>> cachedAttributes = new HashMap<>();
-        for (String attributeKey : attributeKeys) {
-            var cachedAttributeValue = cache.get(new AttributeCacheKey(scope, entityId, attributeKey));
-            if (cachedAttributeValue != null) {
-                hitCounter.increment();
-                cachedAttributes.put(attributeKey, cachedAttributeValue);
-            } else {
-                missCounter.increment();
+        cachedValues.forEach((cacheKey, cachedAttributeValue) -> cachedAttributes.put(cacheKey.getKey(), cachedAttributeValue));
+        hitCounter.add(cachedAttributes.size());
+        missCounter.add(attributeKeys.size() - cachedAttributes.size());
+        return cachedAttributes;
+    }
+
+    /**
+     * Reads the cached keys of all the entities at once; the missed ones are fetched from the DB with a single query and cached together.
+     */
+    @Override
+    public ListenableFuture<Map<EntityId, List<AttributeKvEntry>>> findByEntityIds(TenantId tenantId, Collection<EntityId> entityIds, AttributeScope scope, Collection<String> attributeKeysNonUnique) {
+        entityIds.forEach(entityId -> validate(entityId, scope));
+        final var attributeKeys = new LinkedHashSet<>(attributeKeysNonUnique);
+        attributeKeys.forEach(attributeKey -> Validator.validateString(attributeKey, k -> "Incorrect attribute key " + k));
+        List<AttributeCacheKey> cacheKeys = new ArrayList<>();
+        for (EntityId entityId : new LinkedHashSet<>(entityIds)) {
+            for (String attributeKey : attributeKeys) {
+                cacheKeys.add(new AttributeCacheKey(scope, entityId, attributeKey));
             }
         }
-        return cachedAttributes;
+
+        return Futures.transformAsync(cacheExecutor.submit(() -> cache.getAll(cacheKeys)), cachedValues -> {
+            hitCounter.add(cachedValues.size());
+            missCounter.add(cacheKeys.size() - cachedValues.size());
+            Map<EntityId, List<AttributeKvEntry>> result = new HashMap<>();
+            Set<EntityId> notFoundEntityIds = new LinkedHashSet<>();
+            Set<String> notFoundAttributeKeys = new LinkedHashSet<>();
+            for (AttributeCacheKey cacheKey : cacheKeys) {
+                TbCacheValueWrapper<AttributeKvEntry> cachedValue = cachedValues.get(cacheKey);
+                if (cachedValue == null) {
+                    notFoundEntityIds.add(cacheKey.getEntityId());
+                    notFoundAttributeKeys.add(cacheKey.getKey());
+                } else if (cachedValue.get() != null) {
+                    result.computeIfAbsent(cacheKey.getEntityId(), id -> new ArrayList<>()).add(cachedValue.get());
+                }
+            }
+            if (notFoundEntityIds.isEmpty()) {
+                log.trace("[{}][{}] Found all attributes from cache: {}", entityIds, scope, attributeKeys);
+                return Futures.immediateFuture(result);
+            }
+
+            // DB call should run in DB executor, not in cache-related executor
+            return jpaExecutorService.submit(() -> {
+                log.trace("[{}][{}] Lookup attributes from db: {}", notFoundEntityIds, scope, notFoundAttributeKeys);
+                Map<EntityId, List<AttributeKvEntry>> foundInDb = attributesDao.findByEntityIds(tenantId, notFoundEntityIds, scope, notFoundAttributeKeys);
+                Map<AttributeCacheKey, AttributeKvEntry> toCache = new HashMap<>();
+                for (AttributeCacheKey cacheKey : cacheKeys) {
+                    if (!cachedValues.containsKey(cacheKey)) {
+                        toCache.put(cacheKey, null);
+                    }
+                }
+                foundInDb.forEach((entityId, attributes) -> {
+                    for (AttributeKvEntry attribute : attributes) {
+                        AttributeCacheKey cacheKey = new AttributeCacheKey(scope, entityId, attribute.getKey());
+                        // the entities and keys missed in the cache are combined in one query, so some of the found attributes may be cached already
+                        if (toCache.containsKey(cacheKey)) {
+                            toCache.put(cacheKey, attribute);
+                            result.computeIfAbsent(entityId, id -> new ArrayList<>()).add(attribute);
+                        }
+                    }
+                });
+                cache.putAll(toCache);
+                return result;
+            });
+        }, MoreExecutors.directExecutor());
     }
 
     @Override
@@ -0,0 +1,49 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.cache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.thingsboard.server.cache.CaffeineTbTransactionalCache;
+import org.thingsboard.server.common.stats.DefaultCounter;
+import org.thingsboard.server.common.stats.StatsFactory;
+
+/**
+ * Exposes the number of contended lock acquisitions of the Caffeine transactional caches.
+ */
+@Component
+@ConditionalOnProperty(prefix = "cache", value = "type", havingValue = "caffeine", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class CaffeineCacheLockStats {
+
+    private final ObjectProvider<CaffeineTbTransactionalCache<?, ?>> caches;
+    private final StatsFactory statsFactory;
+
+    @PostConstruct
+    public void init() {
+        caches.orderedStream().forEach(cache -> {
+            DefaultCounter lockContentions = statsFactory.createDefaultCounter("cacheLockContentions", "cacheName", cache.getCacheName());
+            cache.setLockContentionListener(lockContentions::increment);
+            log.debug("[{}] Registered cache lock contention counter", cache.getCacheName());
+        });
+    }
+
+}
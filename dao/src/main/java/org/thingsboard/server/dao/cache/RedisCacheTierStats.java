@@ -0,0 +1,56 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.cache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.thingsboard.server.cache.RedisTbTransactionalCache;
+import org.thingsboard.server.cache.TbRedisNearCache;
+import org.thingsboard.server.common.stats.StatsFactory;
+
+/**
+ * Exposes the hits and misses of the Redis caches, separately for the local near cache tier and for Redis itself.
+ */
+@Component
+@ConditionalOnProperty(prefix = "cache", value = "type", havingValue = "redis")
+@RequiredArgsConstructor
+@Slf4j
+public class RedisCacheTierStats {
+
+    private final ObjectProvider<RedisTbTransactionalCache<?, ?>> caches;
+    private final StatsFactory statsFactory;
+
+    @PostConstruct
+    public void init() {
+        // the gauge values are held by the cache beans
+        caches.orderedStream().forEach(cache -> {
+            String cacheName = cache.getCacheName();
+            statsFactory.createGauge("cacheRemoteHits", cache.getRemoteHits(), "cacheName", cacheName);
+            statsFactory.createGauge("cacheRemoteMisses", cache.getRemoteMisses(), "cacheName", cacheName);
+            TbRedisNearCache<?> nearCache = cache.getNearCache();
+            if (nearCache != null) {
+                statsFactory.createGauge("cacheNearHits", nearCache.getHits(), "cacheName", cacheName);
+                statsFactory.createGauge("cacheNearMisses", nearCache.getMisses(), "cacheName", cacheName);
+            }
+            log.debug("[{}] Registered cache tier gauges", cacheName);
+        });
+    }
+
+}
@@ -21,6 +21,7 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
@@ -46,6 +47,7 @@ import org.thingsboard.server.common.data.relation.RelationEntityTypeFilter;
 import org.thingsboard.server.common.data.relation.RelationTypeGroup;
 import org.thingsboard.server.common.data.relation.RelationsSearchParameters;
 import org.thingsboard.server.common.data.rule.RuleChainType;
+import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.dao.entity.EntityService;
 import org.thingsboard.server.dao.eventsourcing.RelationActionEvent;
 import org.thingsboard.server.dao.exception.DataValidationException;
@@ -82,26 +84,35 @@ public class BaseRelationService implements RelationService {
     private final ApplicationEventPublisher eventPublisher;
     private final JpaExecutorService executor;
     private final JpaRelationQueryExecutorService relationsExecutor;
+
+    private final StatsFactory statsFactory;
     protected ScheduledExecutorService timeoutExecutorService;
+    private Timer batchQueryTimer;
 
     @Value("${sql.relations.query_timeout:20}")
     private Integer relationQueryTimeout;
+    @Value("${sql.relations.batch_size:1000}")
+    private int relationBatchSize;
+    @Value("${sql.relations.batch_cache_lookup:true}")
+    private boolean relationBatchCacheLookup;
 
     public BaseRelationService(RelationDao relationDao, @Lazy EntityService entityService,
                                TbTransactionalCache<RelationCacheKey, RelationCacheValue> cache,
                                ApplicationEventPublisher eventPublisher, JpaExecutorService executor,
-                               JpaRelationQueryExecutorService relationsExecutor) {
+                               JpaRelationQueryExecutorService relationsExecutor, StatsFactory statsFactory) {
         this.relationDao = relationDao;
         this.entityService = entityService;
         this.cache = cache;
         this.eventPublisher = eventPublisher;
         this.executor = executor;
         this.relationsExecutor = relationsExecutor;
+        this.statsFactory = statsFactory;
     }
 
     @PostConstruct
     public void init() {
         timeoutExecutorService = Executors.newSingleThreadScheduledExecutor(ThingsBoardThreadFactory.forName("relations-query-timeout"));
+        batchQueryTimer = statsFactory.createTimer("relationsBatchQuery");
     }
 
     @PreDestroy
@@ -574,43 +585,103 @@ public class BaseRelationService implements RelationService {
         private final List<EntityRelation> prevRelations;
     }
 
+    /**
+     * Breadth-first traversal that fetches the relations of the whole level at once.
+     */
     private void processQueue(RelationQueueCtx ctx) {
-        RelationTask task = ctx.tasks.poll();
-        while (task != null) {
-            List<EntityRelation> relations = findRelations(ctx.tenantId, task.root, ctx.direction, ctx.relationTypeGroup);
-            Map<EntityId, List<EntityRelation>> newChildrenRelations = new HashMap<>();
-            for (EntityRelation childRelation : relations) {
-                log.trace("Found Relation: {}", childRelation);
-                EntityId childId = ctx.direction == EntitySearchDirection.FROM ? childRelation.getTo() : childRelation.getFrom();
-                if (ctx.uniqueMap.putIfAbsent(childId, Boolean.TRUE) == null) {
-                    log.trace("Adding Relation: {}", childId);
-                    newChildrenRelations.put(childId, new ArrayList<>());
-                }
-                if (ctx.fetchLastLevelOnly) {
-                    var list = newChildrenRelations.get(childId);
-                    if (list != null) {
-                        list.add(childRelation);
-                    }
+        try {
+            List<RelationTask> levelTasks = pollTasks(ctx);
+            while (!levelTasks.isEmpty() && !ctx.future.isDone()) {
+                Map<EntityId, List<EntityRelation>> levelRelations = findRelations(ctx, levelTasks);
+                for (RelationTask task : levelTasks) {
+                    processTask(ctx, task, levelRelations.getOrDefault(task.root, Collections.emptyList()));
                 }
+                levelTasks = pollTasks(ctx);
+            }
+            ctx.future.set(ctx.result);
+        } catch (Throwable e) {
+            ctx.future.setException(e);
+        }
+    }
+
+    private void processTask(RelationQueueCtx ctx, RelationTask task, List<EntityRelation> relations) {
+        Map<EntityId, List<EntityRelation>> newChildrenRelations = new HashMap<>();
+        for (EntityRelation childRelation : relations) {
+            log.trace("Found Relation: {}", childRelation);
+            EntityId childId = ctx.direction == EntitySearchDirection.FROM ? childRelation.getTo() : childRelation.getFrom();
+            if (ctx.uniqueMap.putIfAbsent(childId, Boolean.TRUE) == null) {
+                log.trace("Adding Relation: {}", childId);
+                newChildrenRelations.put(childId, new ArrayList<>());
             }
             if (ctx.fetchLastLevelOnly) {
-                if (relations.isEmpty()) {
-                    ctx.result.addAll(task.prevRelations);
-                } else if (task.currentLvl == ctx.maxLvl) {
-                    ctx.result.addAll(relations);
+                var list = newChildrenRelations.get(childId);
+                if (list != null) {
+                    list.add(childRelation);
                 }
-            } else {
+            }
+        }
+        if (ctx.fetchLastLevelOnly) {
+            if (relations.isEmpty()) {
+                ctx.result.addAll(task.prevRelations);
+            } else if (task.currentLvl == ctx.maxLvl) {
                 ctx.result.addAll(relations);
             }
-            var finalTask = task;
-            newChildrenRelations.forEach((child, childRelations) -> {
-                var newLvl = finalTask.currentLvl + 1;
-                if (newLvl <= ctx.maxLvl)
-                    ctx.tasks.add(new RelationTask(newLvl, child, childRelations));
-            });
-            task = ctx.tasks.poll();
-        }
-        ctx.future.set(ctx.result);
+        } else {
+            ctx.result.addAll(relations);
+        }
+        newChildrenRelations.forEach((child, childRelations) -> {
+            var newLvl = task.currentLvl + 1;
+            if (newLvl <= ctx.maxLvl)
+                ctx.tasks.add(new RelationTask(newLvl, child, childRelations));
+        });
+    }
+
+    private static List<RelationTask> pollTasks(RelationQueueCtx ctx) {
+        List<RelationTask> tasks = new ArrayList<>();
+        RelationTask task;
+        while ((task = ctx.tasks.poll()) != null) {
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private Map<EntityId, List<EntityRelation>> findRelations(RelationQueueCtx ctx, List<RelationTask> tasks) {
+        RelationTypeGroup typeGroup = ctx.relationTypeGroup != null ? ctx.relationTypeGroup : RelationTypeGroup.COMMON;
+        if (tasks.size() == 1) {
+            EntityId root = tasks.get(0).root;
+            return Collections.singletonMap(root, findRelations(ctx.tenantId, root, ctx.direction, typeGroup));
+        }
+        Map<EntityId, List<EntityRelation>> result = new HashMap<>();
+        List<EntityId> notCached = new ArrayList<>(tasks.size());
+        for (RelationTask task : tasks) {
+            if (relationBatchCacheLookup) {
+                var cacheValue = cache.get(toCacheKey(task.root, ctx.direction, typeGroup));
+                if (cacheValue != null && cacheValue.get() != null) {
+                    result.put(task.root, cacheValue.get().getRelations());
+                    continue;
+                }
+            }
+            notCached.add(task.root);
+        }
+        // the batch results are not put to the cache, same as for the async requests
+        for (List<EntityId> batch : Lists.partition(notCached, relationBatchSize)) {
+            long startTs = System.nanoTime();
+            List<EntityRelation> relations = ctx.direction == EntitySearchDirection.FROM ?
+                    relationDao.findAllByFromIn(ctx.tenantId, batch, typeGroup) :
+                    relationDao.findAllByToIn(ctx.tenantId, batch, typeGroup);
+            batchQueryTimer.record(System.nanoTime() - startTs, TimeUnit.NANOSECONDS);
+            for (EntityRelation relation : relations) {
+                EntityId entityId = ctx.direction == EntitySearchDirection.FROM ? relation.getFrom() : relation.getTo();
+                result.computeIfAbsent(entityId, id -> new ArrayList<>()).add(relation);
+            }
+        }
+        return result;
+    }
+
+    private static RelationCacheKey toCacheKey(EntityId entityId, EntitySearchDirection direction, RelationTypeGroup typeGroup) {
+        return direction == EntitySearchDirection.FROM ?
+                RelationCacheKey.builder().from(entityId).typeGroup(typeGroup).direction(EntitySearchDirection.FROM).build() :
+                RelationCacheKey.builder().to(entityId).typeGroup(typeGroup).direction(EntitySearchDirection.TO).build();
     }
 
     private ListenableFuture<Set<EntityRelation>> findRelationsRecursively(final TenantId tenantId, final EntityId rootId, final EntitySearchDirection direction,
@@ -22,6 +22,7 @@ import org.thingsboard.server.common.data.relation.EntityRelation;
 import org.thingsboard.server.common.data.relation.RelationTypeGroup;
 import org.thingsboard.server.common.data.rule.RuleChainType;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -37,6 +38,16 @@ public interface RelationDao {
 
     List<EntityRelation> findAllByTo(TenantId tenantId, EntityId to, RelationTypeGroup typeGroup);
 
+    /**
+     * Finds the relations from any of the entities with a single query per entity type.
+     */
+    List<EntityRelation> findAllByFromIn(TenantId tenantId, Collection<EntityId> from, RelationTypeGroup typeGroup);
+
+    /**
+     * Finds the relations to any of the entities with a single query per entity type.
+     */
+    List<EntityRelation> findAllByToIn(TenantId tenantId, Collection<EntityId> to, RelationTypeGroup typeGroup);
+
     List<EntityRelation> findAllByTo(TenantId tenantId, EntityId to);
 
     List<EntityRelation> findAllByToAndType(TenantId tenantId, EntityId to, String relationType, RelationTypeGroup typeGroup);
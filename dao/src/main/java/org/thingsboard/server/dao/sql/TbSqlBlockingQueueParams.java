@@ -31,4 +31,10 @@ public class TbSqlBlockingQueueParams {
     private final String statsNamePrefix;
     private final boolean batchSortEnabled;
     private final boolean withResponse;
+    @Builder.Default
+    private final TbSqlQueueType queueType = TbSqlQueueType.BLOCKING;
+    // Parameters of the RING_BUFFER queue type
+    private final int capacity;
+    private final boolean rejectOnOverflow;
+    private final long batchTargetLatencyMs;
 }
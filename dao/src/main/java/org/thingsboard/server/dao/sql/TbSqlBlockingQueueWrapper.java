@@ -30,7 +30,7 @@ import java.util.function.Function;
 @Slf4j
 @Data
 public class TbSqlBlockingQueueWrapper<E, R> {
-    private final CopyOnWriteArrayList<TbSqlBlockingQueue<E, R>> queues = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<TbSqlQueue<E, R>> queues = new CopyOnWriteArrayList<>();
     private final TbSqlBlockingQueueParams params;
     private final Function<E, Integer> hashCodeFunction;
     private final int maxThreads;
@@ -51,7 +51,10 @@ public class TbSqlBlockingQueueWrapper<E, R> {
     public void init(ScheduledLogExecutorComponent logExecutor, Function<List<E>, List<R>> saveFunction, Comparator<E> batchUpdateComparator, Function<List<TbSqlQueueElement<E, R>>, List<TbSqlQueueElement<E, R>>> filter) {
         for (int i = 0; i < maxThreads; i++) {
             MessagesStats stats = statsFactory.createMessagesStats(params.getStatsNamePrefix() + ".queue." + i);
-            TbSqlBlockingQueue<E, R> queue = new TbSqlBlockingQueue<>(params, stats);
+            TbSqlQueue<E, R> queue = switch (params.getQueueType()) {
+                case BLOCKING -> new TbSqlBlockingQueue<>(params, stats);
+                case RING_BUFFER -> new TbSqlRingBufferQueue<>(params, stats);
+            };
             queues.add(queue);
             queue.init(logExecutor, saveFunction, batchUpdateComparator, filter, i);
         }
@@ -63,6 +66,6 @@ public class TbSqlBlockingQueueWrapper<E, R> {
     }
 
     public void destroy() {
-        queues.forEach(TbSqlBlockingQueue::destroy);
+        queues.forEach(TbSqlQueue::destroy);
     }
 }
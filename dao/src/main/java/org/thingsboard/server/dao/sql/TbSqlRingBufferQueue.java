@@ -0,0 +1,296 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+import org.thingsboard.server.common.stats.MessagesStats;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Bounded multi-producer single-consumer alternative to {@link TbSqlBlockingQueue}.
+ * <p>
+ * Elements are published into a pre-allocated ring (sequence per slot, as in the Vyukov bounded queue),
+ * so the queue never grows beyond its capacity. When the ring is full the producer is either rejected
+ * or parked until the consumer frees some space, depending on {@link TbSqlBlockingQueueParams#isRejectOnOverflow()}.
+ * The consumer flushes the batch as soon as it is full or the max delay since its first element has passed,
+ * without fixed sleeps, reuses the batch lists and, if the target batch latency is set, shrinks the batch
+ * when the database is slow and grows it back up to the configured batch size when it is fast again.
+ */
+@Slf4j
+public class TbSqlRingBufferQueue<E, R> implements TbSqlQueue<E, R> {
+
+    static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final long OVERFLOW_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final TbSqlBlockingQueueParams params;
+    private final MessagesStats stats;
+
+    private final int capacity;
+    private final int mask;
+    private final TbSqlQueueElement<E, R>[] buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    // Written by the consumer thread only
+    private volatile long head;
+
+    private final AtomicBoolean consumerParked = new AtomicBoolean();
+    private volatile int wakeUpThreshold = 1;
+    private volatile Thread consumer;
+    private volatile boolean stopped;
+
+    private final int minBatchSize;
+    private final long targetLatencyNanos;
+    private volatile int batchLimit;
+    private final AtomicInteger rejected = new AtomicInteger();
+
+    private ExecutorService executor;
+
+    @SuppressWarnings("unchecked")
+    public TbSqlRingBufferQueue(TbSqlBlockingQueueParams params, MessagesStats stats) {
+        this.params = params;
+        this.stats = stats;
+        this.capacity = roundUpToPowerOfTwo(Math.max(params.getCapacity() > 0 ? params.getCapacity() : DEFAULT_CAPACITY, params.getBatchSize()));
+        this.mask = capacity - 1;
+        this.buffer = new TbSqlQueueElement[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.minBatchSize = Math.max(1, params.getBatchSize() / 16);
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(params.getBatchTargetLatencyMs());
+        this.batchLimit = params.getBatchSize();
+    }
+
+    @Override
+    public void init(ScheduledLogExecutorComponent logExecutor, Function<List<E>, List<R>> saveFunction, Comparator<E> batchUpdateComparator, Function<List<TbSqlQueueElement<E, R>>, List<TbSqlQueueElement<E, R>>> filter, int index) {
+        executor = Executors.newSingleThreadExecutor(ThingsBoardThreadFactory.forName("sql-queue-" + index + "-" + params.getLogName().toLowerCase()));
+        executor.submit(() -> {
+            consumer = Thread.currentThread();
+            String logName = params.getLogName();
+            long maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(params.getMaxDelay());
+            Comparator<TbSqlQueueElement<E, R>> elementComparator = (o1, o2) -> batchUpdateComparator.compare(o1.getEntity(), o2.getEntity());
+            final List<TbSqlQueueElement<E, R>> batch = new ArrayList<>(params.getBatchSize());
+            final List<TbSqlQueueElement<E, R>> filtered = new ArrayList<>(params.getBatchSize());
+            final List<E> entities = new ArrayList<>(params.getBatchSize());
+            long deadline = 0;
+            while (!stopped && !Thread.interrupted()) {
+                boolean wasEmpty = batch.isEmpty();
+                int limit = batchLimit;
+                drainTo(batch, limit - batch.size());
+                if (batch.isEmpty()) {
+                    park(maxDelayNanos, 1);
+                    continue;
+                }
+                long now = System.nanoTime();
+                if (wasEmpty) {
+                    deadline = now + maxDelayNanos;
+                }
+                if (batch.size() < limit && now - deadline < 0) {
+                    park(deadline - now, limit - batch.size());
+                    continue;
+                }
+                try {
+                    if (log.isDebugEnabled()) {
+                        log.debug("[{}] Going to save {} entities", logName, batch.size());
+                        log.trace("[{}] Going to save entities: {}", logName, batch);
+                    }
+                    List<TbSqlQueueElement<E, R>> entitiesToSave = filter.apply(batch);
+                    if (params.isBatchSortEnabled()) {
+                        if (entitiesToSave != batch) {
+                            filtered.addAll(entitiesToSave);
+                            entitiesToSave = filtered;
+                        }
+                        entitiesToSave.sort(elementComparator);
+                    }
+                    for (TbSqlQueueElement<E, R> element : entitiesToSave) {
+                        entities.add(element.getEntity());
+                    }
+
+                    long startNanos = System.nanoTime();
+                    List<R> result = saveFunction.apply(entities);
+                    adaptBatchLimit(batch.size(), limit, System.nanoTime() - startNanos);
+
+                    if (params.isWithResponse()) {
+                        for (int i = 0; i < entitiesToSave.size(); i++) {
+                            entitiesToSave.get(i).getFuture().set(result.get(i));
+                        }
+                    }
+                    // No-op for the futures that already have the result; completes the filtered out ones.
+                    for (TbSqlQueueElement<E, R> element : batch) {
+                        element.getFuture().set(null);
+                    }
+                    stats.incrementSuccessful(batch.size());
+                } catch (Throwable t) {
+                    log.error("[{}] Failed to save {} entities", logName, batch.size(), t);
+                    try {
+                        stats.incrementFailed(batch.size());
+                        batch.forEach(element -> element.getFuture().setException(t));
+                    } catch (Throwable th) {
+                        log.error("[{}] Failed to set future exception", logName, th);
+                    }
+                } finally {
+                    batch.clear();
+                    filtered.clear();
+                    entities.clear();
+                }
+            }
+            log.info("[{}] Queue polling completed", logName);
+        });
+
+        logExecutor.scheduleAtFixedRate(() -> {
+            int queueSize = size();
+            int rejectedCount = rejected.getAndSet(0);
+            if (queueSize > 0 || rejectedCount > 0 || stats.getTotal() > 0 || stats.getSuccessful() > 0 || stats.getFailed() > 0) {
+                log.info("Queue-{} [{}] queueSize [{}] totalAdded [{}] totalSaved [{}] totalFailed [{}] totalRejected [{}] batchSize [{}]", index,
+                        params.getLogName(), queueSize, stats.getTotal(), stats.getSuccessful(), stats.getFailed(), rejectedCount, batchLimit);
+                stats.reset();
+            }
+        }, params.getStatsPrintIntervalMs(), params.getStatsPrintIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        stopped = true;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public ListenableFuture<R> add(E element) {
+        SettableFuture<R> future = SettableFuture.create();
+        TbSqlQueueElement<E, R> queueElement = new TbSqlQueueElement<>(future, element);
+        if (!offer(queueElement) && (params.isRejectOnOverflow() || !awaitOffer(queueElement))) {
+            rejected.incrementAndGet();
+            future.setException(new RejectedExecutionException("[" + params.getLogName() + "] SQL queue is full, capacity: " + capacity));
+            return future;
+        }
+        stats.incrementTotal();
+        if (consumerParked.get() && size() >= wakeUpThreshold && consumerParked.compareAndSet(true, false)) {
+            LockSupport.unpark(consumer);
+        }
+        return future;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    int getBatchLimit() {
+        return batchLimit;
+    }
+
+    private boolean offer(TbSqlQueueElement<E, R> element) {
+        long pos = tail.get();
+        while (true) {
+            int idx = (int) pos & mask;
+            long diff = sequences.get(idx) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    buffer[idx] = element;
+                    sequences.lazySet(idx, pos + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false;
+            }
+            pos = tail.get();
+        }
+    }
+
+    /**
+     * Slows the producer down until the consumer frees some space in the ring.
+     */
+    private boolean awaitOffer(TbSqlQueueElement<E, R> element) {
+        Thread producer = Thread.currentThread();
+        while (!stopped && !producer.isInterrupted()) {
+            if (consumerParked.compareAndSet(true, false)) {
+                LockSupport.unpark(consumer);
+            }
+            LockSupport.parkNanos(this, OVERFLOW_PARK_NANOS);
+            if (offer(element)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void drainTo(List<TbSqlQueueElement<E, R>> batch, int maxElements) {
+        long pos = head;
+        for (int i = 0; i < maxElements; i++) {
+            int idx = (int) pos & mask;
+            if (sequences.get(idx) != pos + 1) {
+                break;
+            }
+            batch.add(buffer[idx]);
+            buffer[idx] = null;
+            sequences.lazySet(idx, pos + capacity);
+            pos++;
+        }
+        head = pos;
+    }
+
+    private void park(long nanos, int threshold) {
+        wakeUpThreshold = threshold;
+        consumerParked.set(true);
+        // Re-check after the flag is published, otherwise the wake-up of a concurrent producer may be lost.
+        if (size() < threshold) {
+            LockSupport.parkNanos(this, nanos);
+        }
+        consumerParked.set(false);
+    }
+
+    private void adaptBatchLimit(int saved, int limit, long latencyNanos) {
+        if (targetLatencyNanos <= 0) {
+            return;
+        }
+        if (latencyNanos > targetLatencyNanos) {
+            batchLimit = Math.max(minBatchSize, limit / 2);
+        } else if (saved >= limit && latencyNanos < targetLatencyNanos / 2) {
+            batchLimit = Math.min(params.getBatchSize(), limit + Math.max(1, params.getBatchSize() / 10));
+        }
+    }
+
+    private static int roundUpToPowerOfTwo(int value) {
+        if (value >= MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        // At least two slots: with a single one the published and the free sequences of the slot are the same
+        return value <= 2 ? 2 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+}
@@ -42,13 +42,18 @@ import org.thingsboard.server.dao.sql.JpaAbstractDaoListeningExecutorService;
 import org.thingsboard.server.dao.sql.ScheduledLogExecutorComponent;
 import org.thingsboard.server.dao.sql.TbSqlBlockingQueueParams;
 import org.thingsboard.server.dao.sql.TbSqlBlockingQueueWrapper;
+import org.thingsboard.server.dao.sql.TbSqlQueueType;
 import org.thingsboard.server.dao.util.SqlDao;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -87,6 +92,18 @@ public class JpaAttributeDao extends JpaAbstractDaoListeningExecutorService impl
     @Value("${sql.batch_sort:true}")
     private boolean batchSortEnabled;
 
+    @Value("${sql.batch_queue.type:BLOCKING}")
+    private TbSqlQueueType batchQueueType;
+
+    @Value("${sql.batch_queue.capacity:65536}")
+    private int batchQueueCapacity;
+
+    @Value("${sql.batch_queue.reject_on_overflow:false}")
+    private boolean batchQueueRejectOnOverflow;
+
+    @Value("${sql.batch_queue.batch_target_latency_ms:0}")
+    private long batchQueueTargetLatencyMs;
+
     private TbSqlBlockingQueueWrapper<AttributeKvEntity, Long> queue;
 
     @PostConstruct
@@ -99,6 +116,10 @@ public class JpaAttributeDao extends JpaAbstractDaoListeningExecutorService impl
                 .statsNamePrefix("attributes")
                 .batchSortEnabled(batchSortEnabled)
                 .withResponse(true)
+                .queueType(batchQueueType)
+                .capacity(batchQueueCapacity)
+                .rejectOnOverflow(batchQueueRejectOnOverflow)
+                .batchTargetLatencyMs(batchQueueTargetLatencyMs)
                 .build();
 
         Function<AttributeKvEntity, Integer> hashcodeFunction = entity -> entity.getId().getEntityId().hashCode();
@@ -143,6 +164,28 @@ public class JpaAttributeDao extends JpaAbstractDaoListeningExecutorService impl
         return DaoUtil.convertDataList(Lists.newArrayList(attributes));
     }
 
+    /**
+     * Reads the keys of all the entities with a single query.
+     */
+    @Override
+    public Map<EntityId, List<AttributeKvEntry>> findByEntityIds(TenantId tenantId, Collection<EntityId> entityIds, AttributeScope attributeScope, Collection<String> attributeKeys) {
+        if (entityIds.isEmpty() || attributeKeys.isEmpty()) {
+            return Map.of();
+        }
+        Map<UUID, EntityId> entityIdsByUuid = new HashMap<>();
+        entityIds.forEach(entityId -> entityIdsByUuid.put(entityId.getId(), entityId));
+        Set<Integer> keyIds = attributeKeys.stream().map(keyDictionaryDao::getOrSaveKeyId).collect(Collectors.toSet());
+        List<AttributeKvEntity> attributes = attributeKvRepository.findAllByEntityIdsAndAttributeTypeAndAttributeKeys(
+                entityIdsByUuid.keySet(), attributeScope.getId(), keyIds);
+        Map<EntityId, List<AttributeKvEntry>> result = new HashMap<>();
+        for (AttributeKvEntity attributeKvEntity : attributes) {
+            attributeKvEntity.setStrKey(keyDictionaryDao.getKey(attributeKvEntity.getId().getAttributeKey()));
+            result.computeIfAbsent(entityIdsByUuid.get(attributeKvEntity.getId().getEntityId()), id -> new ArrayList<>())
+                    .add(DaoUtil.getData(attributeKvEntity));
+        }
+        return result;
+    }
+
     @Override
     public List<AttributeKvEntry> findAll(TenantId tenantId, EntityId entityId, AttributeScope attributeScope) {
         List<AttributeKvEntity> attributes = attributeKvRepository.findAllByEntityIdAndAttributeType(
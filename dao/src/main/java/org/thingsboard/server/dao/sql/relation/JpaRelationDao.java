@@ -21,6 +21,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
+import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.EntityIdFactory;
 import org.thingsboard.server.common.data.id.TenantId;
@@ -36,8 +37,11 @@ import org.thingsboard.server.dao.util.SqlDao;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -99,6 +103,27 @@ public class JpaRelationDao extends JpaAbstractDaoListeningExecutorService imple
                         typeGroup.name()));
     }
 
+    @Override
+    public List<EntityRelation> findAllByFromIn(TenantId tenantId, Collection<EntityId> from, RelationTypeGroup typeGroup) {
+        List<EntityRelation> relations = new ArrayList<>();
+        groupIdsByType(from).forEach((fromType, fromIds) -> relations.addAll(DaoUtil.convertDataList(
+                relationRepository.findAllByRelationTypeGroupAndFromTypeAndFromIdIn(typeGroup.name(), fromType.name(), fromIds))));
+        return relations;
+    }
+
+    @Override
+    public List<EntityRelation> findAllByToIn(TenantId tenantId, Collection<EntityId> to, RelationTypeGroup typeGroup) {
+        List<EntityRelation> relations = new ArrayList<>();
+        groupIdsByType(to).forEach((toType, toIds) -> relations.addAll(DaoUtil.convertDataList(
+                relationRepository.findAllByRelationTypeGroupAndToTypeAndToIdIn(typeGroup.name(), toType.name(), toIds))));
+        return relations;
+    }
+
+    private static Map<EntityType, List<UUID>> groupIdsByType(Collection<EntityId> entityIds) {
+        return entityIds.stream().collect(Collectors.groupingBy(EntityId::getEntityType, () -> new EnumMap<>(EntityType.class),
+                Collectors.mapping(EntityId::getId, Collectors.toList())));
+    }
+
     @Override
     public List<EntityRelation> findAllByTo(TenantId tenantId, EntityId to, RelationTypeGroup typeGroup) {
         return DaoUtil.convertDataList(
@@ -26,6 +26,7 @@ import org.thingsboard.server.common.data.rule.RuleChainType;
 import org.thingsboard.server.dao.model.sql.RelationCompositeKey;
 import org.thingsboard.server.dao.model.sql.RelationEntity;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -49,6 +50,14 @@ public interface RelationRepository
                                                                     String toType,
                                                                     String relationTypeGroup);
 
+    List<RelationEntity> findAllByRelationTypeGroupAndFromTypeAndFromIdIn(String relationTypeGroup,
+                                                                          String fromType,
+                                                                          Collection<UUID> fromIds);
+
+    List<RelationEntity> findAllByRelationTypeGroupAndToTypeAndToIdIn(String relationTypeGroup,
+                                                                      String toType,
+                                                                      Collection<UUID> toIds);
+
     List<RelationEntity> findAllByToIdAndToTypeAndRelationTypeGroupIn(UUID toId,
                                                                       String toType,
                                                                       List<String> relationTypeGroups);
@@ -17,15 +17,18 @@ package org.thingsboard.server.dao.sqlts;
 
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort.Direction;
 import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.common.data.kv.AggregationParams;
 import org.thingsboard.server.common.data.kv.DeleteTsKvQuery;
 import org.thingsboard.server.common.data.kv.IntervalType;
 import org.thingsboard.server.common.data.kv.ReadTsKvQuery;
@@ -39,16 +42,22 @@ import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
 import org.thingsboard.server.dao.sql.TbSqlBlockingQueueParams;
 import org.thingsboard.server.dao.sql.TbSqlBlockingQueueWrapper;
 import org.thingsboard.server.dao.sqlts.insert.InsertTsRepository;
+import org.thingsboard.server.dao.sqlts.ts.TsKvAggregationRepository;
 import org.thingsboard.server.dao.sqlts.ts.TsKvRepository;
 import org.thingsboard.server.dao.timeseries.TimeseriesDao;
 import org.thingsboard.server.dao.util.TimeUtils;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @SuppressWarnings("UnstableApiUsage")
 @Slf4j
@@ -57,9 +66,15 @@ public abstract class AbstractChunkedAggregationTimeseriesDao extends AbstractSq
     @Autowired
     protected TsKvRepository tsKvRepository;
 
+    @Autowired
+    protected TsKvAggregationRepository tsKvAggregationRepository;
+
     @Autowired
     protected InsertTsRepository<TsKvEntity> insertRepository;
 
+    @Value("${sql.ts.bucketed_aggregation:true}")
+    protected boolean bucketedAggregationEnabled;
+
     protected TbSqlBlockingQueueWrapper<TsKvEntity, Void> tsQueue;
     @Autowired
     private StatsFactory statsFactory;
@@ -76,6 +91,10 @@ public abstract class AbstractChunkedAggregationTimeseriesDao extends AbstractSq
                 .statsPrintIntervalMs(tsStatsPrintIntervalMs)
                 .statsNamePrefix("ts")
                 .batchSortEnabled(batchSortEnabled)
+                .queueType(batchQueueType)
+                .capacity(batchQueueCapacity)
+                .rejectOnOverflow(batchQueueRejectOnOverflow)
+                .batchTargetLatencyMs(batchQueueTargetLatencyMs)
                 .build();
 
         Function<TsKvEntity, Integer> hashcodeFunction = entity -> entity.getEntityId().hashCode();
@@ -113,7 +132,33 @@ public abstract class AbstractChunkedAggregationTimeseriesDao extends AbstractSq
 
     @Override
     public ListenableFuture<List<ReadTsKvQueryResult>> findAllAsync(TenantId tenantId, EntityId entityId, List<ReadTsKvQuery> queries) {
-        return processFindAllAsync(tenantId, entityId, queries);
+        if (!bucketedAggregationEnabled) {
+            return processFindAllAsync(tenantId, entityId, queries);
+        }
+        List<ListenableFuture<ReadTsKvQueryResult>> futures = new ArrayList<>(queries.size());
+        Map<AggregationBuckets, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < queries.size(); i++) {
+            ReadTsKvQuery query = queries.get(i);
+            if (Aggregation.NONE.equals(query.getAggregation())) {
+                futures.add(Futures.immediateFuture(findAllAsyncWithLimit(entityId, query)));
+            } else {
+                futures.add(null);
+                groups.computeIfAbsent(AggregationBuckets.of(query), k -> new ArrayList<>()).add(i);
+            }
+        }
+        groups.values().forEach(queryIndexes -> {
+            List<ReadTsKvQuery> groupQueries = queryIndexes.stream().map(queries::get).collect(Collectors.toList());
+            List<ListenableFuture<ReadTsKvQueryResult>> groupFutures = findAllAndAggregateAsync(entityId, groupQueries);
+            for (int i = 0; i < queryIndexes.size(); i++) {
+                futures.set(queryIndexes.get(i), groupFutures.get(i));
+            }
+        });
+        return Futures.transform(Futures.allAsList(futures), results -> {
+            if (results == null || results.isEmpty()) {
+                return null;
+            }
+            return results.stream().filter(Objects::nonNull).collect(Collectors.toList());
+        }, service);
     }
 
     @Override
@@ -121,6 +166,8 @@ public abstract class AbstractChunkedAggregationTimeseriesDao extends AbstractSq
         var aggParams = query.getAggParameters();
         if (Aggregation.NONE.equals(aggParams.getAggregation())) {
             return Futures.immediateFuture(findAllAsyncWithLimit(entityId, query));
+        } else if (bucketedAggregationEnabled) {
+            return findAllAndAggregateAsync(entityId, List.of(query)).get(0);
         } else {
             List<ListenableFuture<Optional<TsKvEntity>>> futures = new ArrayList<>();
             var intervalType = aggParams.getIntervalType();
@@ -144,6 +191,79 @@ public abstract class AbstractChunkedAggregationTimeseriesDao extends AbstractSq
         }
     }
 
+    /*
+     * Aggregates all buckets of the given queries with one SQL statement.
+     * The queries are expected to share the same time range and aggregation parameters.
+     * */
+    private List<ListenableFuture<ReadTsKvQueryResult>> findAllAndAggregateAsync(EntityId entityId, List<ReadTsKvQuery> queries) {
+        ListenableFuture<List<List<Optional<? extends AbstractTsKvEntity>>>> aggregated = service.submit(() -> findAllAndAggregate(entityId, queries));
+        List<ListenableFuture<ReadTsKvQueryResult>> futures = new ArrayList<>(queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            int queryIdx = i;
+            futures.add(getReadTsKvQueryResultFuture(queries.get(i), Futures.transform(aggregated, data -> data.get(queryIdx), MoreExecutors.directExecutor())));
+        }
+        return futures;
+    }
+
+    List<List<Optional<? extends AbstractTsKvEntity>>> findAllAndAggregate(EntityId entityId, List<ReadTsKvQuery> queries) {
+        ReadTsKvQuery firstQuery = queries.get(0);
+        AggregationParams aggParams = firstQuery.getAggParameters();
+        long startTs = firstQuery.getStartTs();
+        long endTs = Math.max(startTs + 1, firstQuery.getEndTs());
+
+        List<List<Optional<? extends AbstractTsKvEntity>>> result = new ArrayList<>(queries.size());
+        Map<Integer, List<Integer>> queryIndexesByKeyId = new HashMap<>();
+        Map<Integer, String> keysById = new HashMap<>();
+        for (int i = 0; i < queries.size(); i++) {
+            String key = queries.get(i).getKey();
+            Integer keyId = keyDictionaryDao.getOrSaveKeyId(key);
+            keysById.put(keyId, key);
+            queryIndexesByKeyId.computeIfAbsent(keyId, k -> new ArrayList<>()).add(i);
+            result.add(new ArrayList<>());
+        }
+
+        TsKvAggregationRepository.AggregatedBucketCallback callback;
+        if (IntervalType.MILLISECONDS.equals(aggParams.getIntervalType())) {
+            long interval = aggParams.getInterval();
+            callback = (keyId, bucketIdx, entity) -> {
+                long bucketStartTs = startTs + bucketIdx * interval;
+                long bucketEndTs = Math.min(bucketStartTs + interval, endTs);
+                addBucket(entityId, keysById.get(keyId), bucketStartTs + (bucketEndTs - bucketStartTs) / 2, entity, queryIndexesByKeyId.get(keyId), result);
+            };
+            tsKvAggregationRepository.findAggregated(entityId.getId(), keysById.keySet(), startTs, endTs, interval, aggParams.getAggregation(), callback);
+        } else {
+            long[] boundaries = calculateBoundaries(startTs, endTs, aggParams);
+            callback = (keyId, bucketIdx, entity) -> {
+                long bucketStartTs = boundaries[bucketIdx];
+                long bucketEndTs = boundaries[bucketIdx + 1];
+                addBucket(entityId, keysById.get(keyId), bucketStartTs + (bucketEndTs - bucketStartTs) / 2, entity, queryIndexesByKeyId.get(keyId), result);
+            };
+            tsKvAggregationRepository.findAggregated(entityId.getId(), keysById.keySet(), boundaries, aggParams.getAggregation(), callback);
+        }
+        return result;
+    }
+
+    private static void addBucket(EntityId entityId, String key, long ts, TsKvEntity entity,
+                                  List<Integer> queryIndexes, List<List<Optional<? extends AbstractTsKvEntity>>> result) {
+        if (entity != null && entity.isNotEmpty()) {
+            entity.setEntityId(entityId.getId());
+            entity.setStrKey(key);
+            entity.setTs(ts);
+            queryIndexes.forEach(queryIdx -> result.get(queryIdx).add(Optional.of(entity)));
+        }
+    }
+
+    private static long[] calculateBoundaries(long startTs, long endTs, AggregationParams aggParams) {
+        List<Long> boundaries = new ArrayList<>();
+        long startPeriod = startTs;
+        boundaries.add(startPeriod);
+        while (startPeriod < endTs) {
+            startPeriod = Math.min(TimeUtils.calculateIntervalEnd(startPeriod, aggParams.getIntervalType(), aggParams.getTzId()), endTs);
+            boundaries.add(startPeriod);
+        }
+        return boundaries.stream().mapToLong(Long::longValue).toArray();
+    }
+
     private ReadTsKvQueryResult findAllAsyncWithLimit(EntityId entityId, ReadTsKvQuery query) {
         Integer keyId = keyDictionaryDao.getOrSaveKeyId(query.getKey());
         List<TsKvEntity> tsKvEntities = tsKvRepository.findAllWithLimit(
@@ -199,4 +319,13 @@ public abstract class AbstractChunkedAggregationTimeseriesDao extends AbstractSq
                 throw new IllegalArgumentException("Not supported aggregation type: " + aggregation);
         }
     }
+
+    private record AggregationBuckets(long startTs, long endTs, AggregationParams aggParams) {
+
+        static AggregationBuckets of(ReadTsKvQuery query) {
+            return new AggregationBuckets(query.getStartTs(), query.getEndTs(), query.getAggParameters());
+        }
+
+    }
+
 }
@@ -29,6 +29,7 @@ import org.thingsboard.server.common.data.kv.ReadTsKvQueryResult;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
 import org.thingsboard.server.dao.model.ModelConstants;
 import org.thingsboard.server.dao.sql.ScheduledLogExecutorComponent;
+import org.thingsboard.server.dao.sql.TbSqlQueueType;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -66,6 +67,18 @@ public abstract class AbstractSqlTimeseriesDao extends BaseAbstractSqlTimeseries
     @Value("${sql.batch_sort:true}")
     protected boolean batchSortEnabled;
 
+    @Value("${sql.batch_queue.type:BLOCKING}")
+    protected TbSqlQueueType batchQueueType;
+
+    @Value("${sql.batch_queue.capacity:65536}")
+    protected int batchQueueCapacity;
+
+    @Value("${sql.batch_queue.reject_on_overflow:false}")
+    protected boolean batchQueueRejectOnOverflow;
+
+    @Value("${sql.batch_queue.batch_target_latency_ms:0}")
+    protected long batchQueueTargetLatencyMs;
+
     @Value("${sql.ttl.ts.ts_key_value_ttl:0}")
     private long systemTtl;
 
@@ -40,8 +40,16 @@ import org.thingsboard.server.dao.timeseries.TimeseriesLatestDao;
 import org.thingsboard.server.dao.timeseries.TsLatestCacheKey;
 import org.thingsboard.server.dao.util.SqlTsLatestAnyDaoCachedRedis;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Component
@@ -152,6 +160,87 @@ public class CachedRedisSqlTimeseriesLatestDao extends BaseAbstractSqlTimeseries
         }, MoreExecutors.directExecutor());
     }
 
+    /**
+     * Reads the cached keys with a single pipelined request; the missed keys are fetched from the DB and cached together.
+     */
+    @Override
+    public ListenableFuture<List<TsKvEntry>> findLatest(TenantId tenantId, EntityId entityId, Collection<String> keys) {
+        List<String> keyList = new ArrayList<>(keys);
+        ListenableFuture<Map<TsLatestCacheKey, TbCacheValueWrapper<TsKvEntry>>> cacheFuture = cacheExecutorService.submit(() ->
+                cache.getAll(keyList.stream().map(key -> new TsLatestCacheKey(entityId, key)).distinct().collect(Collectors.toList())));
+
+        return Futures.transformAsync(cacheFuture, cachedValues -> {
+            Map<TsLatestCacheKey, ListenableFuture<Optional<TsKvEntry>>> daoFutures = new LinkedHashMap<>();
+            List<ListenableFuture<TsKvEntry>> futures = new ArrayList<>(keyList.size());
+            for (String key : keyList) {
+                TsLatestCacheKey cacheKey = new TsLatestCacheKey(entityId, key);
+                TbCacheValueWrapper<TsKvEntry> cacheValueWrap = cachedValues.get(cacheKey);
+                if (cacheValueWrap != null) {
+                    log.debug("findLatest cache hit [{}][{}][{}]", entityId, key, cacheValueWrap.get());
+                    futures.add(Futures.immediateFuture(sqlDao.wrapNullTsKvEntry(key, cacheValueWrap.get())));
+                } else {
+                    log.debug("findLatest cache miss [{}][{}]", entityId, key);
+                    var daoFuture = daoFutures.computeIfAbsent(cacheKey, k -> sqlDao.findLatestOpt(tenantId, entityId, key));
+                    futures.add(Futures.transform(daoFuture, daoValue -> sqlDao.wrapNullTsKvEntry(key, daoValue.orElse(null)), MoreExecutors.directExecutor()));
+                }
+            }
+            if (!daoFutures.isEmpty()) {
+                Futures.whenAllSucceed(daoFutures.values()).run(() -> {
+                    Map<TsLatestCacheKey, TsKvEntry> toCache = new HashMap<>();
+                    daoFutures.forEach((cacheKey, daoFuture) -> toCache.put(cacheKey, Futures.getUnchecked(daoFuture).orElse(null)));
+                    cache.putAll(toCache);
+                }, cacheExecutorService);
+            }
+            return Futures.allAsList(futures);
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Reads the cached keys of all the entities with a single pipelined request; the missed ones are fetched from the DB with a single query and cached together.
+     */
+    @Override
+    public ListenableFuture<Map<EntityId, List<TsKvEntry>>> findLatestByEntityIds(TenantId tenantId, Collection<EntityId> entityIds, Collection<String> keys) {
+        List<TsLatestCacheKey> cacheKeys = new ArrayList<>();
+        for (EntityId entityId : entityIds) {
+            for (String key : keys) {
+                cacheKeys.add(new TsLatestCacheKey(entityId, key));
+            }
+        }
+        ListenableFuture<Map<TsLatestCacheKey, TbCacheValueWrapper<TsKvEntry>>> cacheFuture = cacheExecutorService.submit(() ->
+                cache.getAll(cacheKeys.stream().distinct().collect(Collectors.toList())));
+
+        return Futures.transformAsync(cacheFuture, cachedValues -> {
+            Set<EntityId> missedEntityIds = new LinkedHashSet<>();
+            Set<String> missedKeys = new LinkedHashSet<>();
+            for (TsLatestCacheKey cacheKey : cacheKeys) {
+                if (!cachedValues.containsKey(cacheKey)) {
+                    missedEntityIds.add(cacheKey.getEntityId());
+                    missedKeys.add(cacheKey.getKey());
+                }
+            }
+            log.debug("findLatestByEntityIds cache hits [{}], misses [{}][{}]", cachedValues.size(), missedEntityIds, missedKeys);
+            return Futures.transform(sqlDao.findLatestPresent(tenantId, missedEntityIds, missedKeys), daoValues -> {
+                Map<TsLatestCacheKey, TsKvEntry> toCache = new HashMap<>();
+                Map<EntityId, List<TsKvEntry>> result = new HashMap<>();
+                for (TsLatestCacheKey cacheKey : cacheKeys) {
+                    TbCacheValueWrapper<TsKvEntry> cacheValueWrap = cachedValues.get(cacheKey);
+                    TsKvEntry entry;
+                    if (cacheValueWrap != null) {
+                        entry = cacheValueWrap.get();
+                    } else {
+                        entry = daoValues.getOrDefault(cacheKey.getEntityId(), Map.of()).get(cacheKey.getKey());
+                        toCache.put(cacheKey, entry);
+                    }
+                    result.computeIfAbsent(cacheKey.getEntityId(), id -> new ArrayList<>()).add(sqlDao.wrapNullTsKvEntry(cacheKey.getKey(), entry));
+                }
+                if (!toCache.isEmpty()) {
+                    cache.putAll(toCache);
+                }
+                return result;
+            }, cacheExecutorService);
+        }, MoreExecutors.directExecutor());
+    }
+
     @Override
     public ListenableFuture<List<TsKvEntry>> findAllLatest(TenantId tenantId, EntityId entityId) {
         return sqlDao.findAllLatest(tenantId, entityId);
@@ -47,6 +47,7 @@ import org.thingsboard.server.dao.sql.ScheduledLogExecutorComponent;
 import org.thingsboard.server.dao.sql.TbSqlBlockingQueueParams;
 import org.thingsboard.server.dao.sql.TbSqlBlockingQueueWrapper;
 import org.thingsboard.server.dao.sql.TbSqlQueueElement;
+import org.thingsboard.server.dao.sql.TbSqlQueueType;
 import org.thingsboard.server.dao.sqlts.insert.latest.InsertLatestTsRepository;
 import org.thingsboard.server.dao.sqlts.latest.SearchTsKvLatestRepository;
 import org.thingsboard.server.dao.sqlts.latest.TsKvLatestRepository;
@@ -54,11 +55,13 @@ import org.thingsboard.server.dao.timeseries.TimeseriesLatestDao;
 import org.thingsboard.server.dao.util.SqlTsLatestAnyDao;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -99,6 +102,18 @@ public class SqlTimeseriesLatestDao extends BaseAbstractSqlTimeseriesDao impleme
     @Value("${sql.batch_sort:true}")
     protected boolean batchSortEnabled;
 
+    @Value("${sql.batch_queue.type:BLOCKING}")
+    private TbSqlQueueType batchQueueType;
+
+    @Value("${sql.batch_queue.capacity:65536}")
+    private int batchQueueCapacity;
+
+    @Value("${sql.batch_queue.reject_on_overflow:false}")
+    private boolean batchQueueRejectOnOverflow;
+
+    @Value("${sql.batch_queue.batch_target_latency_ms:0}")
+    private long batchQueueTargetLatencyMs;
+
     @Autowired
     protected ScheduledLogExecutorComponent logExecutor;
 
@@ -118,6 +133,10 @@ public class SqlTimeseriesLatestDao extends BaseAbstractSqlTimeseriesDao impleme
                 .statsNamePrefix("ts.latest")
                 .batchSortEnabled(batchSortEnabled)
                 .withResponse(true)
+                .queueType(batchQueueType)
+                .capacity(batchQueueCapacity)
+                .rejectOnOverflow(batchQueueRejectOnOverflow)
+                .batchTargetLatencyMs(batchQueueTargetLatencyMs)
                 .build();
 
         java.util.function.Function<TsKvLatestEntity, Integer> hashcodeFunction = entity -> entity.getEntityId().hashCode();
@@ -166,6 +185,36 @@ public class SqlTimeseriesLatestDao extends BaseAbstractSqlTimeseriesDao impleme
         return service.submit(() -> wrapNullTsKvEntry(key, doFindLatestSync(entityId, key)));
     }
 
+    /**
+     * Reads the keys of all the entities with a single query.
+     */
+    @Override
+    public ListenableFuture<Map<EntityId, List<TsKvEntry>>> findLatestByEntityIds(TenantId tenantId, Collection<EntityId> entityIds, Collection<String> keys) {
+        return Futures.transform(findLatestPresent(tenantId, entityIds, keys), found -> {
+            Map<EntityId, List<TsKvEntry>> result = new HashMap<>();
+            for (EntityId entityId : entityIds) {
+                Map<String, TsKvEntry> entries = found.getOrDefault(entityId, Map.of());
+                List<TsKvEntry> latest = new ArrayList<>(keys.size());
+                for (String key : keys) {
+                    latest.add(wrapNullTsKvEntry(key, entries.get(key)));
+                }
+                result.put(entityId, latest);
+            }
+            return result;
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Returns the entries present in the DB by entity and key, reading the keys of all the entities with a single query.
+     */
+    public ListenableFuture<Map<EntityId, Map<String, TsKvEntry>>> findLatestPresent(TenantId tenantId, Collection<EntityId> entityIds, Collection<String> keys) {
+        log.trace("findLatestPresent [{}][{}][{}]", tenantId, entityIds, keys);
+        if (entityIds.isEmpty() || keys.isEmpty()) {
+            return Futures.immediateFuture(Map.of());
+        }
+        return service.submit(() -> doFindLatestSync(entityIds, keys));
+    }
+
     @Override
     public ListenableFuture<List<TsKvEntry>> findAllLatest(TenantId tenantId, EntityId entityId) {
         return getFindAllLatestFuture(entityId);
@@ -222,6 +271,19 @@ public class SqlTimeseriesLatestDao extends BaseAbstractSqlTimeseriesDao impleme
         }
     }
 
+    protected Map<EntityId, Map<String, TsKvEntry>> doFindLatestSync(Collection<EntityId> entityIds, Collection<String> keys) {
+        Map<UUID, EntityId> entityIdsByUuid = new HashMap<>();
+        entityIds.forEach(entityId -> entityIdsByUuid.put(entityId.getId(), entityId));
+        Set<Integer> keyIds = keys.stream().map(keyDictionaryDao::getOrSaveKeyId).collect(Collectors.toSet());
+        Map<EntityId, Map<String, TsKvEntry>> result = new HashMap<>();
+        for (TsKvLatestEntity tsKvLatestEntity : tsKvLatestRepository.findAllByEntityIdsAndKeys(entityIdsByUuid.keySet(), keyIds)) {
+            tsKvLatestEntity.setStrKey(keyDictionaryDao.getKey(tsKvLatestEntity.getKey()));
+            result.computeIfAbsent(entityIdsByUuid.get(tsKvLatestEntity.getEntityId()), id -> new HashMap<>())
+                    .put(tsKvLatestEntity.getStrKey(), DaoUtil.getData(tsKvLatestEntity));
+        }
+        return result;
+    }
+
     protected ListenableFuture<TsKvLatestRemovingResult> getRemoveLatestFuture(TenantId tenantId, EntityId entityId, DeleteTsKvQuery query) {
         ListenableFuture<TsKvEntry> latestFuture = service.submit(() -> doFindLatestSync(entityId, query.getKey()));
         return Futures.transformAsync(latestFuture, latest -> {
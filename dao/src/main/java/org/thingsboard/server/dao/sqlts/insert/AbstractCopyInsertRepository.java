@@ -0,0 +1,119 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.insert;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.thingsboard.server.dao.model.sql.AbstractTsKvEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Streams the batch through the PostgreSQL COPY protocol into a session-local staging table
+ * and lets the implementation merge it into the target table with a single set-based statement.
+ * The staging table is temporary, so it is not WAL-logged, and its rows are dropped on commit.
+ * The implementation must deduplicate the batch by the conflict key before the copy,
+ * since the merge statement can't affect the same row twice.
+ */
+public abstract class AbstractCopyInsertRepository<T extends AbstractTsKvEntity> extends AbstractInsertRepository {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final String createStagingTableQuery;
+    private final String copyQuery;
+
+    protected AbstractCopyInsertRepository(String stagingTable) {
+        this.createStagingTableQuery = "CREATE TEMP TABLE IF NOT EXISTS " + stagingTable + " (entity_id uuid, key int, ts bigint, " +
+                "bool_v boolean, str_v varchar, long_v bigint, dbl_v double precision, json_v json) ON COMMIT DELETE ROWS";
+        this.copyQuery = "COPY " + stagingTable + " (entity_id, key, ts, bool_v, str_v, long_v, dbl_v, json_v) FROM STDIN WITH (FORMAT csv)";
+    }
+
+    /**
+     * Must be called within the transaction, otherwise the staged rows are deleted before they are merged.
+     */
+    protected void copyToStagingTable(Connection connection, List<T> entities) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(createStagingTableQuery);
+        }
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copyQuery);
+        try {
+            StringBuilder rows = new StringBuilder(COPY_BUFFER_SIZE + 1024);
+            for (T entity : entities) {
+                appendRow(rows, entity);
+                if (rows.length() >= COPY_BUFFER_SIZE) {
+                    writeToCopy(copyIn, rows);
+                }
+            }
+            writeToCopy(copyIn, rows);
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private void appendRow(StringBuilder rows, T entity) {
+        rows.append(entity.getEntityId()).append(',')
+                .append(entity.getKey()).append(',')
+                .append(entity.getTs()).append(',');
+        if (entity.getBooleanValue() != null) {
+            rows.append(entity.getBooleanValue() ? 't' : 'f');
+        }
+        rows.append(',');
+        appendQuoted(rows, replaceNullChars(entity.getStrValue()));
+        rows.append(',');
+        if (entity.getLongValue() != null) {
+            rows.append(entity.getLongValue().longValue());
+        }
+        rows.append(',');
+        if (entity.getDoubleValue() != null) {
+            rows.append(entity.getDoubleValue().doubleValue());
+        }
+        rows.append(',');
+        appendQuoted(rows, replaceNullChars(entity.getJsonValue()));
+        rows.append('\n');
+    }
+
+    // Unquoted empty value is NULL in the CSV format, quoted one is an empty string
+    private static void appendQuoted(StringBuilder rows, String value) {
+        if (value == null) {
+            return;
+        }
+        rows.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                rows.append('"');
+            }
+            rows.append(c);
+        }
+        rows.append('"');
+    }
+
+    private static void writeToCopy(CopyIn copyIn, StringBuilder rows) throws SQLException {
+        if (rows.length() > 0) {
+            byte[] bytes = rows.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            rows.setLength(0);
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.insert.latest.sql;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.thingsboard.server.dao.model.sqlts.latest.TsKvLatestEntity;
+import org.thingsboard.server.dao.sqlts.insert.AbstractCopyInsertRepository;
+import org.thingsboard.server.dao.sqlts.insert.latest.InsertLatestTsRepository;
+import org.thingsboard.server.dao.util.SqlDao;
+import org.thingsboard.server.dao.util.SqlTsLatestAnyDao;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@SqlTsLatestAnyDao
+@Repository
+@Transactional
+@SqlDao
+@ConditionalOnProperty(prefix = "sql.ts_latest", value = "copy_insert_enabled", havingValue = "true")
+public class SqlCopyLatestInsertTsRepository extends AbstractCopyInsertRepository<TsKvLatestEntity> implements InsertLatestTsRepository {
+
+    @Value("${sql.ts_latest.update_by_latest_ts:true}")
+    private Boolean updateByLatestTs;
+
+    private static final String MERGE_FROM_STAGING =
+            "INSERT INTO ts_kv_latest (entity_id, key, ts, bool_v, str_v, long_v, dbl_v, json_v, version) " +
+                    "SELECT entity_id, key, ts, bool_v, str_v, long_v, dbl_v, json_v, nextval('ts_kv_latest_version_seq') FROM ts_kv_latest_staging " +
+                    "ON CONFLICT (entity_id, key) DO UPDATE SET ts = excluded.ts, bool_v = excluded.bool_v, str_v = excluded.str_v, " +
+                    "long_v = excluded.long_v, dbl_v = excluded.dbl_v, json_v = excluded.json_v, version = excluded.version";
+
+    private static final String BY_LATEST_TS = " WHERE ts_kv_latest.ts <= excluded.ts";
+
+    private static final String RETURNING = " RETURNING entity_id, key, version";
+
+    private String mergeQuery;
+
+    public SqlCopyLatestInsertTsRepository() {
+        super("ts_kv_latest_staging");
+    }
+
+    @PostConstruct
+    private void init() {
+        this.mergeQuery = updateByLatestTs ? MERGE_FROM_STAGING + BY_LATEST_TS + RETURNING : MERGE_FROM_STAGING + RETURNING;
+    }
+
+    /**
+     * Returns the version of the saved entries in the order of the entities.
+     * The version is null for the entries that were not saved because of the older timestamp or were overridden within the batch.
+     */
+    @Override
+    public List<Long> saveOrUpdate(List<TsKvLatestEntity> entities) {
+        Map<LatestKey, Integer> winners = deduplicate(entities);
+        List<TsKvLatestEntity> toCopy = new ArrayList<>(winners.size());
+        winners.values().forEach(i -> toCopy.add(entities.get(i)));
+        return jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            copyToStagingTable(connection, toCopy);
+            List<Long> result = new ArrayList<>(Collections.nCopies(entities.size(), null));
+            try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(mergeQuery)) {
+                while (rs.next()) {
+                    Integer idx = winners.get(new LatestKey(rs.getObject("entity_id", UUID.class), rs.getInt("key")));
+                    if (idx != null) {
+                        result.set(idx, rs.getLong("version"));
+                    }
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * ON CONFLICT can't affect the same row twice within one statement, so only one entry per key goes to the staging table:
+     * the one with the highest timestamp if the latest is updated by timestamp, otherwise the last one. The last one also wins on equal timestamps.
+     */
+    private Map<LatestKey, Integer> deduplicate(List<TsKvLatestEntity> entities) {
+        Map<LatestKey, Integer> winners = new LinkedHashMap<>();
+        for (int i = 0; i < entities.size(); i++) {
+            TsKvLatestEntity entity = entities.get(i);
+            int idx = i;
+            winners.merge(new LatestKey(entity.getEntityId(), entity.getKey()), i,
+                    (existing, current) -> updateByLatestTs && entities.get(existing).getTs() > entities.get(idx).getTs() ? existing : current);
+        }
+        return winners;
+    }
+
+    private record LatestKey(UUID entityId, int key) {
+    }
+
+}
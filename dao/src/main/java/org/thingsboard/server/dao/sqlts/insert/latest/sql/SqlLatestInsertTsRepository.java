@@ -17,6 +17,7 @@ package org.thingsboard.server.dao.sqlts.insert.latest.sql;
 
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import org.thingsboard.server.dao.AbstractVersionedInsertRepository;
@@ -34,6 +35,7 @@ import java.util.List;
 @Repository
 @Transactional
 @SqlDao
+@ConditionalOnProperty(prefix = "sql.ts_latest", value = "copy_insert_enabled", havingValue = "false", matchIfMissing = true)
 public class SqlLatestInsertTsRepository extends AbstractVersionedInsertRepository<TsKvLatestEntity> implements InsertLatestTsRepository {
 
     @Value("${sql.ts_latest.update_by_latest_ts:true}")
@@ -0,0 +1,74 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.insert.sql;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
+import org.thingsboard.server.dao.sqlts.insert.AbstractCopyInsertRepository;
+import org.thingsboard.server.dao.sqlts.insert.InsertTsRepository;
+import org.thingsboard.server.dao.util.SqlTsDao;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@SqlTsDao
+@Repository
+@Transactional
+@ConditionalOnProperty(prefix = "sql.ts", value = "copy_insert_enabled", havingValue = "true")
+public class SqlCopyInsertTsRepository extends AbstractCopyInsertRepository<TsKvEntity> implements InsertTsRepository<TsKvEntity> {
+
+    private static final String MERGE_FROM_STAGING = "INSERT INTO ts_kv (entity_id, key, ts, bool_v, str_v, long_v, dbl_v, json_v) " +
+            "SELECT entity_id, key, ts, bool_v, str_v, long_v, dbl_v, json_v FROM ts_kv_staging " +
+            "ON CONFLICT (entity_id, key, ts) DO UPDATE SET bool_v = excluded.bool_v, str_v = excluded.str_v, " +
+            "long_v = excluded.long_v, dbl_v = excluded.dbl_v, json_v = excluded.json_v";
+
+    public SqlCopyInsertTsRepository() {
+        super("ts_kv_staging");
+    }
+
+    @Override
+    public void saveOrUpdate(List<TsKvEntity> entities) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            copyToStagingTable(connection, deduplicate(entities));
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate(MERGE_FROM_STAGING);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * ON CONFLICT can't affect the same row twice within one statement, so the last entry with the same key and timestamp wins.
+     */
+    private List<TsKvEntity> deduplicate(List<TsKvEntity> entities) {
+        Map<TsKey, TsKvEntity> unique = new LinkedHashMap<>();
+        for (TsKvEntity entity : entities) {
+            unique.put(new TsKey(entity.getEntityId(), entity.getKey(), entity.getTs()), entity);
+        }
+        return unique.size() == entities.size() ? entities : new ArrayList<>(unique.values());
+    }
+
+    private record TsKey(UUID entityId, int key, long ts) {
+    }
+
+}
@@ -86,6 +86,10 @@ public class TimescaleTimeseriesDao extends AbstractSqlTimeseriesDao implements
                 .statsPrintIntervalMs(tsStatsPrintIntervalMs)
                 .statsNamePrefix("ts.timescale")
                 .batchSortEnabled(batchSortEnabled)
+                .queueType(batchQueueType)
+                .capacity(batchQueueCapacity)
+                .rejectOnOverflow(batchQueueRejectOnOverflow)
+                .batchTargetLatencyMs(batchQueueTargetLatencyMs)
                 .build();
 
         Function<TimescaleTsKvEntity, Integer> hashcodeFunction = entity -> entity.getEntityId().hashCode();
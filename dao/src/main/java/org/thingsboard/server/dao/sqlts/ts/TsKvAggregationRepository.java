@@ -0,0 +1,188 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.ts;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
+import org.thingsboard.server.dao.util.SqlTsDao;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Computes all aggregation buckets of the requested keys with a single GROUP BY query,
+ * similar to what Timescale gets from time_bucket. Buckets are either fixed-size
+ * (bucket index = (ts - startTs) / interval) or arbitrary boundaries (calendar intervals),
+ * resolved with width_bucket over the sorted boundaries array.
+ * Buckets without data are not returned.
+ */
+@SqlTsDao
+@Repository
+public class TsKvAggregationRepository {
+
+    private static final String FIXED_BUCKET = "(ts - ?) / ?";
+    private static final String BOUNDARIES_BUCKET = "width_bucket(ts, ?) - 1";
+
+    private static final String FROM_WHERE_CLAUSE = " FROM ts_kv WHERE entity_id = ? AND key = ANY (?) AND ts >= ? AND ts < ? " +
+            "GROUP BY key, bucket ORDER BY key, bucket";
+
+    private static final String AVG_SUM_COLUMNS = "SUM(COALESCE(long_v, 0)) AS long_value, " +
+            "SUM(COALESCE(dbl_v, 0.0)) AS dbl_value, " +
+            "SUM(CASE WHEN long_v IS NULL THEN 0 ELSE 1 END) AS long_count, " +
+            "SUM(CASE WHEN dbl_v IS NULL THEN 0 ELSE 1 END) AS dbl_count, " +
+            "MAX(ts) AS max_ts";
+
+    private static final String MAX_COLUMNS = "MAX(COALESCE(long_v, -9223372036854775807)) AS long_value, " +
+            "MAX(COALESCE(dbl_v, -1.79769E+308)) AS dbl_value, " +
+            "SUM(CASE WHEN long_v IS NULL THEN 0 ELSE 1 END) AS long_count, " +
+            "SUM(CASE WHEN dbl_v IS NULL THEN 0 ELSE 1 END) AS dbl_count, " +
+            "MAX(ts) AS max_ts, " +
+            "MAX(str_v) AS str_value, " +
+            "MAX(CASE WHEN str_v IS NULL THEN NULL ELSE ts END) AS str_max_ts";
+
+    private static final String MIN_COLUMNS = "MIN(COALESCE(long_v, 9223372036854775807)) AS long_value, " +
+            "MIN(COALESCE(dbl_v, 1.79769E+308)) AS dbl_value, " +
+            "SUM(CASE WHEN long_v IS NULL THEN 0 ELSE 1 END) AS long_count, " +
+            "SUM(CASE WHEN dbl_v IS NULL THEN 0 ELSE 1 END) AS dbl_count, " +
+            "MAX(ts) AS max_ts, " +
+            "MIN(str_v) AS str_value, " +
+            "MAX(CASE WHEN str_v IS NULL THEN NULL ELSE ts END) AS str_max_ts";
+
+    private static final String COUNT_COLUMNS = "SUM(CASE WHEN bool_v IS NULL THEN 0 ELSE 1 END) AS bool_count, " +
+            "SUM(CASE WHEN str_v IS NULL THEN 0 ELSE 1 END) AS str_count, " +
+            "SUM(CASE WHEN long_v IS NULL THEN 0 ELSE 1 END) AS long_count, " +
+            "SUM(CASE WHEN dbl_v IS NULL THEN 0 ELSE 1 END) AS dbl_count, " +
+            "SUM(CASE WHEN json_v IS NULL THEN 0 ELSE 1 END) AS json_count, " +
+            "MAX(ts) AS max_ts";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${sql.ts.aggregation_fetch_size:1000}")
+    private int fetchSize;
+
+    /**
+     * Aggregates the keys into fixed-size buckets: [startTs + i * interval, startTs + (i + 1) * interval).
+     */
+    public void findAggregated(UUID entityId, Collection<Integer> keyIds, long startTs, long endTs, long interval,
+                               Aggregation aggregation, AggregatedBucketCallback callback) {
+        String sql = buildQuery(FIXED_BUCKET, aggregation);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setFetchSize(fetchSize);
+            ps.setLong(1, startTs);
+            ps.setLong(2, interval);
+            setWhereParams(ps, 3, con.createArrayOf("int", keyIds.toArray()), entityId, startTs, endTs);
+            return ps;
+        }, rs -> {
+            callback.onBucket(rs.getInt("key"), rs.getInt("bucket"), toEntity(rs, aggregation));
+        });
+    }
+
+    /**
+     * Aggregates the keys into buckets defined by the sorted boundaries: [boundaries[i], boundaries[i + 1]).
+     */
+    public void findAggregated(UUID entityId, Collection<Integer> keyIds, long[] boundaries,
+                               Aggregation aggregation, AggregatedBucketCallback callback) {
+        String sql = buildQuery(BOUNDARIES_BUCKET, aggregation);
+        Long[] boundariesArray = Arrays.stream(boundaries).boxed().toArray(Long[]::new);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setFetchSize(fetchSize);
+            ps.setArray(1, con.createArrayOf("bigint", boundariesArray));
+            setWhereParams(ps, 2, con.createArrayOf("int", keyIds.toArray()), entityId, boundaries[0], boundaries[boundaries.length - 1]);
+            return ps;
+        }, rs -> {
+            callback.onBucket(rs.getInt("key"), rs.getInt("bucket"), toEntity(rs, aggregation));
+        });
+    }
+
+    private static void setWhereParams(PreparedStatement ps, int idx, Array keys, UUID entityId, long startTs, long endTs) throws SQLException {
+        ps.setObject(idx, entityId);
+        ps.setArray(idx + 1, keys);
+        ps.setLong(idx + 2, startTs);
+        ps.setLong(idx + 3, endTs);
+    }
+
+    private static String buildQuery(String bucketExpression, Aggregation aggregation) {
+        return "SELECT key, " + bucketExpression + " AS bucket, " + getColumns(aggregation) + FROM_WHERE_CLAUSE;
+    }
+
+    private static String getColumns(Aggregation aggregation) {
+        switch (aggregation) {
+            case AVG:
+            case SUM:
+                return AVG_SUM_COLUMNS;
+            case MAX:
+                return MAX_COLUMNS;
+            case MIN:
+                return MIN_COLUMNS;
+            case COUNT:
+                return COUNT_COLUMNS;
+            default:
+                throw new IllegalArgumentException("Not supported aggregation type: " + aggregation);
+        }
+    }
+
+    private static TsKvEntity toEntity(ResultSet rs, Aggregation aggregation) throws SQLException {
+        switch (aggregation) {
+            case AVG:
+            case SUM:
+                return new TsKvEntity(getLong(rs, "long_value"), getDouble(rs, "dbl_value"),
+                        getLong(rs, "long_count"), getLong(rs, "dbl_count"), aggregation.name(), getLong(rs, "max_ts"));
+            case MAX:
+            case MIN:
+                TsKvEntity numeric = new TsKvEntity(getLong(rs, "long_value"), getDouble(rs, "dbl_value"),
+                        getLong(rs, "long_count"), getLong(rs, "dbl_count"), aggregation.name(), getLong(rs, "max_ts"));
+                if (numeric.isNotEmpty()) {
+                    return numeric;
+                }
+                return new TsKvEntity(rs.getString("str_value"), getLong(rs, "str_max_ts"));
+            case COUNT:
+                return new TsKvEntity(getLong(rs, "bool_count"), getLong(rs, "str_count"), getLong(rs, "long_count"),
+                        getLong(rs, "dbl_count"), getLong(rs, "json_count"), getLong(rs, "max_ts"));
+            default:
+                throw new IllegalArgumentException("Not supported aggregation type: " + aggregation);
+        }
+    }
+
+    private static Long getLong(ResultSet rs, String column) throws SQLException {
+        Object value = rs.getObject(column);
+        return value != null ? ((Number) value).longValue() : null;
+    }
+
+    private static Double getDouble(ResultSet rs, String column) throws SQLException {
+        Object value = rs.getObject(column);
+        return value != null ? ((Number) value).doubleValue() : null;
+    }
+
+    @FunctionalInterface
+    public interface AggregatedBucketCallback {
+
+        void onBucket(int keyId, int bucketIdx, TsKvEntity entity);
+
+    }
+
+}
@@ -36,6 +36,7 @@ import org.thingsboard.server.dao.nosql.TbResultSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -75,22 +76,35 @@ public class AggregatePartitionsFunction implements com.google.common.util.concu
         if (rsList == null || rsList.isEmpty()) {
             return Futures.immediateFuture(Optional.empty());
         }
+        // the rows are aggregated page by page as they arrive, instead of collecting the rows of all partitions first
+        AggregationResult aggResult = new AggregationResult();
+        Consumer<Row> aggregator = row -> {
+            synchronized (aggResult) {
+                if (!aggResult.failed) {
+                    try {
+                        processResultSetRow(row, aggResult);
+                    } catch (Exception e) {
+                        log.error("[{}][{}][{}] Failed to aggregate data", key, ts, aggregation, e);
+                        aggResult.failed = true;
+                    }
+                }
+            }
+        };
         return Futures.transform(
                 Futures.allAsList(
-                        rsList.stream().map(rs -> rs.allRows(this.executor))
+                        rsList.stream().map(rs -> rs.forEachRow(aggregator, this.executor))
                                 .collect(Collectors.toList())),
-                rowsList -> {
-                    try {
-                        AggregationResult aggResult = new AggregationResult();
-                        for (List<Row> rs : rowsList) {
-                            for (Row row : rs) {
-                                processResultSetRow(row, aggResult);
-                            }
+                rows -> {
+                    synchronized (aggResult) {
+                        if (aggResult.failed) {
+                            return Optional.empty();
+                        }
+                        try {
+                            return processAggregationResult(aggResult);
+                        } catch (Exception e) {
+                            log.error("[{}][{}][{}] Failed to aggregate data", key, ts, aggregation, e);
+                            return Optional.empty();
                         }
-                        return processAggregationResult(aggResult);
-                    } catch (Exception e) {
-                        log.error("[{}][{}][{}] Failed to aggregate data", key, ts, aggregation, e);
-                        return Optional.empty();
                     }
                 }, this.executor);
     }
@@ -302,5 +316,6 @@ public class AggregatePartitionsFunction implements com.google.common.util.concu
         long count = 0;
         boolean hasDouble = false;
         long aggValuesLastTs = 0;
+        boolean failed = false;
     }
 }
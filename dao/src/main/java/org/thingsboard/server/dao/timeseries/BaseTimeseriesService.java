@@ -15,12 +15,10 @@
  */
 package org.thingsboard.server.dao.timeseries;
 
-import com.google.common.base.Function;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
 import lombok.extern.slf4j.Slf4j;
-import org.checkerframework.checker.nullness.qual.Nullable;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -46,6 +44,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -60,22 +59,7 @@ import static org.thingsboard.server.common.data.StringUtils.isBlank;
 public class BaseTimeseriesService implements TimeseriesService {
 
     private static final int INSERTS_PER_ENTRY = 3;
-    private static final int INSERTS_PER_ENTRY_WITHOUT_LATEST = 2;
     private static final int DELETES_PER_ENTRY = INSERTS_PER_ENTRY;
-    public static final Function<List<Integer>, Integer> SUM_ALL_INTEGERS = new Function<>() {
-        @Override
-        public @Nullable Integer apply(@Nullable List<Integer> input) {
-            int result = 0;
-            if (input != null) {
-                for (Integer tmp : input) {
-                    if (tmp != null) {
-                        result += tmp;
-                    }
-                }
-            }
-            return result;
-        }
-    };
 
     @Value("${database.ts_max_intervals}")
     private long maxTsIntervals;
@@ -126,12 +110,15 @@ public class BaseTimeseriesService implements TimeseriesService {
     @Override
     public ListenableFuture<List<TsKvEntry>> findLatest(TenantId tenantId, EntityId entityId, Collection<String> keys) {
         validate(entityId);
-        List<ListenableFuture<TsKvEntry>> futures = new ArrayList<>(keys.size());
         keys.forEach(key -> Validator.validateString(key, k -> "Incorrect key " + k));
-        for (String key : keys) {
-            futures.add(timeseriesLatestDao.findLatest(tenantId, entityId, key));
-        }
-        return Futures.allAsList(futures);
+        return timeseriesLatestDao.findLatest(tenantId, entityId, keys);
+    }
+
+    @Override
+    public ListenableFuture<Map<EntityId, List<TsKvEntry>>> findLatestByEntityIds(TenantId tenantId, Collection<EntityId> entityIds, Collection<String> keys) {
+        entityIds.forEach(BaseTimeseriesService::validate);
+        keys.forEach(key -> Validator.validateString(key, k -> "Incorrect key " + k));
+        return timeseriesLatestDao.findLatestByEntityIds(tenantId, entityIds, keys);
     }
 
     @Override
@@ -160,7 +147,7 @@ public class BaseTimeseriesService implements TimeseriesService {
         validate(entityId);
         List<ListenableFuture<Integer>> futures = new ArrayList<>(INSERTS_PER_ENTRY);
         saveAndRegisterFutures(tenantId, futures, entityId, tsKvEntry, 0L);
-        return Futures.transform(Futures.allAsList(futures), SUM_ALL_INTEGERS, MoreExecutors.directExecutor());
+        return Futures.transform(Futures.allAsList(futures), TimeseriesDao.SUM_ALL_INTEGERS, MoreExecutors.directExecutor());
     }
 
     @Override
@@ -174,16 +161,17 @@ public class BaseTimeseriesService implements TimeseriesService {
     }
 
     private ListenableFuture<Integer> doSave(TenantId tenantId, EntityId entityId, List<TsKvEntry> tsKvEntries, long ttl, boolean saveLatest) {
-        int inserts = saveLatest ? INSERTS_PER_ENTRY : INSERTS_PER_ENTRY_WITHOUT_LATEST;
-        List<ListenableFuture<Integer>> futures = new ArrayList<>(tsKvEntries.size() * inserts);
-        for (TsKvEntry tsKvEntry : tsKvEntries) {
-            if (saveLatest) {
-                saveAndRegisterFutures(tenantId, futures, entityId, tsKvEntry, ttl);
-            } else {
-                saveWithoutLatestAndRegisterFutures(tenantId, futures, entityId, tsKvEntry, ttl);
+        List<ListenableFuture<Integer>> futures = new ArrayList<>(saveLatest ? tsKvEntries.size() + 1 : 1);
+        if (!tsKvEntries.isEmpty()) {
+            checkNotEntityView(entityId);
+            futures.add(timeseriesDao.saveAll(tenantId, entityId, tsKvEntries, ttl));
+        }
+        if (saveLatest) {
+            for (TsKvEntry tsKvEntry : tsKvEntries) {
+                futures.add(Futures.transform(timeseriesLatestDao.saveLatest(tenantId, entityId, tsKvEntry), v -> 0, MoreExecutors.directExecutor()));
             }
         }
-        return Futures.transform(Futures.allAsList(futures), SUM_ALL_INTEGERS, MoreExecutors.directExecutor());
+        return Futures.transform(Futures.allAsList(futures), TimeseriesDao.SUM_ALL_INTEGERS, MoreExecutors.directExecutor());
     }
 
     @Override
@@ -200,16 +188,16 @@ public class BaseTimeseriesService implements TimeseriesService {
         futures.add(Futures.transform(timeseriesLatestDao.saveLatest(tenantId, entityId, tsKvEntry), v -> 0, MoreExecutors.directExecutor()));
     }
 
-    private void saveWithoutLatestAndRegisterFutures(TenantId tenantId, List<ListenableFuture<Integer>> futures, EntityId entityId, TsKvEntry tsKvEntry, long ttl) {
-        doSaveAndRegisterFuturesFor(tenantId, futures, entityId, tsKvEntry, ttl);
+    private void doSaveAndRegisterFuturesFor(TenantId tenantId, List<ListenableFuture<Integer>> futures, EntityId entityId, TsKvEntry tsKvEntry, long ttl) {
+        checkNotEntityView(entityId);
+        futures.add(timeseriesDao.savePartition(tenantId, entityId, tsKvEntry.getTs(), tsKvEntry.getKey()));
+        futures.add(timeseriesDao.save(tenantId, entityId, tsKvEntry, ttl));
     }
 
-    private void doSaveAndRegisterFuturesFor(TenantId tenantId, List<ListenableFuture<Integer>> futures, EntityId entityId, TsKvEntry tsKvEntry, long ttl) {
+    private static void checkNotEntityView(EntityId entityId) {
         if (entityId.getEntityType().equals(EntityType.ENTITY_VIEW)) {
             throw new IncorrectParameterException("Telemetry data can't be stored for entity view. Read only");
         }
-        futures.add(timeseriesDao.savePartition(tenantId, entityId, tsKvEntry.getTs(), tsKvEntry.getKey()));
-        futures.add(timeseriesDao.save(tenantId, entityId, tsKvEntry, ttl));
     }
 
     private List<ReadTsKvQuery> updateQueriesForEntityView(EntityView entityView, List<ReadTsKvQuery> queries) {
@@ -16,18 +16,23 @@
 package org.thingsboard.server.dao.timeseries;
 
 import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BatchStatementBuilder;
+import com.datastax.oss.driver.api.core.cql.BatchType;
 import com.datastax.oss.driver.api.core.cql.BoundStatement;
 import com.datastax.oss.driver.api.core.cql.BoundStatementBuilder;
 import com.datastax.oss.driver.api.core.cql.PreparedStatement;
 import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.Statement;
 import com.datastax.oss.driver.api.querybuilder.QueryBuilder;
 import com.datastax.oss.driver.api.querybuilder.select.Select;
 import com.google.common.base.Function;
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.AsyncFunction;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import jakarta.annotation.Nullable;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
@@ -51,6 +56,7 @@ import org.thingsboard.server.common.data.kv.ReadTsKvQueryResult;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
 import org.thingsboard.server.common.data.kv.TsKvEntryAggWrapper;
 import org.thingsboard.server.common.data.kv.TsKvQuery;
+import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.dao.model.ModelConstants;
 import org.thingsboard.server.dao.nosql.TbResultSet;
 import org.thingsboard.server.dao.nosql.TbResultSetFuture;
@@ -64,10 +70,17 @@ import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
@@ -101,10 +114,14 @@ public class CassandraBaseTimeseriesDao extends AbstractCassandraBaseTimeseriesD
             " VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
     private CassandraTsPartitionsCache cassandraTsPartitionsCache;
+    private final ConcurrentMap<CassandraPartitionCacheKey, ListenableFuture<Integer>> partitionsInProgress = new ConcurrentHashMap<>();
 
     @Autowired
     private Environment environment;
 
+    @Autowired
+    private StatsFactory statsFactory;
+
     @Getter
     @Value("${cassandra.query.ts_key_value_partitioning}")
     private String partitioning;
@@ -122,6 +139,16 @@ public class CassandraBaseTimeseriesDao extends AbstractCassandraBaseTimeseriesD
     @Value("${cassandra.query.set_null_values_enabled}")
     private boolean setNullValuesEnabled;
 
+    @Value("${cassandra.query.ts_key_value_batch_max_size:20}")
+    private int batchMaxSize;
+
+    @Value("${cassandra.query.ts_aggregation_parallelism:16}")
+    private int aggregationParallelism;
+
+    private final AtomicLong writtenRows = new AtomicLong();
+    private final AtomicLong writtenBatches = new AtomicLong();
+    private final AtomicLong writtenBatchedRows = new AtomicLong();
+
     private NoSqlTsPartitionDate tsFormat;
 
     private PreparedStatement partitionInsertStmt;
@@ -155,6 +182,10 @@ public class CassandraBaseTimeseriesDao extends AbstractCassandraBaseTimeseriesD
             log.warn("Incorrect configuration of partitioning {}", partitioning);
             throw new RuntimeException("Failed to parse partitioning property: " + partitioning + "!");
         }
+        // batch size = batched rows / batches, rows per second = rate of the written rows
+        statsFactory.createGauge("cassandraTsWrittenRows", writtenRows);
+        statsFactory.createGauge("cassandraTsWrittenBatches", writtenBatches);
+        statsFactory.createGauge("cassandraTsWrittenBatchedRows", writtenBatchedRows);
     }
 
     @PreDestroy
@@ -171,10 +202,69 @@ public class CassandraBaseTimeseriesDao extends AbstractCassandraBaseTimeseriesD
 
     @Override
     public ListenableFuture<Integer> save(TenantId tenantId, EntityId entityId, TsKvEntry tsKvEntry, long ttl) {
-        List<ListenableFuture<Void>> futures = new ArrayList<>();
         ttl = computeTtl(ttl);
-        int dataPointDays = tsKvEntry.getDataPoints() * Math.max(1, (int) (ttl / SECONDS_IN_DAY));
-        long partition = toPartitionTs(tsKvEntry.getTs());
+        int dataPointDays = getDataPointDays(tsKvEntry, ttl);
+        BoundStatement stmt = toSaveStmt(entityId, tsKvEntry, toPartitionTs(tsKvEntry.getTs()), ttl);
+        writtenRows.incrementAndGet();
+        return getFuture(executeAsyncWrite(tenantId, stmt), rs -> dataPointDays);
+    }
+
+    /**
+     * Groups the entries by the Cassandra partition (entity, key and partition) and writes each group
+     * with a single-partition UNLOGGED batch, so the coordinator applies the whole group on the replicas of one partition.
+     * The partition marker is written once per group. The batch is routed by the routing key of its first statement,
+     * so the token-aware load balancing sends it right to the replica.
+     */
+    @Override
+    public ListenableFuture<Integer> saveAll(TenantId tenantId, EntityId entityId, List<TsKvEntry> tsKvEntries, long ttl) {
+        if (batchMaxSize <= 1) {
+            return TimeseriesDao.super.saveAll(tenantId, entityId, tsKvEntries, ttl);
+        }
+        long entryTtl = computeTtl(ttl);
+        Map<CassandraPartitionCacheKey, Map<Long, TsKvEntry>> partitions = new LinkedHashMap<>();
+        for (TsKvEntry tsKvEntry : tsKvEntries) {
+            CassandraPartitionCacheKey partitionKey = new CassandraPartitionCacheKey(entityId, tsKvEntry.getKey(), toPartitionTs(tsKvEntry.getTs()));
+            // the statements of a batch share the write timestamp, so keep only the last value of the same ts
+            partitions.computeIfAbsent(partitionKey, k -> new LinkedHashMap<>()).put(tsKvEntry.getTs(), tsKvEntry);
+        }
+        List<ListenableFuture<Integer>> futures = new ArrayList<>(partitions.size() * 2);
+        partitions.forEach((partitionKey, entries) -> {
+            List<TsKvEntry> partitionEntries = new ArrayList<>(entries.values());
+            futures.add(savePartition(tenantId, entityId, partitionEntries.get(0).getTs(), partitionKey.getKey()));
+            for (List<TsKvEntry> chunk : Lists.partition(partitionEntries, batchMaxSize)) {
+                futures.add(saveBatch(tenantId, entityId, partitionKey.getPartition(), chunk, entryTtl));
+            }
+        });
+        return Futures.transform(Futures.allAsList(futures), SUM_ALL_INTEGERS, MoreExecutors.directExecutor());
+    }
+
+    private ListenableFuture<Integer> saveBatch(TenantId tenantId, EntityId entityId, long partition, List<TsKvEntry> entries, long ttl) {
+        int dataPointDays = 0;
+        Statement<?> stmt;
+        if (entries.size() == 1) {
+            TsKvEntry tsKvEntry = entries.get(0);
+            dataPointDays = getDataPointDays(tsKvEntry, ttl);
+            stmt = toSaveStmt(entityId, tsKvEntry, partition, ttl);
+        } else {
+            BatchStatementBuilder batchBuilder = new BatchStatementBuilder(BatchType.UNLOGGED);
+            for (TsKvEntry tsKvEntry : entries) {
+                dataPointDays += getDataPointDays(tsKvEntry, ttl);
+                batchBuilder.addStatement(toSaveStmt(entityId, tsKvEntry, partition, ttl));
+            }
+            stmt = batchBuilder.build();
+            writtenBatches.incrementAndGet();
+            writtenBatchedRows.addAndGet(entries.size());
+        }
+        writtenRows.addAndGet(entries.size());
+        int result = dataPointDays;
+        return getFuture(executeAsyncWrite(tenantId, stmt), rs -> result);
+    }
+
+    private static int getDataPointDays(TsKvEntry tsKvEntry, long ttl) {
+        return tsKvEntry.getDataPoints() * Math.max(1, (int) (ttl / SECONDS_IN_DAY));
+    }
+
+    BoundStatement toSaveStmt(EntityId entityId, TsKvEntry tsKvEntry, long partition, long ttl) {
         String entityType = entityId.getEntityType().name();
         UUID entityIdId = entityId.getId();
         String entryKey = tsKvEntry.getKey();
@@ -206,9 +296,7 @@ public class CassandraBaseTimeseriesDao extends AbstractCassandraBaseTimeseriesD
                 stmtBuilder.setInt(6, (int) ttl);
             }
         }
-        BoundStatement stmt = stmtBuilder.build();
-        futures.add(getFuture(executeAsyncWrite(tenantId, stmt), rs -> null));
-        return Futures.transform(Futures.allAsList(futures), result -> dataPointDays, MoreExecutors.directExecutor());
+        return stmtBuilder.build();
     }
 
     @Override
@@ -226,8 +314,19 @@ public class CassandraBaseTimeseriesDao extends AbstractCassandraBaseTimeseriesD
         } else {
             CassandraPartitionCacheKey partitionSearchKey = new CassandraPartitionCacheKey(entityId, key, partition);
             if (!cassandraTsPartitionsCache.has(partitionSearchKey)) {
-                ListenableFuture<Integer> result = doSavePartition(tenantId, entityId, key, ttl, partition);
+                // concurrent saves of the same partition share the single write
+                SettableFuture<Integer> result = SettableFuture.create();
+                ListenableFuture<Integer> inProgress = partitionsInProgress.putIfAbsent(partitionSearchKey, result);
+                if (inProgress != null) {
+                    return inProgress;
+                }
                 Futures.addCallback(result, new CacheCallback<>(partitionSearchKey), MoreExecutors.directExecutor());
+                try {
+                    result.setFuture(doSavePartition(tenantId, entityId, key, ttl, partition));
+                } catch (RuntimeException e) {
+                    // fails the shared future, so the callback removes the partition from the in-progress ones
+                    result.setException(e);
+                }
                 return result;
             } else {
                 return Futures.immediateFuture(0);
@@ -266,7 +365,7 @@ public class CassandraBaseTimeseriesDao extends AbstractCassandraBaseTimeseriesD
         } else {
             long startPeriod = query.getStartTs();
             long endPeriod = Math.max(query.getStartTs() + 1, query.getEndTs());
-            List<ListenableFuture<Optional<TsKvEntryAggWrapper>>> futures = new ArrayList<>();
+            List<ReadTsKvQuery> subQueries = new ArrayList<>();
             var intervalType = aggParams.getIntervalType();
             while (startPeriod < endPeriod) {
                 long startTs = startPeriod;
@@ -277,11 +376,14 @@ public class CassandraBaseTimeseriesDao extends AbstractCassandraBaseTimeseriesD
                     endTs = TimeUtils.calculateIntervalEnd(startTs, aggParams.getIntervalType(), aggParams.getTzId());
                 }
                 endTs = Math.min(endTs, endPeriod);
-                ReadTsKvQuery subQuery = new BaseReadTsKvQuery(query.getKey(), startTs, endTs, endTs - startTs, 1, query.getAggregation(), query.getOrder());
-                futures.add(findAndAggregateAsync(tenantId, entityId, subQuery, toPartitionTs(startTs), toPartitionTs(endTs)));
+                subQueries.add(new BaseReadTsKvQuery(query.getKey(), startTs, endTs, endTs - startTs, 1, query.getAggregation(), query.getOrder()));
                 startPeriod = endTs;
             }
-            ListenableFuture<List<Optional<TsKvEntryAggWrapper>>> future = Futures.allAsList(futures);
+            // the partitions of the whole range are fetched once and shared by all intervals
+            ListenableFuture<List<Long>> partitionsFuture = getPartitionsFuture(tenantId, query, entityId,
+                    toPartitionTs(query.getStartTs()), toPartitionTs(endPeriod));
+            ListenableFuture<List<Optional<TsKvEntryAggWrapper>>> future = Futures.transformAsync(partitionsFuture,
+                    partitions -> new IntervalsAggregation(tenantId, entityId, subQueries, partitions).start(), readResultsProcessingExecutor);
             return Futures.transform(future, new Function<>() {
                 @Nullable
                 @Override
@@ -394,19 +496,102 @@ public class CassandraBaseTimeseriesDao extends AbstractCassandraBaseTimeseriesD
         }
     }
 
-    private ListenableFuture<Optional<TsKvEntryAggWrapper>> findAndAggregateAsync(TenantId tenantId, EntityId entityId, ReadTsKvQuery query, long minPartition, long maxPartition) {
+    ListenableFuture<Optional<TsKvEntryAggWrapper>> findAndAggregateAsync(TenantId tenantId, EntityId entityId, ReadTsKvQuery query, List<Long> partitions) {
         final Aggregation aggregation = query.getAggregation();
         final String key = query.getKey();
         final long startTs = query.getStartTs();
         final long endTs = query.getEndTs();
         final long ts = startTs + (endTs - startTs) / 2;
-        ListenableFuture<List<Long>> partitionsListFuture = getPartitionsFuture(tenantId, query, entityId, minPartition, maxPartition);
-        ListenableFuture<List<TbResultSet>> aggregationChunks = Futures.transformAsync(partitionsListFuture,
-                getFetchChunksAsyncFunction(tenantId, entityId, key, aggregation, startTs, endTs), readResultsProcessingExecutor);
-
+        ListenableFuture<List<TbResultSet>> aggregationChunks;
+        try {
+            aggregationChunks = getFetchChunksAsyncFunction(tenantId, entityId, key, aggregation, startTs, endTs).apply(partitions);
+        } catch (Exception e) {
+            return Futures.immediateFailedFuture(e);
+        }
         return Futures.transformAsync(aggregationChunks, new AggregatePartitionsFunction(aggregation, key, ts, readResultsProcessingExecutor), readResultsProcessingExecutor);
     }
 
+    /**
+     * Returns the partitions of the sorted list that may contain the data of the interval.
+     */
+    static List<Long> getIntervalPartitions(List<Long> sortedPartitions, long minPartition, long maxPartition) {
+        int from = Collections.binarySearch(sortedPartitions, minPartition);
+        from = from >= 0 ? from : -from - 1;
+        int to = Collections.binarySearch(sortedPartitions, maxPartition);
+        to = to >= 0 ? to + 1 : -to - 1;
+        return from < to ? sortedPartitions.subList(from, to) : Collections.emptyList();
+    }
+
+    /**
+     * Aggregates the intervals of the query, running not more than {@code aggregationParallelism} intervals at the same time,
+     * so a long range with small intervals does not flood the read queue with the queries of all intervals at once.
+     * The partitions of each interval are read in parallel and aggregated by Cassandra.
+     */
+    private class IntervalsAggregation {
+
+        private final TenantId tenantId;
+        private final EntityId entityId;
+        private final List<ReadTsKvQuery> subQueries;
+        private final List<Long> partitions;
+        private final AtomicReferenceArray<Optional<TsKvEntryAggWrapper>> results;
+        private final AtomicInteger nextIdx = new AtomicInteger();
+        private final AtomicInteger remaining;
+        private final SettableFuture<List<Optional<TsKvEntryAggWrapper>>> resultFuture = SettableFuture.create();
+
+        IntervalsAggregation(TenantId tenantId, EntityId entityId, List<ReadTsKvQuery> subQueries, List<Long> partitions) {
+            this.tenantId = tenantId;
+            this.entityId = entityId;
+            this.subQueries = subQueries;
+            List<Long> sortedPartitions = new ArrayList<>(partitions);
+            Collections.sort(sortedPartitions);
+            this.partitions = sortedPartitions;
+            this.results = new AtomicReferenceArray<>(subQueries.size());
+            this.remaining = new AtomicInteger(subQueries.size());
+        }
+
+        ListenableFuture<List<Optional<TsKvEntryAggWrapper>>> start() {
+            if (subQueries.isEmpty()) {
+                resultFuture.set(Collections.emptyList());
+            }
+            int workers = Math.min(subQueries.size(), Math.max(1, aggregationParallelism));
+            for (int i = 0; i < workers; i++) {
+                aggregateNext();
+            }
+            return resultFuture;
+        }
+
+        private void aggregateNext() {
+            int idx = nextIdx.getAndIncrement();
+            if (idx >= subQueries.size() || resultFuture.isDone()) {
+                return;
+            }
+            ReadTsKvQuery subQuery = subQueries.get(idx);
+            List<Long> intervalPartitions = isFixedPartitioning() ? FIXED_PARTITION :
+                    getIntervalPartitions(partitions, toPartitionTs(subQuery.getStartTs()), toPartitionTs(subQuery.getEndTs()));
+            Futures.addCallback(findAndAggregateAsync(tenantId, entityId, subQuery, intervalPartitions), new FutureCallback<>() {
+                @Override
+                public void onSuccess(Optional<TsKvEntryAggWrapper> result) {
+                    results.set(idx, result);
+                    if (remaining.decrementAndGet() == 0) {
+                        List<Optional<TsKvEntryAggWrapper>> list = new ArrayList<>(results.length());
+                        for (int i = 0; i < results.length(); i++) {
+                            list.add(results.get(i));
+                        }
+                        resultFuture.set(list);
+                    } else {
+                        aggregateNext();
+                    }
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    resultFuture.setException(t);
+                }
+            }, readResultsProcessingExecutor);
+        }
+
+    }
+
     private AsyncFunction<TbResultSet, List<Long>> getPartitionsArrayFunction() {
         return rs ->
                 Futures.transform(rs.allRows(readResultsProcessingExecutor), rows ->
@@ -504,11 +689,12 @@ public class CassandraBaseTimeseriesDao extends AbstractCassandraBaseTimeseriesD
         @Override
         public void onSuccess(Void result) {
             cassandraTsPartitionsCache.put(key);
+            partitionsInProgress.remove(key);
         }
 
         @Override
         public void onFailure(Throwable t) {
-
+            partitionsInProgress.remove(key);
         }
     }
 
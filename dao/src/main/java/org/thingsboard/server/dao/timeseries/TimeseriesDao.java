@@ -15,7 +15,11 @@
  */
 package org.thingsboard.server.dao.timeseries;
 
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.kv.DeleteTsKvQuery;
@@ -23,6 +27,7 @@ import org.thingsboard.server.common.data.kv.ReadTsKvQuery;
 import org.thingsboard.server.common.data.kv.ReadTsKvQueryResult;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -30,12 +35,41 @@ import java.util.List;
  */
 public interface TimeseriesDao {
 
+    Function<List<Integer>, Integer> SUM_ALL_INTEGERS = new Function<>() {
+        @Override
+        public @Nullable Integer apply(@Nullable List<Integer> input) {
+            int result = 0;
+            if (input != null) {
+                for (Integer tmp : input) {
+                    if (tmp != null) {
+                        result += tmp;
+                    }
+                }
+            }
+            return result;
+        }
+    };
+
     ListenableFuture<List<ReadTsKvQueryResult>> findAllAsync(TenantId tenantId, EntityId entityId, List<ReadTsKvQuery> queries);
 
     ListenableFuture<Integer> save(TenantId tenantId, EntityId entityId, TsKvEntry tsKvEntry, long ttl);
 
     ListenableFuture<Integer> savePartition(TenantId tenantId, EntityId entityId, long tsKvEntryTs, String key);
 
+    /**
+     * Saves the entries of the entity together with their partitions.
+     *
+     * @return the sum of the results of {@link #save} and {@link #savePartition} for the entries
+     */
+    default ListenableFuture<Integer> saveAll(TenantId tenantId, EntityId entityId, List<TsKvEntry> tsKvEntries, long ttl) {
+        List<ListenableFuture<Integer>> futures = new ArrayList<>(tsKvEntries.size() * 2);
+        for (TsKvEntry tsKvEntry : tsKvEntries) {
+            futures.add(savePartition(tenantId, entityId, tsKvEntry.getTs(), tsKvEntry.getKey()));
+            futures.add(save(tenantId, entityId, tsKvEntry, ttl));
+        }
+        return Futures.transform(Futures.allAsList(futures), SUM_ALL_INTEGERS, MoreExecutors.directExecutor());
+    }
+
     ListenableFuture<Void> remove(TenantId tenantId, EntityId entityId, DeleteTsKvQuery query);
 
     void cleanup(long systemTtl);
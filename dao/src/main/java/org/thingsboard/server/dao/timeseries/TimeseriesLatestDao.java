@@ -15,7 +15,9 @@
  */
 package org.thingsboard.server.dao.timeseries;
 
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.thingsboard.server.common.data.id.DeviceProfileId;
 import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.TenantId;
@@ -23,7 +25,12 @@ import org.thingsboard.server.common.data.kv.DeleteTsKvQuery;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
 import org.thingsboard.server.common.data.kv.TsKvLatestRemovingResult;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface TimeseriesLatestDao {
@@ -40,6 +47,32 @@ public interface TimeseriesLatestDao {
      */
     ListenableFuture<TsKvEntry> findLatest(TenantId tenantId, EntityId entityId, String key);
 
+    /**
+     * Same as {@link #findLatest(TenantId, EntityId, String)} for each of the keys, in the order of the keys.
+     */
+    default ListenableFuture<List<TsKvEntry>> findLatest(TenantId tenantId, EntityId entityId, Collection<String> keys) {
+        List<ListenableFuture<TsKvEntry>> futures = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            futures.add(findLatest(tenantId, entityId, key));
+        }
+        return Futures.allAsList(futures);
+    }
+
+    /**
+     * Same as {@link #findLatest(TenantId, EntityId, Collection)} for each of the entities.
+     */
+    default ListenableFuture<Map<EntityId, List<TsKvEntry>>> findLatestByEntityIds(TenantId tenantId, Collection<EntityId> entityIds, Collection<String> keys) {
+        Map<EntityId, ListenableFuture<List<TsKvEntry>>> futures = new LinkedHashMap<>();
+        for (EntityId entityId : entityIds) {
+            futures.put(entityId, findLatest(tenantId, entityId, keys));
+        }
+        return Futures.whenAllSucceed(futures.values()).call(() -> {
+            Map<EntityId, List<TsKvEntry>> result = new HashMap<>();
+            futures.forEach((entityId, future) -> result.put(entityId, Futures.getUnchecked(future)));
+            return result;
+        }, MoreExecutors.directExecutor());
+    }
+
     ListenableFuture<List<TsKvEntry>> findAllLatest(TenantId tenantId, EntityId entityId);
 
     ListenableFuture<Long> saveLatest(TenantId tenantId, EntityId entityId, TsKvEntry tsKvEntry);
@@ -20,7 +20,9 @@ import com.datastax.oss.driver.api.core.cql.BoundStatement;
 import com.datastax.oss.driver.api.core.cql.PreparedStatement;
 import com.datastax.oss.driver.api.core.cql.Statement;
 import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -30,17 +32,22 @@ import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.core.env.Environment;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.dao.cassandra.CassandraCluster;
 import org.thingsboard.server.dao.cassandra.guava.GuavaSession;
 import org.thingsboard.server.dao.timeseries.CassandraBaseTimeseriesDao;
 
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.willReturn;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -66,6 +73,9 @@ public class CassandraPartitionsCacheTest {
     @Mock
     private GuavaSession session;
 
+    @Mock
+    private StatsFactory statsFactory;
+
     @Before
     public void setUp() throws Exception {
         ReflectionTestUtils.setField(cassandraBaseTimeseriesDao, "partitioning", "MONTHS");
@@ -74,6 +84,8 @@ public class CassandraPartitionsCacheTest {
         ReflectionTestUtils.setField(cassandraBaseTimeseriesDao, "setNullValuesEnabled", false);
         ReflectionTestUtils.setField(cassandraBaseTimeseriesDao, "environment", environment);
         ReflectionTestUtils.setField(cassandraBaseTimeseriesDao, "cluster", cluster);
+        ReflectionTestUtils.setField(cassandraBaseTimeseriesDao, "statsFactory", statsFactory);
+        ReflectionTestUtils.setField(cassandraBaseTimeseriesDao, "threadPoolSize", 1);
 
         when(cluster.getDefaultReadConsistencyLevel()).thenReturn(ConsistencyLevel.ONE);
         when(cluster.getDefaultWriteConsistencyLevel()).thenReturn(ConsistencyLevel.ONE);
@@ -88,7 +100,12 @@ public class CassandraPartitionsCacheTest {
 
         willReturn(new TbResultSetFuture(SettableFuture.create())).given(cassandraBaseTimeseriesDao).executeAsyncWrite(any(), any());
 
-        doReturn(Futures.immediateFuture(0)).when(cassandraBaseTimeseriesDao).getFuture(any(), any());
+        lenient().doReturn(Futures.immediateFuture(0)).when(cassandraBaseTimeseriesDao).getFuture(any(), any());
+    }
+
+    @After
+    public void tearDown() {
+        cassandraBaseTimeseriesDao.stop();
     }
 
     @Test
@@ -108,4 +125,43 @@ public class CassandraPartitionsCacheTest {
         verify(cassandraBaseTimeseriesDao, times(60000)).executeAsyncWrite(any(TenantId.class), any(Statement.class));
     }
 
+    @Test
+    public void testConcurrentPartitionSaveIsCoalesced() throws Exception {
+        cassandraBaseTimeseriesDao.init();
+        SettableFuture<Integer> partitionSaved = SettableFuture.create();
+        doReturn(partitionSaved).when(cassandraBaseTimeseriesDao).getFuture(any(), any());
+
+        TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+        long tsKvEntryTs = System.currentTimeMillis();
+
+        ListenableFuture<Integer> first = cassandraBaseTimeseriesDao.savePartition(tenantId, tenantId, tsKvEntryTs, "test");
+        ListenableFuture<Integer> second = cassandraBaseTimeseriesDao.savePartition(tenantId, tenantId, tsKvEntryTs, "test");
+        verify(cassandraBaseTimeseriesDao, times(1)).executeAsyncWrite(any(TenantId.class), any(Statement.class));
+        assertThat(second.isDone()).isFalse();
+
+        partitionSaved.set(0);
+        assertThat(first.get()).isEqualTo(0);
+        assertThat(second.get()).isEqualTo(0);
+
+        cassandraBaseTimeseriesDao.savePartition(tenantId, tenantId, tsKvEntryTs, "test");
+        verify(cassandraBaseTimeseriesDao, times(1)).executeAsyncWrite(any(TenantId.class), any(Statement.class));
+    }
+
+    @Test
+    public void testPartitionIsNotLeftInProgressOnSynchronousFailure() throws Exception {
+        cassandraBaseTimeseriesDao.init();
+        when(preparedStatement.bind()).thenThrow(new IllegalStateException("Failed to bind")).thenReturn(boundStatement);
+
+        TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+        long tsKvEntryTs = System.currentTimeMillis();
+
+        ListenableFuture<Integer> failed = cassandraBaseTimeseriesDao.savePartition(tenantId, tenantId, tsKvEntryTs, "test");
+        assertThat(failed.isDone()).isTrue();
+        assertThatThrownBy(failed::get).hasCauseInstanceOf(IllegalStateException.class);
+        verify(cassandraBaseTimeseriesDao, never()).executeAsyncWrite(any(TenantId.class), any(Statement.class));
+
+        assertThat(cassandraBaseTimeseriesDao.savePartition(tenantId, tenantId, tsKvEntryTs, "test").get()).isEqualTo(0);
+        verify(cassandraBaseTimeseriesDao, times(1)).executeAsyncWrite(any(TenantId.class), any(Statement.class));
+    }
+
 }
@@ -27,6 +27,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.data.id.AssetId;
 import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.relation.EntityRelation;
 import org.thingsboard.server.common.data.relation.EntityRelationsQuery;
 import org.thingsboard.server.common.data.relation.EntitySearchDirection;
@@ -655,6 +656,43 @@ public class RelationServiceTest extends AbstractServiceTest {
         Assert.assertTrue(relations.containsAll(expectedRelations));
     }
 
+    @Test
+    public void testFindByQueryLevelWithDifferentEntityTypes() throws Exception {
+        AssetId rootAsset = new AssetId(Uuids.timeBased());
+        List<EntityRelation> expectedRelations = new ArrayList<>();
+        List<EntityRelation> lastLevelRelations = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            AssetId asset = new AssetId(Uuids.timeBased());
+            DeviceId gateway = new DeviceId(Uuids.timeBased());
+            expectedRelations.add(saveRelation(new EntityRelation(rootAsset, asset, EntityRelation.CONTAINS_TYPE)));
+            expectedRelations.add(saveRelation(new EntityRelation(rootAsset, gateway, EntityRelation.CONTAINS_TYPE)));
+            EntityRelation assetDevice = saveRelation(new EntityRelation(asset, new DeviceId(Uuids.timeBased()), EntityRelation.CONTAINS_TYPE));
+            EntityRelation gatewayDevice = saveRelation(new EntityRelation(gateway, new DeviceId(Uuids.timeBased()), EntityRelation.CONTAINS_TYPE));
+            expectedRelations.add(assetDevice);
+            expectedRelations.add(gatewayDevice);
+            lastLevelRelations.add(assetDevice);
+            lastLevelRelations.add(gatewayDevice);
+        }
+
+        EntityRelationsQuery query = new EntityRelationsQuery();
+        query.setParameters(new RelationsSearchParameters(rootAsset, EntitySearchDirection.FROM, -1, false));
+        List<EntityRelation> relations = relationService.findByQuery(SYSTEM_TENANT_ID, query).get();
+        Assert.assertEquals(expectedRelations.size(), relations.size());
+        Assert.assertTrue(relations.containsAll(expectedRelations));
+
+        query.setParameters(new RelationsSearchParameters(rootAsset, EntitySearchDirection.FROM, -1, true));
+        relations = relationService.findByQuery(SYSTEM_TENANT_ID, query).get();
+        Assert.assertEquals(lastLevelRelations.size(), relations.size());
+        Assert.assertTrue(relations.containsAll(lastLevelRelations));
+
+        EntityId device = lastLevelRelations.get(0).getTo();
+        query.setParameters(new RelationsSearchParameters(device, EntitySearchDirection.TO, -1, false));
+        relations = relationService.findByQuery(SYSTEM_TENANT_ID, query).get();
+        Assert.assertEquals(2, relations.size());
+        Assert.assertTrue(relations.contains(lastLevelRelations.get(0)));
+        Assert.assertTrue(relations.contains(expectedRelations.get(0)));
+    }
+
     private void createAssetRelationsRecursively(AssetId rootAsset, int lvl, List<EntityRelation> entityRelations, boolean lastLvlOnly) throws Exception {
         if (lvl == 0) return;
 
@@ -28,6 +28,7 @@ import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.thingsboard.server.common.data.AttributeScope;
 import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.kv.AttributeKvEntry;
 import org.thingsboard.server.common.data.kv.BaseAttributeKvEntry;
@@ -40,6 +41,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.Executors;
@@ -120,6 +122,30 @@ public abstract class BaseAttributesServiceTest extends AbstractServiceTest {
         equalsIgnoreVersion(attrBNew, saved.get(1));
     }
 
+    @Test
+    public void findByEntityIds() throws Exception {
+        DeviceId firstDeviceId = new DeviceId(Uuids.timeBased());
+        DeviceId secondDeviceId = new DeviceId(Uuids.timeBased());
+        DeviceId emptyDeviceId = new DeviceId(Uuids.timeBased());
+        AttributeKvEntry firstAttr = new BaseAttributeKvEntry(new StringDataEntry("A", "value1"), 42L);
+        AttributeKvEntry secondAttr = new BaseAttributeKvEntry(new StringDataEntry("B", "value2"), 73L);
+        AttributeKvEntry otherScopeAttr = new BaseAttributeKvEntry(new StringDataEntry("A", "value3"), 73L);
+
+        attributesService.save(SYSTEM_TENANT_ID, firstDeviceId, AttributeScope.CLIENT_SCOPE, List.of(firstAttr, secondAttr)).get();
+        attributesService.save(SYSTEM_TENANT_ID, secondDeviceId, AttributeScope.CLIENT_SCOPE, List.of(secondAttr)).get();
+        attributesService.save(SYSTEM_TENANT_ID, secondDeviceId, AttributeScope.SERVER_SCOPE, List.of(otherScopeAttr)).get();
+        // the attribute of the first device is cached, if the cache is enabled
+        attributesService.find(SYSTEM_TENANT_ID, firstDeviceId, AttributeScope.CLIENT_SCOPE, "A").get();
+
+        Map<EntityId, List<AttributeKvEntry>> found = attributesService.findByEntityIds(SYSTEM_TENANT_ID, List.of(firstDeviceId, secondDeviceId, emptyDeviceId),
+                AttributeScope.CLIENT_SCOPE, List.of("A", "B", "C")).get(10, TimeUnit.SECONDS);
+
+        assertThat(found).containsOnlyKeys(firstDeviceId, secondDeviceId);
+        assertThat(found.get(firstDeviceId)).extracting(AttributeKvEntry::getKey).containsExactlyInAnyOrder("A", "B");
+        assertThat(found.get(secondDeviceId)).hasSize(1);
+        equalsIgnoreVersion(secondAttr, found.get(secondDeviceId).get(0));
+    }
+
     @Test
     public void testDummyRequestWithEmptyResult() throws Exception {
         var future = attributesService.find(new TenantId(UUID.randomUUID()), new DeviceId(UUID.randomUUID()), AttributeScope.SERVER_SCOPE, "TEST");
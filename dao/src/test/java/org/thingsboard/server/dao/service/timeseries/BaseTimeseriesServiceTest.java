@@ -53,6 +53,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -168,6 +169,26 @@ public abstract class BaseTimeseriesServiceTest extends AbstractServiceTest {
         equalsIgnoreVersion(toTsEntry(TS, stringKvEntry), entries.get(0));
     }
 
+    @Test
+    public void testFindLatestByEntityIds() throws Exception {
+        DeviceId otherDeviceId = new DeviceId(Uuids.timeBased());
+        DeviceId emptyDeviceId = new DeviceId(Uuids.timeBased());
+        saveEntries(deviceId, TS - 1);
+        saveEntries(deviceId, TS);
+        save(tenantId, otherDeviceId, toTsEntry(TS, longKvEntry));
+
+        Map<EntityId, List<TsKvEntry>> entries = tsService.findLatestByEntityIds(tenantId, List.of(deviceId, otherDeviceId, emptyDeviceId),
+                List.of(STRING_KEY, LONG_KEY)).get(MAX_TIMEOUT, TimeUnit.SECONDS);
+
+        assertThat(entries).containsOnlyKeys(deviceId, otherDeviceId, emptyDeviceId);
+        assertThat(entries.get(deviceId)).extracting(TsKvEntry::getKey).containsExactly(STRING_KEY, LONG_KEY);
+        equalsIgnoreVersion(toTsEntry(TS, stringKvEntry), entries.get(deviceId).get(0));
+        equalsIgnoreVersion(toTsEntry(TS, longKvEntry), entries.get(deviceId).get(1));
+        assertThat(entries.get(otherDeviceId).get(0).getValue()).isNull();
+        equalsIgnoreVersion(toTsEntry(TS, longKvEntry), entries.get(otherDeviceId).get(1));
+        assertThat(entries.get(emptyDeviceId)).extracting(TsKvEntry::getValue).containsOnlyNulls();
+    }
+
     @Test
     public void testFindLatestOpt_givenSaveWithHistoricalNonOrderedTS() throws Exception {
         if (databaseTsLatestType.equals("cassandra")) {
@@ -0,0 +1,135 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.After;
+import org.junit.Test;
+import org.thingsboard.server.common.stats.MessagesStats;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+public class TbSqlRingBufferQueueTest {
+
+    private final ScheduledLogExecutorComponent logExecutor = mock(ScheduledLogExecutorComponent.class);
+    private TbSqlRingBufferQueue<Integer, Integer> queue;
+
+    @After
+    public void tearDown() {
+        if (queue != null) {
+            queue.destroy();
+        }
+    }
+
+    @Test
+    public void testSaveWithResponseAndFilter() throws Exception {
+        queue = new TbSqlRingBufferQueue<>(params(16, 64, false, 0), mock(MessagesStats.class));
+        queue.init(logExecutor, list -> list.stream().map(v -> v * 10).collect(Collectors.toList()), Comparator.naturalOrder(),
+                elements -> elements.stream().filter(e -> e.getEntity() % 2 == 0).collect(Collectors.toList()), 0);
+
+        List<ListenableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 100; i > 0; i--) {
+            futures.add(queue.add(i));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            int value = 100 - i;
+            assertThat(futures.get(i).get(5, TimeUnit.SECONDS)).isEqualTo(value % 2 == 0 ? value * 10 : null);
+        }
+    }
+
+    @Test
+    public void testRejectWhenRingIsFull() throws Exception {
+        CountDownLatch saveStarted = new CountDownLatch(1);
+        CountDownLatch releaseSave = new CountDownLatch(1);
+        queue = new TbSqlRingBufferQueue<>(params(1, 4, true, 0), mock(MessagesStats.class));
+        queue.init(logExecutor, list -> {
+            saveStarted.countDown();
+            try {
+                releaseSave.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new ArrayList<>(list);
+        }, Comparator.naturalOrder(), l -> l, 0);
+
+        ListenableFuture<Integer> inFlight = queue.add(0);
+        assertThat(saveStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        List<ListenableFuture<Integer>> queued = new ArrayList<>();
+        for (int i = 1; i <= queue.getCapacity(); i++) {
+            queued.add(queue.add(i));
+        }
+        ListenableFuture<Integer> rejected = queue.add(-1);
+        assertThatThrownBy(() -> rejected.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+
+        releaseSave.countDown();
+        assertThat(inFlight.get(5, TimeUnit.SECONDS)).isEqualTo(0);
+        for (int i = 0; i < queued.size(); i++) {
+            assertThat(queued.get(i).get(5, TimeUnit.SECONDS)).isEqualTo(i + 1);
+        }
+    }
+
+    @Test
+    public void testBatchSizeShrinksWhenSaveIsSlow() throws Exception {
+        queue = new TbSqlRingBufferQueue<>(params(64, 1024, false, 1), mock(MessagesStats.class));
+        queue.init(logExecutor, list -> {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new ArrayList<>(list);
+        }, Comparator.naturalOrder(), l -> l, 0);
+
+        List<ListenableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 256; i++) {
+            futures.add(queue.add(i));
+        }
+        for (ListenableFuture<Integer> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        assertThat(queue.getBatchLimit()).isEqualTo(4);
+    }
+
+    private static TbSqlBlockingQueueParams params(int batchSize, int capacity, boolean rejectOnOverflow, long batchTargetLatencyMs) {
+        return TbSqlBlockingQueueParams.builder()
+                .logName("Test")
+                .batchSize(batchSize)
+                .maxDelay(10)
+                .statsPrintIntervalMs(1000)
+                .statsNamePrefix("test")
+                .batchSortEnabled(true)
+                .withResponse(true)
+                .queueType(TbSqlQueueType.RING_BUFFER)
+                .capacity(capacity)
+                .rejectOnOverflow(rejectOnOverflow)
+                .batchTargetLatencyMs(batchTargetLatencyMs)
+                .build();
+    }
+
+}
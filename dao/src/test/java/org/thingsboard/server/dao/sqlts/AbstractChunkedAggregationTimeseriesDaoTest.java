@@ -18,17 +18,26 @@ package org.thingsboard.server.dao.sqlts;
 import com.google.common.util.concurrent.Futures;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.thingsboard.server.common.data.kv.BaseReadTsKvQuery;
 import org.thingsboard.server.common.data.kv.ReadTsKvQuery;
 import org.thingsboard.server.common.data.kv.ReadTsKvQueryResult;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
+import org.thingsboard.server.dao.dictionary.KeyDictionaryDao;
+import org.thingsboard.server.dao.model.sql.AbstractTsKvEntity;
+import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
+import org.thingsboard.server.dao.sqlts.ts.TsKvAggregationRepository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.willAnswer;
 import static org.mockito.BDDMockito.willCallRealMethod;
 import static org.mockito.BDDMockito.willReturn;
 import static org.mockito.Mockito.mock;
@@ -42,6 +51,7 @@ public class AbstractChunkedAggregationTimeseriesDaoTest {
 
     final int LIMIT = 1;
     final String TEMP = "temp";
+    final String HUMIDITY = "humidity";
     final String DESC = "DESC";
     private AbstractChunkedAggregationTimeseriesDao tsDao;
 
@@ -146,6 +156,60 @@ public class AbstractChunkedAggregationTimeseriesDaoTest {
         }
     }
 
+    @Test
+    public void givenBucketedAggregation_whenAggregateCount_thenBucketTsIsMiddleOfShortenedLastInterval() {
+        TsKvAggregationRepository aggregationRepository = mockBucketedAggregation();
+        ReadTsKvQuery query = new BaseReadTsKvQuery(TEMP, 1, 3000, 2000, LIMIT, COUNT, DESC);
+        willAnswer(invocation -> {
+            TsKvAggregationRepository.AggregatedBucketCallback callback = invocation.getArgument(6);
+            callback.onBucket(1, 1, new TsKvEntity(0L, 0L, 5L, 0L, 0L, 2999L));
+            return null;
+        }).given(aggregationRepository).findAggregated(any(), any(), anyLong(), anyLong(), anyLong(), any(), any());
+
+        List<List<Optional<? extends AbstractTsKvEntity>>> result = tsDao.findAllAndAggregate(SYS_TENANT_ID, List.of(query));
+
+        verify(aggregationRepository, times(1)).findAggregated(eq(SYS_TENANT_ID.getId()), eq(Set.of(1)), eq(1L), eq(3000L), eq(2000L), eq(COUNT), any());
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0)).hasSize(1);
+        AbstractTsKvEntity entity = result.get(0).get(0).orElseThrow();
+        assertThat(entity.getTs()).isEqualTo(getTsForReadTsKvQuery(2001, 3000));
+        assertThat(entity.getLongValue()).isEqualTo(5L);
+        assertThat(entity.getStrKey()).isEqualTo(TEMP);
+    }
+
+    @Test
+    public void givenBucketedAggregation_whenSeveralKeys_thenSingleQueryForAllKeys() {
+        TsKvAggregationRepository aggregationRepository = mockBucketedAggregation();
+        ReadTsKvQuery tempQuery = new BaseReadTsKvQuery(TEMP, 0, 3000, 1000, LIMIT, COUNT, DESC);
+        ReadTsKvQuery humidityQuery = new BaseReadTsKvQuery(HUMIDITY, 0, 3000, 1000, LIMIT, COUNT, DESC);
+        willAnswer(invocation -> {
+            TsKvAggregationRepository.AggregatedBucketCallback callback = invocation.getArgument(6);
+            callback.onBucket(2, 0, new TsKvEntity(0L, 0L, 3L, 0L, 0L, 999L));
+            callback.onBucket(2, 2, new TsKvEntity(0L, 0L, 4L, 0L, 0L, 2999L));
+            return null;
+        }).given(aggregationRepository).findAggregated(any(), any(), anyLong(), anyLong(), anyLong(), any(), any());
+
+        List<List<Optional<? extends AbstractTsKvEntity>>> result = tsDao.findAllAndAggregate(SYS_TENANT_ID, List.of(tempQuery, humidityQuery));
+
+        verify(aggregationRepository, times(1)).findAggregated(eq(SYS_TENANT_ID.getId()), eq(Set.of(1, 2)), eq(0L), eq(3000L), eq(1000L), eq(COUNT), any());
+        assertThat(result.get(0)).isEmpty();
+        assertThat(result.get(1)).hasSize(2);
+        assertThat(result.get(1).get(0).orElseThrow().getTs()).isEqualTo(500L);
+        assertThat(result.get(1).get(1).orElseThrow().getTs()).isEqualTo(2500L);
+        assertThat(result.get(1).get(1).orElseThrow().getStrKey()).isEqualTo(HUMIDITY);
+    }
+
+    private TsKvAggregationRepository mockBucketedAggregation() {
+        KeyDictionaryDao keyDictionaryDao = mock(KeyDictionaryDao.class);
+        willReturn(1).given(keyDictionaryDao).getOrSaveKeyId(TEMP);
+        willReturn(2).given(keyDictionaryDao).getOrSaveKeyId(HUMIDITY);
+        ReflectionTestUtils.setField(tsDao, "keyDictionaryDao", keyDictionaryDao);
+        TsKvAggregationRepository aggregationRepository = mock(TsKvAggregationRepository.class);
+        tsDao.tsKvAggregationRepository = aggregationRepository;
+        tsDao.bucketedAggregationEnabled = true;
+        return aggregationRepository;
+    }
+
     long getTsForReadTsKvQuery(long startTs, long endTs) {
         return startTs + (endTs - startTs) / 2L;
     }
@@ -0,0 +1,162 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts;
+
+import com.google.common.util.concurrent.Futures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.cache.SimpleTbCacheValueWrapper;
+import org.thingsboard.server.cache.TbCacheValueWrapper;
+import org.thingsboard.server.cache.VersionedTbCache;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+import org.thingsboard.server.common.stats.StatsFactory;
+import org.thingsboard.server.dao.cache.CacheExecutorService;
+import org.thingsboard.server.dao.timeseries.TsLatestCacheKey;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachedRedisSqlTimeseriesLatestDaoTest {
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final DeviceId deviceId = new DeviceId(UUID.randomUUID());
+
+    private CacheExecutorService cacheExecutorService;
+    private SqlTimeseriesLatestDao sqlDao;
+    private VersionedTbCache<TsLatestCacheKey, TsKvEntry> cache;
+    private CachedRedisSqlTimeseriesLatestDao dao;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        cacheExecutorService = new CacheExecutorService();
+        ReflectionTestUtils.setField(cacheExecutorService, "poolSize", 2);
+        cacheExecutorService.init();
+        sqlDao = mock(SqlTimeseriesLatestDao.class);
+        doCallRealMethod().when(sqlDao).wrapNullTsKvEntry(anyString(), any());
+        cache = mock(VersionedTbCache.class);
+        dao = new CachedRedisSqlTimeseriesLatestDao(cacheExecutorService, sqlDao, mock(StatsFactory.class), cache);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        cacheExecutorService.destroy();
+    }
+
+    @Test
+    public void givenPartialCacheMisses_whenFindLatest_thenReturnsEntriesInKeysOrderAndCachesMissedOnes() throws Exception {
+        TsKvEntry cachedEntry = newEntry("cached", 1);
+        TsKvEntry dbEntry = newEntry("missed", 2);
+        Map<TsLatestCacheKey, TbCacheValueWrapper<TsKvEntry>> cachedValues = new HashMap<>();
+        cachedValues.put(cacheKey("cached"), SimpleTbCacheValueWrapper.wrap(cachedEntry));
+        cachedValues.put(cacheKey("cachedEmpty"), SimpleTbCacheValueWrapper.empty());
+        when(cache.getAll(any())).thenReturn(cachedValues);
+        when(sqlDao.findLatestOpt(tenantId, deviceId, "missed")).thenReturn(Futures.immediateFuture(Optional.of(dbEntry)));
+        when(sqlDao.findLatestOpt(tenantId, deviceId, "missedEmpty")).thenReturn(Futures.immediateFuture(Optional.empty()));
+
+        List<TsKvEntry> result = dao.findLatest(tenantId, deviceId, List.of("missed", "cached", "missedEmpty", "cachedEmpty", "missed")).get(30, TimeUnit.SECONDS);
+
+        assertThat(result).extracting(TsKvEntry::getKey).containsExactly("missed", "cached", "missedEmpty", "cachedEmpty", "missed");
+        assertThat(result.get(0)).isEqualTo(dbEntry);
+        assertThat(result.get(1)).isEqualTo(cachedEntry);
+        assertThat(result.get(2).getValue()).isNull();
+        assertThat(result.get(3).getValue()).isNull();
+        assertThat(result.get(4)).isEqualTo(dbEntry);
+
+        verify(cache).getAll(eq(List.of(cacheKey("missed"), cacheKey("cached"), cacheKey("missedEmpty"), cacheKey("cachedEmpty"))));
+        verify(sqlDao, times(1)).findLatestOpt(tenantId, deviceId, "missed");
+        verify(sqlDao, times(1)).findLatestOpt(tenantId, deviceId, "missedEmpty");
+        verify(sqlDao, never()).findLatestOpt(tenantId, deviceId, "cached");
+        verify(sqlDao, never()).findLatestOpt(tenantId, deviceId, "cachedEmpty");
+
+        Map<TsLatestCacheKey, TsKvEntry> toCache = new HashMap<>();
+        toCache.put(cacheKey("missed"), dbEntry);
+        toCache.put(cacheKey("missedEmpty"), null);
+        verify(cache, timeout(5000)).putAll(toCache);
+    }
+
+    @Test
+    public void givenAllKeysCached_whenFindLatest_thenDbIsNotQueried() throws Exception {
+        TsKvEntry first = newEntry("first", 1);
+        TsKvEntry second = newEntry("second", 2);
+        when(cache.getAll(any())).thenReturn(Map.of(
+                cacheKey("first"), SimpleTbCacheValueWrapper.wrap(first),
+                cacheKey("second"), SimpleTbCacheValueWrapper.wrap(second)));
+
+        List<TsKvEntry> result = dao.findLatest(tenantId, deviceId, List.of("second", "first")).get(30, TimeUnit.SECONDS);
+
+        assertThat(result).containsExactly(second, first);
+        verify(sqlDao, never()).findLatestOpt(any(), any(), anyString());
+        verify(cache, never()).putAll(anyMap());
+    }
+
+    @Test
+    public void givenSeveralEntities_whenFindLatestByEntityIds_thenMissedKeysAreFetchedWithSingleQuery() throws Exception {
+        DeviceId otherDeviceId = new DeviceId(UUID.randomUUID());
+        TsKvEntry cachedEntry = newEntry("temperature", 1);
+        TsKvEntry dbEntry = newEntry("temperature", 2);
+        when(cache.getAll(any())).thenReturn(Map.of(cacheKey("temperature"), SimpleTbCacheValueWrapper.wrap(cachedEntry),
+                cacheKey("humidity"), SimpleTbCacheValueWrapper.empty()));
+        when(sqlDao.findLatestPresent(eq(tenantId), any(), any())).thenReturn(Futures.immediateFuture(Map.of(otherDeviceId, Map.of("temperature", dbEntry))));
+
+        Map<EntityId, List<TsKvEntry>> result = dao.findLatestByEntityIds(tenantId, List.of(deviceId, otherDeviceId), List.of("temperature", "humidity"))
+                .get(30, TimeUnit.SECONDS);
+
+        assertThat(result.get(deviceId)).extracting(TsKvEntry::getValue).containsExactly(42L, null);
+        assertThat(result.get(otherDeviceId).get(0)).isEqualTo(dbEntry);
+        assertThat(result.get(otherDeviceId).get(1).getValue()).isNull();
+        verify(sqlDao).findLatestPresent(tenantId, Set.of(otherDeviceId), Set.of("temperature", "humidity"));
+
+        Map<TsLatestCacheKey, TsKvEntry> toCache = new HashMap<>();
+        toCache.put(new TsLatestCacheKey(otherDeviceId, "temperature"), dbEntry);
+        toCache.put(new TsLatestCacheKey(otherDeviceId, "humidity"), null);
+        verify(cache).putAll(toCache);
+    }
+
+    private TsLatestCacheKey cacheKey(String key) {
+        return new TsLatestCacheKey(deviceId, key);
+    }
+
+    private static TsKvEntry newEntry(String key, long version) {
+        return new BasicTsKvEntry(System.currentTimeMillis(), new LongDataEntry(key, 42L), version);
+    }
+
+}
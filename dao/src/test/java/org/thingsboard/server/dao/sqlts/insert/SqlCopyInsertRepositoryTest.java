@@ -0,0 +1,159 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.insert;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.thingsboard.server.dao.model.sqlts.latest.TsKvLatestEntity;
+import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
+import org.thingsboard.server.dao.service.AbstractServiceTest;
+import org.thingsboard.server.dao.service.DaoSqlTest;
+import org.thingsboard.server.dao.sqlts.insert.latest.InsertLatestTsRepository;
+import org.thingsboard.server.dao.sqlts.insert.latest.sql.SqlCopyLatestInsertTsRepository;
+import org.thingsboard.server.dao.sqlts.insert.sql.SqlCopyInsertTsRepository;
+import org.thingsboard.server.dao.sqlts.insert.sql.SqlPartitioningRepository;
+import org.thingsboard.server.dao.timeseries.SqlPartition;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DaoSqlTest
+@TestPropertySource(properties = {
+        "sql.ts.copy_insert_enabled=true",
+        "sql.ts_latest.copy_insert_enabled=true"
+})
+public class SqlCopyInsertRepositoryTest extends AbstractServiceTest {
+
+    // 1990-01-01 and 1990-02-01 UTC, the same bounds as the monthly partition created by the timeseries dao
+    private static final long PARTITION_START_TS = 631152000000L;
+    private static final long PARTITION_END_TS = 633830400000L;
+
+    @Autowired
+    private InsertTsRepository<TsKvEntity> insertTsRepository;
+
+    @Autowired
+    private InsertLatestTsRepository insertLatestTsRepository;
+
+    @Autowired
+    private SqlPartitioningRepository partitioningRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void before() {
+        assertThat(insertTsRepository).isInstanceOf(SqlCopyInsertTsRepository.class);
+        assertThat(insertLatestTsRepository).isInstanceOf(SqlCopyLatestInsertTsRepository.class);
+        partitioningRepository.save(new SqlPartition(SqlPartition.TS_KV, PARTITION_START_TS, PARTITION_END_TS, "1990_01"));
+    }
+
+    @Test
+    public void givenDuplicatesInBatch_whenSaveTs_thenLastEntryWins() {
+        UUID entityId = UUID.randomUUID();
+        long ts = PARTITION_START_TS + 1000;
+        insertTsRepository.saveOrUpdate(List.of(
+                newTsEntity(entityId, 1, ts, "first"),
+                newTsEntity(entityId, 2, ts, "other key"),
+                newTsEntity(entityId, 1, ts + 1, "other ts"),
+                newTsEntity(entityId, 1, ts, "last \"quoted\", with comma")
+        ));
+
+        assertThat(findTs(entityId, 1, ts)).isEqualTo("last \"quoted\", with comma");
+        assertThat(findTs(entityId, 1, ts + 1)).isEqualTo("other ts");
+        assertThat(findTs(entityId, 2, ts)).isEqualTo("other key");
+
+        insertTsRepository.saveOrUpdate(List.of(newTsEntity(entityId, 1, ts, "updated")));
+        assertThat(findTs(entityId, 1, ts)).isEqualTo("updated");
+    }
+
+    @Test
+    public void givenDuplicateKeysInBatch_whenSaveLatest_thenEntryWithHighestTsGetsVersion() {
+        UUID entityId = UUID.randomUUID();
+        List<Long> versions = insertLatestTsRepository.saveOrUpdate(List.of(
+                newLatestEntity(entityId, 1, 200, "newest"),
+                newLatestEntity(entityId, 2, 100, "other key"),
+                newLatestEntity(entityId, 1, 100, "older"),
+                newLatestEntity(entityId, 3, 100, "first"),
+                newLatestEntity(entityId, 3, 100, "same ts")
+        ));
+
+        assertThat(versions).hasSize(5);
+        assertThat(versions.get(0)).isNotNull();
+        assertThat(versions.get(1)).isNotNull();
+        assertThat(versions.get(2)).isNull();
+        assertThat(versions.get(3)).isNull();
+        assertThat(versions.get(4)).isNotNull();
+        assertThat(versions.get(0)).isNotEqualTo(versions.get(1)).isNotEqualTo(versions.get(4));
+
+        Map<String, Object> latest = findLatest(entityId, 1);
+        assertThat(latest).containsEntry("ts", 200L).containsEntry("str_v", "newest").containsEntry("version", versions.get(0));
+        assertThat(findLatest(entityId, 2)).containsEntry("str_v", "other key").containsEntry("version", versions.get(1));
+        assertThat(findLatest(entityId, 3)).containsEntry("str_v", "same ts").containsEntry("version", versions.get(4));
+    }
+
+    @Test
+    public void givenOlderTs_whenSaveLatest_thenVersionIsNullAndEntryIsNotUpdated() {
+        UUID entityId = UUID.randomUUID();
+        Long version = insertLatestTsRepository.saveOrUpdate(List.of(newLatestEntity(entityId, 1, 200, "current"))).get(0);
+        assertThat(version).isNotNull();
+
+        List<Long> versions = insertLatestTsRepository.saveOrUpdate(List.of(
+                newLatestEntity(entityId, 1, 100, "outdated"),
+                newLatestEntity(entityId, 2, 100, "new key")
+        ));
+
+        assertThat(versions.get(0)).isNull();
+        assertThat(versions.get(1)).isGreaterThan(version);
+        assertThat(findLatest(entityId, 1)).containsEntry("str_v", "current").containsEntry("version", version);
+
+        Long updatedVersion = insertLatestTsRepository.saveOrUpdate(List.of(newLatestEntity(entityId, 1, 300, "updated"))).get(0);
+        assertThat(updatedVersion).isGreaterThan(versions.get(1));
+        assertThat(findLatest(entityId, 1)).containsEntry("str_v", "updated").containsEntry("version", updatedVersion);
+    }
+
+    private String findTs(UUID entityId, int key, long ts) {
+        return jdbcTemplate.queryForObject("SELECT str_v FROM ts_kv WHERE entity_id = ? AND key = ? AND ts = ?", String.class, entityId, key, ts);
+    }
+
+    private Map<String, Object> findLatest(UUID entityId, int key) {
+        return jdbcTemplate.queryForMap("SELECT ts, str_v, version FROM ts_kv_latest WHERE entity_id = ? AND key = ?", entityId, key);
+    }
+
+    private static TsKvEntity newTsEntity(UUID entityId, int key, long ts, String value) {
+        TsKvEntity entity = new TsKvEntity();
+        entity.setEntityId(entityId);
+        entity.setKey(key);
+        entity.setTs(ts);
+        entity.setStrValue(value);
+        return entity;
+    }
+
+    private static TsKvLatestEntity newLatestEntity(UUID entityId, int key, long ts, String value) {
+        TsKvLatestEntity entity = new TsKvLatestEntity();
+        entity.setEntityId(entityId);
+        entity.setKey(key);
+        entity.setTs(ts);
+        entity.setStrValue(value);
+        return entity;
+    }
+
+}
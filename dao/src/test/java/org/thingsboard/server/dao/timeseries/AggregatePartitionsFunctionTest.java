@@ -0,0 +1,108 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.timeseries;
+
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.ExecutionInfo;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.common.data.kv.TsKvEntryAggWrapper;
+import org.thingsboard.server.dao.nosql.TbResultSet;
+import org.thingsboard.server.dao.nosql.TbResultSetFuture;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AggregatePartitionsFunctionTest {
+
+    private final AggregatePartitionsFunction function = new AggregatePartitionsFunction(Aggregation.SUM, "temperature", 500, MoreExecutors.directExecutor());
+
+    @Test
+    public void givenPartitionsWithSeveralPages_whenApply_thenRowsOfAllPagesAreAggregated() throws Exception {
+        AsyncResultSet secondPage = page(List.of(row(3, 30L, 300L)), null);
+        TbResultSet firstPartition = resultSet(page(List.of(row(1, 10L, 100L), row(2, 20L, 200L)), secondPage), secondPage);
+        TbResultSet secondPartition = resultSet(page(List.of(row(4, 40L, 400L)), null), null);
+
+        Optional<TsKvEntryAggWrapper> result = function.apply(List.of(firstPartition, secondPartition)).get(5, TimeUnit.SECONDS);
+
+        assertThat(result).isPresent();
+        assertThat(result.get().getEntry().getLongValue()).contains(100L);
+        assertThat(result.get().getLastEntryTs()).isEqualTo(400L);
+    }
+
+    @Test
+    public void givenNextPageFetchFailed_whenApply_thenFailureIsPropagated() {
+        RuntimeException failure = new RuntimeException("read timeout");
+        AsyncResultSet firstPage = page(List.of(row(1, 10L, 100L)), mock(AsyncResultSet.class));
+        SettableFuture<TbResultSet> nextPage = SettableFuture.create();
+        nextPage.setException(failure);
+        TbResultSet partition = new TbResultSet(mock(Statement.class, RETURNS_SELF), firstPage, stmt -> new TbResultSetFuture(nextPage));
+
+        assertThatThrownBy(() -> function.apply(List.of(partition)).get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCause(failure);
+    }
+
+    @Test
+    public void givenNoPartitions_whenApply_thenEmptyResult() throws Exception {
+        assertThat(function.apply(List.of()).get(5, TimeUnit.SECONDS)).isEmpty();
+    }
+
+    private static TbResultSet resultSet(AsyncResultSet firstPage, AsyncResultSet nextPage) {
+        SettableFuture<TbResultSet> nextPageFuture = SettableFuture.create();
+        if (nextPage != null) {
+            nextPageFuture.set(new TbResultSet(mock(Statement.class, RETURNS_SELF), nextPage, stmt -> {
+                throw new IllegalStateException("No more pages");
+            }));
+        }
+        return new TbResultSet(mock(Statement.class, RETURNS_SELF), firstPage, stmt -> new TbResultSetFuture(nextPageFuture));
+    }
+
+    private static AsyncResultSet page(List<Row> rows, AsyncResultSet nextPage) {
+        AsyncResultSet page = mock(AsyncResultSet.class);
+        when(page.currentPage()).thenReturn(rows);
+        when(page.hasMorePages()).thenReturn(nextPage != null);
+        if (nextPage != null) {
+            ExecutionInfo executionInfo = mock(ExecutionInfo.class);
+            when(executionInfo.getPagingState()).thenReturn(ByteBuffer.allocate(0));
+            when(page.getExecutionInfo()).thenReturn(executionInfo);
+        }
+        return page;
+    }
+
+    // a row of the partition aggregate: the long count, the long sum and the max ts of the aggregated values
+    private static Row row(long count, long sum, long lastTs) {
+        Row row = mock(Row.class);
+        when(row.getLong(0)).thenReturn(count);
+        when(row.getLong(5)).thenReturn(lastTs);
+        when(row.getLong(6)).thenReturn(sum);
+        return row;
+    }
+
+}
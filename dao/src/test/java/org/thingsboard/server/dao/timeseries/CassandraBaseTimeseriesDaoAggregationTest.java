@@ -0,0 +1,167 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.timeseries;
+
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.Environment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.common.data.kv.BaseReadTsKvQuery;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.ReadTsKvQuery;
+import org.thingsboard.server.common.data.kv.ReadTsKvQueryResult;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+import org.thingsboard.server.common.data.kv.TsKvEntryAggWrapper;
+import org.thingsboard.server.common.stats.StatsFactory;
+import org.thingsboard.server.dao.cassandra.CassandraCluster;
+import org.thingsboard.server.dao.cassandra.guava.GuavaSession;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+public class CassandraBaseTimeseriesDaoAggregationTest {
+
+    private static final TenantId TENANT_ID = TenantId.fromUUID(UUID.randomUUID());
+    private static final DeviceId DEVICE_ID = new DeviceId(UUID.randomUUID());
+    private static final int PARALLELISM = 2;
+    private static final int INTERVALS = 5;
+
+    private CassandraBaseTimeseriesDao dao;
+    private final List<IntervalCall> calls = new CopyOnWriteArrayList<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @BeforeEach
+    public void setUp() {
+        dao = spy(new CassandraBaseTimeseriesDao());
+        CassandraCluster cluster = mock(CassandraCluster.class);
+        GuavaSession session = mock(GuavaSession.class);
+
+        ReflectionTestUtils.setField(dao, "partitioning", "INDEFINITE");
+        ReflectionTestUtils.setField(dao, "aggregationParallelism", PARALLELISM);
+        ReflectionTestUtils.setField(dao, "threadPoolSize", 2);
+        ReflectionTestUtils.setField(dao, "environment", mock(Environment.class));
+        ReflectionTestUtils.setField(dao, "statsFactory", mock(StatsFactory.class));
+        ReflectionTestUtils.setField(dao, "cluster", cluster);
+
+        when(cluster.getSession()).thenReturn(session);
+        when(session.prepare(anyString())).thenReturn(mock(PreparedStatement.class));
+        // every interval is completed by the test, so the test controls the order of the partial results
+        doAnswer(invocation -> {
+            SettableFuture<Optional<TsKvEntryAggWrapper>> future = SettableFuture.create();
+            future.addListener(inFlight::decrementAndGet, Runnable::run);
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            calls.add(new IntervalCall(invocation.getArgument(2), future));
+            return future;
+        }).when(dao).findAndAggregateAsync(any(), any(), any(), anyList());
+
+        dao.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        dao.stop();
+    }
+
+    @Test
+    public void givenManyIntervals_whenFindAllAsync_thenNotMoreThanParallelismIntervalsAreInFlight() throws Exception {
+        ListenableFuture<ReadTsKvQueryResult> future = dao.findAllAsync(TENANT_ID, DEVICE_ID, newQuery());
+
+        for (int i = 0; i < INTERVALS; i++) {
+            int started = Math.min(INTERVALS, i + PARALLELISM);
+            await().atMost(5, TimeUnit.SECONDS).until(() -> calls.size() == started);
+            assertThat(inFlight.get()).isLessThanOrEqualTo(PARALLELISM);
+            complete(calls.get(i));
+        }
+
+        assertThat(future.get(5, TimeUnit.SECONDS).getData()).hasSize(INTERVALS);
+        assertThat(maxInFlight.get()).isEqualTo(PARALLELISM);
+    }
+
+    @Test
+    public void givenIntervalsCompletedOutOfOrder_whenFindAllAsync_thenResultsAreInIntervalOrder() throws Exception {
+        ListenableFuture<ReadTsKvQueryResult> future = dao.findAllAsync(TENANT_ID, DEVICE_ID, newQuery());
+
+        // the second interval of the window completes first, so the next interval starts before the first one is done
+        await().atMost(5, TimeUnit.SECONDS).until(() -> calls.size() == PARALLELISM);
+        complete(calls.get(1));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> calls.size() == PARALLELISM + 1);
+        complete(calls.get(2));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> calls.size() == PARALLELISM + 2);
+        complete(calls.get(3));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> calls.size() == INTERVALS);
+        complete(calls.get(4));
+        complete(calls.get(0));
+
+        List<TsKvEntry> data = future.get(5, TimeUnit.SECONDS).getData();
+        assertThat(data).extracting(TsKvEntry::getTs).isSorted().hasSize(INTERVALS);
+        assertThat(data).extracting(TsKvEntry::getLongValue)
+                .containsExactly(Optional.of(0L), Optional.of(1000L), Optional.of(2000L), Optional.of(3000L), Optional.of(4000L));
+    }
+
+    @Test
+    public void givenIntervalFailed_whenFindAllAsync_thenFailureIsPropagatedAndNoMoreIntervalsStarted() throws Exception {
+        ListenableFuture<ReadTsKvQueryResult> future = dao.findAllAsync(TENANT_ID, DEVICE_ID, newQuery());
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> calls.size() == PARALLELISM);
+        RuntimeException failure = new RuntimeException("read timeout");
+        calls.get(0).future().setException(failure);
+
+        assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCause(failure);
+        complete(calls.get(1));
+        await().during(200, TimeUnit.MILLISECONDS).atMost(1, TimeUnit.SECONDS).until(() -> calls.size() == PARALLELISM);
+    }
+
+    private static ReadTsKvQuery newQuery() {
+        return new BaseReadTsKvQuery("temperature", 0, INTERVALS * 1000L, 1000, 1, Aggregation.SUM);
+    }
+
+    private static void complete(IntervalCall call) {
+        long startTs = call.query().getStartTs();
+        long ts = startTs + (call.query().getEndTs() - startTs) / 2;
+        call.future().set(Optional.of(new TsKvEntryAggWrapper(new BasicTsKvEntry(ts, new LongDataEntry("temperature", startTs)), ts)));
+    }
+
+    private record IntervalCall(ReadTsKvQuery query, SettableFuture<Optional<TsKvEntryAggWrapper>> future) {
+    }
+
+}
@@ -0,0 +1,42 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.timeseries;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CassandraBaseTimeseriesDaoIntervalPartitionsTest {
+
+    private static final List<Long> PARTITIONS = List.of(100L, 200L, 300L, 400L);
+
+    @Test
+    void givenIntervalInsideRange_whenGetIntervalPartitions_thenOverlappingPartitionsReturned() {
+        assertThat(CassandraBaseTimeseriesDao.getIntervalPartitions(PARTITIONS, 200L, 300L)).containsExactly(200L, 300L);
+        assertThat(CassandraBaseTimeseriesDao.getIntervalPartitions(PARTITIONS, 150L, 350L)).containsExactly(200L, 300L);
+        assertThat(CassandraBaseTimeseriesDao.getIntervalPartitions(PARTITIONS, 400L, 400L)).containsExactly(400L);
+    }
+
+    @Test
+    void givenIntervalWithoutPartitions_whenGetIntervalPartitions_thenEmptyListReturned() {
+        assertThat(CassandraBaseTimeseriesDao.getIntervalPartitions(PARTITIONS, 210L, 290L)).isEmpty();
+        assertThat(CassandraBaseTimeseriesDao.getIntervalPartitions(PARTITIONS, 500L, 600L)).isEmpty();
+        assertThat(CassandraBaseTimeseriesDao.getIntervalPartitions(List.of(), 100L, 200L)).isEmpty();
+    }
+
+}
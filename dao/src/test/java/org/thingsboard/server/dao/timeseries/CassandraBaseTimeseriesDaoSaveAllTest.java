@@ -0,0 +1,211 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.timeseries;
+
+import com.datastax.oss.driver.api.core.ConsistencyLevel;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchType;
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.google.common.util.concurrent.SettableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.Environment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+import org.thingsboard.server.common.stats.StatsFactory;
+import org.thingsboard.server.dao.cassandra.CassandraCluster;
+import org.thingsboard.server.dao.cassandra.guava.GuavaSession;
+import org.thingsboard.server.dao.nosql.CassandraBufferedRateWriteExecutor;
+import org.thingsboard.server.dao.nosql.CassandraStatementTask;
+import org.thingsboard.server.dao.nosql.TbResultSet;
+import org.thingsboard.server.dao.nosql.TbResultSetFuture;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+public class CassandraBaseTimeseriesDaoSaveAllTest {
+
+    private static final TenantId TENANT_ID = TenantId.fromUUID(UUID.randomUUID());
+    private static final DeviceId DEVICE_ID = new DeviceId(UUID.randomUUID());
+    private static final long MONTH_START_TS = LocalDate.of(2024, 5, 1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    private static final long NEXT_MONTH_START_TS = LocalDate.of(2024, 6, 1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+
+    private CassandraBaseTimeseriesDao dao;
+    private BoundStatement partitionStatement;
+    private final List<Statement<?>> executed = new ArrayList<>();
+    private final Map<Statement<?>, TsKvEntry> savedEntries = new IdentityHashMap<>();
+
+    @BeforeEach
+    public void setUp() {
+        dao = spy(new CassandraBaseTimeseriesDao());
+        CassandraCluster cluster = mock(CassandraCluster.class);
+        GuavaSession session = mock(GuavaSession.class);
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        partitionStatement = mock(BoundStatement.class, RETURNS_SELF);
+        CassandraBufferedRateWriteExecutor writeExecutor = mock(CassandraBufferedRateWriteExecutor.class);
+
+        ReflectionTestUtils.setField(dao, "partitioning", "MONTHS");
+        ReflectionTestUtils.setField(dao, "partitionsCacheSize", 0);
+        ReflectionTestUtils.setField(dao, "systemTtl", 0);
+        ReflectionTestUtils.setField(dao, "batchMaxSize", 3);
+        ReflectionTestUtils.setField(dao, "threadPoolSize", 1);
+        ReflectionTestUtils.setField(dao, "environment", mock(Environment.class));
+        ReflectionTestUtils.setField(dao, "statsFactory", mock(StatsFactory.class));
+        ReflectionTestUtils.setField(dao, "cluster", cluster);
+        ReflectionTestUtils.setField(dao, "rateWriteLimiter", writeExecutor);
+
+        when(cluster.getDefaultWriteConsistencyLevel()).thenReturn(ConsistencyLevel.ONE);
+        when(cluster.getSession()).thenReturn(session);
+        when(session.prepare(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.bind()).thenReturn(partitionStatement);
+        when(writeExecutor.submit(any())).thenAnswer(invocation -> {
+            executed.add(invocation.<CassandraStatementTask>getArgument(0).getStatement());
+            SettableFuture<TbResultSet> resultSet = SettableFuture.create();
+            resultSet.set(mock(TbResultSet.class));
+            return new TbResultSetFuture(resultSet);
+        });
+        // the statements of the entries are mocks, so the test sees which entries they were created for
+        doAnswer(invocation -> {
+            BoundStatement stmt = mock(BoundStatement.class, RETURNS_SELF);
+            savedEntries.put(stmt, invocation.getArgument(1));
+            return stmt;
+        }).when(dao).toSaveStmt(any(), any(), anyLong(), anyLong());
+
+        dao.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        dao.stop();
+    }
+
+    @Test
+    public void givenEntriesOfDifferentPartitions_whenSaveAll_thenEachPartitionIsWrittenWithOwnBatch() throws Exception {
+        List<TsKvEntry> entries = List.of(
+                entry("temperature", MONTH_START_TS, 1),
+                entry("humidity", MONTH_START_TS, 2),
+                entry("temperature", MONTH_START_TS + 1, 3),
+                entry("temperature", NEXT_MONTH_START_TS, 4));
+
+        int dataPoints = dao.saveAll(TENANT_ID, DEVICE_ID, entries, 0).get(10, TimeUnit.SECONDS);
+
+        assertThat(dataPoints).isEqualTo(entries.stream().mapToInt(TsKvEntry::getDataPoints).sum());
+        assertThat(partitionWrites()).isEqualTo(3);
+        List<Statement<?>> writes = dataWrites();
+        assertThat(writes).hasSize(3);
+        BatchStatement batch = (BatchStatement) writes.get(0);
+        assertThat(batch.getBatchType()).isEqualTo(BatchType.UNLOGGED);
+        assertThat(toValues(batch)).containsExactly(1L, 3L);
+        assertThat(toValues(writes.get(1))).containsExactly(2L);
+        assertThat(toValues(writes.get(2))).containsExactly(4L);
+    }
+
+    @Test
+    public void givenMoreEntriesThanBatchMaxSize_whenSaveAll_thenPartitionIsWrittenInChunks() throws Exception {
+        List<TsKvEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            entries.add(entry("temperature", MONTH_START_TS + i, i));
+        }
+
+        dao.saveAll(TENANT_ID, DEVICE_ID, entries, 0).get(10, TimeUnit.SECONDS);
+
+        assertThat(partitionWrites()).isEqualTo(1);
+        List<Statement<?>> writes = dataWrites();
+        assertThat(writes).hasSize(3);
+        assertThat(writes.get(0)).isInstanceOf(BatchStatement.class);
+        assertThat(toValues(writes.get(0))).containsExactly(0L, 1L, 2L);
+        assertThat(writes.get(1)).isInstanceOf(BatchStatement.class);
+        assertThat(toValues(writes.get(1))).containsExactly(3L, 4L, 5L);
+        assertThat(writes.get(2)).isNotInstanceOf(BatchStatement.class);
+        assertThat(toValues(writes.get(2))).containsExactly(6L);
+    }
+
+    @Test
+    public void givenEntriesWithSameTs_whenSaveAll_thenOnlyLastValueIsWritten() throws Exception {
+        List<TsKvEntry> entries = List.of(
+                entry("temperature", MONTH_START_TS, 1),
+                entry("temperature", MONTH_START_TS + 1, 2),
+                entry("temperature", MONTH_START_TS, 3));
+
+        dao.saveAll(TENANT_ID, DEVICE_ID, entries, 0).get(10, TimeUnit.SECONDS);
+
+        List<Statement<?>> writes = dataWrites();
+        assertThat(writes).hasSize(1);
+        assertThat(toValues(writes.get(0))).containsExactly(3L, 2L);
+    }
+
+    @Test
+    public void givenBatchingDisabled_whenSaveAll_thenEachEntryIsWrittenSeparately() throws Exception {
+        ReflectionTestUtils.setField(dao, "batchMaxSize", 1);
+        List<TsKvEntry> entries = List.of(
+                entry("temperature", MONTH_START_TS, 1),
+                entry("temperature", MONTH_START_TS + 1, 2));
+
+        dao.saveAll(TENANT_ID, DEVICE_ID, entries, 0).get(10, TimeUnit.SECONDS);
+
+        assertThat(partitionWrites()).isEqualTo(2);
+        assertThat(dataWrites()).noneMatch(stmt -> stmt instanceof BatchStatement).hasSize(2);
+    }
+
+    private long partitionWrites() {
+        return executed.stream().filter(stmt -> stmt == partitionStatement).count();
+    }
+
+    private List<Statement<?>> dataWrites() {
+        return executed.stream().filter(stmt -> stmt != partitionStatement).toList();
+    }
+
+    private List<Long> toValues(Statement<?> stmt) {
+        List<Long> values = new ArrayList<>();
+        if (stmt instanceof BatchStatement batch) {
+            for (BatchableStatement<?> batchStmt : batch) {
+                values.add(savedEntries.get(batchStmt).getLongValue().orElseThrow());
+            }
+        } else {
+            values.add(savedEntries.get(stmt).getLongValue().orElseThrow());
+        }
+        return values;
+    }
+
+    private static TsKvEntry entry(String key, long ts, long value) {
+        return new BasicTsKvEntry(ts, new LongDataEntry(key, value));
+    }
+
+}
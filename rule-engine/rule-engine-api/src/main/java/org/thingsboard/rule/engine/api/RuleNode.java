@@ -70,4 +70,13 @@ public @interface RuleNode {
 
     int version() default 0;
 
+    /**
+     * The node keeps no state between the messages and always completes the message with
+     * tellNext/tellSuccess/tellFailure before returning from onMsg. Such node may be executed
+     * by the rule chain actor inline, without the hand-off to the rule node actor.
+     * The rule chain actor initializes its own instance of such node in addition to the one of the rule node actor,
+     * so init must have no external side effects (subscriptions, connections, scheduled tasks, etc.).
+     */
+    boolean inlineable() default false;
+
 }
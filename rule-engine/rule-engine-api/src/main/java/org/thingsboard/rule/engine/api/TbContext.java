@@ -285,6 +285,12 @@ public interface TbContext {
 
     String getDeviceStateNodeRateLimitConfig();
 
+    long getPendingMsgsMemoryBudget();
+
+    String getPendingMsgsSpillDir();
+
+    long getPendingMsgsTickInterval();
+
     TbClusterService getClusterService();
 
     DashboardService getDashboardService();
@@ -16,6 +16,7 @@
 package org.thingsboard.rule.engine.api;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import org.thingsboard.server.common.data.plugin.ComponentLifecycleEvent;
 import org.thingsboard.server.common.data.util.TbPair;
 import org.thingsboard.server.common.msg.TbMsg;
 import org.thingsboard.server.common.msg.queue.PartitionChangeMsg;
@@ -34,6 +35,15 @@ public interface TbNode {
     default void destroy() {
     }
 
+    /**
+     * Invoked by the rule node actor when it stops. The reason is {@link ComponentLifecycleEvent#DELETED}
+     * if the rule node or its tenant is deleted for good, so the node may drop the state it keeps outside
+     * of the memory, and {@link ComponentLifecycleEvent#STOPPED} otherwise.
+     */
+    default void destroy(TbContext ctx, ComponentLifecycleEvent reason) {
+        destroy();
+    }
+
     default void onPartitionChangeMsg(TbContext ctx, PartitionChangeMsg msg) {
     }
 
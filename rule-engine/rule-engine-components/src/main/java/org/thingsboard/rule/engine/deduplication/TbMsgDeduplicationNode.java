@@ -26,9 +26,12 @@ import org.thingsboard.rule.engine.api.TbNode;
 import org.thingsboard.rule.engine.api.TbNodeConfiguration;
 import org.thingsboard.rule.engine.api.TbNodeException;
 import org.thingsboard.rule.engine.api.util.TbNodeUtils;
+import org.thingsboard.rule.engine.util.TbPendingMsgBuffer;
+import org.thingsboard.rule.engine.util.TbPendingMsgBuffer.PendingMsg;
 import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.msg.TbMsgType;
 import org.thingsboard.server.common.data.msg.TbNodeConnectionType;
+import org.thingsboard.server.common.data.plugin.ComponentLifecycleEvent;
 import org.thingsboard.server.common.data.plugin.ComponentType;
 import org.thingsboard.server.common.data.util.TbPair;
 import org.thingsboard.server.common.msg.TbMsg;
@@ -36,10 +39,8 @@ import org.thingsboard.server.common.msg.TbMsgMetaData;
 
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -69,25 +70,27 @@ public class TbMsgDeduplicationNode implements TbNode {
 
     private TbMsgDeduplicationNodeConfiguration config;
 
-    private final Map<EntityId, DeduplicationData> deduplicationMap;
+    private TbPendingMsgBuffer pendingMsgs;
     private long deduplicationInterval;
+    private long tickInterval;
+    private boolean tickScheduled;
     private String queueName;
 
-    public TbMsgDeduplicationNode() {
-        this.deduplicationMap = new HashMap<>();
-    }
-
     @Override
     public void init(TbContext ctx, TbNodeConfiguration configuration) throws TbNodeException {
         this.config = TbNodeUtils.convert(configuration, TbMsgDeduplicationNodeConfiguration.class);
         this.deduplicationInterval = TimeUnit.SECONDS.toMillis(config.getInterval());
+        this.tickInterval = TbPendingMsgBuffer.getTickInterval(ctx);
         this.queueName = ctx.getQueueName();
+        this.pendingMsgs = TbPendingMsgBuffer.forRuleNode(ctx);
+        this.pendingMsgs.restore();
+        scheduleTickIfNeeded(ctx);
     }
 
     @Override
     public void onMsg(TbContext ctx, TbMsg msg) throws ExecutionException, InterruptedException, TbNodeException {
         if (msg.isTypeOf(TbMsgType.DEDUPLICATION_TIMEOUT_SELF_MSG)) {
-            processDeduplication(ctx, msg.getOriginator());
+            processDeduplication(ctx);
         } else {
             processOnRegularMsg(ctx, msg);
         }
@@ -95,7 +98,18 @@ public class TbMsgDeduplicationNode implements TbNode {
 
     @Override
     public void destroy() {
-        deduplicationMap.clear();
+        if (pendingMsgs != null) {
+            pendingMsgs.close();
+        }
+    }
+
+    @Override
+    public void destroy(TbContext ctx, ComponentLifecycleEvent reason) {
+        if (pendingMsgs != null && reason == ComponentLifecycleEvent.DELETED) {
+            pendingMsgs.delete();
+        } else {
+            destroy();
+        }
     }
 
     @Override
@@ -116,31 +130,37 @@ public class TbMsgDeduplicationNode implements TbNode {
 
     private void processOnRegularMsg(TbContext ctx, TbMsg msg) {
         EntityId id = msg.getOriginator();
-        DeduplicationData deduplicationMsgs = deduplicationMap.computeIfAbsent(id, k -> new DeduplicationData());
-        if (deduplicationMsgs.size() < config.getMaxPendingMsgs()) {
-            log.trace("[{}][{}] Adding msg: [{}][{}] to the pending msgs map ...", ctx.getSelfId(), id, msg.getId(), msg.getMetaDataTs());
-            deduplicationMsgs.add(msg);
+        if (pendingMsgs.size(id) < config.getMaxPendingMsgs()) {
+            log.trace("[{}][{}] Adding msg: [{}][{}] to the pending msgs buffer ...", ctx.getSelfId(), id, msg.getId(), msg.getMetaDataTs());
+            pendingMsgs.add(id, getPackEndTs(msg), msg);
             ctx.ack(msg);
-            scheduleTickMsg(ctx, id, deduplicationMsgs);
+            scheduleTickIfNeeded(ctx);
         } else {
             log.trace("[{}] Max limit of pending messages reached for deduplication id: [{}]", ctx.getSelfId(), id);
             ctx.tellFailure(msg, new RuntimeException("[" + ctx.getSelfId() + "] Max limit of pending messages reached for deduplication id: [" + id + "]"));
         }
     }
 
-    private void processDeduplication(TbContext ctx, EntityId deduplicationId) {
-        DeduplicationData data = deduplicationMap.get(deduplicationId);
-        if (data == null) {
-            return;
+    private void processDeduplication(TbContext ctx) {
+        tickScheduled = false;
+        long deduplicationTimeoutMs = System.currentTimeMillis();
+        try {
+            for (EntityId deduplicationId : pendingMsgs.getDueKeys(deduplicationTimeoutMs)) {
+                processDeduplication(ctx, deduplicationId, deduplicationTimeoutMs);
+            }
+        } finally {
+            scheduleTickIfNeeded(ctx);
         }
-        data.setTickScheduled(false);
-        if (data.isEmpty()) {
-            return;
+    }
+
+    private void processDeduplication(TbContext ctx, EntityId deduplicationId, long deduplicationTimeoutMs) {
+        List<TbMsg> msgList = new ArrayList<>();
+        // a pack ends not later than now, so only the msgs that arrived before now may get into it
+        for (PendingMsg pendingMsg : pendingMsgs.take(deduplicationId, deduplicationTimeoutMs + deduplicationInterval - 1)) {
+            msgList.add(pendingMsg.msg());
         }
-        long deduplicationTimeoutMs = System.currentTimeMillis();
         try {
             List<TbMsg> deduplicationResults = new ArrayList<>();
-            List<TbMsg> msgList = data.getMsgList();
             Optional<TbPair<Long, Long>> packBoundsOpt = findValidPack(msgList, deduplicationTimeoutMs);
             while (packBoundsOpt.isPresent()) {
                 TbPair<Long, Long> packBounds = packBoundsOpt.get();
@@ -189,16 +209,21 @@ public class TbMsgDeduplicationNode implements TbNode {
             }
             deduplicationResults.forEach(outMsg -> enqueueForTellNextWithRetry(ctx, outMsg, 0));
         } finally {
-            if (!data.isEmpty()) {
-                scheduleTickMsg(ctx, deduplicationId, data);
+            for (TbMsg msg : msgList) {
+                pendingMsgs.add(deduplicationId, getPackEndTs(msg), msg);
             }
         }
     }
 
-    private void scheduleTickMsg(TbContext ctx, EntityId deduplicationId, DeduplicationData data) {
-        if (!data.isTickScheduled()) {
-            scheduleTickMsg(ctx, deduplicationId);
-            data.setTickScheduled(true);
+    private long getPackEndTs(TbMsg msg) {
+        return msg.getMetaDataTs() + deduplicationInterval;
+    }
+
+    private void scheduleTickIfNeeded(TbContext ctx) {
+        if (!tickScheduled && !pendingMsgs.isEmpty()) {
+            long delay = Math.max(0, Math.min(tickInterval, pendingMsgs.getNextDueTs() - System.currentTimeMillis()));
+            ctx.tellSelf(ctx.newMsg(null, TbMsgType.DEDUPLICATION_TIMEOUT_SELF_MSG, ctx.getSelfId(), TbMsgMetaData.EMPTY, TbMsg.EMPTY_STRING), delay);
+            tickScheduled = true;
         }
     }
 
@@ -229,10 +254,6 @@ public class TbMsgDeduplicationNode implements TbNode {
         }
     }
 
-    private void scheduleTickMsg(TbContext ctx, EntityId deduplicationId) {
-        ctx.tellSelf(ctx.newMsg(null, TbMsgType.DEDUPLICATION_TIMEOUT_SELF_MSG, deduplicationId, TbMsgMetaData.EMPTY, TbMsg.EMPTY_STRING), deduplicationInterval + 1);
-    }
-
     private String getMergedData(List<TbMsg> msgs) {
         ArrayNode mergedData = JacksonUtil.newArrayNode();
         msgs.forEach(msg -> {
@@ -23,15 +23,16 @@ import org.thingsboard.rule.engine.api.TbNode;
 import org.thingsboard.rule.engine.api.TbNodeConfiguration;
 import org.thingsboard.rule.engine.api.TbNodeException;
 import org.thingsboard.rule.engine.api.util.TbNodeUtils;
+import org.thingsboard.rule.engine.util.TbPendingMsgBuffer;
+import org.thingsboard.rule.engine.util.TbPendingMsgBuffer.PendingMsg;
+import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.msg.TbMsgType;
 import org.thingsboard.server.common.data.msg.TbNodeConnectionType;
+import org.thingsboard.server.common.data.plugin.ComponentLifecycleEvent;
 import org.thingsboard.server.common.data.plugin.ComponentType;
 import org.thingsboard.server.common.msg.TbMsg;
 import org.thingsboard.server.common.msg.TbMsgMetaData;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 @Slf4j
@@ -51,43 +52,60 @@ import java.util.concurrent.TimeUnit;
 public class TbMsgDelayNode implements TbNode {
 
     private TbMsgDelayNodeConfiguration config;
-    private Map<UUID, TbMsg> pendingMsgs;
+    private TbPendingMsgBuffer pendingMsgs;
+    private long tickInterval;
+    private boolean tickScheduled;
 
     @Override
     public void init(TbContext ctx, TbNodeConfiguration configuration) throws TbNodeException {
         this.config = TbNodeUtils.convert(configuration, TbMsgDelayNodeConfiguration.class);
-        this.pendingMsgs = new HashMap<>();
+        this.tickInterval = TbPendingMsgBuffer.getTickInterval(ctx);
+        this.pendingMsgs = TbPendingMsgBuffer.forRuleNode(ctx);
+        this.pendingMsgs.restore();
+        scheduleTickIfNeeded(ctx);
     }
 
     @Override
     public void onMsg(TbContext ctx, TbMsg msg) {
         if (msg.isTypeOf(TbMsgType.DELAY_TIMEOUT_SELF_MSG)) {
-            TbMsg pendingMsg = pendingMsgs.remove(UUID.fromString(msg.getData()));
-            if (pendingMsg != null) {
-                ctx.enqueueForTellNext(
-                        TbMsg.newMsg(
-                                pendingMsg.getQueueName(),
-                                pendingMsg.getType(),
-                                pendingMsg.getOriginator(),
-                                pendingMsg.getCustomerId(),
-                                pendingMsg.getMetaData(),
-                                pendingMsg.getData()
-                        ),
-                        TbNodeConnectionType.SUCCESS
-                );
+            tickScheduled = false;
+            long now = System.currentTimeMillis();
+            for (EntityId originator : pendingMsgs.getDueKeys(now)) {
+                for (PendingMsg pending : pendingMsgs.take(originator, now)) {
+                    TbMsg pendingMsg = pending.msg();
+                    ctx.enqueueForTellNext(
+                            TbMsg.newMsg(
+                                    pendingMsg.getQueueName(),
+                                    pendingMsg.getType(),
+                                    pendingMsg.getOriginator(),
+                                    pendingMsg.getCustomerId(),
+                                    pendingMsg.getMetaData(),
+                                    pendingMsg.getData()
+                            ),
+                            TbNodeConnectionType.SUCCESS
+                    );
+                }
             }
+            scheduleTickIfNeeded(ctx);
         } else {
             if (pendingMsgs.size() < config.getMaxPendingMsgs()) {
-                pendingMsgs.put(msg.getId(), msg);
-                TbMsg tickMsg = ctx.newMsg(null, TbMsgType.DELAY_TIMEOUT_SELF_MSG, ctx.getSelfId(), msg.getCustomerId(), TbMsgMetaData.EMPTY, msg.getId().toString());
-                ctx.tellSelf(tickMsg, getDelay(msg));
+                pendingMsgs.add(msg.getOriginator(), System.currentTimeMillis() + getDelay(msg), msg);
                 ctx.ack(msg);
+                scheduleTickIfNeeded(ctx);
             } else {
                 ctx.tellFailure(msg, new RuntimeException("Max limit of pending messages reached!"));
             }
         }
     }
 
+    private void scheduleTickIfNeeded(TbContext ctx) {
+        if (!tickScheduled && !pendingMsgs.isEmpty()) {
+            long delay = Math.max(0, Math.min(tickInterval, pendingMsgs.getNextDueTs() - System.currentTimeMillis()));
+            ctx.tellSelf(ctx.newMsg(null, TbMsgType.DELAY_TIMEOUT_SELF_MSG, ctx.getSelfId(), TbMsgMetaData.EMPTY, TbMsg.EMPTY_STRING), delay);
+            tickScheduled = true;
+        }
+    }
+
     private long getDelay(TbMsg msg) {
         int periodInSeconds;
         if (config.isUseMetadataPeriodInSecondsPatterns()) {
@@ -108,6 +126,17 @@ public class TbMsgDelayNode implements TbNode {
 
     @Override
     public void destroy() {
-        pendingMsgs.clear();
+        if (pendingMsgs != null) {
+            pendingMsgs.close();
+        }
+    }
+
+    @Override
+    public void destroy(TbContext ctx, ComponentLifecycleEvent reason) {
+        if (pendingMsgs != null && reason == ComponentLifecycleEvent.DELETED) {
+            pendingMsgs.delete();
+        } else {
+            destroy();
+        }
     }
 }
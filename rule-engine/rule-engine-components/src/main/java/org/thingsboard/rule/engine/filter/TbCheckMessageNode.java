@@ -41,7 +41,8 @@ import java.util.Map;
                 "Uncheck the 'Check that all selected fields are present' if the presence of at least one field is sufficient.<br><br>" +
                 "Output connections: <code>True</code>, <code>False</code>, <code>Failure</code>",
         uiResources = {"static/rulenode/rulenode-core-config.js"},
-        configDirective = "tbFilterNodeCheckMessageConfig")
+        configDirective = "tbFilterNodeCheckMessageConfig",
+        inlineable = true)
 public class TbCheckMessageNode implements TbNode {
 
     private static final Gson gson = new Gson();
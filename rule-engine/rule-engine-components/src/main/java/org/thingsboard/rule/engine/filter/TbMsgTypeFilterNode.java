@@ -39,7 +39,8 @@ import org.thingsboard.server.common.msg.TbMsg;
         nodeDetails = "If incoming message type is expected - send Message via <b>True</b> chain, otherwise <b>False</b> chain is used.<br><br>" +
                 "Output connections: <code>True</code>, <code>False</code>, <code>Failure</code>",
         uiResources = {"static/rulenode/rulenode-core-config.js"},
-        configDirective = "tbFilterNodeMessageTypeConfig")
+        configDirective = "tbFilterNodeMessageTypeConfig",
+        inlineable = true)
 public class TbMsgTypeFilterNode implements TbNode {
 
     TbMsgTypeFilterNodeConfiguration config;
@@ -37,7 +37,8 @@ import org.thingsboard.server.common.msg.TbMsg;
         nodeDetails = "Checks that the entity type of the incoming message originator matches one of the values specified in the filter.<br><br>" +
                 "Output connections: <code>True</code>, <code>False</code>, <code>Failure</code>",
         uiResources = {"static/rulenode/rulenode-core-config.js"},
-        configDirective = "tbFilterNodeOriginatorTypeConfig")
+        configDirective = "tbFilterNodeOriginatorTypeConfig",
+        inlineable = true)
 public class TbOriginatorTypeFilterNode implements TbNode {
 
     TbOriginatorTypeFilterNodeConfiguration config;
@@ -15,13 +15,16 @@
  */
 package org.thingsboard.rule.engine.profile;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.gson.JsonParser;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.common.util.JacksonUtil;
 import org.thingsboard.rule.engine.api.TbContext;
 import org.thingsboard.rule.engine.profile.state.PersistedAlarmState;
 import org.thingsboard.rule.engine.profile.state.PersistedDeviceState;
-import org.thingsboard.server.common.adaptor.JsonConverter;
+import org.thingsboard.rule.engine.util.TbMsgKvUtils;
 import org.thingsboard.server.common.data.AttributeScope;
 import org.thingsboard.server.common.data.DataConstants;
 import org.thingsboard.server.common.data.Device;
@@ -70,12 +73,17 @@ import static org.thingsboard.server.common.data.msg.TbMsgType.POST_TELEMETRY_RE
 @Slf4j
 class DeviceState {
 
+    // the server scope is the last one, so its values have the highest priority in the snapshot
+    private static final List<AttributeScope> ATTRIBUTE_SCOPES = List.of(AttributeScope.CLIENT_SCOPE, AttributeScope.SHARED_SCOPE, AttributeScope.SERVER_SCOPE);
+
     private final boolean persistState;
     private final DeviceId deviceId;
     private final ProfileState deviceProfile;
     private RuleNodeState state;
     private PersistedDeviceState pds;
     private DataSnapshot latestValues;
+    private ListenableFuture<DataSnapshot> latestValuesFuture;
+    private final List<TbMsg> pendingMsgs = new ArrayList<>();
     private final ConcurrentMap<String, AlarmState> alarmStates = new ConcurrentHashMap<>();
     private final DynamicPredicateValueCtx dynamicPredicateValueCtx;
 
@@ -110,14 +118,18 @@ class DeviceState {
         }
     }
 
-    public void updateProfile(TbContext ctx, DeviceProfile deviceProfile) throws ExecutionException, InterruptedException {
+    public void updateProfile(TbContext ctx, DeviceProfile deviceProfile) {
         Set<AlarmConditionFilterKey> oldKeys = Set.copyOf(this.deviceProfile.getEntityKeys());
         this.deviceProfile.updateDeviceProfile(deviceProfile);
         if (latestValues != null) {
             Set<AlarmConditionFilterKey> keysToFetch = new HashSet<>(this.deviceProfile.getEntityKeys());
             keysToFetch.removeAll(oldKeys);
             if (!keysToFetch.isEmpty()) {
-                addEntityKeysToSnapshot(ctx, deviceId, keysToFetch, latestValues);
+                // the snapshot is considered not loaded until the new keys are added, so the msgs of the device are deferred meanwhile
+                DataSnapshot snapshot = latestValues;
+                latestValues = null;
+                latestValuesFuture = Futures.transform(addEntityKeysToSnapshot(ctx, deviceId, keysToFetch, snapshot),
+                        v -> snapshot, MoreExecutors.directExecutor());
             }
         }
         Set<String> newAlarmStateIds = this.deviceProfile.getAlarmSettings().stream().map(DeviceProfileAlarm::getId).collect(Collectors.toSet());
@@ -143,9 +155,80 @@ class DeviceState {
         }
     }
 
+    boolean isLatestValuesLoaded() {
+        return latestValues != null;
+    }
+
+    /**
+     * Starts the loading of the data snapshot unless it is already in progress.
+     */
+    ListenableFuture<DataSnapshot> getOrFetchLatestValues(TbContext ctx) {
+        if (latestValuesFuture == null) {
+            latestValuesFuture = fetchLatestValues(ctx, deviceId);
+        }
+        return latestValuesFuture;
+    }
+
+    /**
+     * Starts the loading of the data snapshots of several devices at once, unless it is already in progress.
+     * The devices that need the same keys are looked up together: the entity fields, latest timeseries
+     * and each attribute scope are requested with one query for all of them instead of one query per device.
+     */
+    static void fetchLatestValues(TbContext ctx, List<DeviceState> states) {
+        Map<Set<AlarmConditionFilterKey>, List<DeviceState>> statesByKeys = new HashMap<>();
+        for (DeviceState state : states) {
+            if (state.latestValues == null && state.latestValuesFuture == null) {
+                statesByKeys.computeIfAbsent(Set.copyOf(state.deviceProfile.getEntityKeys()), keys -> new ArrayList<>()).add(state);
+            }
+        }
+        statesByKeys.forEach((entityKeysToFetch, group) -> {
+            if (group.size() == 1) {
+                group.get(0).getOrFetchLatestValues(ctx);
+                return;
+            }
+            List<EntityId> originators = group.stream().map(state -> (EntityId) state.deviceId).collect(Collectors.toList());
+            ListenableFuture<Map<EntityId, DataSnapshot>> future = fetchLatestValues(ctx, originators, entityKeysToFetch);
+            for (DeviceState state : group) {
+                state.latestValuesFuture = Futures.transform(future, snapshots -> snapshots.get(state.deviceId), MoreExecutors.directExecutor());
+            }
+        });
+    }
+
+    /**
+     * Completes the loading started by {@link #getOrFetchLatestValues(TbContext)}.
+     * Throws the failure of the loading, so the next message will start it again.
+     */
+    void onLatestValuesFetched() throws ExecutionException {
+        ListenableFuture<DataSnapshot> future = latestValuesFuture;
+        latestValuesFuture = null;
+        latestValues = Futures.getDone(future);
+    }
+
+    boolean isLatestValuesFetchStarted() {
+        return latestValuesFuture != null;
+    }
+
+    boolean isLatestValuesFetchDone() {
+        return latestValuesFuture != null && latestValuesFuture.isDone();
+    }
+
+    void addPendingMsg(TbMsg msg) {
+        pendingMsgs.add(msg);
+    }
+
+    List<TbMsg> takePendingMsgs() {
+        List<TbMsg> msgs = new ArrayList<>(pendingMsgs);
+        pendingMsgs.clear();
+        return msgs;
+    }
+
     public void process(TbContext ctx, TbMsg msg) throws ExecutionException, InterruptedException {
         if (latestValues == null) {
-            latestValues = fetchLatestValues(ctx, deviceId);
+            if (!getOrFetchLatestValues(ctx).isDone()) {
+                // TbDeviceProfileNode defers the msgs of the device until the snapshot is loaded
+                throw new IllegalStateException("Data snapshot of the device [" + deviceId + "] is not loaded yet");
+            }
+            onLatestValuesFetched();
         }
         boolean stateChanged = false;
         if (msg.isTypeOf(POST_TELEMETRY_REQUEST)) {
@@ -253,7 +336,7 @@ class DeviceState {
 
     private boolean processAttributes(TbContext ctx, TbMsg msg, String scope) throws ExecutionException, InterruptedException {
         boolean stateChanged = false;
-        Set<AttributeKvEntry> attributes = JsonConverter.convertToAttributes(JsonParser.parseString(msg.getData()));
+        Set<AttributeKvEntry> attributes = TbMsgKvUtils.convertToAttributes(msg);
         if (!attributes.isEmpty()) {
             SnapshotUpdate update = merge(latestValues, attributes, scope);
             for (DeviceProfileAlarm alarm : deviceProfile.getAlarmSettings()) {
@@ -268,7 +351,7 @@ class DeviceState {
 
     protected boolean processTelemetry(TbContext ctx, TbMsg msg) throws ExecutionException, InterruptedException {
         boolean stateChanged = false;
-        Map<Long, List<KvEntry>> tsKvMap = JsonConverter.convertToSortedTelemetry(JsonParser.parseString(msg.getData()), msg.getMetaDataTs());
+        Map<Long, List<KvEntry>> tsKvMap = TbMsgKvUtils.convertToSortedTelemetry(msg, msg.getMetaDataTs());
         // iterate over data by ts (ASC order).
         for (Map.Entry<Long, List<KvEntry>> entry : tsKvMap.entrySet()) {
             Long ts = entry.getKey();
@@ -329,67 +412,113 @@ class DeviceState {
         return EntityKeyType.ATTRIBUTE;
     }
 
-    private DataSnapshot fetchLatestValues(TbContext ctx, EntityId originator) throws ExecutionException, InterruptedException {
+    private ListenableFuture<DataSnapshot> fetchLatestValues(TbContext ctx, EntityId originator) {
         Set<AlarmConditionFilterKey> entityKeysToFetch = deviceProfile.getEntityKeys();
         DataSnapshot result = new DataSnapshot(entityKeysToFetch);
-        addEntityKeysToSnapshot(ctx, originator, entityKeysToFetch, result);
-        return result;
+        return Futures.transform(addEntityKeysToSnapshot(ctx, originator, entityKeysToFetch, result), v -> result, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Requests the entity fields, latest timeseries and attributes of all scopes at once, without blocking the caller.
+     */
+    private ListenableFuture<Void> addEntityKeysToSnapshot(TbContext ctx, EntityId originator, Set<AlarmConditionFilterKey> entityKeysToFetch, DataSnapshot result) {
+        SnapshotKeys keys = SnapshotKeys.of(entityKeysToFetch);
+
+        // the results are applied to the snapshot in the final callback only, since the lookups may complete on different threads
+        ListenableFuture<Device> deviceFuture = keys.entityFieldKeys().isEmpty() ? Futures.immediateFuture(null) :
+                ctx.getDeviceService().findDeviceByIdAsync(ctx.getTenantId(), new DeviceId(originator.getId()));
+        ListenableFuture<List<TsKvEntry>> latestTsFuture = keys.latestTsKeys().isEmpty() ? Futures.immediateFuture(List.of()) :
+                ctx.getTimeseriesService().findLatest(ctx.getTenantId(), originator, keys.latestTsKeys());
+        List<ListenableFuture<List<AttributeKvEntry>>> attributeFutures = new ArrayList<>();
+        if (!keys.attributeKeys().isEmpty()) {
+            for (AttributeScope scope : ATTRIBUTE_SCOPES) {
+                attributeFutures.add(ctx.getAttributesService().find(ctx.getTenantId(), originator, scope, keys.attributeKeys()));
+            }
+        }
+        List<ListenableFuture<?>> futures = new ArrayList<>(attributeFutures);
+        futures.add(deviceFuture);
+        futures.add(latestTsFuture);
+        return Futures.whenAllSucceed(futures).call(() -> {
+            Device device = Futures.getDone(deviceFuture);
+            if (device != null) {
+                addToSnapshot(result, device, keys.entityFieldKeys());
+            }
+            addLatestToSnapshot(result, Futures.getDone(latestTsFuture));
+            // the server scope is applied last, so it has the highest priority as before
+            for (ListenableFuture<List<AttributeKvEntry>> attributeFuture : attributeFutures) {
+                addToSnapshot(result, Futures.getDone(attributeFuture));
+            }
+            return null;
+        }, MoreExecutors.directExecutor());
     }
 
-    private void addEntityKeysToSnapshot(TbContext ctx, EntityId originator, Set<AlarmConditionFilterKey> entityKeysToFetch, DataSnapshot result) throws InterruptedException, ExecutionException {
-        Set<String> attributeKeys = new HashSet<>();
-        Set<String> latestTsKeys = new HashSet<>();
+    /**
+     * Same as {@link #addEntityKeysToSnapshot(TbContext, EntityId, Set, DataSnapshot)} for several devices, with one lookup per data type for all of them.
+     */
+    private static ListenableFuture<Map<EntityId, DataSnapshot>> fetchLatestValues(TbContext ctx, List<EntityId> originators, Set<AlarmConditionFilterKey> entityKeysToFetch) {
+        SnapshotKeys keys = SnapshotKeys.of(entityKeysToFetch);
+
+        ListenableFuture<List<Device>> devicesFuture = keys.entityFieldKeys().isEmpty() ? Futures.immediateFuture(List.of()) :
+                ctx.getDeviceService().findDevicesByTenantIdAndIdsAsync(ctx.getTenantId(),
+                        originators.stream().map(originator -> new DeviceId(originator.getId())).collect(Collectors.toList()));
+        ListenableFuture<Map<EntityId, List<TsKvEntry>>> latestTsFuture = keys.latestTsKeys().isEmpty() ? Futures.immediateFuture(Map.of()) :
+                ctx.getTimeseriesService().findLatestByEntityIds(ctx.getTenantId(), originators, keys.latestTsKeys());
+        List<ListenableFuture<Map<EntityId, List<AttributeKvEntry>>>> attributeFutures = new ArrayList<>();
+        if (!keys.attributeKeys().isEmpty()) {
+            for (AttributeScope scope : ATTRIBUTE_SCOPES) {
+                attributeFutures.add(ctx.getAttributesService().findByEntityIds(ctx.getTenantId(), originators, scope, keys.attributeKeys()));
+            }
+        }
+        List<ListenableFuture<?>> futures = new ArrayList<>(attributeFutures);
+        futures.add(devicesFuture);
+        futures.add(latestTsFuture);
+        return Futures.whenAllSucceed(futures).call(() -> {
+            Map<EntityId, DataSnapshot> result = new HashMap<>();
+            for (EntityId originator : originators) {
+                result.put(originator, new DataSnapshot(entityKeysToFetch));
+            }
+            for (Device device : Futures.getDone(devicesFuture)) {
+                DataSnapshot snapshot = result.get(device.getId());
+                if (snapshot != null) {
+                    addToSnapshot(snapshot, device, keys.entityFieldKeys());
+                }
+            }
+            Futures.getDone(latestTsFuture).forEach((originator, entries) -> addLatestToSnapshot(result.get(originator), entries));
+            for (ListenableFuture<Map<EntityId, List<AttributeKvEntry>>> attributeFuture : attributeFutures) {
+                Futures.getDone(attributeFuture).forEach((originator, entries) -> addToSnapshot(result.get(originator), entries));
+            }
+            return result;
+        }, MoreExecutors.directExecutor());
+    }
 
-        Device device = null;
-        for (AlarmConditionFilterKey entityKey : entityKeysToFetch) {
-            String key = entityKey.getKey();
-            switch (entityKey.getType()) {
-                case ATTRIBUTE:
-                    attributeKeys.add(key);
+    private static void addToSnapshot(DataSnapshot snapshot, Device device, List<AlarmConditionFilterKey> entityFieldKeys) {
+        for (AlarmConditionFilterKey entityKey : entityFieldKeys) {
+            switch (entityKey.getKey()) {
+                case EntityKeyMapping.NAME:
+                    snapshot.putValue(entityKey, device.getCreatedTime(), EntityKeyValue.fromString(device.getName()));
                     break;
-                case TIME_SERIES:
-                    latestTsKeys.add(key);
+                case EntityKeyMapping.TYPE:
+                    snapshot.putValue(entityKey, device.getCreatedTime(), EntityKeyValue.fromString(device.getType()));
                     break;
-                case ENTITY_FIELD:
-                    if (device == null) {
-                        device = ctx.getDeviceService().findDeviceById(ctx.getTenantId(), new DeviceId(originator.getId()));
-                    }
-                    if (device != null) {
-                        switch (key) {
-                            case EntityKeyMapping.NAME:
-                                result.putValue(entityKey, device.getCreatedTime(), EntityKeyValue.fromString(device.getName()));
-                                break;
-                            case EntityKeyMapping.TYPE:
-                                result.putValue(entityKey, device.getCreatedTime(), EntityKeyValue.fromString(device.getType()));
-                                break;
-                            case EntityKeyMapping.CREATED_TIME:
-                                result.putValue(entityKey, device.getCreatedTime(), EntityKeyValue.fromLong(device.getCreatedTime()));
-                                break;
-                            case EntityKeyMapping.LABEL:
-                                result.putValue(entityKey, device.getCreatedTime(), EntityKeyValue.fromString(device.getLabel()));
-                                break;
-                        }
-                    }
+                case EntityKeyMapping.CREATED_TIME:
+                    snapshot.putValue(entityKey, device.getCreatedTime(), EntityKeyValue.fromLong(device.getCreatedTime()));
+                    break;
+                case EntityKeyMapping.LABEL:
+                    snapshot.putValue(entityKey, device.getCreatedTime(), EntityKeyValue.fromString(device.getLabel()));
                     break;
             }
         }
+    }
 
-        if (!latestTsKeys.isEmpty()) {
-            List<TsKvEntry> data = ctx.getTimeseriesService().findLatest(ctx.getTenantId(), originator, latestTsKeys).get();
-            for (TsKvEntry entry : data) {
-                if (entry.getValue() != null) {
-                    result.putValue(new AlarmConditionFilterKey(AlarmConditionKeyType.TIME_SERIES, entry.getKey()), entry.getTs(), toEntityValue(entry));
-                }
+    private static void addLatestToSnapshot(DataSnapshot snapshot, List<TsKvEntry> data) {
+        for (TsKvEntry entry : data) {
+            if (entry.getValue() != null) {
+                snapshot.putValue(new AlarmConditionFilterKey(AlarmConditionKeyType.TIME_SERIES, entry.getKey()), entry.getTs(), toEntityValue(entry));
             }
         }
-        if (!attributeKeys.isEmpty()) {
-            addToSnapshot(result, ctx.getAttributesService().find(ctx.getTenantId(), originator, AttributeScope.CLIENT_SCOPE, attributeKeys).get());
-            addToSnapshot(result, ctx.getAttributesService().find(ctx.getTenantId(), originator, AttributeScope.SHARED_SCOPE, attributeKeys).get());
-            addToSnapshot(result, ctx.getAttributesService().find(ctx.getTenantId(), originator, AttributeScope.SERVER_SCOPE, attributeKeys).get());
-        }
     }
 
-    private void addToSnapshot(DataSnapshot snapshot, List<AttributeKvEntry> data) {
+    private static void addToSnapshot(DataSnapshot snapshot, List<AttributeKvEntry> data) {
         for (AttributeKvEntry entry : data) {
             if (entry.getValue() != null) {
                 EntityKeyValue value = toEntityValue(entry);
@@ -415,10 +544,36 @@ class DeviceState {
         }
     }
 
+    DeviceId getDeviceId() {
+        return deviceId;
+    }
+
     public DeviceProfileId getProfileId() {
         return deviceProfile.getProfileId();
     }
 
+    private record SnapshotKeys(Set<String> attributeKeys, Set<String> latestTsKeys, List<AlarmConditionFilterKey> entityFieldKeys) {
+
+        static SnapshotKeys of(Set<AlarmConditionFilterKey> entityKeysToFetch) {
+            SnapshotKeys keys = new SnapshotKeys(new HashSet<>(), new HashSet<>(), new ArrayList<>());
+            for (AlarmConditionFilterKey entityKey : entityKeysToFetch) {
+                switch (entityKey.getType()) {
+                    case ATTRIBUTE:
+                        keys.attributeKeys().add(entityKey.getKey());
+                        break;
+                    case TIME_SERIES:
+                        keys.latestTsKeys().add(entityKey.getKey());
+                        break;
+                    case ENTITY_FIELD:
+                        keys.entityFieldKeys().add(entityKey);
+                        break;
+                }
+            }
+            return keys;
+        }
+
+    }
+
     private PersistedAlarmState getOrInitPersistedAlarmState(DeviceProfileAlarm alarm) {
         if (pds != null) {
             PersistedAlarmState alarmState = pds.getAlarmStates().get(alarm.getId());
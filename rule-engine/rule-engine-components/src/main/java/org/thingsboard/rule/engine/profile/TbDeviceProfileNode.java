@@ -17,6 +17,8 @@ package org.thingsboard.rule.engine.profile;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.common.util.JacksonUtil;
 import org.thingsboard.rule.engine.api.RuleEngineDeviceProfileCache;
@@ -41,11 +43,14 @@ import org.thingsboard.server.common.msg.TbMsg;
 import org.thingsboard.server.common.msg.TbMsgMetaData;
 import org.thingsboard.server.common.msg.queue.PartitionChangeMsg;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @Slf4j
 @RuleNode(
@@ -67,6 +72,8 @@ public class TbDeviceProfileNode implements TbNode {
     private RuleEngineDeviceProfileCache cache;
     private TbContext ctx;
     private final Map<DeviceId, DeviceState> deviceStates = new ConcurrentHashMap<>();
+    private final Map<DeviceId, DeviceState> loadingStates = new ConcurrentHashMap<>();
+    private final List<DeviceState> snapshotsToFetch = new ArrayList<>();
 
     @Override
     public void init(TbContext ctx, TbNodeConfiguration configuration) throws TbNodeException {
@@ -123,6 +130,10 @@ public class TbDeviceProfileNode implements TbNode {
             } else {
                 removeDeviceState(deviceId);
             }
+        } else if (msg.isTypeOf(TbMsgType.DEVICE_PROFILE_SNAPSHOT_FETCH_SELF_MSG)) {
+            fetchSnapshots(ctx);
+        } else if (msg.isTypeOf(TbMsgType.DEVICE_PROFILE_SNAPSHOT_LOADED_SELF_MSG)) {
+            onLatestValuesLoaded(ctx, new DeviceId(UUID.fromString(msg.getData())));
         } else {
             if (EntityType.DEVICE.equals(originatorType)) {
                 DeviceId deviceId = new DeviceId(msg.getOriginator().getId());
@@ -135,7 +146,7 @@ public class TbDeviceProfileNode implements TbNode {
                 } else {
                     DeviceState deviceState = getOrCreateDeviceState(ctx, deviceId, null, false);
                     if (deviceState != null) {
-                        deviceState.process(ctx, msg);
+                        process(ctx, deviceId, deviceState, msg);
                     } else {
                         log.info("Device was not found! Most probably device [" + deviceId + "] has been removed from the database. Acknowledging msg.");
                         ctx.ack(msg);
@@ -151,6 +162,13 @@ public class TbDeviceProfileNode implements TbNode {
     public void onPartitionChangeMsg(TbContext ctx, PartitionChangeMsg msg) {
         // Cleanup the cache for all entities that are no longer assigned to current server partitions
         deviceStates.entrySet().removeIf(entry -> !ctx.isLocalEntity(entry.getKey()));
+        loadingStates.entrySet().removeIf(entry -> {
+            if (!ctx.isLocalEntity(entry.getKey())) {
+                entry.getValue().takePendingMsgs().forEach(ctx::ack);
+                return true;
+            }
+            return false;
+        });
         initAlarmRuleState(true);
     }
 
@@ -158,6 +176,85 @@ public class TbDeviceProfileNode implements TbNode {
     public void destroy() {
         ctx.removeListeners();
         deviceStates.clear();
+        loadingStates.clear();
+        snapshotsToFetch.clear();
+    }
+
+    /**
+     * Processes the msg once the data snapshot of the device is available.
+     * The snapshot of a device that is seen for the first time is loaded without blocking the rule node:
+     * the msgs of the device are kept aside until the loading is completed, while the msgs of other devices are processed.
+     * While a snapshot is being loaded, the devices seen for the first time are collected rather than loaded one by one:
+     * a DEVICE_PROFILE_SNAPSHOT_FETCH_SELF_MSG is queued after the msgs already in the mailbox, e.g. the rest of the pack,
+     * and fetches the snapshots of all the collected devices together.
+     */
+    private void process(TbContext ctx, DeviceId deviceId, DeviceState deviceState, TbMsg msg) throws ExecutionException, InterruptedException {
+        if (!deviceState.isLatestValuesLoaded()) {
+            if (loadingStates.get(deviceId) == deviceState) {
+                deviceState.addPendingMsg(msg);
+                return;
+            }
+            if (!loadingStates.isEmpty() && !deviceState.isLatestValuesFetchStarted()) {
+                deviceState.addPendingMsg(msg);
+                loadingStates.put(deviceId, deviceState);
+                if (snapshotsToFetch.isEmpty()) {
+                    ctx.tellSelf(TbMsg.newMsg(TbMsgType.DEVICE_PROFILE_SNAPSHOT_FETCH_SELF_MSG, ctx.getTenantId(), TbMsgMetaData.EMPTY, TbMsg.EMPTY_STRING), 0L);
+                }
+                snapshotsToFetch.add(deviceState);
+                return;
+            }
+            ListenableFuture<DataSnapshot> future = deviceState.getOrFetchLatestValues(ctx);
+            if (!future.isDone()) {
+                deviceState.addPendingMsg(msg);
+                loadingStates.put(deviceId, deviceState);
+                notifyOnLoaded(ctx, deviceId, future);
+                return;
+            }
+            deviceState.onLatestValuesFetched();
+        }
+        deviceState.process(ctx, msg);
+    }
+
+    private void fetchSnapshots(TbContext ctx) {
+        // the devices removed in the meantime are skipped, their msgs are acknowledged already
+        List<DeviceState> states = snapshotsToFetch.stream()
+                .filter(state -> loadingStates.get(state.getDeviceId()) == state)
+                .collect(Collectors.toList());
+        snapshotsToFetch.clear();
+        log.trace("[{}] Fetching data snapshots of {} devices", ctx.getSelfId(), states.size());
+        DeviceState.fetchLatestValues(ctx, states);
+        for (DeviceState state : states) {
+            notifyOnLoaded(ctx, state.getDeviceId(), state.getOrFetchLatestValues(ctx));
+        }
+    }
+
+    private void notifyOnLoaded(TbContext ctx, DeviceId deviceId, ListenableFuture<DataSnapshot> future) {
+        future.addListener(() -> ctx.tellSelf(TbMsg.newMsg(TbMsgType.DEVICE_PROFILE_SNAPSHOT_LOADED_SELF_MSG, ctx.getTenantId(),
+                TbMsgMetaData.EMPTY, deviceId.getId().toString()), 0L), MoreExecutors.directExecutor());
+    }
+
+    private void onLatestValuesLoaded(TbContext ctx, DeviceId deviceId) {
+        DeviceState deviceState = loadingStates.get(deviceId);
+        if (deviceState == null || !deviceState.isLatestValuesFetchDone()) {
+            log.trace("[{}][{}] Ignoring stale snapshot loaded notification", ctx.getSelfId(), deviceId);
+            return;
+        }
+        loadingStates.remove(deviceId);
+        List<TbMsg> pendingMsgs = deviceState.takePendingMsgs();
+        try {
+            deviceState.onLatestValuesFetched();
+        } catch (ExecutionException e) {
+            log.debug("[{}][{}] Failed to load device data snapshot", ctx.getSelfId(), deviceId, e.getCause());
+            pendingMsgs.forEach(pendingMsg -> ctx.tellFailure(pendingMsg, e.getCause()));
+            return;
+        }
+        for (TbMsg pendingMsg : pendingMsgs) {
+            try {
+                deviceState.process(ctx, pendingMsg);
+            } catch (Exception e) {
+                ctx.tellFailure(pendingMsg, e);
+            }
+        }
     }
 
     protected DeviceState getOrCreateDeviceState(TbContext ctx, DeviceId deviceId, RuleNodeState rns, boolean printNewlyAddedDeviceStates) {
@@ -186,7 +283,7 @@ public class TbDeviceProfileNode implements TbNode {
         }
     }
 
-    protected void updateProfile(TbContext ctx, DeviceProfileId deviceProfileId) throws ExecutionException, InterruptedException {
+    protected void updateProfile(TbContext ctx, DeviceProfileId deviceProfileId) {
         DeviceProfile deviceProfile = cache.get(ctx.getTenantId(), deviceProfileId);
         if (deviceProfile != null) {
             log.debug("[{}] Received device profile update notification: {}", ctx.getSelfId(), deviceProfile);
@@ -239,6 +336,9 @@ public class TbDeviceProfileNode implements TbNode {
 
     private void removeDeviceState(DeviceId deviceId) {
         DeviceState state = deviceStates.remove(deviceId);
+        if (state != null && loadingStates.remove(deviceId, state)) {
+            state.takePendingMsgs().forEach(ctx::ack);
+        }
         if (config.isPersistAlarmRulesState() && (state != null || !config.isFetchAlarmRulesStateOnStart())) {
             ctx.removeRuleNodeStateForEntity(deviceId);
         }
@@ -15,7 +15,6 @@
  */
 package org.thingsboard.rule.engine.telemetry;
 
-import com.google.gson.JsonParser;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.rule.engine.api.RuleNode;
 import org.thingsboard.rule.engine.api.TbContext;
@@ -23,7 +22,7 @@ import org.thingsboard.rule.engine.api.TbNode;
 import org.thingsboard.rule.engine.api.TbNodeConfiguration;
 import org.thingsboard.rule.engine.api.TbNodeException;
 import org.thingsboard.rule.engine.api.util.TbNodeUtils;
-import org.thingsboard.server.common.adaptor.JsonConverter;
+import org.thingsboard.rule.engine.util.TbMsgKvUtils;
 import org.thingsboard.server.common.data.StringUtils;
 import org.thingsboard.server.common.data.TenantProfile;
 import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
@@ -87,10 +86,9 @@ public class TbMsgTimeseriesNode implements TbNode {
             return;
         }
         long ts = computeTs(msg, config.isUseServerTs());
-        String src = msg.getData();
-        Map<Long, List<KvEntry>> tsKvMap = JsonConverter.convertToTelemetry(JsonParser.parseString(src), ts);
+        Map<Long, List<KvEntry>> tsKvMap = TbMsgKvUtils.convertToTelemetry(msg, ts);
         if (tsKvMap.isEmpty()) {
-            ctx.tellFailure(msg, new IllegalArgumentException("Msg body is empty: " + src));
+            ctx.tellFailure(msg, new IllegalArgumentException("Msg body is empty: " + msg.getData()));
             return;
         }
         List<TsKvEntry> tsKvEntryList = new ArrayList<>();
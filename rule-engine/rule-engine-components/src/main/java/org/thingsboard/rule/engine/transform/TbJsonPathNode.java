@@ -42,8 +42,8 @@ import java.util.concurrent.ExecutionException;
                 "Output connections: <code>Success</code>, <code>Failure</code>.",
         uiResources = {"static/rulenode/rulenode-core-config.js"},
         icon = "functions",
-        configDirective = "tbTransformationNodeJsonPathConfig"
-)
+        configDirective = "tbTransformationNodeJsonPathConfig",
+        inlineable = true)
 public class TbJsonPathNode implements TbNode {
 
     private TbJsonPathNodeConfiguration config;
@@ -45,8 +45,8 @@ import java.util.concurrent.ExecutionException;
                 "Output connections: <code>Success</code>, <code>Failure</code>.",
         uiResources = {"static/rulenode/rulenode-core-config.js"},
         configDirective = "tbTransformationNodeRenameKeysConfig",
-        icon = "find_replace"
-)
+        icon = "find_replace",
+        inlineable = true)
 public class TbRenameKeysNode extends TbAbstractTransformNodeWithTbMsgSource {
 
     private TbRenameKeysNodeConfiguration config;
@@ -0,0 +1,75 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.util;
+
+import com.google.gson.JsonParser;
+import org.thingsboard.server.common.adaptor.JsonConverter;
+import org.thingsboard.server.common.data.kv.AttributeKvEntry;
+import org.thingsboard.server.common.data.kv.BaseAttributeKvEntry;
+import org.thingsboard.server.common.data.kv.KvEntry;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgKvPayload;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Extracts telemetry and attributes from the message body.
+ * Uses the typed key-value payload when the message carries one and falls back to parsing the JSON data otherwise.
+ */
+public class TbMsgKvUtils {
+
+    private TbMsgKvUtils() {
+    }
+
+    public static Map<Long, List<KvEntry>> convertToTelemetry(TbMsg msg, long ts) {
+        return convertToTelemetry(msg, ts, false);
+    }
+
+    public static Map<Long, List<KvEntry>> convertToSortedTelemetry(TbMsg msg, long ts) {
+        return convertToTelemetry(msg, ts, true);
+    }
+
+    private static Map<Long, List<KvEntry>> convertToTelemetry(TbMsg msg, long ts, boolean sorted) {
+        TbMsgKvPayload kvPayload = msg.getKvPayload();
+        if (kvPayload == null) {
+            return JsonConverter.convertToTelemetry(JsonParser.parseString(msg.getData()), ts, sorted);
+        }
+        Map<Long, List<KvEntry>> result = sorted ? new TreeMap<>() : new HashMap<>();
+        if (!kvPayload.isEmpty()) {
+            result.put(ts, kvPayload.getKvEntries());
+        }
+        return result;
+    }
+
+    public static Set<AttributeKvEntry> convertToAttributes(TbMsg msg) {
+        TbMsgKvPayload kvPayload = msg.getKvPayload();
+        if (kvPayload == null) {
+            return JsonConverter.convertToAttributes(JsonParser.parseString(msg.getData()));
+        }
+        Set<AttributeKvEntry> result = new HashSet<>();
+        long ts = System.currentTimeMillis();
+        for (KvEntry kvEntry : kvPayload.getKvEntries()) {
+            result.add(new BaseAttributeKvEntry(kvEntry, ts));
+        }
+        return result;
+    }
+
+}
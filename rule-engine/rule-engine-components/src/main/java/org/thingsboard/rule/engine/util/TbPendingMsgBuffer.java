@@ -0,0 +1,464 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.rule.engine.api.TbContext;
+import org.thingsboard.server.common.data.StringUtils;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.EntityIdFactory;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.queue.TbMsgCallback;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Time-indexed buffer of the messages that wait inside the rule node (delay, deduplication), grouped by key.
+ * <p>
+ * Messages are kept on heap in the serialized form, ordered by due time, while their size fits the memory budget.
+ * Beyond the budget, the keys with the latest due time are spilled to the local disk until the usage drops
+ * to the low-water mark, and are read back only when they become due. Messages added to a spilled key are buffered
+ * on heap and appended to its spill file with the next spill. Only the messages that are due get deserialized.
+ * <p>
+ * {@link #close()} writes the messages kept on heap to the disk as well, so all the pending messages survive
+ * the restart of the rule node: {@link #restore()} picks them up on init. The spill files are local to the instance,
+ * so the messages are restored by the instance that starts the rule node next. {@link #delete()} drops them
+ * once the rule node is deleted.
+ * <p>
+ * Not thread safe: supposed to be used from the rule node actor only.
+ */
+@Slf4j
+public class TbPendingMsgBuffer {
+
+    private static final long MSG_OVERHEAD_BYTES = 64;
+    private static final int LOW_WATER_MARK_PERCENT = 75;
+    private static final String KEY_SEPARATOR = "_";
+    private static final String DEFAULT_SPILL_DIR = "tb-pending-msgs";
+    private static final long DEFAULT_TICK_INTERVAL_MS = 1000;
+
+    private final Map<EntityId, PendingMsgs> pendingMsgs = new HashMap<>();
+    private final TreeMap<Long, Set<EntityId>> dueIndex = new TreeMap<>();
+    private final long memoryBudget;
+    private final long lowWaterMark;
+    private final Path spillDir;
+    private long memoryUsage;
+    private int size;
+
+    public TbPendingMsgBuffer(long memoryBudget, Path spillDir) {
+        this.memoryBudget = memoryBudget > 0 ? memoryBudget : Long.MAX_VALUE;
+        this.lowWaterMark = memoryBudget > 0 ? memoryBudget * LOW_WATER_MARK_PERCENT / 100 : Long.MAX_VALUE;
+        this.spillDir = spillDir;
+    }
+
+    public static TbPendingMsgBuffer forRuleNode(TbContext ctx) {
+        String baseDir = ctx.getPendingMsgsSpillDir();
+        Path spillDir = StringUtils.isNotBlank(baseDir) ? Path.of(baseDir) : Path.of(System.getProperty("java.io.tmpdir"), DEFAULT_SPILL_DIR);
+        spillDir = spillDir.resolve(ctx.getTenantId().getId().toString()).resolve(ctx.getSelfId().getId().toString());
+        return new TbPendingMsgBuffer(ctx.getPendingMsgsMemoryBudget(), spillDir);
+    }
+
+    public static long getTickInterval(TbContext ctx) {
+        long tickInterval = ctx.getPendingMsgsTickInterval();
+        return tickInterval > 0 ? tickInterval : DEFAULT_TICK_INTERVAL_MS;
+    }
+
+    public void add(EntityId key, long dueTs, TbMsg msg) {
+        PendingMsgs msgs = pendingMsgs.computeIfAbsent(key, k -> new PendingMsgs());
+        SerializedMsg serializedMsg = new SerializedMsg(dueTs, msg.getQueueName(), TbMsg.toByteArray(msg));
+        msgs.add(serializedMsg);
+        msgs.memorySize += serializedMsg.memorySize();
+        memoryUsage += serializedMsg.memorySize();
+        if (msgs.count == 0 || dueTs < msgs.dueTs) {
+            if (msgs.count > 0) {
+                removeFromIndex(key, msgs.dueTs);
+            }
+            msgs.dueTs = dueTs;
+            dueIndex.computeIfAbsent(dueTs, ts -> new HashSet<>()).add(key);
+        }
+        msgs.count++;
+        size++;
+        if (memoryUsage > memoryBudget) {
+            spill();
+        }
+    }
+
+    /**
+     * Returns the keys that have at least one message with due time less or equal to the given time.
+     */
+    public List<EntityId> getDueKeys(long ts) {
+        List<EntityId> keys = new ArrayList<>();
+        dueIndex.headMap(ts, true).values().forEach(keys::addAll);
+        return keys;
+    }
+
+    /**
+     * Removes all the messages of the key from the buffer.
+     */
+    public List<PendingMsg> take(EntityId key) {
+        return take(key, Long.MAX_VALUE);
+    }
+
+    /**
+     * Removes the messages of the key with due time less or equal to the given one from the buffer,
+     * in the order of their due time. The rest of the messages stay in the buffer as they are.
+     */
+    public List<PendingMsg> take(EntityId key, long maxDueTs) {
+        PendingMsgs msgs = pendingMsgs.get(key);
+        if (msgs == null) {
+            return Collections.emptyList();
+        }
+        if (msgs.spilled) {
+            load(key, msgs);
+        }
+        int dueCount = 0;
+        while (dueCount < msgs.msgs.size() && msgs.msgs.get(dueCount).dueTs() <= maxDueTs) {
+            dueCount++;
+        }
+        List<PendingMsg> result = new ArrayList<>(dueCount);
+        if (dueCount > 0) {
+            List<SerializedMsg> due = msgs.msgs.subList(0, dueCount);
+            long dueSize = 0;
+            for (SerializedMsg msg : due) {
+                result.add(msg.deserialize());
+                dueSize += msg.memorySize();
+            }
+            due.clear();
+            removeFromIndex(key, msgs.dueTs);
+            msgs.count -= dueCount;
+            msgs.memorySize -= dueSize;
+            size -= dueCount;
+            memoryUsage -= dueSize;
+            if (msgs.count > 0) {
+                msgs.dueTs = msgs.msgs.get(0).dueTs();
+                dueIndex.computeIfAbsent(msgs.dueTs, ts -> new HashSet<>()).add(key);
+            } else {
+                pendingMsgs.remove(key);
+            }
+        }
+        if (memoryUsage > memoryBudget) {
+            spill();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the earliest due time of the buffered messages or {@link Long#MAX_VALUE} if the buffer is empty.
+     */
+    public long getNextDueTs() {
+        return dueIndex.isEmpty() ? Long.MAX_VALUE : dueIndex.firstKey();
+    }
+
+    public int size(EntityId key) {
+        PendingMsgs msgs = pendingMsgs.get(key);
+        return msgs != null ? msgs.count : 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    long getMemoryUsage() {
+        return memoryUsage;
+    }
+
+    /**
+     * Loads the index of the messages persisted by the previous instance of the rule node.
+     */
+    public void restore() {
+        if (spillDir == null || !Files.isDirectory(spillDir)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spillDir)) {
+            for (Path file : files) {
+                EntityId key = parseKey(file.getFileName().toString());
+                if (key == null || pendingMsgs.containsKey(key)) {
+                    continue;
+                }
+                List<SerializedMsg> restored = new ArrayList<>();
+                try {
+                    readSpillFile(file, restored);
+                } catch (IOException e) {
+                    log.warn("[{}] Failed to restore pending msgs from the spill file {}", key, file, e);
+                    deleteQuietly(file);
+                    continue;
+                }
+                if (restored.isEmpty()) {
+                    deleteQuietly(file);
+                    continue;
+                }
+                PendingMsgs msgs = new PendingMsgs();
+                msgs.spilled = true;
+                msgs.count = restored.size();
+                msgs.dueTs = restored.stream().mapToLong(SerializedMsg::dueTs).min().getAsLong();
+                pendingMsgs.put(key, msgs);
+                dueIndex.computeIfAbsent(msgs.dueTs, ts -> new HashSet<>()).add(key);
+                size += msgs.count;
+            }
+        } catch (IOException e) {
+            log.warn("Failed to restore pending msgs from {}", spillDir, e);
+        }
+        if (size > 0) {
+            log.info("Restored {} pending msgs from {}", size, spillDir);
+        }
+    }
+
+    /**
+     * Writes the messages kept on heap to the spill files and releases the buffer.
+     * The next instance of the rule node picks up all the pending messages with {@link #restore()}.
+     */
+    public void close() {
+        if (spillDir != null) {
+            for (Map.Entry<EntityId, PendingMsgs> entry : pendingMsgs.entrySet()) {
+                PendingMsgs msgs = entry.getValue();
+                if (!msgs.msgs.isEmpty()) {
+                    try {
+                        writeSpillFile(entry.getKey(), msgs.msgs);
+                    } catch (IOException e) {
+                        log.warn("[{}] Failed to persist {} pending msgs to {}", entry.getKey(), msgs.msgs.size(), spillDir, e);
+                    }
+                }
+            }
+        } else if (memoryUsage > 0) {
+            log.warn("Dropping pending msgs kept in memory: spill directory is not configured");
+        }
+        clear();
+    }
+
+    /**
+     * Drops all the pending messages including the spill files. Used when the rule node is deleted for good.
+     */
+    public void delete() {
+        clear();
+        if (spillDir == null || !Files.isDirectory(spillDir)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spillDir)) {
+            for (Path file : files) {
+                deleteQuietly(file);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to delete pending msgs from {}", spillDir, e);
+        }
+        deleteQuietly(spillDir);
+        // the tenant directory goes away with the last rule node of the tenant
+        try {
+            Files.deleteIfExists(spillDir.getParent());
+        } catch (DirectoryNotEmptyException ignored) {
+        } catch (IOException e) {
+            log.debug("Failed to delete spill directory {}", spillDir.getParent(), e);
+        }
+    }
+
+    private void clear() {
+        pendingMsgs.clear();
+        dueIndex.clear();
+        memoryUsage = 0;
+        size = 0;
+    }
+
+    private void load(EntityId key, PendingMsgs msgs) {
+        Path file = getSpillFile(key);
+        List<SerializedMsg> loaded = new ArrayList<>(msgs.count);
+        try {
+            readSpillFile(file, loaded);
+        } catch (IOException e) {
+            log.warn("[{}] Failed to read pending msgs from the spill file {}", key, file, e);
+        } finally {
+            deleteQuietly(file);
+        }
+        long loadedSize = 0;
+        for (SerializedMsg msg : loaded) {
+            loadedSize += msg.memorySize();
+        }
+        loaded.addAll(msgs.msgs);
+        loaded.sort(Comparator.comparingLong(SerializedMsg::dueTs));
+        int lost = msgs.count - loaded.size();
+        msgs.msgs = loaded;
+        msgs.spilled = false;
+        msgs.count -= lost;
+        msgs.memorySize += loadedSize;
+        size -= lost;
+        memoryUsage += loadedSize;
+    }
+
+    private void spill() {
+        if (spillDir == null) {
+            return;
+        }
+        // the keys that are due last are the least likely to be needed soon
+        Iterator<Set<EntityId>> iterator = dueIndex.descendingMap().values().iterator();
+        while (memoryUsage > lowWaterMark && iterator.hasNext()) {
+            for (EntityId key : iterator.next()) {
+                PendingMsgs msgs = pendingMsgs.get(key);
+                if (msgs.msgs.isEmpty()) {
+                    continue;
+                }
+                try {
+                    writeSpillFile(key, msgs.msgs);
+                } catch (IOException e) {
+                    log.warn("[{}] Failed to spill pending msgs to {}", key, spillDir, e);
+                    return;
+                }
+                memoryUsage -= msgs.memorySize;
+                msgs.memorySize = 0;
+                msgs.msgs = new ArrayList<>();
+                msgs.spilled = true;
+                if (memoryUsage <= lowWaterMark) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void writeSpillFile(EntityId key, List<SerializedMsg> msgs) throws IOException {
+        Files.createDirectories(spillDir);
+        try {
+            doWriteSpillFile(key, msgs);
+        } catch (NoSuchFileException e) {
+            // the tenant directory is removed concurrently by the deletion of the last rule node of the tenant
+            Files.createDirectories(spillDir);
+            doWriteSpillFile(key, msgs);
+        }
+    }
+
+    private void doWriteSpillFile(EntityId key, List<SerializedMsg> msgs) throws IOException {
+        try (OutputStream os = Files.newOutputStream(getSpillFile(key), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+            for (SerializedMsg msg : msgs) {
+                out.writeLong(msg.dueTs());
+                out.writeUTF(msg.queueName() != null ? msg.queueName() : "");
+                out.writeInt(msg.bytes().length);
+                out.write(msg.bytes());
+            }
+        }
+    }
+
+    private static void readSpillFile(Path file, List<SerializedMsg> msgs) throws IOException {
+        try (InputStream is = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(is))) {
+            while (true) {
+                long dueTs;
+                try {
+                    dueTs = in.readLong();
+                } catch (EOFException e) {
+                    break;
+                }
+                String queueName = in.readUTF();
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                msgs.add(new SerializedMsg(dueTs, queueName.isEmpty() ? null : queueName, bytes));
+            }
+        }
+    }
+
+    private void removeFromIndex(EntityId key, long dueTs) {
+        Set<EntityId> keys = dueIndex.get(dueTs);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                dueIndex.remove(dueTs);
+            }
+        }
+    }
+
+    private Path getSpillFile(EntityId key) {
+        return spillDir.resolve(key.getEntityType().name() + KEY_SEPARATOR + key.getId());
+    }
+
+    private static EntityId parseKey(String fileName) {
+        int idx = fileName.lastIndexOf(KEY_SEPARATOR);
+        if (idx <= 0) {
+            return null;
+        }
+        try {
+            return EntityIdFactory.getByTypeAndUuid(fileName.substring(0, idx), UUID.fromString(fileName.substring(idx + 1)));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Failed to delete spill file {}", file, e);
+        }
+    }
+
+    public record PendingMsg(long dueTs, TbMsg msg) {
+    }
+
+    private record SerializedMsg(long dueTs, String queueName, byte[] bytes) {
+
+        long memorySize() {
+            return MSG_OVERHEAD_BYTES + bytes.length;
+        }
+
+        PendingMsg deserialize() {
+            return new PendingMsg(dueTs, TbMsg.fromBytes(queueName, bytes, TbMsgCallback.EMPTY));
+        }
+
+    }
+
+    private static class PendingMsgs {
+
+        // the msgs that are not written to the spill file yet, ordered by due time
+        private List<SerializedMsg> msgs = new ArrayList<>();
+        private boolean spilled;
+        private long memorySize;
+        private long dueTs;
+        private int count;
+
+        private void add(SerializedMsg msg) {
+            // the msgs mostly arrive in the order of their due time, so the position is found from the tail
+            int idx = msgs.size();
+            while (idx > 0 && msgs.get(idx - 1).dueTs() > msg.dueTs()) {
+                idx--;
+            }
+            msgs.add(idx, msg);
+        }
+
+    }
+
+}
@@ -16,6 +16,7 @@
 package org.thingsboard.rule.engine.profile;
 
 import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -39,6 +40,7 @@ import org.thingsboard.server.common.data.device.profile.DeviceProfileData;
 import org.thingsboard.server.common.data.device.profile.SimpleAlarmConditionSpec;
 import org.thingsboard.server.common.data.id.AlarmId;
 import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.kv.AttributeKvEntry;
 import org.thingsboard.server.common.data.msg.TbMsgType;
 import org.thingsboard.server.common.data.query.BooleanFilterPredicate;
 import org.thingsboard.server.common.data.query.EntityKeyValueType;
@@ -55,6 +57,8 @@ import java.util.TreeMap;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -146,6 +150,29 @@ public class DeviceStateTest {
         });
     }
 
+    @Test
+    public void whenProfileUpdateAddsKeys_thenSnapshotIsNotLoadedUntilNewKeysAreFetched() throws Exception {
+        DeviceId deviceId = new DeviceId(UUID.randomUUID());
+        DeviceState deviceState = createDeviceState(deviceId, createAlarmConfigWithBoolAttrCondition("enabled", false));
+        deviceState.process(ctx, TbMsg.newMsg(TbMsgType.POST_ATTRIBUTES_REQUEST, deviceId, TbMsgMetaData.EMPTY, "{ \"enabled\": true }"));
+        assertTrue(deviceState.isLatestValuesLoaded());
+
+        SettableFuture<List<AttributeKvEntry>> attributesFuture = SettableFuture.create();
+        when(ctx.getAttributesService().find(any(), any(), any(AttributeScope.class), anyCollection())).thenReturn(attributesFuture);
+        DeviceProfile updatedProfile = new DeviceProfile();
+        DeviceProfileData profileData = new DeviceProfileData();
+        profileData.setAlarms(List.of(createAlarmConfigWithBoolAttrCondition("other", false)));
+        updatedProfile.setProfileData(profileData);
+
+        deviceState.updateProfile(ctx, updatedProfile);
+        assertFalse(deviceState.isLatestValuesLoaded());
+        assertFalse(deviceState.isLatestValuesFetchDone());
+
+        attributesFuture.set(Collections.emptyList());
+        assertTrue(deviceState.isLatestValuesFetchDone());
+        deviceState.onLatestValuesFetched();
+        assertTrue(deviceState.isLatestValuesLoaded());
+    }
 
     private DeviceState createDeviceState(DeviceId deviceId, DeviceProfileAlarm... alarmConfigs) {
         DeviceProfile deviceProfile = new DeviceProfile();
@@ -18,9 +18,11 @@ package org.thingsboard.rule.engine.profile;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.provider.Arguments;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.Spy;
@@ -58,6 +60,7 @@ import org.thingsboard.server.common.data.id.DeviceId;
 import org.thingsboard.server.common.data.id.DeviceProfileId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.kv.AttributeKvEntry;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
 import org.thingsboard.server.common.data.msg.TbMsgType;
 import org.thingsboard.server.common.data.query.BooleanFilterPredicate;
 import org.thingsboard.server.common.data.query.DynamicValue;
@@ -86,6 +89,7 @@ import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
@@ -224,6 +228,128 @@ public class TbDeviceProfileNodeTest extends AbstractRuleNodeUpgradeTest {
 
     }
 
+    @Test
+    public void testAlarmCreateWhenDataSnapshotIsLoadedAsynchronously() throws Exception {
+        init();
+
+        DeviceProfile deviceProfile = new DeviceProfile();
+        DeviceProfileData deviceProfileData = new DeviceProfileData();
+
+        AlarmConditionFilter highTempFilter = new AlarmConditionFilter();
+        highTempFilter.setKey(new AlarmConditionFilterKey(AlarmConditionKeyType.TIME_SERIES, "temperature"));
+        highTempFilter.setValueType(EntityKeyValueType.NUMERIC);
+        NumericFilterPredicate highTemperaturePredicate = new NumericFilterPredicate();
+        highTemperaturePredicate.setOperation(NumericFilterPredicate.NumericOperation.GREATER);
+        highTemperaturePredicate.setValue(new FilterPredicateValue<>(30.0));
+        highTempFilter.setPredicate(highTemperaturePredicate);
+        AlarmCondition alarmCondition = new AlarmCondition();
+        alarmCondition.setCondition(Collections.singletonList(highTempFilter));
+        AlarmRule alarmRule = new AlarmRule();
+        alarmRule.setCondition(alarmCondition);
+        DeviceProfileAlarm dpa = new DeviceProfileAlarm();
+        dpa.setId("highTemperatureAlarmID");
+        dpa.setAlarmType("highTemperatureAlarm");
+        dpa.setCreateRules(new TreeMap<>(Collections.singletonMap(AlarmSeverity.CRITICAL, alarmRule)));
+
+        deviceProfileData.setAlarms(Collections.singletonList(dpa));
+        deviceProfile.setProfileData(deviceProfileData);
+
+        SettableFuture<List<TsKvEntry>> latestFuture = SettableFuture.create();
+        Mockito.when(cache.get(tenantId, deviceId)).thenReturn(deviceProfile);
+        Mockito.when(timeseriesService.findLatest(tenantId, deviceId, Collections.singleton("temperature"))).thenReturn(latestFuture);
+
+        ObjectNode data = JacksonUtil.newObjectNode();
+        data.put("temperature", 42);
+        TbMsg msg = TbMsg.newMsg(TbMsgType.POST_TELEMETRY_REQUEST, deviceId, TbMsgMetaData.EMPTY,
+                TbMsgDataType.JSON, JacksonUtil.toString(data), null, null);
+        ObjectNode data2 = JacksonUtil.newObjectNode();
+        data2.put("temperature", 20);
+        TbMsg msg2 = TbMsg.newMsg(TbMsgType.POST_TELEMETRY_REQUEST, deviceId, TbMsgMetaData.EMPTY,
+                TbMsgDataType.JSON, JacksonUtil.toString(data2), null, null);
+        node.onMsg(ctx, msg);
+        node.onMsg(ctx, msg2);
+        verify(ctx, Mockito.never()).tellSuccess(any());
+        // only the alarm harvesting is scheduled by init(), the snapshot loaded msg is not sent yet
+        verify(ctx, Mockito.never()).tellSelf(any(), eq(0L));
+
+        Mockito.when(alarmService.findLatestActiveByOriginatorAndType(tenantId, deviceId, "highTemperatureAlarm")).thenReturn(null);
+        registerCreateAlarmMock(alarmService.createAlarm(any()), true);
+        TbMsg theMsg = TbMsg.newMsg(TbMsgType.ALARM, deviceId, TbMsgMetaData.EMPTY, TbMsg.EMPTY_STRING);
+        when(ctx.newMsg(any(), any(TbMsgType.class), any(), any(), any(), Mockito.anyString())).thenReturn(theMsg);
+
+        latestFuture.set(Collections.emptyList());
+        ArgumentCaptor<TbMsg> loadedMsgCaptor = ArgumentCaptor.forClass(TbMsg.class);
+        verify(ctx).tellSelf(loadedMsgCaptor.capture(), eq(0L));
+        TbMsg loadedMsg = loadedMsgCaptor.getValue();
+        assertThat(loadedMsg.isTypeOf(TbMsgType.DEVICE_PROFILE_SNAPSHOT_LOADED_SELF_MSG)).isTrue();
+
+        node.onMsg(ctx, loadedMsg);
+        verify(ctx).tellSuccess(msg);
+        verify(ctx).tellSuccess(msg2);
+        verify(ctx).enqueueForTellNext(theMsg, "Alarm Created");
+        verify(ctx, Mockito.never()).tellFailure(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void testDataSnapshotsOfDevicesSeenWhileLoadingAreFetchedTogether() throws Exception {
+        init();
+
+        DeviceProfile deviceProfile = new DeviceProfile();
+        DeviceProfileData deviceProfileData = new DeviceProfileData();
+        AlarmConditionFilter highTempFilter = new AlarmConditionFilter();
+        highTempFilter.setKey(new AlarmConditionFilterKey(AlarmConditionKeyType.TIME_SERIES, "temperature"));
+        highTempFilter.setValueType(EntityKeyValueType.NUMERIC);
+        NumericFilterPredicate highTemperaturePredicate = new NumericFilterPredicate();
+        highTemperaturePredicate.setOperation(NumericFilterPredicate.NumericOperation.GREATER);
+        highTemperaturePredicate.setValue(new FilterPredicateValue<>(30.0));
+        highTempFilter.setPredicate(highTemperaturePredicate);
+        AlarmCondition alarmCondition = new AlarmCondition();
+        alarmCondition.setCondition(Collections.singletonList(highTempFilter));
+        AlarmRule alarmRule = new AlarmRule();
+        alarmRule.setCondition(alarmCondition);
+        DeviceProfileAlarm dpa = new DeviceProfileAlarm();
+        dpa.setId("highTemperatureAlarmID");
+        dpa.setAlarmType("highTemperatureAlarm");
+        dpa.setCreateRules(new TreeMap<>(Collections.singletonMap(AlarmSeverity.CRITICAL, alarmRule)));
+        deviceProfileData.setAlarms(Collections.singletonList(dpa));
+        deviceProfile.setProfileData(deviceProfileData);
+
+        DeviceId secondDeviceId = new DeviceId(UUID.randomUUID());
+        DeviceId thirdDeviceId = new DeviceId(UUID.randomUUID());
+        SettableFuture<List<TsKvEntry>> latestFuture = SettableFuture.create();
+        Mockito.when(cache.get(eq(tenantId), any(DeviceId.class))).thenReturn(deviceProfile);
+        Mockito.when(timeseriesService.findLatest(tenantId, deviceId, Collections.singleton("temperature"))).thenReturn(latestFuture);
+        Mockito.when(timeseriesService.findLatestByEntityIds(tenantId, List.of(secondDeviceId, thirdDeviceId), Collections.singleton("temperature")))
+                .thenReturn(Futures.immediateFuture(Collections.emptyMap()));
+
+        ObjectNode data = JacksonUtil.newObjectNode();
+        data.put("temperature", 20);
+        List<TbMsg> msgs = Stream.of(deviceId, secondDeviceId, thirdDeviceId, secondDeviceId)
+                .map(id -> TbMsg.newMsg(TbMsgType.POST_TELEMETRY_REQUEST, id, TbMsgMetaData.EMPTY, TbMsgDataType.JSON, JacksonUtil.toString(data), null, null))
+                .toList();
+        for (TbMsg msg : msgs) {
+            node.onMsg(ctx, msg);
+        }
+        ArgumentCaptor<TbMsg> selfMsgCaptor = ArgumentCaptor.forClass(TbMsg.class);
+        verify(ctx).tellSelf(selfMsgCaptor.capture(), eq(0L));
+        assertThat(selfMsgCaptor.getValue().isTypeOf(TbMsgType.DEVICE_PROFILE_SNAPSHOT_FETCH_SELF_MSG)).isTrue();
+        verify(ctx, Mockito.never()).tellSuccess(any());
+
+        node.onMsg(ctx, selfMsgCaptor.getValue());
+        latestFuture.set(Collections.emptyList());
+        verify(ctx, Mockito.times(4)).tellSelf(selfMsgCaptor.capture(), eq(0L));
+        List<TbMsg> loadedMsgs = selfMsgCaptor.getAllValues().subList(2, 5);
+        assertThat(loadedMsgs).allMatch(msg -> msg.isTypeOf(TbMsgType.DEVICE_PROFILE_SNAPSHOT_LOADED_SELF_MSG));
+        for (TbMsg loadedMsg : loadedMsgs) {
+            node.onMsg(ctx, loadedMsg);
+        }
+
+        msgs.forEach(msg -> verify(ctx).tellSuccess(msg));
+        verify(timeseriesService, Mockito.never()).findLatest(eq(tenantId), eq(secondDeviceId), Mockito.anyCollection());
+        verify(timeseriesService, Mockito.never()).findLatest(eq(tenantId), eq(thirdDeviceId), Mockito.anyCollection());
+        verify(ctx, Mockito.never()).tellFailure(Mockito.any(), Mockito.any());
+    }
+
     @Test
     public void testAlarmSeverityUpdate() throws Exception {
         init();
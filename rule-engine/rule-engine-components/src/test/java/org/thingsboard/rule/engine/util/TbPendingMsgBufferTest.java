@@ -0,0 +1,195 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.thingsboard.rule.engine.util.TbPendingMsgBuffer.PendingMsg;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.msg.TbMsgType;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TbPendingMsgBufferTest {
+
+    @TempDir
+    Path spillDir;
+
+    private final DeviceId firstDeviceId = new DeviceId(UUID.randomUUID());
+    private final DeviceId secondDeviceId = new DeviceId(UUID.randomUUID());
+
+    @Test
+    public void givenMsgs_whenGetDueKeys_thenReturnsOnlyKeysWithDueMsgs() {
+        TbPendingMsgBuffer buffer = new TbPendingMsgBuffer(0, spillDir);
+        buffer.add(firstDeviceId, 100, newMsg(firstDeviceId));
+        buffer.add(firstDeviceId, 300, newMsg(firstDeviceId));
+        buffer.add(secondDeviceId, 200, newMsg(secondDeviceId));
+
+        assertThat(buffer.size()).isEqualTo(3);
+        assertThat(buffer.size(firstDeviceId)).isEqualTo(2);
+        assertThat(buffer.getNextDueTs()).isEqualTo(100);
+        assertThat(buffer.getDueKeys(99)).isEmpty();
+        assertThat(buffer.getDueKeys(150)).containsExactly(firstDeviceId);
+
+        List<PendingMsg> msgs = buffer.take(firstDeviceId);
+        assertThat(msgs).extracting(PendingMsg::dueTs).containsExactly(100L, 300L);
+        assertThat(buffer.size()).isEqualTo(1);
+        assertThat(buffer.getNextDueTs()).isEqualTo(200);
+    }
+
+    @Test
+    public void givenMemoryBudgetExceeded_whenAdd_thenSpillsLatestDueKeysToDisk() {
+        TbPendingMsgBuffer buffer = new TbPendingMsgBuffer(1, spillDir);
+        TbMsg first = newMsg(firstDeviceId);
+        TbMsg second = newMsg(secondDeviceId);
+        buffer.add(firstDeviceId, 100, first);
+        buffer.add(secondDeviceId, 200, second);
+
+        assertThat(buffer.getMemoryUsage()).isZero();
+        assertThat(buffer.size()).isEqualTo(2);
+
+        List<PendingMsg> msgs = buffer.take(secondDeviceId);
+        assertThat(msgs).hasSize(1);
+        assertThat(msgs.get(0).dueTs()).isEqualTo(200);
+        assertThat(msgs.get(0).msg().getId()).isEqualTo(second.getId());
+        assertThat(msgs.get(0).msg().getData()).isEqualTo(second.getData());
+        assertThat(msgs.get(0).msg().getQueueName()).isEqualTo(second.getQueueName());
+        assertThat(spillDir.toFile().list()).hasSize(1);
+    }
+
+    @Test
+    public void givenSpilledMsgs_whenRestore_thenNewBufferPicksThemUp() {
+        TbPendingMsgBuffer buffer = new TbPendingMsgBuffer(1, spillDir);
+        buffer.add(firstDeviceId, 100, newMsg(firstDeviceId));
+        buffer.add(firstDeviceId, 50, newMsg(firstDeviceId));
+        buffer.close();
+
+        TbPendingMsgBuffer restored = new TbPendingMsgBuffer(1, spillDir);
+        restored.restore();
+
+        assertThat(restored.size(firstDeviceId)).isEqualTo(2);
+        assertThat(restored.getDueKeys(50)).containsExactly(firstDeviceId);
+        assertThat(restored.take(firstDeviceId)).extracting(PendingMsg::dueTs).containsExactlyInAnyOrder(100L, 50L);
+        assertThat(spillDir.toFile().list()).isEmpty();
+    }
+
+    @Test
+    public void givenMsgsInMemory_whenClose_thenNewBufferRestoresThem() {
+        TbPendingMsgBuffer buffer = new TbPendingMsgBuffer(0, spillDir);
+        TbMsg msg = newMsg(firstDeviceId);
+        buffer.add(firstDeviceId, 100, msg);
+        buffer.add(secondDeviceId, 200, newMsg(secondDeviceId));
+        assertThat(spillDir.toFile().list()).isEmpty();
+        buffer.close();
+
+        TbPendingMsgBuffer restored = new TbPendingMsgBuffer(0, spillDir);
+        restored.restore();
+
+        assertThat(restored.size()).isEqualTo(2);
+        List<PendingMsg> msgs = restored.take(firstDeviceId);
+        assertThat(msgs).hasSize(1);
+        assertThat(msgs.get(0).dueTs()).isEqualTo(100);
+        assertThat(msgs.get(0).msg().getId()).isEqualTo(msg.getId());
+    }
+
+    @Test
+    public void givenSpilledKey_whenAdd_thenMsgIsBufferedUntilNextSpill() {
+        TbPendingMsgBuffer unlimited = new TbPendingMsgBuffer(0, spillDir);
+        unlimited.add(firstDeviceId, 100, newMsg(firstDeviceId));
+        long msgSize = unlimited.getMemoryUsage();
+        // the budget fits two msgs, the spill goes down to one msg
+        TbPendingMsgBuffer buffer = new TbPendingMsgBuffer(msgSize * 2, spillDir);
+        buffer.add(firstDeviceId, 100, newMsg(firstDeviceId));
+        buffer.add(secondDeviceId, 200, newMsg(secondDeviceId));
+        buffer.add(secondDeviceId, 300, newMsg(secondDeviceId));
+        assertThat(buffer.getMemoryUsage()).isEqualTo(msgSize);
+        File spillFile = spillDir.resolve("DEVICE_" + secondDeviceId.getId()).toFile();
+        long spillFileSize = spillFile.length();
+        assertThat(spillFileSize).isPositive();
+
+        buffer.add(secondDeviceId, 400, newMsg(secondDeviceId));
+        assertThat(spillFile.length()).isEqualTo(spillFileSize);
+        assertThat(buffer.getMemoryUsage()).isEqualTo(msgSize * 2);
+
+        assertThat(buffer.take(secondDeviceId)).extracting(PendingMsg::dueTs).containsExactly(200L, 300L, 400L);
+        assertThat(spillFile).doesNotExist();
+        assertThat(buffer.getMemoryUsage()).isEqualTo(msgSize);
+    }
+
+    @Test
+    public void givenMsgsWithDifferentDueTs_whenTakeDue_thenNotDueMsgsStayInBuffer() {
+        TbPendingMsgBuffer buffer = new TbPendingMsgBuffer(0, spillDir);
+        buffer.add(firstDeviceId, 300, newMsg(firstDeviceId));
+        long msgSize = buffer.getMemoryUsage();
+        buffer.add(firstDeviceId, 100, newMsg(firstDeviceId));
+        buffer.add(firstDeviceId, 200, newMsg(firstDeviceId));
+
+        assertThat(buffer.take(firstDeviceId, 50)).isEmpty();
+        assertThat(buffer.take(firstDeviceId, 200)).extracting(PendingMsg::dueTs).containsExactly(100L, 200L);
+
+        assertThat(buffer.size(firstDeviceId)).isEqualTo(1);
+        assertThat(buffer.getMemoryUsage()).isEqualTo(msgSize);
+        assertThat(buffer.getNextDueTs()).isEqualTo(300);
+        assertThat(buffer.getDueKeys(299)).isEmpty();
+        assertThat(buffer.take(firstDeviceId, 300)).extracting(PendingMsg::dueTs).containsExactly(300L);
+        assertThat(buffer.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void givenSpilledKey_whenTakeDue_thenNotDueMsgsAreSpilledBack() {
+        TbPendingMsgBuffer buffer = new TbPendingMsgBuffer(1, spillDir);
+        buffer.add(firstDeviceId, 200, newMsg(firstDeviceId));
+        buffer.add(firstDeviceId, 100, newMsg(firstDeviceId));
+        assertThat(buffer.getMemoryUsage()).isZero();
+
+        assertThat(buffer.take(firstDeviceId, 150)).extracting(PendingMsg::dueTs).containsExactly(100L);
+
+        assertThat(buffer.getMemoryUsage()).isZero();
+        assertThat(buffer.size()).isEqualTo(1);
+        assertThat(buffer.getNextDueTs()).isEqualTo(200);
+        assertThat(buffer.take(firstDeviceId)).extracting(PendingMsg::dueTs).containsExactly(200L);
+        assertThat(spillDir.toFile().list()).isEmpty();
+    }
+
+    @Test
+    public void givenPendingMsgs_whenDelete_thenSpillDirsAreRemoved() {
+        Path tenantDir = spillDir.resolve("tenant");
+        TbPendingMsgBuffer buffer = new TbPendingMsgBuffer(1, tenantDir.resolve("node"));
+        buffer.add(firstDeviceId, 100, newMsg(firstDeviceId));
+        buffer.add(secondDeviceId, 200, newMsg(secondDeviceId));
+        assertThat(tenantDir.resolve("node").toFile().list()).hasSize(2);
+
+        buffer.delete();
+
+        assertThat(buffer.isEmpty()).isTrue();
+        assertThat(tenantDir).doesNotExist();
+        TbPendingMsgBuffer restored = new TbPendingMsgBuffer(1, tenantDir.resolve("node"));
+        restored.restore();
+        assertThat(restored.isEmpty()).isTrue();
+    }
+
+    private static TbMsg newMsg(DeviceId deviceId) {
+        return TbMsg.newMsg("Main", TbMsgType.POST_TELEMETRY_REQUEST, deviceId, TbMsgMetaData.EMPTY, "{\"temperature\":42}");
+    }
+
+}
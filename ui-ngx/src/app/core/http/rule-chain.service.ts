@@ -41,7 +41,7 @@ import { componentTypeBySelector, ResourcesService } from '../services/resources
 import { catchError, map, mergeMap } from 'rxjs/operators';
 import { TranslateService } from '@ngx-translate/core';
 import { deepClone, snakeCase } from '@core/utils';
-import { DebugRuleNodeEventBody } from '@app/shared/models/event.models';
+import { DebugRuleNodeEventBody, Event } from '@app/shared/models/event.models';
 import { Edge } from '@shared/models/edge.models';
 import { IModulesMap } from '@modules/common/modules-map.models';
 
@@ -172,6 +172,10 @@ export class RuleChainService {
     return this.http.get<DebugRuleNodeEventBody>(`/api/ruleNode/${ruleNodeId}/debugIn`, defaultHttpOptionsFromConfig(config));
   }
 
+  public getRuleNodeBufferedDebugEvents(ruleNodeId: string, config?: RequestConfig): Observable<Array<Event>> {
+    return this.http.get<Array<Event>>(`/api/ruleNode/${ruleNodeId}/debugEvents`, defaultHttpOptionsFromConfig(config));
+  }
+
   public testScript(inputParams: TestScriptInputParams, scriptLang?: ScriptLanguage, config?: RequestConfig): Observable<TestScriptResult> {
     let url = '/api/ruleChain/testScript';
     if (scriptLang) {
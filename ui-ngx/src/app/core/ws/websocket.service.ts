@@ -183,7 +183,11 @@ export abstract class WebsocketService<T extends WsSubscriber> implements WsServ
     this.dataStream.subscribe({
       next: (message: CmdUpdateMsg) => {
         this.ngZone.runOutsideAngular(() => {
-          this.onMessage(message);
+          if (Array.isArray(message)) {
+            (message as CmdUpdateMsg[]).forEach((msg) => this.onMessage(msg));
+          } else {
+            this.onMessage(message);
+          }
         });
       },
       error: (error) => {
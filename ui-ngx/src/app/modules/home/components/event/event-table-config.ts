@@ -28,9 +28,11 @@ import { DatePipe } from '@angular/common';
 import { MatDialog } from '@angular/material/dialog';
 import { EntityId } from '@shared/models/id/entity-id';
 import { EventService } from '@app/core/http/event.service';
+import { RuleChainService } from '@core/http/rule-chain.service';
 import { EventTableHeaderComponent } from '@home/components/event/event-table-header.component';
-import { EntityTypeResource } from '@shared/models/entity-type.models';
-import { fromEvent, Observable } from 'rxjs';
+import { EntityType, EntityTypeResource } from '@shared/models/entity-type.models';
+import { forkJoin, fromEvent, Observable, of } from 'rxjs';
+import { catchError, map } from 'rxjs/operators';
 import { PageData } from '@shared/models/page/page-data';
 import { Direction } from '@shared/models/page/sort-order';
 import { DialogService } from '@core/services/dialog.service';
@@ -76,6 +78,7 @@ export class EventTableConfig extends EntityTableConfig<Event, TimePageLink> {
   eventTypes: Array<EventType | DebugEventType>;
 
   constructor(private eventService: EventService,
+              private ruleChainService: RuleChainService,
               private dialogService: DialogService,
               private translate: TranslateService,
               private datePipe: DatePipe,
@@ -176,7 +179,35 @@ export class EventTableConfig extends EntityTableConfig<Event, TimePageLink> {
   }
 
   fetchEvents(pageLink: TimePageLink): Observable<PageData<Event>> {
-    return this.eventService.getFilterEvents(this.entityId, this.eventType, this.tenantId, this.filterParams, pageLink);
+    const events$ = this.eventService.getFilterEvents(this.entityId, this.eventType, this.tenantId, this.filterParams, pageLink);
+    if (this.entityId.entityType !== EntityType.RULE_NODE || this.eventType !== DebugEventType.DEBUG_RULE_NODE ||
+      pageLink.page > 0 || !isEqual(this.filterParams, {})) {
+      return events$;
+    }
+    // In the 'buffer' debug capture mode the rule engine keeps the latest debug events in memory and saves only the failures,
+    // so the buffered events are shown on top of the saved ones. The buffer is empty in the default 'persisted' mode.
+    const bufferedEvents$ = this.ruleChainService.getRuleNodeBufferedDebugEvents(this.entityId.id, {ignoreErrors: true}).pipe(
+      catchError(() => of([] as Array<Event>))
+    );
+    return forkJoin([events$, bufferedEvents$]).pipe(
+      map(([events, bufferedEvents]) => this.mergeBufferedEvents(events, bufferedEvents, pageLink))
+    );
+  }
+
+  private mergeBufferedEvents(events: PageData<Event>, bufferedEvents: Array<Event>, pageLink: TimePageLink): PageData<Event> {
+    const buffered = bufferedEvents.filter(event => (!pageLink.startTime || event.createdTime >= pageLink.startTime) &&
+      (!pageLink.endTime || event.createdTime <= pageLink.endTime));
+    if (!buffered.length) {
+      return events;
+    }
+    const ascending = pageLink.sortOrder?.property === 'createdTime' && pageLink.sortOrder.direction === Direction.ASC;
+    const data = [...buffered, ...events.data].sort((a, b) =>
+      ascending ? a.createdTime - b.createdTime : b.createdTime - a.createdTime);
+    return {
+      ...events,
+      data,
+      totalElements: events.totalElements + buffered.length
+    };
   }
 
   updateColumns(updateTableColumns: boolean = false): void {
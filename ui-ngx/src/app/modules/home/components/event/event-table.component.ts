@@ -31,6 +31,7 @@ import { EntityId } from '@shared/models/id/entity-id';
 import { EntitiesTableComponent } from '@home/components/entity/entities-table.component';
 import { EventTableConfig } from './event-table-config';
 import { EventService } from '@core/http/event.service';
+import { RuleChainService } from '@core/http/rule-chain.service';
 import { DialogService } from '@core/services/dialog.service';
 import { DebugEventType, EventBody, EventType } from '@shared/models/event.models';
 import { Overlay } from '@angular/cdk/overlay';
@@ -117,6 +118,7 @@ export class EventTableComponent implements OnInit, AfterViewInit, OnDestroy {
   private isEmptyData$: Subscription;
 
   constructor(private eventService: EventService,
+              private ruleChainService: RuleChainService,
               private dialogService: DialogService,
               private translate: TranslateService,
               private datePipe: DatePipe,
@@ -130,6 +132,7 @@ export class EventTableComponent implements OnInit, AfterViewInit, OnDestroy {
     this.dirtyValue = !this.activeValue;
     this.eventTableConfig = new EventTableConfig(
       this.eventService,
+      this.ruleChainService,
       this.dialogService,
       this.translate,
       this.datePipe,